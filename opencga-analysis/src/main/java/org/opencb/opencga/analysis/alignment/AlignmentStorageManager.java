@@ -56,6 +56,7 @@ import org.opencb.opencga.storage.core.StorageEngineFactory;
 import org.opencb.opencga.storage.core.alignment.AlignmentStorageEngine;
 import org.opencb.opencga.storage.core.alignment.iterators.AlignmentIterator;
 import org.opencb.opencga.storage.core.alignment.local.LocalAlignmentStorageEngine;
+import org.opencb.opencga.storage.core.config.StorageConfiguration;
 import org.opencb.opencga.storage.core.exceptions.StorageEngineException;
 
 import java.io.IOException;
@@ -77,11 +78,16 @@ public class AlignmentStorageManager extends StorageManager {
 
     private static final Map<String, String> statsMap = new HashMap<>();
 
+    // Shared by all the instances, so the opened readers and cached coverage are reused between requests.
+    // Rebuilt only if the alignment options change, as the local engine does not use any other configuration
+    private static AlignmentStorageEngine sharedAlignmentStorageEngine;
+    private static String sharedAlignmentOptions;
+
     public AlignmentStorageManager(CatalogManager catalogManager, StorageEngineFactory storageEngineFactory) {
         super(catalogManager, storageEngineFactory);
 
         // TODO: Create this alignmentStorageEngine by reflection
-        this.alignmentStorageEngine = new LocalAlignmentStorageEngine();
+        this.alignmentStorageEngine = getLocalAlignmentStorageEngine(storageConfiguration);
 
         initStatsMap();
     }
@@ -90,12 +96,37 @@ public class AlignmentStorageManager extends StorageManager {
         super(catalogManager, storageEngineFactory);
 
         // TODO: Create this alignmentStorageEngine by reflection
-        this.alignmentStorageEngine = new LocalAlignmentStorageEngine();
+        this.alignmentStorageEngine = getLocalAlignmentStorageEngine(storageConfiguration);
         this.jobId = jobId;
 
         initStatsMap();
     }
 
+    private AlignmentStorageEngine getLocalAlignmentStorageEngine(StorageConfiguration storageConfiguration) {
+        synchronized (AlignmentStorageManager.class) {
+            String alignmentOptions = storageConfiguration == null || storageConfiguration.getAlignment() == null
+                    ? new ObjectMap().toJson()
+                    : storageConfiguration.getAlignment().toJson();
+            if (sharedAlignmentStorageEngine == null || !sharedAlignmentOptions.equals(alignmentOptions)) {
+                if (sharedAlignmentStorageEngine != null) {
+                    // Release the readers of the previous configuration. Queries still running on it close their readers when done
+                    try {
+                        sharedAlignmentStorageEngine.close();
+                    } catch (Exception e) {
+                        logger.warn("Error closing the previous alignment storage engine", e);
+                    }
+                }
+                LocalAlignmentStorageEngine storageEngine = new LocalAlignmentStorageEngine();
+                if (storageConfiguration != null) {
+                    storageEngine.setConfiguration(storageConfiguration, "", "");
+                }
+                sharedAlignmentStorageEngine = storageEngine;
+                sharedAlignmentOptions = alignmentOptions;
+            }
+            return sharedAlignmentStorageEngine;
+        }
+    }
+
     //-------------------------------------------------------------------------
     // INDEX
     //-------------------------------------------------------------------------
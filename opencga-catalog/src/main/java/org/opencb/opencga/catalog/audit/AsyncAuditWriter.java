@@ -0,0 +1,276 @@
+/*
+ * Copyright 2015-2020 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencb.opencga.catalog.audit;
+
+import org.opencb.commons.datastore.core.ObjectMap;
+import org.opencb.opencga.catalog.db.api.AuditDBAdaptor;
+import org.opencb.opencga.catalog.exceptions.CatalogDBException;
+import org.opencb.opencga.core.config.Audit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes audit records in background.
+ *
+ * Records are buffered in a bounded queue, drained by a single writer thread that inserts them in batches.
+ * When the queue is full, the caller is either blocked until there is space, or the record is dropped,
+ * depending on the {@link Audit.OverflowPolicy}. Pending records are written on {@link #flush()} and {@link #close()}.
+ *
+ * The writer thread is only alive while there are records to write, and all the writers share one JVM shutdown hook
+ * that only references them weakly, so a writer that is never closed does not leak once it is idle.
+ */
+public class AsyncAuditWriter implements AutoCloseable {
+
+    private static final long POLL_TIMEOUT_MS = 1000;
+    private static final long IDLE_TIMEOUT_MS = 10000;
+    private static final long CLOSE_TIMEOUT_MS = 30000;
+    private static final int LOG_DROPPED_EVERY = 1000;
+
+    // Writers not closed yet, written on JVM shutdown
+    private static final Set<AsyncAuditWriter> OPEN_WRITERS = Collections.newSetFromMap(new WeakHashMap<>());
+    private static boolean shutdownHookRegistered = false;
+
+    private final AuditDBAdaptor auditDBAdaptor;
+    private final BlockingQueue<AuditRecord> queue;
+    private final int batchSize;
+    private final Audit.OverflowPolicy overflowPolicy;
+    // Guarded by this
+    private Thread writerThread;
+    // Records enqueued and not processed yet. Guarded by this
+    private long pending = 0;
+    private volatile boolean closed = false;
+
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong writeTimeNanos = new AtomicLong();
+    private final AtomicLong maxWriteTimeNanos = new AtomicLong();
+
+    private static Logger logger = LoggerFactory.getLogger(AsyncAuditWriter.class);
+
+    public AsyncAuditWriter(AuditDBAdaptor auditDBAdaptor, int queueSize, int batchSize, Audit.OverflowPolicy overflowPolicy) {
+        this.auditDBAdaptor = auditDBAdaptor;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueSize));
+        this.batchSize = Math.max(1, batchSize);
+        this.overflowPolicy = overflowPolicy == null ? Audit.OverflowPolicy.BLOCK : overflowPolicy;
+        register(this);
+    }
+
+    /**
+     * Enqueue an audit record to be written.
+     *
+     * @param auditRecord Audit record
+     */
+    public void write(AuditRecord auditRecord) {
+        if (closed) {
+            // Writer thread is stopped. Write synchronously
+            insert(Collections.singletonList(auditRecord));
+            return;
+        }
+        synchronized (this) {
+            pending++;
+            startWriterThread();
+        }
+        if (overflowPolicy == Audit.OverflowPolicy.DROP) {
+            if (!queue.offer(auditRecord)) {
+                processed(1);
+                long numDropped = dropped.incrementAndGet();
+                if (numDropped % LOG_DROPPED_EVERY == 1) {
+                    logger.warn("Audit queue is full. Dropped {} audit records so far. Last dropped: {}", numDropped, auditRecord);
+                }
+            }
+        } else {
+            try {
+                queue.put(auditRecord);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                processed(1);
+                insert(Collections.singletonList(auditRecord));
+            }
+        }
+    }
+
+    public void write(Collection<AuditRecord> auditRecords) {
+        for (AuditRecord auditRecord : auditRecords) {
+            write(auditRecord);
+        }
+    }
+
+    /**
+     * Wait until all the records enqueued so far are written.
+     */
+    public void flush() {
+        long timeout = System.currentTimeMillis() + CLOSE_TIMEOUT_MS;
+        synchronized (this) {
+            while (pending > 0 && System.currentTimeMillis() < timeout) {
+                try {
+                    wait(POLL_TIMEOUT_MS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    // Must be called holding the lock
+    private void startWriterThread() {
+        if (writerThread == null) {
+            writerThread = new Thread(this::run, "audit-writer");
+            writerThread.setDaemon(true);
+            writerThread.start();
+        }
+    }
+
+    private void run() {
+        List<AuditRecord> batch = new ArrayList<>(batchSize);
+        long lastWrite = System.currentTimeMillis();
+        while (true) {
+            try {
+                AuditRecord first = queue.poll(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    synchronized (this) {
+                        // Stop when idle. The thread is started again on the next write
+                        if (pending == 0 && (closed || System.currentTimeMillis() - lastWrite > IDLE_TIMEOUT_MS)) {
+                            writerThread = null;
+                            notifyAll();
+                            return;
+                        }
+                    }
+                    continue;
+                }
+                batch.add(first);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                synchronized (this) {
+                    writerThread = null;
+                }
+                return;
+            }
+            queue.drainTo(batch, batchSize - 1);
+            insert(batch);
+            processed(batch.size());
+            batch.clear();
+            lastWrite = System.currentTimeMillis();
+        }
+    }
+
+    private synchronized void processed(int numRecords) {
+        pending -= numRecords;
+        notifyAll();
+    }
+
+    private void insert(List<AuditRecord> batch) {
+        long start = System.nanoTime();
+        try {
+            if (batch.size() == 1) {
+                auditDBAdaptor.insertAuditRecord(batch.get(0));
+            } else {
+                auditDBAdaptor.insertAuditRecords(batch);
+            }
+            written.addAndGet(batch.size());
+        } catch (CatalogDBException | RuntimeException e) {
+            failed.addAndGet(batch.size());
+            logger.error("Could not write {} audit records -> Error: {}", batch.size(), e.getMessage(), e);
+        } finally {
+            long time = System.nanoTime() - start;
+            batches.incrementAndGet();
+            writeTimeNanos.addAndGet(time);
+            maxWriteTimeNanos.accumulateAndGet(time, Math::max);
+        }
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    synchronized boolean isWriterThreadAlive() {
+        return writerThread != null;
+    }
+
+    /**
+     * Summary of the writer activity. Includes the current queue depth, the number of written, dropped and failed records,
+     * and the time spent writing batches.
+     *
+     * @return ObjectMap with the writer stats
+     */
+    public ObjectMap getStats() {
+        long numBatches = batches.get();
+        return new ObjectMap()
+                .append("queueDepth", queue.size())
+                .append("queueCapacity", queue.size() + queue.remainingCapacity())
+                .append("written", written.get())
+                .append("dropped", dropped.get())
+                .append("failed", failed.get())
+                .append("batches", numBatches)
+                .append("avgWriteTimeMs", numBatches == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(writeTimeNanos.get()) / (double) numBatches)
+                .append("maxWriteTimeMs", TimeUnit.NANOSECONDS.toMillis(maxWriteTimeNanos.get()));
+    }
+
+    /**
+     * Stop accepting records in background and write all the pending records.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        flush();
+        synchronized (OPEN_WRITERS) {
+            OPEN_WRITERS.remove(this);
+        }
+        // Write anything left, in case the writer thread did not finish in time
+        List<AuditRecord> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            insert(batch);
+            processed(batch.size());
+            batch.clear();
+        }
+        logger.info("Audit writer closed. {}", getStats().toJson());
+    }
+
+    private static void register(AsyncAuditWriter writer) {
+        synchronized (OPEN_WRITERS) {
+            OPEN_WRITERS.add(writer);
+            if (!shutdownHookRegistered) {
+                // Do not lose the pending records if the JVM is stopped without closing the writers
+                Runtime.getRuntime().addShutdownHook(new Thread(AsyncAuditWriter::closeAll, "audit-writer-shutdown"));
+                shutdownHookRegistered = true;
+            }
+        }
+    }
+
+    private static void closeAll() {
+        List<AsyncAuditWriter> writers;
+        synchronized (OPEN_WRITERS) {
+            writers = new ArrayList<>(OPEN_WRITERS);
+        }
+        for (AsyncAuditWriter writer : writers) {
+            writer.close();
+        }
+    }
+}
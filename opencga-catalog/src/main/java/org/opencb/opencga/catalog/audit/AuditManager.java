@@ -24,12 +24,12 @@ import org.opencb.opencga.catalog.auth.authorization.AuthorizationManager;
 import org.opencb.opencga.catalog.db.DBAdaptorFactory;
 import org.opencb.opencga.catalog.db.api.AuditDBAdaptor;
 import org.opencb.opencga.catalog.exceptions.CatalogAuthorizationException;
-import org.opencb.opencga.catalog.exceptions.CatalogDBException;
 import org.opencb.opencga.catalog.exceptions.CatalogException;
 import org.opencb.opencga.catalog.managers.CatalogManager;
 import org.opencb.opencga.catalog.utils.UuidUtils;
 import org.opencb.opencga.core.common.GitRepositoryState;
 import org.opencb.opencga.core.common.TimeUtils;
+import org.opencb.opencga.core.config.Audit;
 import org.opencb.opencga.core.config.Configuration;
 import org.opencb.opencga.core.models.common.Enums;
 import org.opencb.opencga.core.response.OpenCGAResult;
@@ -37,19 +37,21 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Created on 18/08/15.
  *
  * @author Jacobo Coll &lt;jacobo167@gmail.com&gt;
  */
-public class AuditManager {
+public class AuditManager implements AutoCloseable {
 
     protected static Logger logger = LoggerFactory.getLogger(AuditManager.class);
 
     private final CatalogManager catalogManager;
     private final AuthorizationManager authorizationManager;
     private final AuditDBAdaptor auditDBAdaptor;
+    private final AsyncAuditWriter auditWriter;
 
     private final Map<String, List<AuditRecord>> auditRecordMap;
     private static final int MAX_BATCH_SIZE = 100;
@@ -59,21 +61,34 @@ public class AuditManager {
         this.catalogManager = catalogManager;
         this.authorizationManager = authorizationManager;
         this.auditDBAdaptor = catalogDBAdaptorFactory.getCatalogAuditDbAdaptor();
-        this.auditRecordMap = new HashMap<>();
+        this.auditRecordMap = new ConcurrentHashMap<>();
+        Audit audit = configuration.getAudit();
+        if (audit != null && audit.isAsync()) {
+            this.auditWriter = new AsyncAuditWriter(auditDBAdaptor, audit.getQueueSize(), audit.getBatchSize(),
+                    audit.getOverflowPolicy());
+        } else {
+            this.auditWriter = null;
+        }
     }
 
     public void audit(AuditRecord auditRecord) throws CatalogException {
-        auditDBAdaptor.insertAuditRecord(auditRecord);
+        if (auditWriter != null) {
+            auditWriter.write(auditRecord);
+        } else {
+            auditDBAdaptor.insertAuditRecord(auditRecord);
+        }
     }
 
     public void audit(List<AuditRecord> auditRecordList) throws CatalogException {
-        for (AuditRecord auditRecord : auditRecordList) {
-            auditDBAdaptor.insertAuditRecord(auditRecord);
+        if (auditWriter != null) {
+            auditWriter.write(auditRecordList);
+        } else {
+            auditDBAdaptor.insertAuditRecords(auditRecordList);
         }
     }
 
     public void initAuditBatch(String operationId) {
-        this.auditRecordMap.put(operationId, new LinkedList<>());
+        this.auditRecordMap.put(operationId, new ArrayList<>());
     }
 
     public void finishAuditBatch(String operationId) throws CatalogException {
@@ -82,9 +97,9 @@ public class AuditManager {
         }
         try {
             if (!this.auditRecordMap.get(operationId).isEmpty()) {
-                auditDBAdaptor.insertAuditRecords(this.auditRecordMap.get(operationId));
+                audit(this.auditRecordMap.get(operationId));
             }
-        } catch (CatalogDBException e) {
+        } catch (CatalogException e) {
             logger.error("Could not audit operation '{}' -> Error: {}", operationId, e.getMessage(), e);
         } finally {
             this.auditRecordMap.remove(operationId);
@@ -180,27 +195,56 @@ public class AuditManager {
         AuditRecord auditRecord = new AuditRecord(auditId, operationId, userId, apiVersion, action, resource, resourceId, resourceUuid,
                 studyId, studyUuid, params, status, date, attributes);
 
-        if (this.auditRecordMap.containsKey(operationId)) {
-            this.auditRecordMap.get(operationId).add(auditRecord);
+        List<AuditRecord> batch = this.auditRecordMap.get(operationId);
+        if (batch != null) {
+            batch.add(auditRecord);
 
-            if (this.auditRecordMap.size() == MAX_BATCH_SIZE) {
+            if (batch.size() >= MAX_BATCH_SIZE) {
                 try {
-                    auditDBAdaptor.insertAuditRecords(this.auditRecordMap.get(operationId));
-                } catch (CatalogDBException e) {
+                    audit(batch);
+                } catch (CatalogException e) {
                     logger.error("Could not audit operation '{}' -> Error: {}", operationId, e.getMessage(), e);
                 } finally {
-                    this.auditRecordMap.get(operationId).clear();
+                    batch.clear();
                 }
             }
         } else {
             try {
-                auditDBAdaptor.insertAuditRecord(auditRecord);
-            } catch (CatalogDBException e) {
+                audit(auditRecord);
+            } catch (CatalogException e) {
                 logger.error("Could not audit '{}' -> Error: {}", auditRecord, e.getMessage(), e);
             }
         }
     }
 
+    /**
+     * Summary of the background audit writer. Empty if audit records are written synchronously.
+     *
+     * @return ObjectMap with the audit writer stats
+     */
+    public ObjectMap getStats() {
+        return auditWriter == null ? new ObjectMap() : auditWriter.getStats();
+    }
+
+    /**
+     * Waits until all the audit records written in background so far are stored.
+     */
+    public void flush() {
+        if (auditWriter != null) {
+            auditWriter.flush();
+        }
+    }
+
+    /**
+     * Writes all the pending audit records.
+     */
+    @Override
+    public void close() {
+        if (auditWriter != null) {
+            auditWriter.close();
+        }
+    }
+
     /**
      * Groups the matching entries by some fields.
      *
@@ -221,6 +265,8 @@ public class AuditManager {
     public OpenCGAResult groupBy(Query query, List<String> fields, QueryOptions options, String token) throws CatalogException {
         String userId = catalogManager.getUserManager().getUserId(token);
         if (authorizationManager.checkIsAdmin(userId)) {
+            // Include the records still waiting to be written
+            flush();
             return auditDBAdaptor.groupBy(query, fields, options);
         }
         throw new CatalogAuthorizationException("Only root of OpenCGA can query the audit database");
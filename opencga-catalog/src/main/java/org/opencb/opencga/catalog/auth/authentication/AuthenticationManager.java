@@ -44,6 +44,17 @@ public abstract class AuthenticationManager {
         this.logger = LoggerFactory.getLogger(this.getClass());
     }
 
+    /**
+     * Share a cache of verified tokens with other authentication managers.
+     *
+     * @param claimsCache Cache of verified tokens.
+     * @return this
+     */
+    public AuthenticationManager setClaimsCache(JwtClaimsCache claimsCache) {
+        jwtManager.setClaimsCache(claimsCache);
+        return this;
+    }
+
     Key converStringToKeyObject(String keyString, String jcaAlgorithm) {
         return new SecretKeySpec(keyString.getBytes(), jcaAlgorithm);
     }
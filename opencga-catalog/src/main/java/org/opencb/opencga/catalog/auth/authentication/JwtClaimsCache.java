@@ -0,0 +1,143 @@
+/*
+ * Copyright 2015-2020 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencb.opencga.catalog.auth.authentication;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jws;
+import org.opencb.commons.datastore.core.ObjectMap;
+import org.opencb.opencga.core.config.LocalCache;
+
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cache of already verified JWT tokens, indexed by the hash of the token and the key used to verify it.
+ *
+ * Entries are kept until the token expires, or the configured expiration time, whatever happens first.
+ * Only successfully verified tokens are cached. One single instance is shared by all the authentication managers.
+ */
+public class JwtClaimsCache {
+
+    private final boolean active;
+    private final Cache<TokenKey, Jws<Claims>> cache;
+
+    public JwtClaimsCache(LocalCache configuration) {
+        LocalCache conf = configuration == null ? new LocalCache() : configuration;
+        this.active = conf.isActive() && conf.getMaxSize() > 0 && conf.getExpiration() > 0;
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(Math.max(0, conf.getMaxSize()))
+                .expireAfterWrite(Math.max(0, conf.getExpiration()), TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Get the claims of a token already verified with the given key.
+     *
+     * @param token     JWT token
+     * @param publicKey Key used to verify the token
+     * @return          The claims of the token, or null if not cached or already expired
+     */
+    public Jws<Claims> get(String token, Key publicKey) {
+        if (!active) {
+            return null;
+        }
+        TokenKey key = new TokenKey(token, publicKey);
+        Jws<Claims> claims = cache.getIfPresent(key);
+        if (claims != null) {
+            Date expiration = claims.getBody().getExpiration();
+            if (expiration != null && expiration.getTime() <= System.currentTimeMillis()) {
+                // Token expired. Parse it again to get the proper error
+                cache.invalidate(key);
+                return null;
+            }
+        }
+        return claims;
+    }
+
+    public void put(String token, Key publicKey, Jws<Claims> claims) {
+        if (active) {
+            cache.put(new TokenKey(token, publicKey), claims);
+        }
+    }
+
+    public void clear() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * Summary of the cache usage. Each hit is a token signature verification avoided.
+     *
+     * @return ObjectMap with the cache stats
+     */
+    public ObjectMap getStats() {
+        CacheStats stats = cache.stats();
+        return new ObjectMap()
+                .append("active", active)
+                .append("size", cache.size())
+                .append("verificationsAvoided", stats.hitCount())
+                .append("verifications", stats.missCount())
+                .append("hitRate", stats.hitRate());
+    }
+
+    private static final class TokenKey {
+        private final byte[] tokenHash;
+        private final Key publicKey;
+        private final int hashCode;
+
+        private TokenKey(String token, Key publicKey) {
+            this.tokenHash = sha256(token);
+            this.publicKey = publicKey;
+            this.hashCode = 31 * Arrays.hashCode(tokenHash) + Objects.hashCode(publicKey);
+        }
+
+        private static byte[] sha256(String token) {
+            try {
+                return MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            } catch (NoSuchAlgorithmException e) {
+                // SHA-256 is mandatory in every Java platform
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            TokenKey that = (TokenKey) o;
+            return Arrays.equals(tokenHash, that.tokenHash) && Objects.equals(publicKey, that.publicKey);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
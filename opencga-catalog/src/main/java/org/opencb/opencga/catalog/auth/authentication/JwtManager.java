@@ -35,6 +35,8 @@ public class JwtManager {
     private Key privateKey;
     private Key publicKey;
 
+    private JwtClaimsCache claimsCache;
+
     private Logger logger;
 
     JwtManager(String algorithm) {
@@ -80,6 +82,15 @@ public class JwtManager {
         return this;
     }
 
+    public JwtClaimsCache getClaimsCache() {
+        return claimsCache;
+    }
+
+    public JwtManager setClaimsCache(JwtClaimsCache claimsCache) {
+        this.claimsCache = claimsCache;
+        return this;
+    }
+
     String createJWTToken(String userId, long expiration) {
         return createJWTToken(userId, Collections.emptyMap(), expiration);
     }
@@ -163,8 +174,18 @@ public class JwtManager {
     }
 
     private Jws<Claims> parseClaims(String token, Key publicKey) throws CatalogAuthenticationException {
+        if (claimsCache != null) {
+            Jws<Claims> claims = claimsCache.get(token, publicKey);
+            if (claims != null) {
+                return claims;
+            }
+        }
         try {
-            return Jwts.parser().setSigningKey(publicKey).parseClaimsJws(token);
+            Jws<Claims> claims = Jwts.parser().setSigningKey(publicKey).parseClaimsJws(token);
+            if (claimsCache != null) {
+                claimsCache.put(token, publicKey, claims);
+            }
+            return claims;
         } catch (ExpiredJwtException e) {
             logger.error("JWT Error: '{}'", e.getMessage(), e);
             throw CatalogAuthenticationException.tokenExpired(token);
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2015-2020 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencb.opencga.catalog.auth.authorization;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import org.opencb.commons.datastore.core.ObjectMap;
+import org.opencb.opencga.catalog.exceptions.CatalogException;
+import org.opencb.opencga.core.config.LocalCache;
+import org.opencb.opencga.core.models.common.Enums;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of permission checks, indexed by study, user, resource and permission.
+ *
+ * Entries expire after a configurable time, so changes made from other instances are eventually visible.
+ * Changes made from this instance must invalidate the affected study.
+ */
+public class AuthorizationCache {
+
+    private final boolean active;
+    private final Cache<Key, Boolean> cache;
+    // Incremented on every invalidation, to discard the results of checks started before the invalidation
+    private final AtomicLong generation = new AtomicLong();
+
+    @FunctionalInterface
+    public interface PermissionCheck {
+        boolean check() throws CatalogException;
+    }
+
+    public AuthorizationCache(LocalCache configuration) {
+        LocalCache conf = configuration == null ? new LocalCache() : configuration;
+        this.active = conf.isActive() && conf.getMaxSize() > 0 && conf.getExpiration() > 0;
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(Math.max(0, conf.getMaxSize()))
+                .expireAfterWrite(Math.max(0, conf.getExpiration()), TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Get the result of a permission check, executing it if not cached.
+     *
+     * @param studyId    Study uid
+     * @param userId     User id
+     * @param resource   Resource type
+     * @param resourceId Resource uid. Same as studyId for study permissions
+     * @param permission Permission name
+     * @param check      Permission check to execute on cache miss
+     * @return           If the user has the permission
+     * @throws CatalogException if the permission check fails
+     */
+    public boolean check(long studyId, String userId, Enums.Resource resource, long resourceId, String permission,
+                         PermissionCheck check) throws CatalogException {
+        if (!active) {
+            return check.check();
+        }
+        Key key = new Key(studyId, userId, resource, resourceId, permission);
+        Boolean granted = cache.getIfPresent(key);
+        if (granted == null) {
+            // Do not use Cache::get(key, loader) to propagate the CatalogException untouched
+            long startGeneration = generation.get();
+            granted = check.check();
+            if (startGeneration == generation.get()) {
+                cache.put(key, granted);
+            }
+        }
+        return granted;
+    }
+
+    /**
+     * Discard all the cached permission checks of one study.
+     *
+     * @param studyId Study uid
+     */
+    public void invalidate(long studyId) {
+        generation.incrementAndGet();
+        cache.asMap().keySet().removeIf(key -> key.studyId == studyId);
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    /**
+     * Summary of the cache usage. Each hit is a permission check that did not go to the database.
+     *
+     * @return ObjectMap with the cache stats
+     */
+    public ObjectMap getStats() {
+        CacheStats stats = cache.stats();
+        return new ObjectMap()
+                .append("active", active)
+                .append("size", cache.size())
+                .append("lookupsAvoided", stats.hitCount())
+                .append("lookups", stats.missCount())
+                .append("hitRate", stats.hitRate())
+                .append("evictionCount", stats.evictionCount());
+    }
+
+    private static final class Key {
+        private final long studyId;
+        private final String userId;
+        private final Enums.Resource resource;
+        private final long resourceId;
+        private final String permission;
+        private final int hashCode;
+
+        private Key(long studyId, String userId, Enums.Resource resource, long resourceId, String permission) {
+            this.studyId = studyId;
+            this.userId = userId;
+            this.resource = resource;
+            this.resourceId = resourceId;
+            this.permission = permission;
+            this.hashCode = Objects.hash(studyId, userId, resource, resourceId, permission);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Key key = (Key) o;
+            return studyId == key.studyId
+                    && resourceId == key.resourceId
+                    && resource == key.resource
+                    && Objects.equals(userId, key.userId)
+                    && Objects.equals(permission, key.permission);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
@@ -16,6 +16,7 @@
 
 package org.opencb.opencga.catalog.auth.authorization;
 
+import org.opencb.commons.datastore.core.ObjectMap;
 import org.opencb.opencga.catalog.exceptions.CatalogException;
 import org.opencb.opencga.catalog.utils.ParamUtils;
 import org.opencb.opencga.core.models.clinical.ClinicalAnalysisAclEntry;
@@ -452,4 +453,19 @@ public interface AuthorizationManager {
     void removePermissionRuleAndRestorePermissions(Study study, String permissionRuleId, Enums.Entity entry) throws CatalogException;
 
     void removePermissionRule(long studyId, String permissionRuleId, Enums.Entity entry) throws CatalogException;
+
+    /**
+     * Discard the cached permission checks of a study. Must be called after any change that might modify the permissions of the
+     * members of the study and is not done through this manager, like group membership changes.
+     *
+     * @param studyId Study uid.
+     */
+    void invalidatePermissionCache(long studyId);
+
+    /**
+     * Discard all the cached permission checks.
+     */
+    void invalidatePermissionCache();
+
+    ObjectMap getPermissionCacheStats();
 }
@@ -16,6 +16,7 @@
 
 package org.opencb.opencga.catalog.auth.authorization;
 
+import org.opencb.commons.datastore.core.ObjectMap;
 import org.opencb.commons.datastore.core.Query;
 import org.opencb.commons.utils.CollectionUtils;
 import org.opencb.opencga.catalog.db.DBAdaptorFactory;
@@ -24,6 +25,7 @@ import org.opencb.opencga.catalog.db.mongodb.AuthorizationMongoDBAdaptor;
 import org.opencb.opencga.catalog.exceptions.CatalogAuthorizationException;
 import org.opencb.opencga.catalog.exceptions.CatalogDBException;
 import org.opencb.opencga.catalog.exceptions.CatalogException;
+import org.opencb.opencga.catalog.managers.ResolutionCache;
 import org.opencb.opencga.catalog.utils.ParamUtils;
 import org.opencb.opencga.core.api.ParamConstants;
 import org.opencb.opencga.core.config.Configuration;
@@ -75,13 +77,19 @@ public class CatalogAuthorizationManager implements AuthorizationManager {
     private final boolean openRegister;
 
     private final AuthorizationDBAdaptor aclDBAdaptor;
+    private final AuthorizationCache authorizationCache;
+    private final ResolutionCache resolutionCache;
 
-    public CatalogAuthorizationManager(DBAdaptorFactory dbFactory, Configuration configuration)
+    public CatalogAuthorizationManager(DBAdaptorFactory dbFactory, Configuration configuration, ResolutionCache resolutionCache)
             throws CatalogDBException {
         this.logger = LoggerFactory.getLogger(CatalogAuthorizationManager.class);
         this.aclDBAdaptor = new AuthorizationMongoDBAdaptor(dbFactory);
 
         this.openRegister = configuration.isOpenRegister();
+        this.authorizationCache = new AuthorizationCache(configuration.getCatalog() == null
+                ? null
+                : configuration.getCatalog().getAuthorizationCache());
+        this.resolutionCache = resolutionCache;
 
         this.dbAdaptorFactory = dbFactory;
         projectDBAdaptor = dbFactory.getCatalogProjectDbAdaptor();
@@ -141,7 +149,8 @@ public class CatalogAuthorizationManager implements AuthorizationManager {
         if (OPENCGA.equals(userId)) {
             return;
         } else {
-            if (studyDBAdaptor.hasStudyPermission(studyId, userId, permission)) {
+            if (authorizationCache.check(studyId, userId, Enums.Resource.STUDY, studyId, permission.name(),
+                    () -> studyDBAdaptor.hasStudyPermission(studyId, userId, permission))) {
                 return;
             }
         }
@@ -298,21 +307,20 @@ public class CatalogAuthorizationManager implements AuthorizationManager {
                 .append(FileDBAdaptor.QueryParams.STUDY_UID.key(), studyId)
                 .append(ParamConstants.ACL_PARAM, userId + ":" + permission.name());
 
-        if (checkUserPermission(userId, query, fileDBAdaptor)) {
+        if (checkUserPermission(studyId, Enums.Resource.FILE, fileId, userId, permission, query, fileDBAdaptor)) {
             return;
         }
         throw CatalogAuthorizationException.deny(userId, permission.toString(), "File", fileId, null);
     }
 
-    private boolean checkUserPermission(String userId, Query query, DBAdaptor dbAdaptor) throws CatalogException {
+    private boolean checkUserPermission(long studyId, Enums.Resource resource, long id, String userId, Enum permission, Query query,
+                                        DBAdaptor dbAdaptor) throws CatalogException {
         if (OPENCGA.equals(userId)) {
             return true;
         } else {
-            if (dbAdaptor.count(query, userId).getNumMatches() == 1) {
-                return true;
-            }
+            return authorizationCache.check(studyId, userId, resource, id, permission.name(),
+                    () -> dbAdaptor.count(query, userId).getNumMatches() == 1);
         }
-        return false;
     }
 
     @Override
@@ -323,7 +331,7 @@ public class CatalogAuthorizationManager implements AuthorizationManager {
                 .append(SampleDBAdaptor.QueryParams.STUDY_UID.key(), studyId)
                 .append(ParamConstants.ACL_PARAM, userId + ":" + permission.name());
 
-        if (checkUserPermission(userId, query, sampleDBAdaptor)) {
+        if (checkUserPermission(studyId, Enums.Resource.SAMPLE, sampleId, userId, permission, query, sampleDBAdaptor)) {
             return;
         }
         throw CatalogAuthorizationException.deny(userId, permission.toString(), "Sample", sampleId, null);
@@ -337,7 +345,7 @@ public class CatalogAuthorizationManager implements AuthorizationManager {
                 .append(IndividualDBAdaptor.QueryParams.STUDY_UID.key(), studyId)
                 .append(ParamConstants.ACL_PARAM, userId + ":" + permission.name());
 
-        if (checkUserPermission(userId, query, individualDBAdaptor)) {
+        if (checkUserPermission(studyId, Enums.Resource.INDIVIDUAL, individualId, userId, permission, query, individualDBAdaptor)) {
             return;
         }
         throw CatalogAuthorizationException.deny(userId, permission.toString(), "Individual", individualId, null);
@@ -350,7 +358,7 @@ public class CatalogAuthorizationManager implements AuthorizationManager {
                 .append(JobDBAdaptor.QueryParams.STUDY_UID.key(), studyId)
                 .append(ParamConstants.ACL_PARAM, userId + ":" + permission.name());
 
-        if (checkUserPermission(userId, query, jobDBAdaptor)) {
+        if (checkUserPermission(studyId, Enums.Resource.JOB, jobId, userId, permission, query, jobDBAdaptor)) {
             return;
         }
         throw CatalogAuthorizationException.deny(userId, permission.toString(), "Job", jobId, null);
@@ -364,7 +372,7 @@ public class CatalogAuthorizationManager implements AuthorizationManager {
                 .append(CohortDBAdaptor.QueryParams.STUDY_UID.key(), studyId)
                 .append(ParamConstants.ACL_PARAM, userId + ":" + permission.name());
 
-        if (checkUserPermission(userId, query, cohortDBAdaptor)) {
+        if (checkUserPermission(studyId, Enums.Resource.COHORT, cohortId, userId, permission, query, cohortDBAdaptor)) {
             return;
         }
         throw CatalogAuthorizationException.deny(userId, permission.toString(), "Cohort", cohortId, null);
@@ -379,7 +387,7 @@ public class CatalogAuthorizationManager implements AuthorizationManager {
                 .append(PanelDBAdaptor.QueryParams.STUDY_UID.key(), studyId)
                 .append(ParamConstants.ACL_PARAM, userId + ":" + permission.name());
 
-        if (checkUserPermission(userId, query, panelDBAdaptor)) {
+        if (checkUserPermission(studyId, Enums.Resource.DISEASE_PANEL, panelId, userId, permission, query, panelDBAdaptor)) {
             return;
         }
         throw CatalogAuthorizationException.deny(userId, permission.toString(), "Panel", panelId, null);
@@ -393,7 +401,7 @@ public class CatalogAuthorizationManager implements AuthorizationManager {
                 .append(FamilyDBAdaptor.QueryParams.STUDY_UID.key(), studyId)
                 .append(ParamConstants.ACL_PARAM, userId + ":" + permission.name());
 
-        if (checkUserPermission(userId, query, familyDBAdaptor)) {
+        if (checkUserPermission(studyId, Enums.Resource.FAMILY, familyId, userId, permission, query, familyDBAdaptor)) {
             return;
         }
         throw CatalogAuthorizationException.deny(userId, permission.toString(), "Family", familyId, null);
@@ -408,7 +416,8 @@ public class CatalogAuthorizationManager implements AuthorizationManager {
                 .append(ClinicalAnalysisDBAdaptor.QueryParams.STUDY_UID.key(), studyId)
                 .append(ParamConstants.ACL_PARAM, userId + ":" + permission.name());
 
-        if (checkUserPermission(userId, query, clinicalAnalysisDBAdaptor)) {
+        if (checkUserPermission(studyId, Enums.Resource.CLINICAL_ANALYSIS, analysisId, userId, permission, query,
+                clinicalAnalysisDBAdaptor)) {
             return;
         }
         throw CatalogAuthorizationException.deny(userId, permission.toString(), "ClinicalAnalysis", analysisId, null);
@@ -469,7 +478,11 @@ public class CatalogAuthorizationManager implements AuthorizationManager {
 
     @Override
     public void resetPermissionsFromAllEntities(long studyId, List<String> members) throws CatalogException {
-        aclDBAdaptor.resetMembersFromAllEntries(studyId, members);
+        try {
+            aclDBAdaptor.resetMembersFromAllEntries(studyId, members);
+        } finally {
+            authorizationCache.invalidate(studyId);
+        }
     }
 
     @Override
@@ -689,14 +702,22 @@ public class CatalogAuthorizationManager implements AuthorizationManager {
     @Override
     public OpenCGAResult<Map<String, List<String>>> setStudyAcls(List<Long> studyIds, List<String> members, List<String> permissions)
             throws CatalogException {
-        aclDBAdaptor.setToMembers(studyIds, members, getImplicitPermissions(permissions, Enums.Resource.STUDY));
+        try {
+            aclDBAdaptor.setToMembers(studyIds, members, getImplicitPermissions(permissions, Enums.Resource.STUDY));
+        } finally {
+            studyIds.forEach(authorizationCache::invalidate);
+        }
         return aclDBAdaptor.get(studyIds, members, Enums.Resource.STUDY);
     }
 
     @Override
     public OpenCGAResult<Map<String, List<String>>> addStudyAcls(List<Long> studyIds, List<String> members, List<String> permissions)
             throws CatalogException {
-        aclDBAdaptor.addToMembers(studyIds, members, getImplicitPermissions(permissions, Enums.Resource.STUDY));
+        try {
+            aclDBAdaptor.addToMembers(studyIds, members, getImplicitPermissions(permissions, Enums.Resource.STUDY));
+        } finally {
+            studyIds.forEach(authorizationCache::invalidate);
+        }
         return aclDBAdaptor.get(studyIds, members, Enums.Resource.STUDY);
     }
 
@@ -723,7 +744,11 @@ public class CatalogAuthorizationManager implements AuthorizationManager {
         }
 
         long startTime = System.currentTimeMillis();
-        aclDBAdaptor.setToMembers(studyId, ids, ids2, members, getImplicitPermissions(permissions, resource), resource, resource2);
+        try {
+            aclDBAdaptor.setToMembers(studyId, ids, ids2, members, getImplicitPermissions(permissions, resource), resource, resource2);
+        } finally {
+            authorizationCache.invalidate(studyId);
+        }
 
         return getAclResult(ids, members, resource, startTime);
     }
@@ -741,7 +766,11 @@ public class CatalogAuthorizationManager implements AuthorizationManager {
         }
 
         long startTime = System.currentTimeMillis();
-        aclDBAdaptor.addToMembers(studyId, ids, ids2, members, getImplicitPermissions(permissions, resource), resource, resource2);
+        try {
+            aclDBAdaptor.addToMembers(studyId, ids, ids2, members, getImplicitPermissions(permissions, resource), resource, resource2);
+        } finally {
+            authorizationCache.invalidate(studyId);
+        }
         return getAclResult(ids, members, resource, startTime);
     }
 
@@ -764,7 +793,12 @@ public class CatalogAuthorizationManager implements AuthorizationManager {
         }
 
         long startTime = System.currentTimeMillis();
-        aclDBAdaptor.removeFromMembers(ids, ids2, members, allPermissions, resource, resource2);
+        try {
+            aclDBAdaptor.removeFromMembers(ids, ids2, members, allPermissions, resource, resource2);
+        } finally {
+            // The study of the entries is unknown
+            authorizationCache.invalidateAll();
+        }
         return getAclResult(ids, members, resource, startTime);
     }
 
@@ -1011,7 +1045,11 @@ public class CatalogAuthorizationManager implements AuthorizationManager {
         }
 
         long startTime = System.currentTimeMillis();
-        aclDBAdaptor.setAcls(ids, aclEntries, resource);
+        try {
+            aclDBAdaptor.setAcls(ids, aclEntries, resource);
+        } finally {
+            authorizationCache.invalidate(studyId);
+        }
         int dbTime = (int) (System.currentTimeMillis() - startTime);
 
         OpenCGAResult result = getAcls(ids, null, resource);
@@ -1026,13 +1064,19 @@ public class CatalogAuthorizationManager implements AuthorizationManager {
         List<String> userList = permissionRule.getMembers().stream()
                 .filter(member -> !member.startsWith("@"))
                 .collect(Collectors.toList());
-        if (CollectionUtils.isNotEmpty(userList)) {
-            // We first add the member to the @members group in case they didn't belong already
-            studyDBAdaptor.addUsersToGroup(studyId, MEMBERS_GROUP, userList);
-        }
+        try {
+            if (CollectionUtils.isNotEmpty(userList)) {
+                // We first add the member to the @members group in case they didn't belong already
+                studyDBAdaptor.addUsersToGroup(studyId, MEMBERS_GROUP, userList);
+            }
 
-        // 2. We can apply the permission rules
-        aclDBAdaptor.applyPermissionRules(studyId, permissionRule, entry);
+            // 2. We can apply the permission rules
+            aclDBAdaptor.applyPermissionRules(studyId, permissionRule, entry);
+        } finally {
+            authorizationCache.invalidate(studyId);
+            // Groups and permission rules of the study may have changed
+            resolutionCache.invalidateStudies();
+        }
     }
 
     @Override
@@ -1041,7 +1085,12 @@ public class CatalogAuthorizationManager implements AuthorizationManager {
         ParamUtils.checkObj(permissionRuleId, "PermissionRule id");
         ParamUtils.checkObj(entry, "Entity");
 
-        aclDBAdaptor.removePermissionRuleAndRemovePermissions(study, permissionRuleId, entry);
+        try {
+            aclDBAdaptor.removePermissionRuleAndRemovePermissions(study, permissionRuleId, entry);
+        } finally {
+            authorizationCache.invalidate(study.getUid());
+            resolutionCache.invalidateStudies();
+        }
     }
 
     @Override
@@ -1050,7 +1099,12 @@ public class CatalogAuthorizationManager implements AuthorizationManager {
         ParamUtils.checkObj(permissionRuleId, "PermissionRule id");
         ParamUtils.checkObj(entry, "Entity");
 
-        aclDBAdaptor.removePermissionRuleAndRestorePermissions(study, permissionRuleId, entry);
+        try {
+            aclDBAdaptor.removePermissionRuleAndRestorePermissions(study, permissionRuleId, entry);
+        } finally {
+            authorizationCache.invalidate(study.getUid());
+            resolutionCache.invalidateStudies();
+        }
     }
 
     @Override
@@ -1058,7 +1112,27 @@ public class CatalogAuthorizationManager implements AuthorizationManager {
         ParamUtils.checkObj(permissionRuleId, "PermissionRule id");
         ParamUtils.checkObj(entry, "Entity");
 
-        aclDBAdaptor.removePermissionRule(studyId, permissionRuleId, entry);
+        try {
+            aclDBAdaptor.removePermissionRule(studyId, permissionRuleId, entry);
+        } finally {
+            authorizationCache.invalidate(studyId);
+            resolutionCache.invalidateStudies();
+        }
+    }
+
+    @Override
+    public void invalidatePermissionCache(long studyId) {
+        authorizationCache.invalidate(studyId);
+    }
+
+    @Override
+    public void invalidatePermissionCache() {
+        authorizationCache.invalidateAll();
+    }
+
+    @Override
+    public ObjectMap getPermissionCacheStats() {
+        return authorizationCache.getStats();
     }
 
     /*
@@ -26,6 +26,17 @@ public interface DBIterator<E> extends Iterator<E>, Closeable {
 
     String INCLUDE_ACLS = DBAdaptor.INCLUDE_ACLS;
 
+    /**
+     * QueryOptions key. Number of documents read on each batch by the iterators that join related documents.
+     */
+    String BATCH_SIZE = "iteratorBatchSize";
+    int DEFAULT_BATCH_SIZE = 100;
+
+    /**
+     * QueryOptions key. Read the next batch in the background while the current one is consumed. Enabled by default.
+     */
+    String PREFETCH = "iteratorPrefetch";
+
     @Override
     void close();
 
@@ -227,6 +227,20 @@ public interface FileDBAdaptor extends AnnotationSetDBAdaptor<File> {
     OpenCGAResult insert(long studyId, File file, List<VariableSet> variableSetList, QueryOptions options)
             throws CatalogDBException, CatalogParameterException, CatalogAuthorizationException;
 
+    /***
+     * Inserts the passed files in the database with a single write. Files must not contain samples, and none of the paths can exist.
+     *
+     * @param studyId Id of the study where the files belong to.
+     * @param files The files to be inserted in the database. The uid of each file is set after the insertion.
+     * @param options Options to filter the output that will be returned after the insertion of the files.
+     * @return A OpenCGAResult object containing the time spent.
+     * @throws CatalogDBException when the files could not be inserted due to different reasons.
+     * @throws CatalogParameterException if there is any formatting error.
+     * @throws CatalogAuthorizationException if the user is not authorised to perform the query.
+     */
+    OpenCGAResult insert(long studyId, List<File> files, QueryOptions options)
+            throws CatalogDBException, CatalogParameterException, CatalogAuthorizationException;
+
     /***
      * Retrieves the file from the database containing the fileId given.
      *
@@ -124,6 +124,69 @@ public class FileMongoDBAdaptor extends AnnotationMongoDBAdaptor<File> implement
                 (e) -> logger.error("Could not create file {}: {}", file.getId(), e.getMessage()));
     }
 
+    @Override
+    public OpenCGAResult insert(long studyId, List<File> files, QueryOptions options)
+            throws CatalogDBException, CatalogParameterException, CatalogAuthorizationException {
+        if (files.isEmpty()) {
+            return OpenCGAResult.empty();
+        }
+        return runTransaction(
+                (clientSession) -> {
+                    long tmpStartTime = startQuery();
+                    logger.debug("Starting insert transaction of {} files", files.size());
+
+                    dbAdaptorFactory.getCatalogStudyDBAdaptor().checkId(clientSession, studyId);
+                    insert(clientSession, studyId, files);
+                    return endWrite(tmpStartTime, files.size(), files.size(), 0, 0, null);
+                },
+                (e) -> logger.error("Could not create {} files: {}", files.size(), e.getMessage()));
+    }
+
+    void insert(ClientSession clientSession, long studyId, List<File> files) throws CatalogDBException {
+        List<String> paths = new ArrayList<>(files.size());
+        for (File file : files) {
+            if (file.getSamples() != null && !file.getSamples().isEmpty()) {
+                throw new CatalogDBException("Files with samples can not be inserted in batch. File: " + file.getPath());
+            }
+            paths.add(file.getPath());
+        }
+        Bson pathQuery = Filters.and(Filters.eq(PRIVATE_STUDY_UID, studyId), Filters.in(QueryParams.PATH.key(), paths));
+        if (fileCollection.count(clientSession, pathQuery).getNumMatches() > 0) {
+            throw new CatalogDBException("Some of the " + files.size() + " files already exist in study " + studyId);
+        }
+
+        long fileUid = getNewUids(clientSession, files.size());
+        long diskUsage = 0;
+        List<Document> fileDocuments = new ArrayList<>(files.size());
+        for (File file : files) {
+            file.setUid(fileUid++);
+            file.setStudyUid(studyId);
+            if (StringUtils.isEmpty(file.getUuid())) {
+                file.setUuid(UuidUtils.generateOpenCgaUuid(UuidUtils.Entity.FILE));
+            }
+            if (StringUtils.isEmpty(file.getCreationDate())) {
+                file.setCreationDate(TimeUtils.getTime());
+            }
+
+            Document fileDocument = fileConverter.convertToStorageType(file, Collections.emptyList());
+            fileDocument.put(PERMISSION_RULES_APPLIED, Collections.emptyList());
+            fileDocument.put(PRIVATE_CREATION_DATE, TimeUtils.toDate(file.getCreationDate()));
+            fileDocument.put(PRIVATE_MODIFICATION_DATE, fileDocument.get(PRIVATE_CREATION_DATE));
+            fileDocuments.add(fileDocument);
+
+            if (!file.isExternal() && file.getSize() > 0) {
+                diskUsage += file.getSize();
+            }
+        }
+
+        fileCollection.insert(clientSession, fileDocuments, null);
+
+        // Update the size field from the study collection
+        if (diskUsage > 0) {
+            dbAdaptorFactory.getCatalogStudyDBAdaptor().updateDiskUsage(clientSession, studyId, diskUsage);
+        }
+    }
+
     long insert(ClientSession clientSession, long studyId, File file, List<VariableSet> variableSetList)
             throws CatalogDBException, CatalogParameterException, CatalogAuthorizationException {
         if (filePathExists(clientSession, studyId, file.getPath())) {
@@ -71,9 +71,21 @@ public class MetaMongoDBAdaptor extends MongoDBAdaptor implements MetaDBAdaptor
     }
 
     public long getNewAutoIncrementId(ClientSession clientSession, String field) { //, MongoDBCollection metaCollection
+        return getNewAutoIncrementId(clientSession, field, 1);
+    }
+
+    /**
+     * Reserve a range of consecutive ids with a single update.
+     *
+     * @param clientSession Client session
+     * @param field         Counter field
+     * @param numIds        Number of ids to reserve
+     * @return the last id of the range. The range starts at (lastId - numIds + 1)
+     */
+    public long getNewAutoIncrementId(ClientSession clientSession, String field, long numIds) {
         Bson query = METADATA_QUERY;
         Document projection = new Document(field, true);
-        Bson inc = Updates.inc(field, 1L);
+        Bson inc = Updates.inc(field, numIds);
         QueryOptions queryOptions = new QueryOptions("returnNew", true);
         DataResult<Document> result = metaCollection.findAndUpdate(clientSession, query, projection, null, inc, queryOptions);
         return result.getResults().get(0).getLong(field);
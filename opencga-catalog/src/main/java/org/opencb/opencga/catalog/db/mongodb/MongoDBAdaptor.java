@@ -137,6 +137,17 @@ public class MongoDBAdaptor extends AbstractDBAdaptor {
         return dbAdaptorFactory.getCatalogMetaDBAdaptor().getNewAutoIncrementId(clientSession);
     }
 
+    /**
+     * Reserve a range of consecutive uids.
+     *
+     * @param clientSession Client session
+     * @param numUids       Number of uids to reserve
+     * @return the first uid of the range
+     */
+    protected long getNewUids(ClientSession clientSession, int numUids) {
+        return dbAdaptorFactory.getCatalogMetaDBAdaptor().getNewAutoIncrementId(clientSession, "idCounter", numUids) - numUids + 1;
+    }
+
     @Deprecated
     protected void addIntegerOrQuery(String mongoDbField, String queryParam, Query query, List<Bson> andBsonList) {
         addQueryFilter(mongoDbField, queryParam, query, QueryParam.Type.INTEGER, MongoDBQueryUtils.ComparisonOperator.EQUALS,
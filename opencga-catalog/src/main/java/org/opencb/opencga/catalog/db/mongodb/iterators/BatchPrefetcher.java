@@ -0,0 +1,169 @@
+/*
+ * Copyright 2015-2020 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencb.opencga.catalog.db.mongodb.iterators;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.mongodb.client.ClientSession;
+import org.bson.Document;
+import org.opencb.commons.datastore.core.QueryOptions;
+import org.opencb.opencga.catalog.db.api.DBIterator;
+
+import java.util.LinkedList;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Buffer of the documents read by a catalog iterator. Documents are read in batches, and each batch is completed with its
+ * related documents before being returned. Once half of the current batch is consumed, the next batch and its related
+ * documents are fetched in the background, so the consumer does not wait for the database round trips of every batch.
+ * Iterators closed before reaching that point, like the ones used to read only the first results, never prefetch.
+ *
+ * Batches are fetched one at a time, so the cursor is never used by two threads concurrently. There is no prefetch within
+ * a client session, as the caller may keep using the session while iterating.
+ */
+final class BatchPrefetcher {
+
+    static final int MAX_BATCH_SIZE = 5000;
+
+    private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(new ThreadFactoryBuilder()
+            .setNameFormat("catalog-iterator-prefetch-%d")
+            .setDaemon(true)
+            .build());
+
+    @FunctionalInterface
+    interface BatchLoader {
+        /**
+         * Read the next documents from the cursor, and complete them with their related documents.
+         *
+         * @param buffer     Buffer to fill
+         * @param bufferSize Max number of documents to read
+         */
+        void fetchNextBatch(Queue<Document> buffer, int bufferSize);
+    }
+
+    private final BatchLoader loader;
+    private final int batchSize;
+    private final boolean prefetch;
+
+    private Queue<Document> buffer = new LinkedList<>();
+    private Future<Queue<Document>> nextBatch;
+    // Claimed by the prefetch task when it starts, or by close() to skip it
+    private AtomicBoolean nextBatchClaimed;
+    // Number of documents of the current batch to consume before prefetching the next one. 0 if there is nothing to prefetch
+    private int prefetchAfter;
+    // A batch smaller than the batch size is the last one
+    private boolean exhausted;
+
+    BatchPrefetcher(BatchLoader loader, QueryOptions options, ClientSession clientSession) {
+        this.loader = loader;
+        this.batchSize = getBatchSize(options);
+        this.prefetch = clientSession == null && (options == null || options.getBoolean(DBIterator.PREFETCH, true));
+    }
+
+    static int getBatchSize(QueryOptions options) {
+        int batchSize = options == null
+                ? DBIterator.DEFAULT_BATCH_SIZE
+                : options.getInt(DBIterator.BATCH_SIZE, DBIterator.DEFAULT_BATCH_SIZE);
+        return Math.min(MAX_BATCH_SIZE, Math.max(1, batchSize));
+    }
+
+    boolean hasNext() {
+        if (buffer.isEmpty() && !exhausted) {
+            buffer = fetchNextBatch();
+        }
+        return !buffer.isEmpty();
+    }
+
+    Document next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Document document = buffer.remove();
+        if (prefetchAfter > 0 && --prefetchAfter == 0) {
+            startPrefetch();
+        }
+        return document;
+    }
+
+    /**
+     * Skip the batch to prefetch, if not started yet. Otherwise, wait for it so the cursor can be safely closed.
+     */
+    void close() {
+        buffer.clear();
+        prefetchAfter = 0;
+        if (nextBatch != null && !nextBatchClaimed.compareAndSet(false, true)) {
+            try {
+                nextBatch.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                // Nothing to do. The iterator is being closed
+            }
+        }
+        nextBatch = null;
+    }
+
+    private Queue<Document> fetchNextBatch() {
+        Queue<Document> batch;
+        if (nextBatch != null) {
+            batch = getNextBatch();
+            nextBatch = null;
+        } else {
+            batch = load();
+        }
+
+        if (batch.size() < batchSize) {
+            exhausted = true;
+        } else if (prefetch) {
+            prefetchAfter = Math.max(1, batch.size() / 2);
+        }
+        return batch;
+    }
+
+    private void startPrefetch() {
+        AtomicBoolean claimed = new AtomicBoolean();
+        nextBatchClaimed = claimed;
+        nextBatch = EXECUTOR.submit(() -> claimed.compareAndSet(false, true) ? load() : new LinkedList<Document>());
+    }
+
+    private Queue<Document> load() {
+        Queue<Document> batch = new LinkedList<>();
+        loader.fetchNextBatch(batch, batchSize);
+        return batch;
+    }
+
+    private Queue<Document> getNextBatch() {
+        try {
+            return nextBatch.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while fetching the next batch of documents", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            } else if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
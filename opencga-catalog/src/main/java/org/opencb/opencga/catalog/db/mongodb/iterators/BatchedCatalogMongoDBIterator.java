@@ -22,14 +22,12 @@ import org.opencb.commons.datastore.core.QueryOptions;
 import org.opencb.commons.datastore.mongodb.GenericDocumentComplexConverter;
 import org.opencb.commons.datastore.mongodb.MongoDBIterator;
 
-import java.util.LinkedList;
-import java.util.NoSuchElementException;
 import java.util.Queue;
 import java.util.function.Function;
 
 public abstract class BatchedCatalogMongoDBIterator<T> extends CatalogMongoDBIterator<T> {
 
-    private Queue<Document> buffer = new LinkedList<>();
+    private final BatchPrefetcher prefetcher;
 
     protected final QueryOptions options;
 
@@ -42,26 +40,19 @@ public abstract class BatchedCatalogMongoDBIterator<T> extends CatalogMongoDBIte
                                          QueryOptions options) {
         super(mongoCursor, clientSession, converter, filter);
         this.options = options == null ? QueryOptions.empty() : options;
+        this.prefetcher = new BatchPrefetcher(this::fetchNextBatch, this.options, clientSession);
     }
 
-
     @Override
     public boolean hasNext() {
-        if (buffer.isEmpty()) {
-            fetchNextBatch(buffer, 100);
-        }
-        return !buffer.isEmpty();
+        return prefetcher.hasNext();
     }
 
     protected abstract void fetchNextBatch(Queue<Document> buffer, int bufferSize);
 
     @Override
     public T next() {
-        if (!hasNext()) {
-            throw new NoSuchElementException();
-        }
-
-        Document next = buffer.remove();
+        Document next = prefetcher.next();
         addAclInformation(next, options);
 
         if (filter != null) {
@@ -71,6 +62,12 @@ public abstract class BatchedCatalogMongoDBIterator<T> extends CatalogMongoDBIte
         return convert(next);
     }
 
+    @Override
+    public void close() {
+        prefetcher.close();
+        super.close();
+    }
+
     protected T convert(Document next) {
         if (converter != null) {
             return converter.convertToDataModelType(next);
@@ -49,12 +49,12 @@ public class ClinicalAnalysisCatalogMongoDBIterator<E> extends CatalogMongoDBIte
 
     private QueryOptions options;
 
-    private Queue<Document> clinicalAnalysisListBuffer;
+    private final BatchPrefetcher prefetcher;
+    private final RelatedDocumentCache familyCache;
+    private final RelatedDocumentCache individualCache;
 
     private Logger logger;
 
-    private static final int BUFFER_SIZE = 100;
-
     private static final String UID = ClinicalAnalysisDBAdaptor.QueryParams.UID.key();
     private static final String VERSION = FamilyDBAdaptor.QueryParams.VERSION.key();
 
@@ -80,13 +80,15 @@ public class ClinicalAnalysisCatalogMongoDBIterator<E> extends CatalogMongoDBIte
         this.interpretationDBAdaptor = dbAdaptorFactory.getInterpretationDBAdaptor();
         this.interpretationQueryOptions = createInnerQueryOptions(INTERPRETATION.key(), false);
 
-        this.clinicalAnalysisListBuffer = new LinkedList<>();
+        this.prefetcher = new BatchPrefetcher(this::fetchNextBatch, this.options, this.clientSession);
+        this.familyCache = new RelatedDocumentCache();
+        this.individualCache = new RelatedDocumentCache();
         this.logger = LoggerFactory.getLogger(ClinicalAnalysisCatalogMongoDBIterator.class);
     }
 
     @Override
     public E next() {
-        Document next = clinicalAnalysisListBuffer.remove();
+        Document next = prefetcher.next();
 
         if (filter != null) {
             next = filter.apply(next);
@@ -104,28 +106,31 @@ public class ClinicalAnalysisCatalogMongoDBIterator<E> extends CatalogMongoDBIte
 
     @Override
     public boolean hasNext() {
-        if (clinicalAnalysisListBuffer.isEmpty()) {
-            fetchNextBatch();
-        }
-        return !clinicalAnalysisListBuffer.isEmpty();
+        return prefetcher.hasNext();
+    }
+
+    @Override
+    public void close() {
+        prefetcher.close();
+        super.close();
     }
 
-    private void fetchNextBatch() {
+    private void fetchNextBatch(Queue<Document> buffer, int bufferSize) {
         Set<String> interpretationSet = new HashSet<>();
         Set<String> familySet = new HashSet<>();
         Set<String> individualSet = new HashSet<>();
         Set<String> sampleSet = new HashSet<>();
 
-        // Get next BUFFER_SIZE documents
+        // Get next bufferSize documents
         int counter = 0;
-        while (mongoCursor.hasNext() && counter < BUFFER_SIZE) {
+        while (mongoCursor.hasNext() && counter < bufferSize) {
             Document clinicalDocument = mongoCursor.next();
 
             if (user != null && studyUid <= 0) {
                 studyUid = clinicalDocument.getLong(PRIVATE_STUDY_UID);
             }
 
-            clinicalAnalysisListBuffer.add(clinicalDocument);
+            buffer.add(clinicalDocument);
             counter++;
 
             if (!options.getBoolean(NATIVE_QUERY)) {
@@ -154,7 +159,7 @@ public class ClinicalAnalysisCatalogMongoDBIterator<E> extends CatalogMongoDBIte
 
         if (!interpretationMap.isEmpty() || !familyMap.isEmpty() || !individualMap.isEmpty() || !sampleMap.isEmpty()) {
             // Fill data in clinical analyses
-            clinicalAnalysisListBuffer.forEach(clinicalAnalysis -> {
+            buffer.forEach(clinicalAnalysis -> {
                 fillInterpretationData(clinicalAnalysis, interpretationMap);
                 clinicalAnalysis.put(FAMILY.key(), fillFamilyData((Document) clinicalAnalysis.get(FAMILY.key()), familyMap, individualMap,
                         sampleMap));
@@ -253,13 +258,21 @@ public class ClinicalAnalysisCatalogMongoDBIterator<E> extends CatalogMongoDBIte
             return familyMap;
         }
 
-        // Extract list of uids and versions
+        // Extract list of uids and versions of the families not fetched for previous batches
         List<Long> familyUids = new ArrayList<>(familySet.size());
         List<Integer> familyUidVersions = new ArrayList<>(familySet.size());
         for (String familyId : familySet) {
-            String[] split = familyId.split(UID_VERSION_SEP);
-            familyUids.add(Long.parseLong(split[0]));
-            familyUidVersions.add(Integer.parseInt(split[1]));
+            Document family = familyCache.get(familyId);
+            if (family != null) {
+                familyMap.put(familyId, family);
+            } else {
+                String[] split = familyId.split(UID_VERSION_SEP);
+                familyUids.add(Long.parseLong(split[0]));
+                familyUidVersions.add(Integer.parseInt(split[1]));
+            }
+        }
+        if (familyUids.isEmpty()) {
+            return familyMap;
         }
 
         // Build query object
@@ -282,7 +295,11 @@ public class ClinicalAnalysisCatalogMongoDBIterator<E> extends CatalogMongoDBIte
         }
 
         // Map each family uid to the family entry
-        familyList.forEach(family -> familyMap.put(family.get(UID) + UID_VERSION_SEP + family.get(VERSION), family));
+        familyList.forEach(family -> {
+            String familyId = family.get(UID) + UID_VERSION_SEP + family.get(VERSION);
+            familyMap.put(familyId, family);
+            familyCache.put(familyId, family);
+        });
         return familyMap;
     }
 
@@ -300,8 +317,13 @@ public class ClinicalAnalysisCatalogMongoDBIterator<E> extends CatalogMongoDBIte
         for (String individualId : individualSet) {
             String[] split = individualId.split(UID_VERSION_SEP);
             if (split.length == 2) {
-                individualUids.add(Long.parseLong(split[0]));
-                individualUidVersions.add(Integer.parseInt(split[1]));
+                Document individual = individualCache.get(individualId);
+                if (individual != null) {
+                    individualMap.put(individualId, individual);
+                } else {
+                    individualUids.add(Long.parseLong(split[0]));
+                    individualUidVersions.add(Integer.parseInt(split[1]));
+                }
             } else {
                 singleIndividualUids.add(Long.parseLong(individualId));
             }
@@ -309,8 +331,11 @@ public class ClinicalAnalysisCatalogMongoDBIterator<E> extends CatalogMongoDBIte
 
         // Fill individuals with version
         List<Document> individualList = queryIndividuals(individualUids, individualUidVersions);
-        individualList.forEach(individual
-                -> individualMap.put(individual.get(UID) + UID_VERSION_SEP + individual.get(VERSION), individual));
+        individualList.forEach(individual -> {
+            String individualId = individual.get(UID) + UID_VERSION_SEP + individual.get(VERSION);
+            individualMap.put(individualId, individual);
+            individualCache.put(individualId, individual);
+        });
 
         // Fill individuals without version
         individualList = queryIndividuals(singleIndividualUids, null);
@@ -46,12 +46,10 @@ public class CohortCatalogMongoDBIterator<E> extends AnnotableCatalogMongoDBIter
     private SampleMongoDBAdaptor sampleDBAdaptor;
     private QueryOptions sampleQueryOptions;
 
-    private Queue<Document> cohortListBuffer;
+    private final BatchPrefetcher prefetcher;
 
     private Logger logger;
 
-    private static final int BUFFER_SIZE = 100;
-
     public CohortCatalogMongoDBIterator(MongoDBIterator<Document> mongoCursor, ClientSession clientSession,
                                         AnnotableConverter<? extends Annotable> converter, Function<Document, Document> filter,
                                         SampleMongoDBAdaptor sampleMongoDBAdaptor, QueryOptions options) {
@@ -69,13 +67,13 @@ public class CohortCatalogMongoDBIterator<E> extends AnnotableCatalogMongoDBIter
         this.sampleDBAdaptor = sampleMongoDBAdaptor;
         this.sampleQueryOptions = createSampleQueryOptions();
 
-        this.cohortListBuffer = new LinkedList<>();
+        this.prefetcher = new BatchPrefetcher(this::fetchNextBatch, this.options, this.clientSession);
         this.logger = LoggerFactory.getLogger(CohortCatalogMongoDBIterator.class);
     }
 
     @Override
     public E next() {
-        Document next = cohortListBuffer.remove();
+        Document next = prefetcher.next();
 
         if (filter != null) {
             next = filter.apply(next);
@@ -108,25 +106,28 @@ public class CohortCatalogMongoDBIterator<E> extends AnnotableCatalogMongoDBIter
 
     @Override
     public boolean hasNext() {
-        if (cohortListBuffer.isEmpty()) {
-            fetchNextBatch();
-        }
-        return !cohortListBuffer.isEmpty();
+        return prefetcher.hasNext();
+    }
+
+    @Override
+    public void close() {
+        prefetcher.close();
+        super.close();
     }
 
-    private void fetchNextBatch() {
+    private void fetchNextBatch(Queue<Document> buffer, int bufferSize) {
         Set<Long> sampleSet = new HashSet<>();
 
-        // Get next BUFFER_SIZE documents
+        // Get next bufferSize documents
         int counter = 0;
-        while (mongoCursor.hasNext() && counter < BUFFER_SIZE) {
+        while (mongoCursor.hasNext() && counter < bufferSize) {
             Document cohortDocument = (Document) mongoCursor.next();
 
             if (user != null && studyUid <= 0) {
                 studyUid = cohortDocument.getLong(PRIVATE_STUDY_UID);
             }
 
-            cohortListBuffer.add(cohortDocument);
+            buffer.add(cohortDocument);
             counter++;
 
             // Extract all the samples
@@ -162,7 +163,7 @@ public class CohortCatalogMongoDBIterator<E> extends AnnotableCatalogMongoDBIter
             );
 
             // Add the samples obtained to the corresponding cohorts
-            cohortListBuffer.forEach(cohortDocument -> {
+            buffer.forEach(cohortDocument -> {
                 List<Document> tmpSampleList = new ArrayList<>();
                 List<Document> samples = (List<Document>) cohortDocument.get(CohortDBAdaptor.QueryParams.SAMPLES.key());
 
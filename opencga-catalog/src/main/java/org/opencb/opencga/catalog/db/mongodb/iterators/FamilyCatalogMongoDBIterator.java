@@ -48,12 +48,11 @@ public class FamilyCatalogMongoDBIterator<E> extends AnnotableCatalogMongoDBIter
     private IndividualMongoDBAdaptor individualDBAdaptor;
     private QueryOptions individualQueryOptions;
 
-    private Queue<Document> familyListBuffer;
+    private final BatchPrefetcher prefetcher;
+    private final RelatedDocumentCache memberCache;
 
     private Logger logger;
 
-    private static final int BUFFER_SIZE = 100;
-
     public FamilyCatalogMongoDBIterator(MongoDBIterator<Document> mongoCursor, ClientSession clientSession,
                                         AnnotableConverter<? extends Annotable> converter, Function<Document, Document> filter,
                                         IndividualMongoDBAdaptor individualDBAdaptor, QueryOptions options) {
@@ -72,13 +71,14 @@ public class FamilyCatalogMongoDBIterator<E> extends AnnotableCatalogMongoDBIter
         this.individualDBAdaptor = individualDBAdaptor;
         this.individualQueryOptions = createFamilyQueryOptions();
 
-        this.familyListBuffer = new LinkedList<>();
+        this.prefetcher = new BatchPrefetcher(this::fetchNextBatch, this.options, this.clientSession);
+        this.memberCache = new RelatedDocumentCache();
         this.logger = LoggerFactory.getLogger(FamilyCatalogMongoDBIterator.class);
     }
 
     @Override
     public E next() {
-        Document next = familyListBuffer.remove();
+        Document next = prefetcher.next();
 
         if (filter != null) {
             next = filter.apply(next);
@@ -96,25 +96,28 @@ public class FamilyCatalogMongoDBIterator<E> extends AnnotableCatalogMongoDBIter
 
     @Override
     public boolean hasNext() {
-        if (familyListBuffer.isEmpty()) {
-            fetchNextBatch();
-        }
-        return !familyListBuffer.isEmpty();
+        return prefetcher.hasNext();
+    }
+
+    @Override
+    public void close() {
+        prefetcher.close();
+        super.close();
     }
 
-    private void fetchNextBatch() {
+    private void fetchNextBatch(Queue<Document> buffer, int bufferSize) {
         Set<String> memberVersions = new HashSet<>();
 
-        // Get next BUFFER_SIZE documents
+        // Get next bufferSize documents
         int counter = 0;
-        while (mongoCursor.hasNext() && counter < BUFFER_SIZE) {
+        while (mongoCursor.hasNext() && counter < bufferSize) {
             Document familyDocument = mongoCursor.next();
 
             if (user != null && studyUid <= 0) {
                 studyUid = familyDocument.getLong(PRIVATE_STUDY_UID);
             }
 
-            familyListBuffer.add(familyDocument);
+            buffer.add(familyDocument);
             counter++;
 
             // Extract all the members
@@ -133,45 +136,56 @@ public class FamilyCatalogMongoDBIterator<E> extends AnnotableCatalogMongoDBIter
         }
 
         if (!memberVersions.isEmpty()) {
-            // Obtain all those members
+            // Map each member uid - version to the member entry. Members fetched for previous batches are taken from the cache
+            Map<String, Document> memberUidVersionMap = new HashMap<>(memberVersions.size());
 
             List<Long> uidList = new ArrayList<>(memberVersions.size());
             List<Integer> versionList = new ArrayList<>(memberVersions.size());
             memberVersions.forEach(s -> {
-                String[] split = StringUtils.splitByWholeSeparatorPreserveAllTokens(s, "__");
-                uidList.add(Long.valueOf(split[0]));
-                versionList.add(Integer.valueOf(split[1]));
+                Document member = memberCache.get(s);
+                if (member != null) {
+                    memberUidVersionMap.put(s, member);
+                } else {
+                    String[] split = StringUtils.splitByWholeSeparatorPreserveAllTokens(s, "__");
+                    uidList.add(Long.valueOf(split[0]));
+                    versionList.add(Integer.valueOf(split[1]));
+                }
             });
 
-            Query query = new Query()
-                    .append(IndividualDBAdaptor.QueryParams.UID.key(), uidList)
-                    .append(IndividualDBAdaptor.QueryParams.VERSION.key(), versionList);
-            List<Document> memberList;
-            try {
-                if (user != null) {
-                    query.put(IndividualDBAdaptor.QueryParams.STUDY_UID.key(), studyUid);
-                    memberList = individualDBAdaptor.nativeGet(clientSession, studyUid, query, individualQueryOptions, user).getResults();
-                } else {
-                    memberList = individualDBAdaptor.nativeGet(clientSession, query, individualQueryOptions).getResults();
+            if (!uidList.isEmpty()) {
+                // Obtain the rest of the members
+                Query query = new Query()
+                        .append(IndividualDBAdaptor.QueryParams.UID.key(), uidList)
+                        .append(IndividualDBAdaptor.QueryParams.VERSION.key(), versionList);
+                List<Document> memberList;
+                try {
+                    if (user != null) {
+                        query.put(IndividualDBAdaptor.QueryParams.STUDY_UID.key(), studyUid);
+                        memberList = individualDBAdaptor.nativeGet(clientSession, studyUid, query, individualQueryOptions, user)
+                                .getResults();
+                    } else {
+                        memberList = individualDBAdaptor.nativeGet(clientSession, query, individualQueryOptions).getResults();
+                    }
+                } catch (CatalogDBException | CatalogAuthorizationException | CatalogParameterException e) {
+                    logger.warn("Could not obtain the members associated to the families: {}", e.getMessage(), e);
+                    return;
                 }
-            } catch (CatalogDBException | CatalogAuthorizationException | CatalogParameterException e) {
-                logger.warn("Could not obtain the members associated to the families: {}", e.getMessage(), e);
-                return;
+
+                memberList.forEach(member -> {
+                    String key = member.get(FamilyDBAdaptor.QueryParams.UID.key()) + "__"
+                            + member.get(FamilyDBAdaptor.QueryParams.VERSION.key());
+                    memberUidVersionMap.put(key, member);
+                    memberCache.put(key, member);
+                });
             }
 
-            // Map each member uid - version to the member entry
-            Map<String, Document> memberUidVersionMap = new HashMap<>(memberList.size());
             // Map each member uid to the member entry
-            Map<String, Document> memberUidMap = new HashMap<>(memberList.size());
-            memberList.forEach(member -> {
-                        memberUidVersionMap.put(member.get(FamilyDBAdaptor.QueryParams.UID.key()) + "__"
-                                + member.get(FamilyDBAdaptor.QueryParams.VERSION.key()), member);
-                        memberUidMap.put(String.valueOf(member.get(FamilyDBAdaptor.QueryParams.UID.key())), member);
-                    }
-            );
+            Map<String, Document> memberUidMap = new HashMap<>(memberUidVersionMap.size());
+            memberUidVersionMap.values().forEach(member ->
+                    memberUidMap.put(String.valueOf(member.get(FamilyDBAdaptor.QueryParams.UID.key())), member));
 
             // Add the members obtained to the corresponding families
-            familyListBuffer.forEach(family -> {
+            buffer.forEach(family -> {
                 List<Document> tmpMemberList = new ArrayList<>();
                 List<Document> members = (List<Document>) family.get(FamilyMongoDBAdaptor.QueryParams.MEMBERS.key());
 
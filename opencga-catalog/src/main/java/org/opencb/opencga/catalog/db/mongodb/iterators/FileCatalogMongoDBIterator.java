@@ -49,12 +49,10 @@ public class FileCatalogMongoDBIterator<E> extends AnnotableCatalogMongoDBIterat
     private SampleMongoDBAdaptor sampleDBAdaptor;
     private QueryOptions sampleQueryOptions;
 
-    private Queue<Document> fileListBuffer;
+    private final BatchPrefetcher prefetcher;
 
     private Logger logger;
 
-    private static final int BUFFER_SIZE = 100;
-
     public FileCatalogMongoDBIterator(MongoDBIterator<Document> mongoCursor, ClientSession clientSession,
                                       AnnotableConverter<? extends Annotable> converter, Function<Document, Document> filter,
                                       FileMongoDBAdaptor fileMongoDBAdaptor, SampleMongoDBAdaptor sampleMongoDBAdaptor,
@@ -76,13 +74,13 @@ public class FileCatalogMongoDBIterator<E> extends AnnotableCatalogMongoDBIterat
         this.sampleDBAdaptor = sampleMongoDBAdaptor;
         this.sampleQueryOptions = createSampleQueryOptions();
 
-        this.fileListBuffer = new LinkedList<>();
+        this.prefetcher = new BatchPrefetcher(this::fetchNextBatch, this.options, this.clientSession);
         this.logger = LoggerFactory.getLogger(FileCatalogMongoDBIterator.class);
     }
 
     @Override
     public E next() {
-        Document next = fileListBuffer.remove();
+        Document next = prefetcher.next();
 
         if (filter != null) {
             next = filter.apply(next);
@@ -115,27 +113,30 @@ public class FileCatalogMongoDBIterator<E> extends AnnotableCatalogMongoDBIterat
 
     @Override
     public boolean hasNext() {
-        if (fileListBuffer.isEmpty()) {
-            fetchNextBatch();
-        }
-        return !fileListBuffer.isEmpty();
+        return prefetcher.hasNext();
+    }
+
+    @Override
+    public void close() {
+        prefetcher.close();
+        super.close();
     }
 
-    private void fetchNextBatch() {
+    private void fetchNextBatch(Queue<Document> buffer, int bufferSize) {
         Set<Long> sampleSet = new HashSet<>();
         Map<String, String> relatedFileMap = new HashMap<>();
         Set<Long> relatedFileSet = new HashSet<>();
 
-        // Get next BUFFER_SIZE documents
+        // Get next bufferSize documents
         int counter = 0;
-        while (mongoCursor.hasNext() && counter < BUFFER_SIZE) {
+        while (mongoCursor.hasNext() && counter < bufferSize) {
             Document fileDocument = (Document) mongoCursor.next();
 
             if (user != null && studyUid <= 0) {
                 studyUid = fileDocument.getLong(PRIVATE_STUDY_UID);
             }
 
-            fileListBuffer.add(fileDocument);
+            buffer.add(fileDocument);
             counter++;
 
             // Extract all the samples
@@ -185,7 +186,7 @@ public class FileCatalogMongoDBIterator<E> extends AnnotableCatalogMongoDBIterat
             );
 
             // Add the samples obtained to the corresponding files
-            fileListBuffer.forEach(fileDocument -> {
+            buffer.forEach(fileDocument -> {
                 List<Document> tmpSampleList = new ArrayList<>();
                 List<Document> samples = (List<Document>) fileDocument.get(FileDBAdaptor.QueryParams.SAMPLES.key());
 
@@ -228,7 +229,7 @@ public class FileCatalogMongoDBIterator<E> extends AnnotableCatalogMongoDBIterat
             );
 
             // Add the files obtained to the corresponding related files
-            fileListBuffer.forEach(fileDocument -> {
+            buffer.forEach(fileDocument -> {
                 String fileId = String.valueOf(fileDocument.getLong(FileDBAdaptor.QueryParams.UID.key()));
 
                 List<Document> tmpFileList = new ArrayList<>();
@@ -50,12 +50,11 @@ public class IndividualCatalogMongoDBIterator<E> extends AnnotableCatalogMongoDB
 
     private IndividualDBAdaptor individualDBAdaptor;
 
-    private Queue<Document> individualListBuffer;
+    private final BatchPrefetcher prefetcher;
+    private final RelatedDocumentCache sampleCache;
 
     private Logger logger;
 
-    private static final int BUFFER_SIZE = 100;
-
     public IndividualCatalogMongoDBIterator(MongoDBIterator<Document> mongoCursor, AnnotableConverter<? extends Annotable> converter,
                                             Function<Document, Document> filter, MongoDBAdaptorFactory dbAdaptorFactory,
                                             QueryOptions options) {
@@ -75,13 +74,14 @@ public class IndividualCatalogMongoDBIterator<E> extends AnnotableCatalogMongoDB
 
         this.individualDBAdaptor = dbAdaptorFactory.getCatalogIndividualDBAdaptor();
 
-        this.individualListBuffer = new LinkedList<>();
+        this.prefetcher = new BatchPrefetcher(this::fetchNextBatch, this.options, this.clientSession);
+        this.sampleCache = new RelatedDocumentCache();
         this.logger = LoggerFactory.getLogger(IndividualCatalogMongoDBIterator.class);
     }
 
     @Override
     public E next() {
-        Document next = individualListBuffer.remove();
+        Document next = prefetcher.next();
 
         if (filter != null) {
             next = filter.apply(next);
@@ -98,26 +98,29 @@ public class IndividualCatalogMongoDBIterator<E> extends AnnotableCatalogMongoDB
 
     @Override
     public boolean hasNext() {
-        if (individualListBuffer.isEmpty()) {
-            fetchNextBatch();
-        }
-        return !individualListBuffer.isEmpty();
+        return prefetcher.hasNext();
+    }
+
+    @Override
+    public void close() {
+        prefetcher.close();
+        super.close();
     }
 
-    private void fetchNextBatch() {
+    private void fetchNextBatch(Queue<Document> buffer, int bufferSize) {
         Set<String> sampleVersions = new HashSet<>();
         Map<Long, List<Document>> individualMap = new HashMap<>();
 
-        // Get next BUFFER_SIZE documents
+        // Get next bufferSize documents
         int counter = 0;
-        while (mongoCursor.hasNext() && counter < BUFFER_SIZE) {
+        while (mongoCursor.hasNext() && counter < bufferSize) {
             Document individualDocument = (Document) mongoCursor.next();
 
             if (user != null && studyUid <= 0) {
                 studyUid = individualDocument.getLong(PRIVATE_STUDY_UID);
             }
 
-            individualListBuffer.add(individualDocument);
+            buffer.add(individualDocument);
             counter++;
 
             // Extract all the samples
@@ -180,41 +183,50 @@ public class IndividualCatalogMongoDBIterator<E> extends AnnotableCatalogMongoDB
         }
 
         if (!sampleVersions.isEmpty()) {
-            // Obtain all those samples
+            // Map each sample uid - version to the sample entry. Samples fetched for previous batches are taken from the cache
+            Map<String, Document> sampleMap = new HashMap<>(sampleVersions.size());
 
             List<Long> uidList = new ArrayList<>(sampleVersions.size());
             List<Integer> versionList = new ArrayList<>(sampleVersions.size());
             sampleVersions.forEach(s -> {
-                String[] split = StringUtils.splitByWholeSeparatorPreserveAllTokens(s, "__");
-                uidList.add(Long.valueOf(split[0]));
-                versionList.add(Integer.valueOf(split[1]));
+                Document sample = sampleCache.get(s);
+                if (sample != null) {
+                    sampleMap.put(s, sample);
+                } else {
+                    String[] split = StringUtils.splitByWholeSeparatorPreserveAllTokens(s, "__");
+                    uidList.add(Long.valueOf(split[0]));
+                    versionList.add(Integer.valueOf(split[1]));
+                }
             });
 
-            Query query = new Query()
-                    .append(SampleDBAdaptor.QueryParams.UID.key(), uidList)
-                    .append(SampleDBAdaptor.QueryParams.VERSION.key(), versionList);
-            List<Document> sampleList;
-            try {
-                if (user != null) {
-                    query.put(SampleDBAdaptor.QueryParams.STUDY_UID.key(), studyUid);
-                    sampleList = sampleDBAdaptor.nativeGet(studyUid, query, sampleQueryOptions, user).getResults();
-                } else {
-                    sampleList = sampleDBAdaptor.nativeGet(query, sampleQueryOptions).getResults();
+            if (!uidList.isEmpty()) {
+                // Obtain the rest of the samples
+                Query query = new Query()
+                        .append(SampleDBAdaptor.QueryParams.UID.key(), uidList)
+                        .append(SampleDBAdaptor.QueryParams.VERSION.key(), versionList);
+                List<Document> sampleList;
+                try {
+                    if (user != null) {
+                        query.put(SampleDBAdaptor.QueryParams.STUDY_UID.key(), studyUid);
+                        sampleList = sampleDBAdaptor.nativeGet(studyUid, query, sampleQueryOptions, user).getResults();
+                    } else {
+                        sampleList = sampleDBAdaptor.nativeGet(query, sampleQueryOptions).getResults();
+                    }
+                } catch (CatalogDBException | CatalogAuthorizationException | CatalogParameterException e) {
+                    logger.warn("Could not obtain the samples associated to the individuals: {}", e.getMessage(), e);
+                    return;
                 }
-            } catch (CatalogDBException | CatalogAuthorizationException | CatalogParameterException e) {
-                logger.warn("Could not obtain the samples associated to the individuals: {}", e.getMessage(), e);
-                return;
-            }
 
-            // Map each sample uid - version to the sample entry
-            Map<String, Document> sampleMap = new HashMap<>(sampleList.size());
-            sampleList.forEach(sample ->
-                    sampleMap.put(String.valueOf(sample.get(IndividualDBAdaptor.QueryParams.UID.key())) + "__"
-                            + String.valueOf(sample.get(IndividualDBAdaptor.QueryParams.VERSION.key())), sample)
-            );
+                sampleList.forEach(sample -> {
+                    String key = String.valueOf(sample.get(IndividualDBAdaptor.QueryParams.UID.key())) + "__"
+                            + String.valueOf(sample.get(IndividualDBAdaptor.QueryParams.VERSION.key()));
+                    sampleMap.put(key, sample);
+                    sampleCache.put(key, sample);
+                });
+            }
 
             // Add the samples obtained to the corresponding individuals
-            individualListBuffer.forEach(individual -> {
+            buffer.forEach(individual -> {
                 List<Document> tmpSampleList = new ArrayList<>();
                 List<Document> samples = (List<Document>) individual.get(IndividualMongoDBAdaptor.QueryParams.SAMPLES.key());
 
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2015-2020 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencb.opencga.catalog.db.mongodb.iterators;
+
+import org.bson.Document;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Small LRU cache of the related documents joined by a catalog iterator, by uid and version. Consecutive batches often refer
+ * to the same documents (e.g. the members of a family shared by several clinical analyses), so each iterator only queries
+ * them once.
+ *
+ * Documents are copied when added and when returned, so the documents attached to different batches are never shared. Not
+ * thread safe. Batches are fetched one at a time, so it is only used by one thread at a time.
+ */
+final class RelatedDocumentCache {
+
+    static final int DEFAULT_MAX_SIZE = 1000;
+
+    private final Map<String, Document> documents;
+
+    RelatedDocumentCache() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    RelatedDocumentCache(int maxSize) {
+        this.documents = new LinkedHashMap<String, Document>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Document> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * Get a copy of a cached document.
+     *
+     * @param key Document uid and version
+     * @return a copy of the document, or null if not cached
+     */
+    Document get(String key) {
+        Document document = documents.get(key);
+        return document == null ? null : copy(document);
+    }
+
+    void put(String key, Document document) {
+        documents.put(key, copy(document));
+    }
+
+    int size() {
+        return documents.size();
+    }
+
+    static Document copy(Document document) {
+        Document copy = new Document();
+        for (Map.Entry<String, Object> entry : document.entrySet()) {
+            copy.put(entry.getKey(), copyValue(entry.getValue()));
+        }
+        return copy;
+    }
+
+    private static Object copyValue(Object value) {
+        if (value instanceof Document) {
+            return copy((Document) value);
+        } else if (value instanceof List) {
+            List<Object> list = new ArrayList<>(((List<?>) value).size());
+            for (Object element : (List<?>) value) {
+                list.add(copyValue(element));
+            }
+            return list;
+        } else {
+            return value;
+        }
+    }
+}
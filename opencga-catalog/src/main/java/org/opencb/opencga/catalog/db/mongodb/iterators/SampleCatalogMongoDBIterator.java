@@ -46,12 +46,10 @@ public class SampleCatalogMongoDBIterator<E> extends AnnotableCatalogMongoDBIter
     private IndividualMongoDBAdaptor individualDBAdaptor;
     private QueryOptions individualQueryOptions;
 
-    private Queue<Document> sampleListBuffer;
+    private final BatchPrefetcher prefetcher;
 
     private Logger logger;
 
-    private static final int BUFFER_SIZE = 100;
-
     public SampleCatalogMongoDBIterator(MongoDBIterator<Document> mongoCursor, ClientSession clientSession,
                                         AnnotableConverter<? extends Annotable> converter, Function<Document, Document> filter,
                                         IndividualMongoDBAdaptor individualDBAdaptor, QueryOptions options) {
@@ -69,13 +67,13 @@ public class SampleCatalogMongoDBIterator<E> extends AnnotableCatalogMongoDBIter
         this.individualDBAdaptor = individualDBAdaptor;
         this.individualQueryOptions = createIndividualQueryOptions();
 
-        this.sampleListBuffer = new LinkedList<>();
+        this.prefetcher = new BatchPrefetcher(this::fetchNextBatch, this.options, this.clientSession);
         this.logger = LoggerFactory.getLogger(SampleCatalogMongoDBIterator.class);
     }
 
     @Override
     public E next() {
-        Document next = sampleListBuffer.remove();
+        Document next = prefetcher.next();
 
         if (filter != null) {
             next = filter.apply(next);
@@ -93,25 +91,28 @@ public class SampleCatalogMongoDBIterator<E> extends AnnotableCatalogMongoDBIter
 
     @Override
     public boolean hasNext() {
-        if (sampleListBuffer.isEmpty()) {
-            fetchNextBatch();
-        }
-        return !sampleListBuffer.isEmpty();
+        return prefetcher.hasNext();
+    }
+
+    @Override
+    public void close() {
+        prefetcher.close();
+        super.close();
     }
 
-    private void fetchNextBatch() {
-        Map<Long, Document> sampleUidMap = new HashMap<>(BUFFER_SIZE);
+    private void fetchNextBatch(Queue<Document> buffer, int bufferSize) {
+        Map<Long, Document> sampleUidMap = new HashMap<>(bufferSize);
 
-        // Get next BUFFER_SIZE documents
+        // Get next bufferSize documents
         int counter = 0;
-        while (mongoCursor.hasNext() && counter < BUFFER_SIZE) {
+        while (mongoCursor.hasNext() && counter < bufferSize) {
             Document sampleDocument = mongoCursor.next();
 
             if (user != null && studyUid <= 0) {
                 studyUid = sampleDocument.getLong(PRIVATE_STUDY_UID);
             }
 
-            sampleListBuffer.add(sampleDocument);
+            buffer.add(sampleDocument);
             counter++;
 
             // Extract the sample uids
@@ -0,0 +1,255 @@
+/*
+ * Copyright 2015-2020 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencb.opencga.catalog.io;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+
+/**
+ * Calculate file checksums within the JVM.
+ *
+ * Files are read through a {@link FileChannel} into a direct buffer, and several files can be hashed in parallel using a
+ * bounded number of threads. Checksums are returned as lower case hexadecimal strings, so MD5 checksums are the same as
+ * the ones returned by "md5sum".
+ */
+public class ChecksumCalculator {
+
+    public static final int BUFFER_SIZE = 1024 * 1024;
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private final Algorithm algorithm;
+    private final int numThreads;
+
+    public enum Algorithm {
+        MD5,
+        SHA_256,
+        /** Much faster than a cryptographic digest. Only useful to detect modifications. */
+        CRC32;
+
+        public Hasher newHasher() {
+            switch (this) {
+                case MD5:
+                    return new MessageDigestHasher("MD5");
+                case SHA_256:
+                    return new MessageDigestHasher("SHA-256");
+                case CRC32:
+                    return new Crc32Hasher();
+                default:
+                    throw new IllegalStateException("Unknown checksum algorithm " + this);
+            }
+        }
+    }
+
+    /**
+     * @param algorithm  Checksum algorithm
+     * @param numThreads Max number of files hashed in parallel
+     */
+    public ChecksumCalculator(Algorithm algorithm, int numThreads) {
+        this.algorithm = algorithm;
+        this.numThreads = Math.max(1, numThreads);
+    }
+
+    public Algorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    public Hasher newHasher() {
+        return algorithm.newHasher();
+    }
+
+    /**
+     * Calculate the checksum of a file.
+     *
+     * @param file File
+     * @return the checksum
+     * @throws IOException if the file can not be read
+     */
+    public String calculate(Path file) throws IOException {
+        return calculate(file, ByteBuffer.allocateDirect(BUFFER_SIZE));
+    }
+
+    /**
+     * Calculate the checksum of multiple files in parallel.
+     *
+     * @param files Files
+     * @return the checksum of each file, in the same order
+     * @throws IOException if any of the files can not be read
+     */
+    public Map<Path, String> calculate(Collection<Path> files) throws IOException {
+        Map<Path, String> checksums = new LinkedHashMap<>();
+        if (files.isEmpty()) {
+            return checksums;
+        }
+        int threads = Math.min(numThreads, files.size());
+        if (threads == 1) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            for (Path file : files) {
+                checksums.put(file, calculate(file, buffer));
+            }
+            return checksums;
+        }
+
+        for (Path file : files) {
+            checksums.put(file, null);
+        }
+        Map<Path, String> results = new ConcurrentHashMap<>();
+        Queue<Path> pending = new ConcurrentLinkedQueue<>(files);
+        ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactoryBuilder()
+                .setNameFormat("checksum-%d")
+                .setDaemon(true)
+                .build());
+        try {
+            List<Future<?>> futures = new ArrayList<>(threads);
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(() -> {
+                    // One buffer per thread
+                    ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+                    Path file;
+                    while ((file = pending.poll()) != null) {
+                        results.put(file, calculate(file, buffer));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while calculating checksums", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        } finally {
+            // Stop the remaining threads on error
+            pending.clear();
+            executor.shutdownNow();
+        }
+        checksums.putAll(results);
+        return checksums;
+    }
+
+    private String calculate(Path file, ByteBuffer buffer) throws IOException {
+        Hasher hasher = newHasher();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer.clear();
+            while (channel.read(buffer) >= 0) {
+                buffer.flip();
+                hasher.update(buffer);
+                buffer.clear();
+            }
+        }
+        return hasher.getChecksum();
+    }
+
+    /**
+     * Incremental checksum. Can be used to calculate the checksum while a stream is consumed.
+     */
+    public abstract static class Hasher {
+
+        public abstract void update(ByteBuffer buffer);
+
+        /**
+         * Wrap an input stream, so the checksum is updated with every byte read from the stream.
+         *
+         * @param inputStream Input stream
+         * @return the wrapped input stream
+         */
+        public abstract InputStream wrap(InputStream inputStream);
+
+        /**
+         * @return the checksum of all the content read so far
+         */
+        public abstract String getChecksum();
+    }
+
+    private static final class MessageDigestHasher extends Hasher {
+        private final MessageDigest digest;
+
+        private MessageDigestHasher(String algorithm) {
+            try {
+                digest = MessageDigest.getInstance(algorithm);
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public void update(ByteBuffer buffer) {
+            digest.update(buffer);
+        }
+
+        @Override
+        public InputStream wrap(InputStream inputStream) {
+            return new DigestInputStream(inputStream, digest);
+        }
+
+        @Override
+        public String getChecksum() {
+            return toHex(digest.digest());
+        }
+    }
+
+    private static final class Crc32Hasher extends Hasher {
+        private final CRC32 checksum = new CRC32();
+
+        @Override
+        public void update(ByteBuffer buffer) {
+            checksum.update(buffer);
+        }
+
+        @Override
+        public InputStream wrap(InputStream inputStream) {
+            return new CheckedInputStream(inputStream, checksum);
+        }
+
+        @Override
+        public String getChecksum() {
+            long value = checksum.getValue();
+            byte[] bytes = new byte[4];
+            for (int i = bytes.length - 1; i >= 0; i--) {
+                bytes[i] = (byte) value;
+                value >>>= 8;
+            }
+            return toHex(bytes);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = HEX_DIGITS[(bytes[i] >> 4) & 0xF];
+            chars[i * 2 + 1] = HEX_DIGITS[bytes[i] & 0xF];
+        }
+        return new String(chars);
+    }
+}
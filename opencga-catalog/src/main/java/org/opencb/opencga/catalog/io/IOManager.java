@@ -27,7 +27,9 @@ import java.nio.file.CopyOption;
 import java.nio.file.FileVisitor;
 import java.nio.file.Path;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Stream;
 
 public abstract class IOManager {
@@ -84,8 +86,30 @@ public abstract class IOManager {
      */
     public abstract FileContent grep(Path file, String pattern, int lines, boolean ignoreCase) throws CatalogIOException;
 
+    /**
+     * Calculate the MD5 checksum of a file.
+     *
+     * @param file File
+     * @return the checksum
+     * @throws CatalogIOException if the file can not be read
+     */
     public abstract String calculateChecksum(URI file) throws CatalogIOException;
 
+    /**
+     * Calculate the MD5 checksum of multiple files. Implementations may hash the files in parallel.
+     *
+     * @param files Files
+     * @return the checksum of each file
+     * @throws CatalogIOException if any of the files can not be read
+     */
+    public Map<URI, String> calculateChecksums(List<URI> files) throws CatalogIOException {
+        Map<URI, String> checksums = new LinkedHashMap<>();
+        for (URI file : files) {
+            checksums.put(file, calculateChecksum(file));
+        }
+        return checksums;
+    }
+
     public abstract List<URI> listFiles(URI directory) throws CatalogIOException;
 
     public Stream<URI> listFilesStream(URI directory) throws CatalogIOException {
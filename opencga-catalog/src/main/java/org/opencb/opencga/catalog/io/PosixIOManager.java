@@ -31,15 +31,15 @@ import java.net.URI;
 import java.net.URISyntaxException;
 import java.nio.file.*;
 import java.nio.file.attribute.BasicFileAttributes;
-import java.util.Base64;
-import java.util.Date;
-import java.util.LinkedList;
-import java.util.List;
+import java.util.*;
 import java.util.stream.Stream;
 
 public class PosixIOManager extends IOManager {
 
     protected static Logger logger = LoggerFactory.getLogger(PosixIOManager.class);
+    private static final int CHECKSUM_THREADS = Math.min(4, Runtime.getRuntime().availableProcessors());
+
+    private final ChecksumCalculator checksumCalculator = new ChecksumCalculator(ChecksumCalculator.Algorithm.MD5, CHECKSUM_THREADS);
     protected static ObjectMapper jsonObjectMapper;
 
     private static final int MAXIMUM_BYTES = 1024 * 1024;
@@ -467,26 +467,29 @@ public class PosixIOManager extends IOManager {
 
     @Override
     public String calculateChecksum(URI file) throws CatalogIOException {
-        String checksum;
         try {
-            String[] command = {"md5sum", file.getPath()};
-            logger.debug("command = {} {}", command[0], command[1]);
-            Process p = Runtime.getRuntime().exec(command);
-            BufferedReader br = new BufferedReader(new InputStreamReader(p.getInputStream()));
-            checksum = br.readLine();
-
-            if (p.waitFor() != 0) {
-                //TODO: Handle error in checksum
-                logger.info("checksum = " + checksum);
-                br = new BufferedReader(new InputStreamReader(p.getErrorStream()));
-                throw new CatalogIOException("md5sum failed with exit value : " + p.exitValue() + ". ERROR: " + br.readLine());
-            }
-        } catch (IOException | InterruptedException e) {
-            //TODO: Handle error in checksum
+            return checksumCalculator.calculate(Paths.get(file));
+        } catch (IOException e) {
             throw new CatalogIOException("Checksum error in file " + file, e);
         }
+    }
 
-        return checksum.split(" ")[0];
+    @Override
+    public Map<URI, String> calculateChecksums(List<URI> files) throws CatalogIOException {
+        List<Path> paths = new ArrayList<>(files.size());
+        for (URI file : files) {
+            paths.add(Paths.get(file));
+        }
+        Map<URI, String> checksums = new LinkedHashMap<>();
+        try {
+            Map<Path, String> pathChecksums = checksumCalculator.calculate(paths);
+            for (int i = 0; i < files.size(); i++) {
+                checksums.put(files.get(i), pathChecksums.get(paths.get(i)));
+            }
+        } catch (IOException e) {
+            throw new CatalogIOException("Checksum error: " + e.getMessage(), e);
+        }
+        return checksums;
     }
 
     @Override
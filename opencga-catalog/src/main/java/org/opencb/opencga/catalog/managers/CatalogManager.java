@@ -74,6 +74,7 @@ public class CatalogManager implements AutoCloseable {
 
     private AuditManager auditManager;
     private AuthorizationManager authorizationManager;
+    private ResolutionCache resolutionCache;
 
     private Configuration configuration;
 
@@ -96,7 +97,10 @@ public class CatalogManager implements AutoCloseable {
         //TODO: Check if catalog is empty
         //TODO: Setup catalog if it's empty.
         this.initializeAdmin(configuration);
-        authorizationManager = new CatalogAuthorizationManager(this.catalogDBAdaptorFactory, configuration);
+        resolutionCache = new ResolutionCache(configuration.getCatalog() == null
+                ? null
+                : configuration.getCatalog().getResolutionCache());
+        authorizationManager = new CatalogAuthorizationManager(this.catalogDBAdaptorFactory, configuration, resolutionCache);
         auditManager = new AuditManager(authorizationManager, this, this.catalogDBAdaptorFactory, configuration);
 
         userManager = new UserManager(authorizationManager, auditManager, this, catalogDBAdaptorFactory, catalogIOManager, configuration);
@@ -249,6 +253,9 @@ public class CatalogManager implements AutoCloseable {
 
     @Override
     public void close() throws CatalogException {
+        if (auditManager != null) {
+            auditManager.close();
+        }
         catalogDBAdaptorFactory.close();
     }
 
@@ -311,4 +318,8 @@ public class CatalogManager implements AutoCloseable {
     public AuditManager getAuditManager() {
         return auditManager;
     }
+
+    public ResolutionCache getResolutionCache() {
+        return resolutionCache;
+    }
 }
@@ -16,6 +16,7 @@
 package org.opencb.opencga.catalog.managers;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.apache.commons.lang3.NotImplementedException;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.time.StopWatch;
@@ -37,6 +38,7 @@ import org.opencb.opencga.catalog.db.api.SampleDBAdaptor;
 import org.opencb.opencga.catalog.db.api.StudyDBAdaptor;
 import org.opencb.opencga.catalog.db.mongodb.MongoDBAdaptorFactory;
 import org.opencb.opencga.catalog.exceptions.*;
+import org.opencb.opencga.catalog.io.ChecksumCalculator;
 import org.opencb.opencga.catalog.io.IOManager;
 import org.opencb.opencga.catalog.io.IOManagerFactory;
 import org.opencb.opencga.catalog.models.InternalGetDataResult;
@@ -69,6 +71,10 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 import java.util.function.Predicate;
@@ -91,6 +97,8 @@ public class FileManager extends AnnotationSetManager<File> {
     public  static final QueryOptions EXCLUDE_FILE_ATTRIBUTES;
     private static final Comparator<File> ROOT_FIRST_COMPARATOR;
     private static final Comparator<File> ROOT_LAST_COMPARATOR;
+    private static final int LINK_BATCH_SIZE = 1000;
+    private static final int LINK_THREADS = Math.min(8, Runtime.getRuntime().availableProcessors());
 
     protected static Logger logger;
     private FileMetadataReader fileMetadataReader;
@@ -903,6 +911,8 @@ public class FileManager extends AnnotationSetManager<File> {
             logger.info("Uploading file... Temporal file path: {}", tempFilePath.toString());
 
             // Create the temporal directory and upload the file
+            String checksum = null;
+            long uploadedBytes;
             try {
                 if (!ioManager.exists(tempFilePath.getParent().toUri())) {
                     logger.debug("Creating temporal folder: {}", tempFilePath.getParent());
@@ -910,8 +920,14 @@ public class FileManager extends AnnotationSetManager<File> {
                 }
 
                 // Start uploading the file to the temporal directory
-                // Upload the file to a temporary folder
-                ioManager.copy(fileInputStream, tempFilePath.toUri());
+                // Upload the file to a temporary folder. The checksum is calculated while copying
+                if (calculateChecksum) {
+                    ChecksumCalculator.Hasher hasher = ChecksumCalculator.Algorithm.MD5.newHasher();
+                    uploadedBytes = ioManager.copy(hasher.wrap(fileInputStream), tempFilePath.toUri());
+                    checksum = hasher.getChecksum();
+                } else {
+                    uploadedBytes = ioManager.copy(fileInputStream, tempFilePath.toUri());
+                }
             } catch (Exception e) {
                 logger.error("Error uploading file {}", file.getName(), e);
 
@@ -927,16 +943,12 @@ public class FileManager extends AnnotationSetManager<File> {
                 // Create the directories where the file will be placed (if they weren't created before)
                 ioManager.createDirectory(Paths.get(file.getUri()).getParent().toUri(), true);
 
-                String checksum = null;
-                if (calculateChecksum) {
-                    checksum = ioManager.calculateChecksum(sourceUri);
-                }
                 if (overwrite) {
                     ioManager.move(sourceUri, file.getUri(), StandardCopyOption.REPLACE_EXISTING);
                 } else {
                     ioManager.move(sourceUri, file.getUri());
                 }
-                if (calculateChecksum && !checksum.equals(ioManager.calculateChecksum(file.getUri()))) {
+                if (calculateChecksum && ioManager.getFileSize(file.getUri()) != uploadedBytes) {
                     throw new CatalogIOException("Error moving file from " + sourceUri + " to " + file.getUri());
                 }
 
@@ -3190,7 +3202,12 @@ public class FileManager extends AnnotationSetManager<File> {
                 .append(FileDBAdaptor.QueryParams.EXTERNAL.key(), true);
 
 
-        if (fileDBAdaptor.count(query).getNumMatches() > 0) {
+        OpenCGAResult<File> linkedResult = fileDBAdaptor.get(query, new QueryOptions(QueryOptions.INCLUDE,
+                Arrays.asList(FileDBAdaptor.QueryParams.PATH.key(), FileDBAdaptor.QueryParams.INTERNAL_STATUS.key())));
+        if (linkedResult.getNumResults() > 0 && isLinkPending(linkedResult.first())) {
+            // The folder is being linked, or the link was interrupted. Link again the missing files
+            logger.info("Resuming link of {} into {}", normalizedUri, externalPathDestinyStr);
+        } else if (linkedResult.getNumResults() > 0) {
             // Create a regular expression on URI to return everything linked from that URI
             query.put(FileDBAdaptor.QueryParams.URI.key(), "~^" + normalizedUri);
             query.remove(FileDBAdaptor.QueryParams.PATH.key());
@@ -3200,17 +3217,17 @@ public class FileManager extends AnnotationSetManager<File> {
                     .append(QueryOptions.LIMIT, 100);
 
             return fileDBAdaptor.get(query, queryOptions);
-        }
-
-        // Check if the uri was linked to other path
-        query = new Query()
-                .append(FileDBAdaptor.QueryParams.URI.key(), normalizedUri)
-                .append(FileDBAdaptor.QueryParams.STUDY_UID.key(), study.getUid())
-                .append(FileDBAdaptor.QueryParams.EXTERNAL.key(), true);
-        if (fileDBAdaptor.count(query).getNumMatches() > 0) {
-            QueryOptions queryOptions = new QueryOptions(QueryOptions.INCLUDE, FileDBAdaptor.QueryParams.PATH.key());
-            String path = fileDBAdaptor.get(query, queryOptions).first().getPath();
-            throw new CatalogException(normalizedUri + " was already linked to other path: " + path);
+        } else {
+            // Check if the uri was linked to other path
+            query = new Query()
+                    .append(FileDBAdaptor.QueryParams.URI.key(), normalizedUri)
+                    .append(FileDBAdaptor.QueryParams.STUDY_UID.key(), study.getUid())
+                    .append(FileDBAdaptor.QueryParams.EXTERNAL.key(), true);
+            if (fileDBAdaptor.count(query).getNumMatches() > 0) {
+                QueryOptions queryOptions = new QueryOptions(QueryOptions.INCLUDE, FileDBAdaptor.QueryParams.PATH.key());
+                String path = fileDBAdaptor.get(query, queryOptions).first().getPath();
+                throw new CatalogException(normalizedUri + " was already linked to other path: " + path);
+            }
         }
 
 //         FIXME: Implement resync
@@ -3254,20 +3271,18 @@ public class FileManager extends AnnotationSetManager<File> {
             }
         }
 
-        // This list will contain the list of transformed files detected during the link
-        List<File> transformedFiles = new ArrayList<>();
-
         // We remove the / at the end for replacement purposes in the walkFileTree
         if (externalPathDestinyStr.endsWith("/")) {
             externalPathDestinyStr = externalPathDestinyStr.substring(0, externalPathDestinyStr.length() - 1);
         }
         String finalExternalPathDestinyStr = externalPathDestinyStr;
 
-        // Link all the files and folders present in the uri
-        ioManager.walkFileTree(normalizedUri, new SimpleFileVisitor<URI>() {
-            @Override
-            public FileVisitResult preVisitDirectory(URI dir, BasicFileAttributes attrs) throws IOException {
-                try {
+        // Link all the files and folders present in the uri. Entries are registered in batches
+        LinkBatchWriter linkWriter = new LinkBatchWriter(study, params, relatedFiles, ioManager, userId, token);
+        try {
+            ioManager.walkFileTree(normalizedUri, new SimpleFileVisitor<URI>() {
+                @Override
+                public FileVisitResult preVisitDirectory(URI dir, BasicFileAttributes attrs) throws IOException {
                     String destinyPath = Paths.get(dir).toString().replace(Paths.get(normalizedUri).toString(),
                             finalExternalPathDestinyStr);
 
@@ -3279,52 +3294,12 @@ public class FileManager extends AnnotationSetManager<File> {
                         destinyPath = destinyPath.substring(1);
                     }
 
-                    Query query = new Query()
-                            .append(FileDBAdaptor.QueryParams.STUDY_UID.key(), study.getUid())
-                            .append(FileDBAdaptor.QueryParams.PATH.key(), destinyPath);
-
-                    if (fileDBAdaptor.count(query).getNumMatches() == 0) {
-                        // If the folder does not exist, we create it
-
-                        String parentPath = getParentPath(destinyPath);
-                        long parentFileId = fileDBAdaptor.getId(study.getUid(), parentPath);
-                        // We obtain the permissions set in the parent folder and set them to the file or folder being created
-                        OpenCGAResult<Map<String, List<String>>> allFileAcls;
-                        try {
-                            allFileAcls = authorizationManager.getAllFileAcls(study.getUid(), parentFileId, userId, true);
-                        } catch (CatalogException e) {
-                            throw new RuntimeException(e);
-                        }
-
-                        File folder = new File(Paths.get(dir).getFileName().toString(), File.Type.DIRECTORY, File.Format.PLAIN,
-                                File.Bioformat.NONE, dir, destinyPath, null, TimeUtils.getTime(),
-                                TimeUtils.getTime(), params.getDescription(), true, 0, new Software(), new FileExperiment(),
-                                Collections.emptyList(), relatedFiles, "", studyManager.getCurrentRelease(study), Collections.emptyList(),
-                                Collections.emptyMap(),
-                                params.getStatus() != null ? params.getStatus().toCustomStatus() : new CustomStatus(),
-                                FileInternal.initialize(), Collections.emptyMap());
-                        folder.setUuid(UuidUtils.generateOpenCgaUuid(UuidUtils.Entity.FILE));
-                        checkHooks(folder, study.getFqn(), HookConfiguration.Stage.CREATE);
-                        fileDBAdaptor.insert(study.getUid(), folder, Collections.emptyList(), new QueryOptions());
-                        OpenCGAResult<File> queryResult = getFile(study.getUid(), folder.getUuid(), QueryOptions.empty());
-
-                        // Propagate ACLs
-                        if (allFileAcls != null && allFileAcls.getNumResults() > 0) {
-                            authorizationManager.replicateAcls(study.getUid(), Arrays.asList(queryResult.first().getUid()),
-                                    allFileAcls.getResults().get(0), Enums.Resource.FILE);
-                        }
-                    }
-
-                } catch (CatalogException e) {
-                    logger.error("An error occurred when trying to create folder {}", dir.toString());
+                    linkWriter.add(dir, destinyPath, File.Type.DIRECTORY);
+                    return FileVisitResult.CONTINUE;
                 }
 
-                return FileVisitResult.CONTINUE;
-            }
-
-            @Override
-            public FileVisitResult visitFile(URI fileUri, BasicFileAttributes attrs) throws IOException {
-                try {
+                @Override
+                public FileVisitResult visitFile(URI fileUri, BasicFileAttributes attrs) throws IOException {
                     String destinyPath = Paths.get(fileUri).toString().replace(Paths.get(normalizedUri).toString(),
                             finalExternalPathDestinyStr);
 
@@ -3332,77 +3307,38 @@ public class FileManager extends AnnotationSetManager<File> {
                         destinyPath = destinyPath.substring(1);
                     }
 
-                    Query query = new Query()
-                            .append(FileDBAdaptor.QueryParams.STUDY_UID.key(), study.getUid())
-                            .append(FileDBAdaptor.QueryParams.PATH.key(), destinyPath);
-
-                    if (fileDBAdaptor.count(query).getNumMatches() == 0) {
-                        long size = ioManager.getFileSize(fileUri);
-                        // If the file does not exist, we create it
-                        String parentPath = getParentPath(destinyPath);
-                        long parentFileId = fileDBAdaptor.getId(study.getUid(), parentPath);
-                        // We obtain the permissions set in the parent folder and set them to the file or folder being created
-                        OpenCGAResult<Map<String, List<String>>> allFileAcls;
-                        try {
-                            allFileAcls = authorizationManager.getAllFileAcls(study.getUid(), parentFileId, userId, true);
-                        } catch (CatalogException e) {
-                            throw new RuntimeException(e);
-                        }
-
-                        FileInternal internal = FileInternal.initialize();
-                        if (params.getInternal() != null) {
-                            internal.setSampleMap(params.getInternal().getSampleMap());
-                        }
-
-                        File subfile = new File(Paths.get(fileUri).getFileName().toString(), File.Type.FILE, File.Format.UNKNOWN,
-                                File.Bioformat.NONE, fileUri, destinyPath, null, TimeUtils.getTime(),
-                                TimeUtils.getTime(), params.getDescription(), true, size, new Software(), new FileExperiment(),
-                                Collections.emptyList(), relatedFiles, "", studyManager.getCurrentRelease(study), Collections.emptyList(),
-                                Collections.emptyMap(),
-                                params.getStatus() != null ? params.getStatus().toCustomStatus() : new CustomStatus(), internal,
-                                new HashMap<>());
-                        subfile.setUuid(UuidUtils.generateOpenCgaUuid(UuidUtils.Entity.FILE));
-                        checkHooks(subfile, study.getFqn(), HookConfiguration.Stage.CREATE);
-
-                        // Improve metadata information and extract samples if any
-                        new FileMetadataReader(catalogManager).addMetadataInformation(study.getFqn(), subfile);
-                        validateNewSamples(study, subfile, token);
-
-                        fileDBAdaptor.insert(study.getUid(), subfile, Collections.emptyList(), new QueryOptions());
-                        subfile = getFile(study.getUid(), subfile.getUuid(), QueryOptions.empty()).first();
-
-                        // Propagate ACLs
-                        if (allFileAcls != null && allFileAcls.getNumResults() > 0) {
-                            authorizationManager.replicateAcls(study.getUid(), Arrays.asList(subfile.getUid()),
-                                    allFileAcls.getResults().get(0), Enums.Resource.FILE);
-                        }
-
-                        if (isTransformedFile(subfile.getName())) {
-                            logger.info("Detected transformed file {}", subfile.getPath());
-                            transformedFiles.add(subfile);
-                        }
-                    } else {
-                        throw new CatalogException("Cannot link the file " + Paths.get(fileUri).getFileName().toString()
-                                + ". There is already a file in the path " + destinyPath + " with the same name.");
-                    }
-
-                } catch (CatalogException e) {
-                    logger.error(e.getMessage());
+                    linkWriter.add(fileUri, destinyPath, File.Type.FILE);
+                    return FileVisitResult.CONTINUE;
                 }
 
-                return FileVisitResult.CONTINUE;
-            }
+                @Override
+                public FileVisitResult visitFileFailed(URI file, IOException exc) throws IOException {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
 
-            @Override
-            public FileVisitResult visitFileFailed(URI file, IOException exc) throws IOException {
-                return FileVisitResult.SKIP_SUBTREE;
-            }
+                @Override
+                public FileVisitResult postVisitDirectory(URI dir, IOException exc) throws IOException {
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+            linkWriter.flush();
+        } finally {
+            linkWriter.close();
+        }
+        List<File> transformedFiles = linkWriter.getTransformedFiles();
 
-            @Override
-            public FileVisitResult postVisitDirectory(URI dir, IOException exc) throws IOException {
-                return FileVisitResult.CONTINUE;
+        // Mark the linked folder as completed, unless some entries could not be linked
+        if (Paths.get(normalizedUri).toFile().isDirectory()) {
+            String rootPath = finalExternalPathDestinyStr + "/";
+            if (linkWriter.getErrors() == 0) {
+                long rootUid = fileDBAdaptor.getId(study.getUid(), rootPath);
+                fileDBAdaptor.update(rootUid, new ObjectMap(FileDBAdaptor.QueryParams.INTERNAL_STATUS_NAME.key(), FileStatus.READY),
+                        Collections.emptyList(), QueryOptions.empty());
+            } else {
+                logger.warn("Link of {} incomplete. {} entries could not be linked. Link again to resume", normalizedUri,
+                        linkWriter.getErrors());
             }
-        });
+        }
 
         // Try to link transformed files with their corresponding original files if any
         try {
@@ -3425,6 +3361,295 @@ public class FileManager extends AnnotationSetManager<File> {
         return fileDBAdaptor.get(query, queryOptions);
     }
 
+    private boolean isLinkPending(File file) {
+        return file.getInternal() != null && file.getInternal().getStatus() != null
+                && FileStatus.STAGE.equals(file.getInternal().getStatus().getName());
+    }
+
+    /**
+     * Registers the files and folders found while linking an uri. Entries are resolved and inserted in batches:
+     * <ul>
+     *     <li>Existing paths are resolved with one query per batch, and skipped, so an interrupted link can be resumed.</li>
+     *     <li>File sizes and metadata are read in parallel.</li>
+     *     <li>ACLs of the parent folders are kept in memory. Folders created by the link inherit the ACLs of their parent.</li>
+     *     <li>Files without samples are inserted with a single write per batch.</li>
+     * </ul>
+     * The linked folder is registered with status {@link FileStatus#STAGE} until the link finishes.
+     */
+    private class LinkBatchWriter {
+        private final Study study;
+        private final FileLinkParams params;
+        private final List<FileRelatedFile> relatedFiles;
+        private final IOManager ioManager;
+        private final String userId;
+        private final String token;
+        private final int release;
+        private final ExecutorService executor;
+
+        private final List<LinkEntry> entries = new ArrayList<>(LINK_BATCH_SIZE);
+        // ACLs of the folders containing the linked entries. Empty if the folder has no ACLs
+        private final Map<String, Map<String, List<String>>> folderAcls = new HashMap<>();
+        private final List<File> transformedFiles = new ArrayList<>();
+        private final long start = System.currentTimeMillis();
+        private String rootPath;
+        private int visited = 0;
+        private int linked = 0;
+        private int registered = 0;
+        private int errors = 0;
+
+        LinkBatchWriter(Study study, FileLinkParams params, List<FileRelatedFile> relatedFiles, IOManager ioManager, String userId,
+                        String token) throws CatalogException {
+            this.study = study;
+            this.params = params;
+            this.relatedFiles = relatedFiles;
+            this.ioManager = ioManager;
+            this.userId = userId;
+            this.token = token;
+            this.release = studyManager.getCurrentRelease(study);
+            this.executor = Executors.newFixedThreadPool(LINK_THREADS, new ThreadFactoryBuilder()
+                    .setNameFormat("file-link-%d")
+                    .setDaemon(true)
+                    .build());
+        }
+
+        void add(URI uri, String path, File.Type type) throws IOException {
+            if (rootPath == null) {
+                rootPath = path;
+            }
+            entries.add(new LinkEntry(uri, path, type));
+            if (entries.size() >= LINK_BATCH_SIZE) {
+                try {
+                    flush();
+                } catch (CatalogException e) {
+                    throw new IOException(e);
+                }
+            }
+        }
+
+        void flush() throws CatalogException {
+            if (entries.isEmpty()) {
+                return;
+            }
+            List<LinkEntry> batch = new ArrayList<>(entries);
+            entries.clear();
+            visited += batch.size();
+
+            // Resolve all the existing paths with one query
+            Query query = new Query()
+                    .append(FileDBAdaptor.QueryParams.STUDY_UID.key(), study.getUid())
+                    .append(FileDBAdaptor.QueryParams.PATH.key(), batch.stream().map(e -> e.path).collect(Collectors.toList()));
+            QueryOptions options = new QueryOptions(QueryOptions.INCLUDE, Arrays.asList(FileDBAdaptor.QueryParams.PATH.key(),
+                    FileDBAdaptor.QueryParams.URI.key(), FileDBAdaptor.QueryParams.EXTERNAL.key()));
+            Map<String, File> existingFiles = new HashMap<>();
+            for (File file : fileDBAdaptor.get(query, options).getResults()) {
+                existingFiles.put(file.getPath(), file);
+            }
+
+            List<LinkEntry> newEntries = new ArrayList<>(batch.size());
+            for (LinkEntry entry : batch) {
+                File existingFile = existingFiles.get(entry.path);
+                if (existingFile == null) {
+                    newEntries.add(entry);
+                } else if (entry.type == File.Type.FILE && !(existingFile.isExternal() && entry.uri.equals(existingFile.getUri()))) {
+                    errors++;
+                    logger.error("Cannot link the file {}. There is already a file in the path {} with the same name.",
+                            Paths.get(entry.uri).getFileName(), entry.path);
+                } else {
+                    registered++;
+                }
+            }
+
+            List<File> files = buildFiles(newEntries);
+            Map<File, Map<String, List<String>>> acls = resolveAcls(files);
+            List<File> insertedFiles = insert(files);
+
+            // Propagate ACLs. Entries sharing the same parent ACLs are updated together
+            Map<Map<String, List<String>>, List<Long>> uidsByAcls = new IdentityHashMap<>();
+            for (File file : insertedFiles) {
+                Map<String, List<String>> fileAcls = acls.get(file);
+                if (!fileAcls.isEmpty()) {
+                    uidsByAcls.computeIfAbsent(fileAcls, k -> new ArrayList<>()).add(file.getUid());
+                }
+                if (file.getType() == File.Type.FILE && isTransformedFile(file.getName())) {
+                    logger.info("Detected transformed file {}", file.getPath());
+                    transformedFiles.add(file);
+                }
+            }
+            for (Map.Entry<Map<String, List<String>>, List<Long>> entry : uidsByAcls.entrySet()) {
+                authorizationManager.replicateAcls(study.getUid(), entry.getValue(), entry.getKey(), Enums.Resource.FILE);
+            }
+            linked += insertedFiles.size();
+
+            long elapsed = System.currentTimeMillis() - start;
+            logger.info("Link {}: {} entries visited, {} linked, {} already registered, {} errors. {} entries/s", rootPath, visited,
+                    linked, registered, errors, elapsed == 0 ? visited : visited * 1000 / elapsed);
+        }
+
+        private List<File> buildFiles(List<LinkEntry> newEntries) throws CatalogException {
+            List<Future<File>> futures = new ArrayList<>(newEntries.size());
+            for (LinkEntry entry : newEntries) {
+                futures.add(executor.submit(() -> buildFile(entry)));
+            }
+            List<File> files = new ArrayList<>(newEntries.size());
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    File file = futures.get(i).get();
+                    validateNewSamples(study, file, token);
+                    files.add(file);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new CatalogException("Link interrupted", e);
+                } catch (ExecutionException | CatalogException e) {
+                    Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+                    errors++;
+                    logger.error("An error occurred when trying to link {}: {}", newEntries.get(i).uri, cause.getMessage());
+                }
+            }
+            return files;
+        }
+
+        private File buildFile(LinkEntry entry) throws CatalogException {
+            File file;
+            if (entry.type == File.Type.DIRECTORY) {
+                FileInternal internal = FileInternal.initialize();
+                if (entry.path.equals(rootPath)) {
+                    internal.setStatus(new FileStatus(FileStatus.STAGE));
+                }
+                file = new File(Paths.get(entry.uri).getFileName().toString(), File.Type.DIRECTORY, File.Format.PLAIN,
+                        File.Bioformat.NONE, entry.uri, entry.path, null, TimeUtils.getTime(),
+                        TimeUtils.getTime(), params.getDescription(), true, 0, new Software(), new FileExperiment(),
+                        Collections.emptyList(), relatedFiles, "", release, Collections.emptyList(), Collections.emptyMap(),
+                        params.getStatus() != null ? params.getStatus().toCustomStatus() : new CustomStatus(),
+                        internal, Collections.emptyMap());
+                file.setUuid(UuidUtils.generateOpenCgaUuid(UuidUtils.Entity.FILE));
+                checkHooks(file, study.getFqn(), HookConfiguration.Stage.CREATE);
+            } else {
+                long size = ioManager.getFileSize(entry.uri);
+                FileInternal internal = FileInternal.initialize();
+                if (params.getInternal() != null) {
+                    internal.setSampleMap(params.getInternal().getSampleMap());
+                }
+
+                file = new File(Paths.get(entry.uri).getFileName().toString(), File.Type.FILE, File.Format.UNKNOWN,
+                        File.Bioformat.NONE, entry.uri, entry.path, null, TimeUtils.getTime(),
+                        TimeUtils.getTime(), params.getDescription(), true, size, new Software(), new FileExperiment(),
+                        Collections.emptyList(), relatedFiles, "", release, Collections.emptyList(), Collections.emptyMap(),
+                        params.getStatus() != null ? params.getStatus().toCustomStatus() : new CustomStatus(), internal,
+                        new HashMap<>());
+                file.setUuid(UuidUtils.generateOpenCgaUuid(UuidUtils.Entity.FILE));
+                checkHooks(file, study.getFqn(), HookConfiguration.Stage.CREATE);
+
+                // Improve metadata information and extract samples if any
+                new FileMetadataReader(catalogManager).addMetadataInformation(study.getFqn(), file);
+            }
+            return file;
+        }
+
+        /**
+         * Get the ACLs each new file inherits from its parent folder. Parent folders not created by the link are resolved
+         * with one query.
+         *
+         * @param files New files, sorted as visited
+         * @return ACLs of each file
+         * @throws CatalogException if the ACLs could not be obtained
+         */
+        private Map<File, Map<String, List<String>>> resolveAcls(List<File> files) throws CatalogException {
+            Set<String> newFolders = new HashSet<>();
+            Set<String> missingParents = new HashSet<>();
+            for (File file : files) {
+                String parentPath = getParentPath(file.getPath());
+                if (!folderAcls.containsKey(parentPath) && !newFolders.contains(parentPath)) {
+                    missingParents.add(parentPath);
+                }
+                if (file.getType() == File.Type.DIRECTORY) {
+                    newFolders.add(file.getPath());
+                }
+            }
+            if (!missingParents.isEmpty()) {
+                Query query = new Query()
+                        .append(FileDBAdaptor.QueryParams.STUDY_UID.key(), study.getUid())
+                        .append(FileDBAdaptor.QueryParams.PATH.key(), new ArrayList<>(missingParents));
+                QueryOptions options = new QueryOptions(QueryOptions.INCLUDE, Arrays.asList(FileDBAdaptor.QueryParams.UID.key(),
+                        FileDBAdaptor.QueryParams.PATH.key()));
+                for (File parent : fileDBAdaptor.get(query, options).getResults()) {
+                    // We obtain the permissions set in the parent folder and set them to the file or folder being created
+                    OpenCGAResult<Map<String, List<String>>> allFileAcls = authorizationManager.getAllFileAcls(study.getUid(),
+                            parent.getUid(), userId, true);
+                    folderAcls.put(parent.getPath(), allFileAcls != null && allFileAcls.getNumResults() > 0
+                            ? allFileAcls.first()
+                            : Collections.emptyMap());
+                }
+            }
+
+            Map<File, Map<String, List<String>>> acls = new IdentityHashMap<>();
+            for (File file : files) {
+                Map<String, List<String>> parentAcls = folderAcls.getOrDefault(getParentPath(file.getPath()), Collections.emptyMap());
+                acls.put(file, parentAcls);
+                if (file.getType() == File.Type.DIRECTORY) {
+                    folderAcls.put(file.getPath(), parentAcls);
+                }
+            }
+            return acls;
+        }
+
+        private List<File> insert(List<File> files) {
+            List<File> batchFiles = new ArrayList<>(files.size());
+            List<File> insertedFiles = new ArrayList<>(files.size());
+            for (File file : files) {
+                if (file.getSamples() == null || file.getSamples().isEmpty()) {
+                    batchFiles.add(file);
+                } else {
+                    insert(file, insertedFiles);
+                }
+            }
+            try {
+                fileDBAdaptor.insert(study.getUid(), batchFiles, QueryOptions.empty());
+                insertedFiles.addAll(batchFiles);
+            } catch (CatalogException e) {
+                // Some paths might have been registered concurrently. Insert one by one
+                logger.warn("Could not insert {} files in batch: {}. Inserting one by one", batchFiles.size(), e.getMessage());
+                for (File file : batchFiles) {
+                    insert(file, insertedFiles);
+                }
+            }
+            return insertedFiles;
+        }
+
+        private void insert(File file, List<File> insertedFiles) {
+            try {
+                fileDBAdaptor.insert(study.getUid(), file, Collections.emptyList(), new QueryOptions());
+                insertedFiles.add(file);
+            } catch (CatalogException e) {
+                errors++;
+                logger.error("An error occurred when trying to link {}: {}", file.getUri(), e.getMessage());
+            }
+        }
+
+        List<File> getTransformedFiles() {
+            return transformedFiles;
+        }
+
+        int getErrors() {
+            return errors;
+        }
+
+        void close() {
+            executor.shutdownNow();
+        }
+    }
+
+    private static final class LinkEntry {
+        private final URI uri;
+        private final String path;
+        private final File.Type type;
+
+        private LinkEntry(URI uri, String path, File.Type type) {
+            this.uri = uri;
+            this.path = path;
+            this.type = type;
+        }
+    }
+
     OpenCGAResult<File> registerFile(Study study, String filePath, URI fileUri, String jobId, String token) throws CatalogException {
         String userId = userManager.getUserId(token);
         IOManager ioManager;
@@ -38,7 +38,9 @@ import java.net.URI;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.regex.Pattern;
 
@@ -74,6 +76,49 @@ public class FileUtils {
      * @throws CatalogException CatalogException
      */
     public File checkFile(String studyStr, File file, boolean calculateChecksum, String sessionId) throws CatalogException {
+        return checkFile(studyStr, file, calculateChecksum, null, sessionId);
+    }
+
+    /**
+     * Check a list of files. See {@link #checkFile(String, File, boolean, String)}.
+     *
+     * The checksums of the "found files" are calculated in parallel.
+     *
+     * @param studyStr          Study corresponding to the files to be checked.
+     * @param files             Files to check
+     * @param calculateChecksum Calculate checksum for "found files"
+     * @param sessionId         User's sessionId
+     * @return The list of checked files. Modified files are replaced.
+     * @throws CatalogException CatalogException
+     */
+    public List<File> checkFiles(String studyStr, List<File> files, boolean calculateChecksum, String sessionId)
+            throws CatalogException {
+        Map<URI, String> checksums = new HashMap<>();
+        if (calculateChecksum) {
+            Map<IOManager, List<URI>> foundFiles = new HashMap<>();
+            for (File file : files) {
+                if (file.getType().equals(File.Type.FILE) && file.getInternal().getStatus().getName().equals(FileStatus.MISSING)) {
+                    URI fileUri = catalogManager.getFileManager().getUri(file);
+                    IOManager ioManager = getIoManager(fileUri);
+                    if (ioManager.exists(fileUri)) {
+                        foundFiles.computeIfAbsent(ioManager, k -> new ArrayList<>()).add(fileUri);
+                    }
+                }
+            }
+            for (Map.Entry<IOManager, List<URI>> entry : foundFiles.entrySet()) {
+                checksums.putAll(entry.getKey().calculateChecksums(entry.getValue()));
+            }
+        }
+
+        List<File> checkedFiles = new ArrayList<>(files.size());
+        for (File file : files) {
+            checkedFiles.add(checkFile(studyStr, file, calculateChecksum, checksums, sessionId));
+        }
+        return checkedFiles;
+    }
+
+    private File checkFile(String studyStr, File file, boolean calculateChecksum, Map<URI, String> checksums, String sessionId)
+            throws CatalogException {
         if (!file.getType().equals(File.Type.FILE)) {
             return file;
         }
@@ -83,12 +128,7 @@ public class FileUtils {
             case FileStatus.READY:
             case FileStatus.MISSING: {
                 URI fileUri = catalogManager.getFileManager().getUri(file);
-                IOManager ioManager;
-                try {
-                    ioManager = catalogManager.getIoManagerFactory().get(fileUri);
-                } catch (IOException e) {
-                    throw CatalogIOException.ioManagerException(fileUri, e);
-                }
+                IOManager ioManager = getIoManager(fileUri);
 
                 if (!ioManager.exists(fileUri)) {
                     logger.warn("File { id:" + file.getPath() + ", path:\"" + file.getPath() + "\" } lost tracking from file " + fileUri);
@@ -101,7 +141,9 @@ public class FileUtils {
                 } else if (file.getInternal().getStatus().getName().equals(FileStatus.MISSING)) {
                     logger.info("File { path:\"" + file.getPath() + "\" } recover tracking from file " + fileUri);
                     logger.info("Set status to " + FileStatus.READY);
-                    ObjectMap params = getModifiedFileAttributes(file, fileUri, calculateChecksum);
+                    ObjectMap params = checksums != null && checksums.containsKey(fileUri)
+                            ? getModifiedFileAttributes(file, checksums.get(fileUri), fileUri, null)
+                            : getModifiedFileAttributes(file, fileUri, calculateChecksum);
                     params.put(FileDBAdaptor.UpdateParams.STATUS_NAME.key(), FileStatus.READY);
                     catalogManager.getFileManager().update(studyStr, file.getPath(), params, QueryOptions.empty(), sessionId);
                     modifiedFile = catalogManager.getFileManager().get(studyStr, file.getPath(), null, sessionId).first();
@@ -124,6 +166,14 @@ public class FileUtils {
         return modifiedFile;
     }
 
+    private IOManager getIoManager(URI fileUri) throws CatalogIOException {
+        try {
+            return catalogManager.getIoManagerFactory().get(fileUri);
+        } catch (IOException e) {
+            throw CatalogIOException.ioManagerException(fileUri, e);
+        }
+    }
+
     /**
      * Get a ObjectMap with some fields if they have been modified.
      * size
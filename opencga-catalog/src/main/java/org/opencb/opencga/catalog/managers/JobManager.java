@@ -58,6 +58,8 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -72,6 +74,7 @@ public class JobManager extends ResourceManager<Job> {
     private UserManager userManager;
     private StudyManager studyManager;
     private IOManagerFactory ioManagerFactory;
+    private final List<Consumer<Job>> jobSubmissionListeners = new CopyOnWriteArrayList<>();
 
     private final String defaultFacet = "creationYear>>creationMonth;toolId>>executorId";
 
@@ -309,6 +312,7 @@ public class JobManager extends ResourceManager<Job> {
             OpenCGAResult<Job> queryResult = getJob(study.getUid(), job.getUuid(), options);
             auditManager.auditCreate(userId, Enums.Resource.JOB, job.getId(), job.getUuid(), study.getId(), study.getUuid(),
                     auditParams, new AuditRecord.Status(AuditRecord.Status.Result.SUCCESS));
+            notifyJobSubmitted(job);
 
             return queryResult;
         } catch (CatalogException e) {
@@ -464,6 +468,7 @@ public class JobManager extends ResourceManager<Job> {
 
             auditManager.auditCreate(userId, Enums.Resource.JOB, job.getId(), "", study.getId(), study.getUuid(), auditParams,
                     new AuditRecord.Status(AuditRecord.Status.Result.SUCCESS));
+            notifyJobSubmitted(job);
 
             return jobResult;
         } catch (CatalogException e) {
@@ -483,6 +488,30 @@ public class JobManager extends ResourceManager<Job> {
         }
     }
 
+    /**
+     * Register a listener to be notified every time a new job is created or submitted through this manager.
+     * Jobs created from other processes are not notified.
+     *
+     * @param listener Listener receiving the new job
+     */
+    public void addJobSubmissionListener(Consumer<Job> listener) {
+        jobSubmissionListeners.add(listener);
+    }
+
+    public void removeJobSubmissionListener(Consumer<Job> listener) {
+        jobSubmissionListeners.remove(listener);
+    }
+
+    private void notifyJobSubmitted(Job job) {
+        for (Consumer<Job> listener : jobSubmissionListeners) {
+            try {
+                listener.accept(job);
+            } catch (RuntimeException e) {
+                logger.warn("Error notifying new job '{}': {}", job.getId(), e.getMessage(), e);
+            }
+        }
+    }
+
     public OpenCGAResult count(Query query, String token) throws CatalogException {
         String userId = userManager.getUserId(token);
         authorizationManager.checkIsAdmin(userId);
@@ -468,6 +468,8 @@ public class ProjectManager extends AbstractManager {
             }
 
             OpenCGAResult result = projectDBAdaptor.update(projectUid, parameters, QueryOptions.empty());
+            // Project ids are part of the study fqn
+            catalogManager.getResolutionCache().invalidateStudies();
             auditManager.auditUpdate(userId, Enums.Resource.PROJECT, project.getId(), project.getUuid(), "", "", auditParams,
                     new AuditRecord.Status(AuditRecord.Status.Result.SUCCESS));
 
@@ -0,0 +1,180 @@
+/*
+ * Copyright 2015-2020 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencb.opencga.catalog.managers;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import org.opencb.commons.datastore.core.ObjectMap;
+import org.opencb.commons.datastore.core.QueryOptions;
+import org.opencb.opencga.core.config.LocalCache;
+import org.opencb.opencga.core.models.study.Study;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cache of the most common resolutions done at the beginning of every manager call: token to user, and study string
+ * plus user to study. Shared by all the managers of a {@link CatalogManager}.
+ *
+ * Cached users are validated again against the authentication origin that resolved them, so expired tokens are
+ * never accepted. The user is not looked up again in the database, so a user deleted from another instance is still
+ * accepted until the entry expires. Cached studies are discarded after any change on the studies, and after the
+ * expiration time, so multiple instances are eventually consistent. Cached studies are shared, and must not be modified.
+ */
+public class ResolutionCache {
+
+    private final boolean active;
+    private final Cache<String, ResolvedUser> users;
+    private final Cache<StudyKey, Study> studies;
+
+    public ResolutionCache(LocalCache configuration) {
+        LocalCache conf = configuration == null ? new LocalCache() : configuration;
+        this.active = conf.isActive() && conf.getMaxSize() > 0 && conf.getExpiration() > 0;
+        this.users = CacheBuilder.newBuilder()
+                .maximumSize(Math.max(0, conf.getMaxSize()))
+                .expireAfterWrite(Math.max(0, conf.getExpiration()), TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+        this.studies = CacheBuilder.newBuilder()
+                .maximumSize(Math.max(0, conf.getMaxSize()))
+                .expireAfterWrite(Math.max(0, conf.getExpiration()), TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Get the user previously resolved from a token.
+     *
+     * @param token Token
+     * @return The resolved user, or null if not cached
+     */
+    ResolvedUser getUser(String token) {
+        if (!active || token == null) {
+            return null;
+        }
+        return users.getIfPresent(token);
+    }
+
+    void putUser(String token, String authenticationOrigin, String userId) {
+        if (active && token != null) {
+            users.put(token, new ResolvedUser(authenticationOrigin, userId));
+        }
+    }
+
+    void invalidateUser(String token) {
+        if (token != null) {
+            users.invalidate(token);
+        }
+    }
+
+    /**
+     * Get the study previously resolved for a user.
+     *
+     * @param studyStr Study string, as given by the user
+     * @param userId   User
+     * @param options  Options used to resolve the study
+     * @return The resolved study, or null if not cached
+     */
+    Study getStudy(String studyStr, String userId, QueryOptions options) {
+        if (!active) {
+            return null;
+        }
+        return studies.getIfPresent(new StudyKey(studyStr, userId, options));
+    }
+
+    void putStudy(String studyStr, String userId, QueryOptions options, Study study) {
+        if (active && study != null) {
+            studies.put(new StudyKey(studyStr, userId, options), study);
+        }
+    }
+
+    public void invalidateUsers() {
+        users.invalidateAll();
+    }
+
+    public void invalidateStudies() {
+        studies.invalidateAll();
+    }
+
+    /**
+     * Summary of the cache usage. Each user hit avoids one user lookup, and each study hit avoids at least one study query.
+     *
+     * @return ObjectMap with the cache stats
+     */
+    public ObjectMap getStats() {
+        CacheStats userStats = users.stats();
+        CacheStats studyStats = studies.stats();
+        return new ObjectMap()
+                .append("active", active)
+                .append("users", new ObjectMap()
+                        .append("size", users.size())
+                        .append("hitRate", userStats.hitRate()))
+                .append("studies", new ObjectMap()
+                        .append("size", studies.size())
+                        .append("hitRate", studyStats.hitRate()))
+                .append("queriesAvoided", userStats.hitCount() + studyStats.hitCount())
+                .append("queries", userStats.missCount() + studyStats.missCount());
+    }
+
+    static final class ResolvedUser {
+        private final String authenticationOrigin;
+        private final String userId;
+
+        private ResolvedUser(String authenticationOrigin, String userId) {
+            this.authenticationOrigin = authenticationOrigin;
+            this.userId = userId;
+        }
+
+        String getAuthenticationOrigin() {
+            return authenticationOrigin;
+        }
+
+        String getUserId() {
+            return userId;
+        }
+    }
+
+    private static final class StudyKey {
+        private final String studyStr;
+        private final String userId;
+        private final String options;
+
+        private StudyKey(String studyStr, String userId, QueryOptions options) {
+            this.studyStr = studyStr;
+            this.userId = userId;
+            this.options = options == null ? null : options.toJson();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            StudyKey that = (StudyKey) o;
+            return Objects.equals(studyStr, that.studyStr) && Objects.equals(userId, that.userId) && Objects.equals(options, that.options);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(studyStr, userId, options);
+        }
+    }
+}
@@ -134,6 +134,11 @@ public class StudyManager extends AbstractManager {
     }
 
     public Study resolveId(String studyStr, String userId, QueryOptions options) throws CatalogException {
+        ResolutionCache resolutionCache = catalogManager.getResolutionCache();
+        Study study = resolutionCache.getStudy(studyStr, userId, options);
+        if (study != null) {
+            return study;
+        }
         OpenCGAResult<Study> studyDataResult = smartResolutor(studyStr, userId, options);
 
         if (studyDataResult.getNumResults() > 1) {
@@ -145,7 +150,9 @@ public class StudyManager extends AbstractManager {
                     + " The accepted pattern is [ownerId@projectId:studyId]");
         }
 
-        return studyDataResult.first();
+        study = studyDataResult.first();
+        resolutionCache.putStudy(studyStr, userId, options, study);
+        return study;
     }
 
     private OpenCGAResult<Study> smartResolutor(String studyStr, String userId, QueryOptions options) throws CatalogException {
@@ -300,6 +307,7 @@ public class StudyManager extends AbstractManager {
             /* CreateStudy */
             study.setUuid(UuidUtils.generateOpenCgaUuid(UuidUtils.Entity.STUDY));
             studyDBAdaptor.insert(project, study, options);
+            catalogManager.getResolutionCache().invalidateStudies();
             OpenCGAResult<Study> result = getStudy(projectId, study.getUuid(), options);
             study = result.getResults().get(0);
 
@@ -587,6 +595,7 @@ public class StudyManager extends AbstractManager {
             }
 
             OpenCGAResult result = studyDBAdaptor.update(study.getUid(), update, options);
+            catalogManager.getResolutionCache().invalidateStudies();
             auditManager.auditUpdate(userId, Enums.Resource.STUDY, study.getId(), study.getUuid(), study.getId(), study.getUuid(),
                     auditParams, new AuditRecord.Status(AuditRecord.Status.Result.SUCCESS));
 
@@ -619,6 +628,7 @@ public class StudyManager extends AbstractManager {
             validatePermissionRules(study.getUid(), entry, permissionRule);
 
             OpenCGAResult<PermissionRule> result = studyDBAdaptor.createPermissionRule(study.getUid(), entry, permissionRule);
+            catalogManager.getResolutionCache().invalidateStudies();
 
             auditManager.audit(userId, Enums.Action.ADD_STUDY_PERMISSION_RULE, Enums.Resource.STUDY, study.getId(),
                     study.getUuid(), study.getId(), study.getUuid(), auditParams,
@@ -652,6 +662,7 @@ public class StudyManager extends AbstractManager {
 
             authorizationManager.checkCanUpdatePermissionRules(study.getUid(), userId);
             studyDBAdaptor.markDeletedPermissionRule(study.getUid(), entry, permissionRuleId, deleteAction);
+            catalogManager.getResolutionCache().invalidateStudies();
 
             auditManager.audit(userId, Enums.Action.REMOVE_STUDY_PERMISSION_RULE, Enums.Resource.STUDY, study.getId(),
                     study.getUuid(), study.getId(), study.getUuid(), auditParams,
@@ -847,6 +858,8 @@ public class StudyManager extends AbstractManager {
 
             // Create the group
             OpenCGAResult result = studyDBAdaptor.createGroup(study.getUid(), group);
+            authorizationManager.invalidatePermissionCache(study.getUid());
+            catalogManager.getResolutionCache().invalidateStudies();
 
             OpenCGAResult<Group> queryResult = studyDBAdaptor.getGroup(study.getUid(), group.getId(), null);
             queryResult.setTime(queryResult.getTime() + result.getTime());
@@ -958,6 +971,8 @@ public class StudyManager extends AbstractManager {
                 default:
                     throw new CatalogException("Unknown action " + action + " found.");
             }
+            authorizationManager.invalidatePermissionCache(study.getUid());
+            catalogManager.getResolutionCache().invalidateStudies();
 
             auditManager.audit(userId, Enums.Action.UPDATE_USERS_FROM_STUDY_GROUP, Enums.Resource.STUDY, study.getId(),
                     study.getUuid(), study.getId(), study.getUuid(), auditParams,
@@ -1036,6 +1051,8 @@ public class StudyManager extends AbstractManager {
             updateAcl(Collections.singletonList(studyId), groupId, aclParams, ParamUtils.AclAction.RESET, token);
 
             studyDBAdaptor.deleteGroup(study.getUid(), groupId);
+            authorizationManager.invalidatePermissionCache(study.getUid());
+            catalogManager.getResolutionCache().invalidateStudies();
 
             auditManager.audit(userId, Enums.Action.REMOVE_STUDY_GROUP, Enums.Resource.STUDY, study.getId(), study.getUuid(),
                     study.getId(), study.getUuid(), auditParams, new AuditRecord.Status(AuditRecord.Status.Result.SUCCESS));
@@ -1125,6 +1142,7 @@ public class StudyManager extends AbstractManager {
         AnnotationUtils.checkVariableSet(variableSet);
 
         OpenCGAResult result = studyDBAdaptor.createVariableSet(study.getUid(), variableSet);
+        catalogManager.getResolutionCache().invalidateStudies();
         OpenCGAResult<VariableSet> queryResult = studyDBAdaptor.getVariableSet(study.getUid(), variableSet.getId(), QueryOptions.empty());
 
         queryResult.setTime(queryResult.getTime() + result.getTime());
@@ -1217,6 +1235,7 @@ public class StudyManager extends AbstractManager {
         try {
             authorizationManager.checkCanCreateUpdateDeleteVariableSets(study.getUid(), userId);
             OpenCGAResult writeResult = studyDBAdaptor.deleteVariableSet(variableSet.getUid(), QueryOptions.empty(), userId);
+            catalogManager.getResolutionCache().invalidateStudies();
             auditManager.audit(userId, Enums.Action.DELETE_VARIABLE_SET, Enums.Resource.STUDY, variableSet.getId(), "",
                     study.getId(), study.getUuid(), auditParams, new AuditRecord.Status(AuditRecord.Status.Result.SUCCESS));
 
@@ -1249,6 +1268,7 @@ public class StudyManager extends AbstractManager {
 
             authorizationManager.checkCanCreateUpdateDeleteVariableSets(study.getUid(), userId);
             OpenCGAResult result = studyDBAdaptor.addFieldToVariableSet(variableSet.getUid(), variable, userId);
+            catalogManager.getResolutionCache().invalidateStudies();
             auditManager.audit(userId, Enums.Action.ADD_VARIABLE_TO_VARIABLE_SET, Enums.Resource.STUDY, variableSet.getId(), "",
                     study.getId(), study.getUuid(), auditParams, new AuditRecord.Status(AuditRecord.Status.Result.SUCCESS));
 
@@ -1277,6 +1297,7 @@ public class StudyManager extends AbstractManager {
         try {
             authorizationManager.checkCanCreateUpdateDeleteVariableSets(study.getUid(), userId);
             OpenCGAResult result = studyDBAdaptor.removeFieldFromVariableSet(variableSet.getUid(), variableId, userId);
+            catalogManager.getResolutionCache().invalidateStudies();
             auditManager.audit(userId, Enums.Action.REMOVE_VARIABLE_FROM_VARIABLE_SET, Enums.Resource.STUDY,
                     variableSet.getId(), "", study.getId(), study.getUuid(), auditParams,
                     new AuditRecord.Status(AuditRecord.Status.Result.SUCCESS));
@@ -1477,6 +1498,7 @@ public class StudyManager extends AbstractManager {
                 default:
                     throw new CatalogException("Unexpected error occurred. No valid action found.");
             }
+            catalogManager.getResolutionCache().invalidateStudies();
 
             for (Study study : studies) {
                 auditManager.audit(operationUuid, userId, Enums.Action.UPDATE_ACLS, Enums.Resource.STUDY, study.getId(),
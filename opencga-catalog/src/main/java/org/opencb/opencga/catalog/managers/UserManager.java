@@ -27,6 +27,7 @@ import org.opencb.opencga.catalog.audit.AuditRecord;
 import org.opencb.opencga.catalog.auth.authentication.AuthenticationManager;
 import org.opencb.opencga.catalog.auth.authentication.AzureADAuthenticationManager;
 import org.opencb.opencga.catalog.auth.authentication.CatalogAuthenticationManager;
+import org.opencb.opencga.catalog.auth.authentication.JwtClaimsCache;
 import org.opencb.opencga.catalog.auth.authentication.LDAPAuthenticationManager;
 import org.opencb.opencga.catalog.auth.authorization.AuthorizationManager;
 import org.opencb.opencga.catalog.db.DBAdaptorFactory;
@@ -62,6 +63,7 @@ public class UserManager extends AbstractManager {
 
     private String INTERNAL_AUTHORIZATION = CatalogAuthenticationManager.INTERNAL;
     private Map<String, AuthenticationManager> authenticationManagerMap;
+    private final JwtClaimsCache claimsCache;
 
     protected static final String EMAIL_PATTERN = "^['_A-Za-z0-9-\\+]+(\\.['_A-Za-z0-9-]+)*@"
             + "[A-Za-z0-9-]+(\\.[A-Za-z0-9]+)*(\\.[A-Za-z]{2,})$";
@@ -100,6 +102,12 @@ public class UserManager extends AbstractManager {
         // Even if internal authentication is not present in the configuration file, create it
         authenticationManagerMap.putIfAbsent(INTERNAL_AUTHORIZATION,
                 new CatalogAuthenticationManager(catalogDBAdaptorFactory, configuration.getEmail(), secretKey, expiration));
+
+        // All the authentication managers share the same cache of verified tokens
+        claimsCache = new JwtClaimsCache(configuration.getAuthentication().getTokenCache());
+        for (AuthenticationManager authenticationManager : authenticationManagerMap.values()) {
+            authenticationManager.setClaimsCache(claimsCache);
+        }
         AuthenticationOrigin authenticationOrigin = new AuthenticationOrigin();
         if (configuration.getAuthentication().getAuthenticationOrigins() == null) {
             configuration.getAuthentication().setAuthenticationOrigins(Arrays.asList(authenticationOrigin));
@@ -585,6 +593,8 @@ public class UserManager extends AbstractManager {
             if (OPENCGA.equals(tokenUser) || userId.equals(tokenUser)) {
                 try {
                     OpenCGAResult result = userDBAdaptor.delete(userId, options);
+                    catalogManager.getResolutionCache().invalidateUsers();
+                    catalogManager.getResolutionCache().invalidateStudies();
 
                     auditManager.auditDelete(operationUuid, tokenUser, Enums.Resource.USER, userId, "", "", "", auditParams,
                             new AuditRecord.Status(AuditRecord.Status.Result.SUCCESS));
@@ -694,6 +704,8 @@ public class UserManager extends AbstractManager {
 
                 // Resync synced groups of user in OpenCGA
                 studyDBAdaptor.resyncUserWithSyncedGroups(userId, remoteGroups, authId);
+                authorizationManager.invalidatePermissionCache();
+                catalogManager.getResolutionCache().invalidateStudies();
             } catch (CatalogException e) {
                 logger.error("Could not update synced groups for user '" + userId + "'\n" + e.getMessage(), e);
             }
@@ -1193,6 +1205,15 @@ public class UserManager extends AbstractManager {
         }
     }
 
+    /**
+     * Summary of the cache of verified tokens shared by all the authentication managers.
+     *
+     * @return ObjectMap with the cache stats
+     */
+    public ObjectMap getTokenCacheStats() {
+        return claimsCache.getStats();
+    }
+
     /**
      * Get the userId from the sessionId.
      *
@@ -1201,11 +1222,28 @@ public class UserManager extends AbstractManager {
      * @throws CatalogException when the session id does not correspond to any user or the token has expired.
      */
     public String getUserId(String token) throws CatalogException {
+        ResolutionCache resolutionCache = catalogManager.getResolutionCache();
+        ResolutionCache.ResolvedUser resolvedUser = resolutionCache.getUser(token);
+        if (resolvedUser != null) {
+            // Validate the token again with the same authentication manager, in case it has expired.
+            // The user was already checked in the database when cached. Users deleted from this instance invalidate the cache,
+            // and users deleted from other instances are rejected once the entry expires
+            AuthenticationManager authenticationManager = authenticationManagerMap.get(resolvedUser.getAuthenticationOrigin());
+            try {
+                if (authenticationManager != null && resolvedUser.getUserId().equals(authenticationManager.getUserId(token))) {
+                    return resolvedUser.getUserId();
+                }
+            } catch (Exception e) {
+                logger.debug("Could not get user from cached token. {}", e.getMessage(), e);
+            }
+            resolutionCache.invalidateUser(token);
+        }
         for (Map.Entry<String, AuthenticationManager> entry : authenticationManagerMap.entrySet()) {
             AuthenticationManager authenticationManager = entry.getValue();
             try {
                 String userId = authenticationManager.getUserId(token);
                 userDBAdaptor.checkId(userId);
+                resolutionCache.putUser(token, entry.getKey(), userId);
                 return userId;
             } catch (Exception e) {
                 logger.debug("Could not get user from token using {} authentication manager. {}", entry.getKey(), e.getMessage(), e);
@@ -16,7 +16,6 @@
 
 package org.opencb.opencga.catalog.utils;
 
-import org.opencb.commons.datastore.core.DataResult;
 import org.opencb.commons.datastore.core.ObjectMap;
 import org.opencb.commons.datastore.core.Query;
 import org.opencb.commons.datastore.core.QueryOptions;
@@ -50,6 +49,7 @@ import java.util.stream.Stream;
  */
 public class FileScanner {
 
+    private static final int BATCH_SIZE = 1000;
     private static Logger logger = LoggerFactory.getLogger(FileScanner.class);
 
     protected final CatalogManager catalogManager;
@@ -89,10 +89,16 @@ public class FileScanner {
 
         List<File> modifiedFiles = new LinkedList<>();
         while (iterator.hasNext()) {
-            File file = iterator.next();
-            File checkedFile = catalogFileUtils.checkFile(study.getFqn(), file, calculateChecksum, sessionId);
-            if (checkedFile != file) {
-                modifiedFiles.add(checkedFile);
+            // Check the files in batches, so the checksums can be calculated in parallel
+            List<File> batch = new ArrayList<>(BATCH_SIZE);
+            while (iterator.hasNext() && batch.size() < BATCH_SIZE) {
+                batch.add(iterator.next());
+            }
+            List<File> checkedFiles = catalogFileUtils.checkFiles(study.getFqn(), batch, calculateChecksum, sessionId);
+            for (int i = 0; i < batch.size(); i++) {
+                if (checkedFiles.get(i) != batch.get(i)) {
+                    modifiedFiles.add(checkedFiles.get(i));
+                }
             }
         }
 
@@ -161,21 +167,46 @@ public class FileScanner {
 
             Iterator<URI> iterator = files.iterator();
             while (iterator.hasNext()) {
-                URI uri = iterator.next();
-                String filePath = entry.getKey() + entry.getValue().relativize(uri).toString();
-
-                DataResult<File> searchFile = catalogManager.getFileManager().search(String.valueOf(studyId),
-                        new Query("path", filePath), new QueryOptions("include", "projects.studies.files.id"), sessionId);
-                if (searchFile.getResults().isEmpty()) {
-                    untrackedFiles.put(filePath, uri);
-                } /*else {
-                    iterator.remove(); //Remove the ones that have an entry in Catalog
-                }*/
+                Map<String, URI> batch = new LinkedHashMap<>();
+                while (iterator.hasNext() && batch.size() < BATCH_SIZE) {
+                    URI uri = iterator.next();
+                    batch.put(entry.getKey() + entry.getValue().relativize(uri).toString(), uri);
+                }
+                Map<String, File> registeredFiles = getRegisteredFiles(String.valueOf(studyId), batch.keySet(),
+                        new QueryOptions("include", "projects.studies.files.id,projects.studies.files.path"), sessionId);
+                for (Map.Entry<String, URI> fileEntry : batch.entrySet()) {
+                    if (!registeredFiles.containsKey(fileEntry.getKey())) {
+                        untrackedFiles.put(fileEntry.getKey(), fileEntry.getValue());
+                    }
+                }
             }
         }
         return untrackedFiles;
     }
 
+    /**
+     * Get the files registered in catalog from a list of paths, with one single query.
+     *
+     * @param study     Study
+     * @param paths     Paths to search
+     * @param options   Query options
+     * @param sessionId User sessionId
+     * @return          Registered files by path
+     * @throws CatalogException if a Catalog error occurs
+     */
+    private Map<String, File> getRegisteredFiles(String study, Collection<String> paths, QueryOptions options, String sessionId)
+            throws CatalogException {
+        Map<String, File> files = new HashMap<>();
+        if (paths.isEmpty()) {
+            return files;
+        }
+        Query query = new Query(FileDBAdaptor.QueryParams.PATH.key(), new ArrayList<>(paths));
+        for (File file : catalogManager.getFileManager().search(study, query, options, sessionId).getResults()) {
+            files.put(file.getPath(), file);
+        }
+        return files;
+    }
+
 
     /**
      * Scans the files inside the specified URI and adds to the provided directory.
@@ -235,99 +266,110 @@ public class FileScanner {
 
         Iterator<URI> iterator = uris.iterator();
         while (iterator.hasNext()) {
-            long fileScanStart = System.currentTimeMillis();
-            URI uri = iterator.next();
-            if (!filter.test(uri)) {
-                continue;
-            }
-            URI generatedFile = directoryToScan.relativize(uri);
-            String filePath = URI.create(directory.getPath()).resolve(generatedFile).toString();
-//            String filePath = Paths.get(directory.getPath(), generatedFile.toString()).toString();
-            if (generatedFile.getPath().endsWith("/") && !filePath.endsWith("/")) {
-                filePath += "/";
-            }
-
-            Query query = new Query(FileDBAdaptor.QueryParams.PATH.key(), filePath);
-            DataResult<File> searchFile = catalogManager.getFileManager().search(study.getFqn(), query, null, sessionId);
-            File file = null;
-            boolean overwrite = true;
-            boolean returnFile = false;
-            if (searchFile.getNumResults() != 0) {
-                File existingFile = searchFile.first();
-                logger.info("File already existing in target \"" + filePath + "\". FileScannerPolicy = " + policy);
-                switch (policy) {
-                    case DELETE:
-                        logger.info("Deleting file { uid:" + existingFile.getUid() + ", path:\"" + existingFile.getPath() + "\" }");
-                        Query tmpQuery = new Query(FileDBAdaptor.QueryParams.UID.key(), existingFile.getUid());
-
-                        // Set the status of the file to PENDING DELETE
-                        FileUpdateParams updateParams = new FileUpdateParams()
-                                .setInternal(new SmallFileInternal(new FileStatus(FileStatus.PENDING_DELETE)));
-                        catalogManager.getFileManager().update(study.getFqn(), tmpQuery, updateParams, QueryOptions.empty(), sessionId);
-
-                        // Delete completely the file/folder !
-                        catalogManager.getFileManager().delete(study.getFqn(), tmpQuery, new ObjectMap(Constants.SKIP_TRASH, true),
-                                sessionId);
-                        overwrite = false;
-                        break;
-                    case REPLACE:
-                        file = existingFile;
-                        break;
-//                    case RENAME:
-//                        throw new UnsupportedOperationException("Unimplemented policy 'rename'");
-//                    case DO_ERROR:
-//                        throw new UnsupportedOperationException("Unimplemented policy 'error'");
-                    default:
-                        throw new UnsupportedOperationException("Unimplemented policy '" + policy + "'");
+            Map<String, URI> batch = new LinkedHashMap<>();
+            while (iterator.hasNext() && batch.size() < BATCH_SIZE) {
+                URI uri = iterator.next();
+                if (!filter.test(uri)) {
+                    continue;
+                }
+                URI generatedFile = directoryToScan.relativize(uri);
+                String filePath = URI.create(directory.getPath()).resolve(generatedFile).toString();
+                if (generatedFile.getPath().endsWith("/") && !filePath.endsWith("/")) {
+                    filePath += "/";
                 }
+                batch.put(filePath, uri);
             }
+            // Resolve the files of the batch already registered with one single query
+            Map<String, File> registeredFiles = getRegisteredFiles(study.getFqn(), batch.keySet(), null, sessionId);
+
+            for (Map.Entry<String, URI> entry : batch.entrySet()) {
+                long fileScanStart = System.currentTimeMillis();
+                String filePath = entry.getKey();
+                URI uri = entry.getValue();
+
+                File file = null;
+                boolean overwrite = true;
+                boolean returnFile = false;
+                File existingFile = registeredFiles.get(filePath);
+                if (existingFile != null) {
+                    logger.info("File already existing in target \"" + filePath + "\". FileScannerPolicy = " + policy);
+                    switch (policy) {
+                        case DELETE:
+                            logger.info("Deleting file { uid:" + existingFile.getUid() + ", path:\"" + existingFile.getPath() + "\" }");
+                            Query tmpQuery = new Query(FileDBAdaptor.QueryParams.UID.key(), existingFile.getUid());
+
+                            // Set the status of the file to PENDING DELETE
+                            FileUpdateParams updateParams = new FileUpdateParams()
+                                    .setInternal(new SmallFileInternal(new FileStatus(FileStatus.PENDING_DELETE)));
+                            catalogManager.getFileManager().update(study.getFqn(), tmpQuery, updateParams, QueryOptions.empty(), sessionId);
+
+                            // Delete completely the file/folder !
+                            catalogManager.getFileManager().delete(study.getFqn(), tmpQuery, new ObjectMap(Constants.SKIP_TRASH, true),
+                                    sessionId);
+                            // Entries within a deleted folder are not registered anymore
+                            registeredFiles.keySet().removeIf(path -> path.startsWith(existingFile.getPath()));
+                            overwrite = false;
+                            break;
+                        case REPLACE:
+                            file = existingFile;
+                            break;
+//                        case RENAME:
+//                            throw new UnsupportedOperationException("Unimplemented policy 'rename'");
+//                        case DO_ERROR:
+//                            throw new UnsupportedOperationException("Unimplemented policy 'error'");
+                        default:
+                            throw new UnsupportedOperationException("Unimplemented policy '" + policy + "'");
+                    }
+                }
 
-            long createFileTime = 0, uploadFileTime = 0, metadataFileTime = 0;
-            if (file == null) {
-                long start, end;
-                if (uri.getPath().endsWith("/")) {
-                    file = catalogManager.getFileManager().createFolder(study.getFqn(), Paths.get(filePath).toString(), true,
-                            null, QueryOptions.empty(), sessionId).first();
+                long createFileTime = 0, uploadFileTime = 0, metadataFileTime = 0;
+                if (file == null) {
+                    long start, end;
+                    if (uri.getPath().endsWith("/")) {
+                        file = catalogManager.getFileManager().createFolder(study.getFqn(), Paths.get(filePath).toString(), true,
+                                null, QueryOptions.empty(), sessionId).first();
+                    } else {
+                        start = System.currentTimeMillis();
+
+                        InputStream inputStream = new BufferedInputStream(new FileInputStream(new java.io.File(uri)));
+                        file = catalogManager.getFileManager().upload(study.getFqn(), inputStream,
+                                new File().setPath(filePath), overwrite, true, calculateChecksum, sessionId).first();
+                        if (deleteSource) {
+                            ioManager.deleteFile(uri);
+                        }
+
+                        end = System.currentTimeMillis();
+                        uploadFileTime = end - start;
+                        uploadFilesTime += uploadFileTime;
+                        returnFile = true;      //Return file because is new
+                    }
+                    logger.debug("Created new file entry for " + uri + " { uid:" + file.getUid() + ", path:\"" + file.getPath() + "\" } ");
                 } else {
-                    start = System.currentTimeMillis();
-
-                    InputStream inputStream = new BufferedInputStream(new FileInputStream(new java.io.File(uri)));
-                    file = catalogManager.getFileManager().upload(study.getFqn(), inputStream,
-                            new File().setPath(filePath), overwrite, true, calculateChecksum, sessionId).first();
-                    if (deleteSource) {
-                        ioManager.deleteFile(uri);
+                    if (file.getType() == File.Type.FILE) {
+                        if (file.getInternal().getStatus().getName().equals(FileStatus.MISSING)) {
+                            logger.info("File { uid:" + file.getUid() + ", path:'" + file.getPath() + "' } recover tracking from file "
+                                    + uri);
+                            logger.debug("Set status to " + FileStatus.READY);
+                            returnFile = true;      //Return file because was missing
+                        }
+                        long start = System.currentTimeMillis();
+
+                        InputStream inputStream = new FileInputStream(new java.io.File(uri));
+                        file = catalogManager.getFileManager().upload(study.getFqn(), inputStream, file, overwrite, true, calculateChecksum,
+                                sessionId).first();
+
+                        long end = System.currentTimeMillis();
+                        uploadFilesTime += end - start;
                     }
-
-                    end = System.currentTimeMillis();
-                    uploadFileTime = end - start;
-                    uploadFilesTime += uploadFileTime;
-                    returnFile = true;      //Return file because is new
                 }
-                logger.debug("Created new file entry for " + uri + " { uid:" + file.getUid() + ", path:\"" + file.getPath() + "\" } ");
-            } else {
-                if (file.getType() == File.Type.FILE) {
-                    if (file.getInternal().getStatus().getName().equals(FileStatus.MISSING)) {
-                        logger.info("File { uid:" + file.getUid() + ", path:'" + file.getPath() + "' } recover tracking from file " + uri);
-                        logger.debug("Set status to " + FileStatus.READY);
-                        returnFile = true;      //Return file because was missing
-                    }
-                    long start = System.currentTimeMillis();
 
-                    InputStream inputStream = new FileInputStream(new java.io.File(uri));
-                    file = catalogManager.getFileManager().upload(study.getFqn(), inputStream, file, overwrite, true, calculateChecksum,
-                            sessionId).first();
-
-                    long end = System.currentTimeMillis();
-                    uploadFilesTime += end - start;
+                if (returnFile) { //Return only new and found files.
+                    files.add(file);
                 }
+                logger.info("Added file {}", filePath);
+                logger.debug("{}s (create {}s, upload {}s, metadata {}s)", (System.currentTimeMillis() - fileScanStart) / 1000.0,
+                        createFileTime / 1000.0, uploadFileTime / 1000.0, metadataFileTime / 1000.0);
             }
-
-            if (returnFile) { //Return only new and found files.
-                files.add(file);
-            }
-            logger.info("Added file {}", filePath);
-            logger.debug("{}s (create {}s, upload {}s, metadata {}s)", (System.currentTimeMillis() - fileScanStart) / 1000.0,
-                    createFileTime / 1000.0, uploadFileTime / 1000.0, metadataFileTime / 1000.0);
         }
         logger.debug("Create catalog file entries: " + createFilesTime / 1000.0 + "s");
         logger.debug("Upload files: " + uploadFilesTime / 1000.0 + "s");
@@ -0,0 +1,152 @@
+package org.opencb.opencga.catalog.audit;
+
+import org.junit.After;
+import org.junit.Test;
+import org.opencb.commons.datastore.core.ObjectMap;
+import org.opencb.commons.datastore.core.Query;
+import org.opencb.commons.datastore.core.QueryOptions;
+import org.opencb.opencga.catalog.db.api.AuditDBAdaptor;
+import org.opencb.opencga.catalog.exceptions.CatalogDBException;
+import org.opencb.opencga.core.common.TimeUtils;
+import org.opencb.opencga.core.config.Audit;
+import org.opencb.opencga.core.models.common.Enums;
+import org.opencb.opencga.core.response.OpenCGAResult;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class AsyncAuditWriterTest {
+
+    private AsyncAuditWriter writer;
+
+    @After
+    public void tearDown() {
+        if (writer != null) {
+            writer.close();
+        }
+    }
+
+    @Test
+    public void testWriteAndFlushOnClose() {
+        InMemoryAuditDBAdaptor dbAdaptor = new InMemoryAuditDBAdaptor(null);
+        writer = new AsyncAuditWriter(dbAdaptor, 1000, 10, Audit.OverflowPolicy.BLOCK);
+        for (int i = 0; i < 500; i++) {
+            writer.write(newAuditRecord(i));
+        }
+        writer.close();
+
+        assertEquals(500, dbAdaptor.records.size());
+        for (int i = 0; i < 500; i++) {
+            assertEquals(String.valueOf(i), dbAdaptor.records.get(i).getResourceId());
+        }
+        assertTrue(dbAdaptor.maxBatchSize <= 10);
+        assertEquals(500L, writer.getStats().getLong("written"));
+        assertEquals(0, writer.getQueueDepth());
+    }
+
+    @Test
+    public void testFlush() {
+        InMemoryAuditDBAdaptor dbAdaptor = new InMemoryAuditDBAdaptor(null);
+        writer = new AsyncAuditWriter(dbAdaptor, 1000, 10, Audit.OverflowPolicy.BLOCK);
+        for (int i = 0; i < 100; i++) {
+            writer.write(newAuditRecord(i));
+        }
+        writer.flush();
+        assertEquals(100, dbAdaptor.records.size());
+        assertEquals(0, writer.getQueueDepth());
+    }
+
+    @Test
+    public void testWriterThreadStopsOnClose() throws InterruptedException {
+        InMemoryAuditDBAdaptor dbAdaptor = new InMemoryAuditDBAdaptor(null);
+        writer = new AsyncAuditWriter(dbAdaptor, 1000, 10, Audit.OverflowPolicy.BLOCK);
+        assertFalse(writer.isWriterThreadAlive());
+        writer.write(newAuditRecord(0));
+        assertTrue(writer.isWriterThreadAlive());
+        writer.close();
+
+        long timeout = System.currentTimeMillis() + 10000;
+        while (writer.isWriterThreadAlive() && System.currentTimeMillis() < timeout) {
+            Thread.sleep(10);
+        }
+        assertFalse(writer.isWriterThreadAlive());
+        // Records written after close are stored synchronously
+        writer.write(newAuditRecord(1));
+        assertEquals(2, dbAdaptor.records.size());
+    }
+
+    @Test
+    public void testDropWhenFull() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(1);
+        InMemoryAuditDBAdaptor dbAdaptor = new InMemoryAuditDBAdaptor(latch);
+        writer = new AsyncAuditWriter(dbAdaptor, 5, 1, Audit.OverflowPolicy.DROP);
+
+        // The first record blocks the writer thread, so the queue is filled up with the next 5
+        writer.write(newAuditRecord(0));
+        while (writer.getQueueDepth() > 0) {
+            Thread.sleep(10);
+        }
+        for (int i = 1; i < 20; i++) {
+            writer.write(newAuditRecord(i));
+        }
+        ObjectMap stats = writer.getStats();
+        assertEquals(5, stats.getInt("queueDepth"));
+        assertEquals(14L, stats.getLong("dropped"));
+
+        latch.countDown();
+        writer.close();
+        assertEquals(6, dbAdaptor.records.size());
+    }
+
+    private static AuditRecord newAuditRecord(int i) {
+        return new AuditRecord("audit" + i, "operation", "user", "api", Enums.Action.CREATE, Enums.Resource.SAMPLE,
+                String.valueOf(i), "", "study", "", new ObjectMap(), new AuditRecord.Status(AuditRecord.Status.Result.SUCCESS),
+                TimeUtils.getDate(), new ObjectMap());
+    }
+
+    private static class InMemoryAuditDBAdaptor implements AuditDBAdaptor {
+
+        private final List<AuditRecord> records = Collections.synchronizedList(new ArrayList<>());
+        private final CountDownLatch latch;
+        private volatile int maxBatchSize = 0;
+
+        InMemoryAuditDBAdaptor(CountDownLatch latch) {
+            this.latch = latch;
+        }
+
+        @Override
+        public OpenCGAResult<AuditRecord> insertAuditRecord(AuditRecord auditRecord) throws CatalogDBException {
+            return insertAuditRecords(Collections.singletonList(auditRecord));
+        }
+
+        @Override
+        public OpenCGAResult<AuditRecord> insertAuditRecords(List<AuditRecord> auditRecords) throws CatalogDBException {
+            if (latch != null) {
+                try {
+                    latch.await();
+                } catch (InterruptedException e) {
+                    throw new CatalogDBException(e);
+                }
+            }
+            maxBatchSize = Math.max(maxBatchSize, auditRecords.size());
+            records.addAll(auditRecords);
+            return new OpenCGAResult<>();
+        }
+
+        @Override
+        public OpenCGAResult<AuditRecord> get(Query query, QueryOptions queryOptions) {
+            return new OpenCGAResult<>();
+        }
+
+        @Override
+        public OpenCGAResult groupBy(Query query, List<String> fields, QueryOptions options) {
+            return new OpenCGAResult<>();
+        }
+    }
+}
@@ -23,6 +23,7 @@ import org.junit.Test;
 import org.opencb.commons.test.GenericTest;
 import org.opencb.opencga.catalog.exceptions.CatalogAuthenticationException;
 import org.opencb.opencga.catalog.exceptions.CatalogException;
+import org.opencb.opencga.core.config.LocalCache;
 
 import javax.crypto.spec.SecretKeySpec;
 import java.security.Key;
@@ -80,4 +81,27 @@ public class JwtSessionManagerTest extends GenericTest {
         assertEquals(jwtSessionManager.getUser(nonExpiringToken), "System");
         assertNull(jwtSessionManager.getExpiration(nonExpiringToken));
     }
+
+    @Test
+    public void testClaimsCache() throws CatalogException {
+        JwtClaimsCache claimsCache = new JwtClaimsCache(new LocalCache(true, 100, 60));
+        jwtSessionManager.setClaimsCache(claimsCache);
+
+        assertEquals("testUser", jwtSessionManager.getUser(jwtToken));
+        assertEquals("OpenCGA users", jwtSessionManager.getAudience(jwtToken));
+        jwtSessionManager.validateToken(jwtToken);
+
+        assertEquals(1L, claimsCache.getStats().getLong("verifications"));
+        assertEquals(2L, claimsCache.getStats().getLong("verificationsAvoided"));
+    }
+
+    @Test(expected = CatalogAuthenticationException.class)
+    public void testClaimsCacheInvalidSecretKey() throws CatalogAuthenticationException {
+        jwtSessionManager.setClaimsCache(new JwtClaimsCache(new LocalCache(true, 100, 60)));
+        jwtSessionManager.validateToken(jwtToken);
+
+        // A token verified with one key is not valid for a different key
+        jwtSessionManager.setPublicKey(new SecretKeySpec(TextCodec.BASE64.decode("wrongKey"), SignatureAlgorithm.HS256.getJcaName()));
+        jwtSessionManager.validateToken(jwtToken);
+    }
 }
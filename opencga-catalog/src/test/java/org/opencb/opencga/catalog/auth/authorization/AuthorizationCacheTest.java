@@ -0,0 +1,80 @@
+package org.opencb.opencga.catalog.auth.authorization;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.opencb.opencga.catalog.exceptions.CatalogDBException;
+import org.opencb.opencga.catalog.exceptions.CatalogException;
+import org.opencb.opencga.core.config.LocalCache;
+import org.opencb.opencga.core.models.common.Enums;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class AuthorizationCacheTest {
+
+    private AuthorizationCache cache;
+    private AtomicInteger lookups;
+
+    @Before
+    public void setUp() {
+        cache = new AuthorizationCache(new LocalCache(true, 1000, 60));
+        lookups = new AtomicInteger();
+    }
+
+    @Test
+    public void testCheck() throws CatalogException {
+        assertTrue(check(1, "user", 10, "VIEW", true));
+        assertTrue(check(1, "user", 10, "VIEW", false));
+        assertEquals(1, lookups.get());
+
+        assertFalse(check(1, "user", 10, "WRITE", false));
+        assertFalse(check(1, "user2", 10, "VIEW", false));
+        assertFalse(check(1, "user", 11, "VIEW", false));
+        assertEquals(4, lookups.get());
+
+        assertEquals(1L, cache.getStats().getLong("lookupsAvoided"));
+        assertEquals(4L, cache.getStats().getLong("lookups"));
+    }
+
+    @Test
+    public void testInvalidateStudy() throws CatalogException {
+        check(1, "user", 10, "VIEW", false);
+        check(2, "user", 20, "VIEW", false);
+
+        cache.invalidate(1);
+        assertTrue(check(1, "user", 10, "VIEW", true));
+        assertFalse(check(2, "user", 20, "VIEW", true));
+        assertEquals(3, lookups.get());
+
+        cache.invalidateAll();
+        assertTrue(check(2, "user", 20, "VIEW", true));
+        assertEquals(4, lookups.get());
+    }
+
+    @Test
+    public void testInactive() throws CatalogException {
+        cache = new AuthorizationCache(new LocalCache(false, 1000, 60));
+        check(1, "user", 10, "VIEW", true);
+        check(1, "user", 10, "VIEW", true);
+        assertEquals(2, lookups.get());
+    }
+
+    @Test(expected = CatalogDBException.class)
+    public void testErrorNotCached() throws CatalogException {
+        try {
+            cache.check(1, "user", Enums.Resource.SAMPLE, 10, "VIEW", () -> {
+                throw new CatalogDBException("error");
+            });
+        } finally {
+            assertEquals(0, cache.getStats().getLong("size"));
+        }
+    }
+
+    private boolean check(long studyId, String user, long id, String permission, boolean result) throws CatalogException {
+        return cache.check(studyId, user, Enums.Resource.SAMPLE, id, permission, () -> {
+            lookups.incrementAndGet();
+            return result;
+        });
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2015-2020 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencb.opencga.catalog.db.mongodb.iterators;
+
+import org.bson.Document;
+import org.junit.Test;
+import org.opencb.commons.datastore.core.QueryOptions;
+import org.opencb.opencga.catalog.db.api.DBIterator;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class BatchPrefetcherTest {
+
+    @Test
+    public void testIterate() {
+        for (boolean prefetch : Arrays.asList(true, false)) {
+            for (int numDocuments : Arrays.asList(0, 1, 9, 10, 11, 95)) {
+                AtomicInteger batches = new AtomicInteger();
+                BatchPrefetcher prefetcher = new BatchPrefetcher(loader(numDocuments, batches),
+                        new QueryOptions(DBIterator.BATCH_SIZE, 10).append(DBIterator.PREFETCH, prefetch), null);
+
+                List<Integer> values = new ArrayList<>();
+                while (prefetcher.hasNext()) {
+                    values.add(prefetcher.next().getInteger("uid"));
+                }
+                prefetcher.close();
+
+                assertEquals(numDocuments, values.size());
+                for (int i = 0; i < numDocuments; i++) {
+                    assertEquals(i, values.get(i).intValue());
+                }
+                assertTrue(batches.get() <= numDocuments / 10 + 1);
+            }
+        }
+    }
+
+    @Test
+    public void testPrefetch() throws Exception {
+        AtomicInteger batches = new AtomicInteger();
+        BatchPrefetcher prefetcher = new BatchPrefetcher(loader(30, batches), new QueryOptions(DBIterator.BATCH_SIZE, 10), null);
+
+        assertTrue(prefetcher.hasNext());
+        for (int i = 0; i < 4; i++) {
+            prefetcher.next();
+        }
+        Thread.sleep(100);
+        assertEquals(1, batches.get());
+
+        // The second batch is fetched in the background once half of the first batch is consumed
+        prefetcher.next();
+        long timeout = System.currentTimeMillis() + 10000;
+        while (batches.get() < 2 && System.currentTimeMillis() < timeout) {
+            Thread.sleep(10);
+        }
+        assertEquals(2, batches.get());
+        prefetcher.close();
+    }
+
+    @Test
+    public void testCloseBeforePrefetch() throws Exception {
+        AtomicInteger batches = new AtomicInteger();
+        BatchPrefetcher.BatchLoader loader = loader(30, batches);
+        BatchPrefetcher prefetcher = new BatchPrefetcher((buffer, bufferSize) -> {
+            if (batches.get() == 1) {
+                // A prefetched batch would block the close
+                try {
+                    Thread.sleep(10000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            loader.fetchNextBatch(buffer, bufferSize);
+        }, new QueryOptions(DBIterator.BATCH_SIZE, 10), null);
+
+        assertEquals(0, prefetcher.next().getInteger("uid").intValue());
+        long start = System.currentTimeMillis();
+        prefetcher.close();
+        assertTrue(System.currentTimeMillis() - start < 5000);
+        Thread.sleep(100);
+        assertEquals(1, batches.get());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPrefetchError() {
+        AtomicInteger batches = new AtomicInteger();
+        BatchPrefetcher.BatchLoader loader = loader(100, batches);
+        BatchPrefetcher prefetcher = new BatchPrefetcher((buffer, bufferSize) -> {
+            if (batches.get() == 1) {
+                throw new IllegalArgumentException("Error fetching batch");
+            }
+            loader.fetchNextBatch(buffer, bufferSize);
+        }, new QueryOptions(DBIterator.BATCH_SIZE, 10), null);
+
+        for (int i = 0; i < 11; i++) {
+            prefetcher.next();
+        }
+    }
+
+    @Test
+    public void testBatchSize() {
+        assertEquals(DBIterator.DEFAULT_BATCH_SIZE, BatchPrefetcher.getBatchSize(null));
+        assertEquals(DBIterator.DEFAULT_BATCH_SIZE, BatchPrefetcher.getBatchSize(new QueryOptions()));
+        assertEquals(20, BatchPrefetcher.getBatchSize(new QueryOptions(DBIterator.BATCH_SIZE, 20)));
+        assertEquals(1, BatchPrefetcher.getBatchSize(new QueryOptions(DBIterator.BATCH_SIZE, -1)));
+        assertEquals(BatchPrefetcher.MAX_BATCH_SIZE, BatchPrefetcher.getBatchSize(new QueryOptions(DBIterator.BATCH_SIZE, 1000000)));
+    }
+
+    @Test
+    public void testRelatedDocumentCache() {
+        RelatedDocumentCache cache = new RelatedDocumentCache(2);
+        Document document = new Document("uid", 1L)
+                .append("version", 1)
+                .append("samples", new ArrayList<>(Collections.singletonList(new Document("id", "s1"))));
+        cache.put("1__1", document);
+
+        // Changes in the original document or in the returned copies are not visible in the cache
+        document.put("id", "modified");
+        Document copy = cache.get("1__1");
+        assertNull(copy.get("id"));
+        ((List<Document>) copy.get("samples")).get(0).put("id", "modified");
+        assertEquals("s1", ((List<Document>) cache.get("1__1").get("samples")).get(0).getString("id"));
+        assertNull(cache.get("1__2"));
+
+        cache.put("2__1", new Document("uid", 2L));
+        cache.get("1__1");
+        cache.put("3__1", new Document("uid", 3L));
+        assertEquals(2, cache.size());
+        // Least recently used entry is evicted
+        assertNull(cache.get("2__1"));
+        assertNotNull(cache.get("1__1"));
+        assertNotNull(cache.get("3__1"));
+    }
+
+    private BatchPrefetcher.BatchLoader loader(int numDocuments, AtomicInteger batches) {
+        List<Integer> values = new ArrayList<>(numDocuments);
+        for (int i = 0; i < numDocuments; i++) {
+            values.add(i);
+        }
+        Iterator<Integer> iterator = values.iterator();
+        return (buffer, bufferSize) -> {
+            batches.incrementAndGet();
+            while (iterator.hasNext() && buffer.size() < bufferSize) {
+                buffer.add(new Document("uid", iterator.next()));
+            }
+        };
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2015-2020 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencb.opencga.catalog.io;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.opencb.opencga.core.common.IOUtils;
+import org.opencb.opencga.core.common.TimeUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+
+import static org.junit.Assert.assertEquals;
+
+public class ChecksumCalculatorTest {
+
+    private Path tmpOutdir;
+
+    @Before
+    public void before() throws Exception {
+        tmpOutdir = Paths.get("target", "test-data", "opencga-" + getClass().getSimpleName() + "-" + TimeUtils.getTimeMillis());
+        if (Files.exists(tmpOutdir)) {
+            IOUtils.deleteDirectory(tmpOutdir);
+        }
+        Files.createDirectories(tmpOutdir);
+    }
+
+    @Test
+    public void testKnownChecksums() throws Exception {
+        Path file = Files.write(tmpOutdir.resolve("file.txt"), "hello world\n".getBytes(StandardCharsets.UTF_8));
+
+        assertEquals("6f5902ac237024bdd0c176cb93063dc4", new ChecksumCalculator(ChecksumCalculator.Algorithm.MD5, 1).calculate(file));
+        assertEquals("a948904f2f0f479b8f8197694b30184b0d2ed1c1cd2a1ec0fb85d299a192a447",
+                new ChecksumCalculator(ChecksumCalculator.Algorithm.SHA_256, 1).calculate(file));
+        assertEquals("af083b2d", new ChecksumCalculator(ChecksumCalculator.Algorithm.CRC32, 1).calculate(file));
+    }
+
+    @Test
+    public void testParallel() throws Exception {
+        List<Path> files = new ArrayList<>();
+        Random random = new Random(1);
+        for (int i = 0; i < 20; i++) {
+            // Some files larger than the buffer
+            byte[] content = new byte[i % 3 == 0 ? ChecksumCalculator.BUFFER_SIZE * 2 + i : i * 100];
+            random.nextBytes(content);
+            files.add(Files.write(tmpOutdir.resolve("file_" + i), content));
+        }
+
+        for (ChecksumCalculator.Algorithm algorithm : ChecksumCalculator.Algorithm.values()) {
+            ChecksumCalculator calculator = new ChecksumCalculator(algorithm, 4);
+            Map<Path, String> checksums = calculator.calculate(files);
+            assertEquals(files, new ArrayList<>(checksums.keySet()));
+            for (Path file : files) {
+                assertEquals(calculator.calculate(file), checksums.get(file));
+            }
+        }
+    }
+
+    @Test
+    public void testStream() throws Exception {
+        byte[] content = new byte[ChecksumCalculator.BUFFER_SIZE + 10];
+        new Random(2).nextBytes(content);
+        Path file = Files.write(tmpOutdir.resolve("file"), content);
+
+        for (ChecksumCalculator.Algorithm algorithm : ChecksumCalculator.Algorithm.values()) {
+            ChecksumCalculator.Hasher hasher = algorithm.newHasher();
+            try (InputStream inputStream = hasher.wrap(new ByteArrayInputStream(content))) {
+                byte[] buffer = new byte[1000];
+                while (inputStream.read(buffer) >= 0) {
+                    // Consume the stream
+                }
+            }
+            assertEquals(new ChecksumCalculator(algorithm, 1).calculate(file), hasher.getChecksum());
+        }
+    }
+
+    @Test
+    public void testPosixIOManager() throws Exception {
+        Path file = Files.write(tmpOutdir.resolve("file.txt"), "hello world\n".getBytes(StandardCharsets.UTF_8));
+        Path file2 = Files.write(tmpOutdir.resolve("file2.txt"), "".getBytes(StandardCharsets.UTF_8));
+        PosixIOManager ioManager = new PosixIOManager();
+
+        assertEquals("6f5902ac237024bdd0c176cb93063dc4", ioManager.calculateChecksum(file.toUri()));
+        Map<URI, String> checksums = ioManager.calculateChecksums(Arrays.asList(file.toUri(), file2.toUri()));
+        assertEquals("6f5902ac237024bdd0c176cb93063dc4", checksums.get(file.toUri()));
+        assertEquals("d41d8cd98f00b204e9800998ecf8427e", checksums.get(file2.toUri()));
+    }
+}
@@ -536,6 +536,21 @@ public class CatalogManagerTest extends AbstractManagerTest {
         assertEquals(rules, permissionRulesDataResult.first());
     }
 
+    @Test
+    public void testCreatePermissionRulesInvalidatesResolvedStudies() throws CatalogException {
+        QueryOptions options = new QueryOptions(QueryOptions.INCLUDE, StudyDBAdaptor.QueryParams.PERMISSION_RULES.key());
+        Study study = catalogManager.getStudyManager().resolveId(studyFqn, "user", options);
+        assertTrue(study.getPermissionRules() == null || study.getPermissionRules().isEmpty());
+
+        PermissionRule rules = new PermissionRule("rules1", new Query("a", "b"), Arrays.asList("user2", "user3"),
+                Arrays.asList("VIEW", "UPDATE"));
+        catalogManager.getStudyManager().createPermissionRule(studyFqn, Enums.Entity.SAMPLES, rules, token);
+
+        study = catalogManager.getStudyManager().resolveId(studyFqn, "user", options);
+        assertEquals(1, study.getPermissionRules().get(Enums.Entity.SAMPLES).size());
+        assertEquals("rules1", study.getPermissionRules().get(Enums.Entity.SAMPLES).get(0).getId());
+    }
+
     @Test
     public void testUpdatePermissionRulesIncorrectPermission() throws CatalogException {
         PermissionRule rules = new PermissionRule("rules1", new Query("a", "b"), Arrays.asList("user2", "user3"),
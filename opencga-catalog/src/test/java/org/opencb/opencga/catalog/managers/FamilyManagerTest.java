@@ -31,6 +31,7 @@ import org.opencb.commons.datastore.core.DataResult;
 import org.opencb.commons.datastore.core.Query;
 import org.opencb.commons.datastore.core.QueryOptions;
 import org.opencb.commons.test.GenericTest;
+import org.opencb.opencga.catalog.db.api.DBIterator;
 import org.opencb.opencga.catalog.db.api.FamilyDBAdaptor;
 import org.opencb.opencga.catalog.db.api.IndividualDBAdaptor;
 import org.opencb.opencga.catalog.exceptions.CatalogAuthorizationException;
@@ -38,6 +39,7 @@ import org.opencb.opencga.catalog.exceptions.CatalogException;
 import org.opencb.opencga.catalog.utils.Constants;
 import org.opencb.opencga.catalog.utils.ParamUtils;
 import org.opencb.opencga.core.api.ParamConstants;
+import org.opencb.opencga.core.common.JacksonUtils;
 import org.opencb.opencga.core.models.AclParams;
 import org.opencb.opencga.core.models.family.Family;
 import org.opencb.opencga.core.models.family.FamilyQualityControl;
@@ -49,6 +51,7 @@ import org.opencb.opencga.core.models.user.Account;
 import org.opencb.opencga.core.response.OpenCGAResult;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -152,6 +155,34 @@ public class FamilyManagerTest extends GenericTest {
         }
     }
 
+    @Test
+    public void iterateFamiliesWithCachedMembers() throws Exception {
+        createDummyFamily("Martinez-Martinez", true);
+        createDummyFamily("Martinez", false);
+        createDummyFamily("Furio", false);
+
+        // One family per batch. Members of the second and third families are taken from the iterator cache
+        List<String> cached = iterateFamilies(new QueryOptions(DBIterator.BATCH_SIZE, 1));
+        // All the families in one batch, so all the members are fetched from the database
+        List<String> fresh = iterateFamilies(new QueryOptions(DBIterator.BATCH_SIZE, 10).append(DBIterator.PREFETCH, false));
+
+        assertEquals(3, fresh.size());
+        assertEquals(fresh, cached);
+    }
+
+    private List<String> iterateFamilies(QueryOptions options) throws CatalogException, IOException {
+        List<String> families = new ArrayList<>();
+        options.put(QueryOptions.SORT, FamilyDBAdaptor.QueryParams.ID.key());
+        try (DBIterator<Family> iterator = familyManager.iterator(STUDY, new Query(), options, sessionIdUser)) {
+            while (iterator.hasNext()) {
+                Family family = iterator.next();
+                assertEquals(5, family.getMembers().size());
+                families.add(JacksonUtils.getDefaultObjectMapper().writeValueAsString(family));
+            }
+        }
+        return families;
+    }
+
     @Test
     public void getFamilyWithOnlyAllowedMembers() throws CatalogException, IOException {
         createDummyFamily("Martinez-Martinez", true);
@@ -27,6 +27,7 @@ import org.opencb.commons.datastore.core.QueryOptions;
 import org.opencb.opencga.catalog.db.api.FileDBAdaptor;
 import org.opencb.opencga.catalog.db.api.SampleDBAdaptor;
 import org.opencb.opencga.catalog.db.api.StudyDBAdaptor;
+import org.opencb.opencga.catalog.db.mongodb.MongoDBAdaptorFactory;
 import org.opencb.opencga.catalog.exceptions.*;
 import org.opencb.opencga.catalog.io.IOManager;
 import org.opencb.opencga.catalog.utils.Constants;
@@ -230,6 +231,39 @@ public class FileManagerTest extends AbstractManagerTest {
         link(uri, "myDirectory2", studyFqn, new ObjectMap(), token);
     }
 
+    @Test
+    public void testLinkFolderResume() throws Exception {
+        URI uri = createExternalDummyData().toUri();
+        link(uri, "myDirectory", studyFqn, new ObjectMap("parents", true), token);
+        File folder = fileManager.get(studyFqn, "myDirectory/A/", QueryOptions.empty(), token).first();
+        assertEquals(FileStatus.READY, folder.getInternal().getStatus().getName());
+
+        // Simulate an interrupted link. The linked folder remains in STAGE, and some entries are missing
+        Path newFile = Paths.get(uri).resolve("C").resolve("file4.txt");
+        Files.write(newFile, "blablabla".getBytes());
+        MongoDBAdaptorFactory dbAdaptorFactory = new MongoDBAdaptorFactory(catalogManager.getConfiguration());
+        try {
+            dbAdaptorFactory.getCatalogFileDBAdaptor().update(folder.getUid(),
+                    new ObjectMap(FileDBAdaptor.QueryParams.INTERNAL_STATUS_NAME.key(), FileStatus.STAGE), Collections.emptyList(),
+                    QueryOptions.empty());
+        } finally {
+            dbAdaptorFactory.close();
+        }
+
+        link(uri, "myDirectory", studyFqn, new ObjectMap("parents", true), token);
+        folder = fileManager.get(studyFqn, "myDirectory/A/", QueryOptions.empty(), token).first();
+        assertEquals(FileStatus.READY, folder.getInternal().getStatus().getName());
+
+        File file = fileManager.get(studyFqn, "myDirectory/A/C/file4.txt", QueryOptions.empty(), token).first();
+        assertTrue(file.isExternal());
+        assertEquals(newFile.toString(), Paths.get(file.getUri()).toString());
+
+        // Entries already registered are kept
+        DataResult<File> linkedFiles = fileManager.search(studyFqn, new Query(FileDBAdaptor.QueryParams.PATH.key(),
+                "~^myDirectory/A/"), null, token);
+        assertEquals(7, linkedFiles.getNumResults());
+    }
+
     @Test
     public void testLinkFolder2() throws CatalogException, IOException {
         // We will link the same folders that are already created in this study into another folder
@@ -0,0 +1,57 @@
+package org.opencb.opencga.catalog.managers;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.opencb.opencga.core.config.LocalCache;
+import org.opencb.opencga.core.models.study.Study;
+
+import static org.junit.Assert.*;
+
+public class ResolutionCacheTest {
+
+    private ResolutionCache cache;
+
+    @Before
+    public void setUp() {
+        cache = new ResolutionCache(new LocalCache(true, 1000, 60));
+    }
+
+    @Test
+    public void testUsers() {
+        assertNull(cache.getUser("token"));
+        cache.putUser("token", "internal", "user");
+        assertEquals("user", cache.getUser("token").getUserId());
+        assertEquals("internal", cache.getUser("token").getAuthenticationOrigin());
+        assertNull(cache.getUser(null));
+
+        cache.invalidateUser("token");
+        assertNull(cache.getUser("token"));
+        assertEquals(2L, cache.getStats().getLong("queriesAvoided"));
+    }
+
+    @Test
+    public void testStudies() {
+        Study study = new Study().setId("study").setUid(1);
+        cache.putStudy("user@project:study", "user", null, study);
+        assertSame(study, cache.getStudy("user@project:study", "user", null));
+        assertNull(cache.getStudy("user@project:study", "user2", null));
+        assertNull(cache.getStudy("user@project:study", "user", StudyManager.INCLUDE_VARIABLE_SET));
+
+        cache.putStudy("user@project:study", "user", StudyManager.INCLUDE_VARIABLE_SET, study);
+        assertSame(study, cache.getStudy("user@project:study", "user", StudyManager.INCLUDE_VARIABLE_SET));
+
+        cache.invalidateStudies();
+        assertNull(cache.getStudy("user@project:study", "user", null));
+        assertEquals(2L, cache.getStats().getLong("queriesAvoided"));
+        assertEquals(3L, cache.getStats().getLong("queries"));
+    }
+
+    @Test
+    public void testInactive() {
+        cache = new ResolutionCache(new LocalCache(false, 1000, 60));
+        cache.putUser("token", "internal", "user");
+        cache.putStudy("study", "user", null, new Study());
+        assertNull(cache.getUser("token"));
+        assertNull(cache.getStudy("study", "user", null));
+    }
+}
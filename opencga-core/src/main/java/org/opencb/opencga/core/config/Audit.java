@@ -25,6 +25,16 @@ public class Audit {
     private long maxDocuments;
     private long maxSize;
 
+    private boolean async = false;
+    private int queueSize = 10000;
+    private int batchSize = 100;
+    private OverflowPolicy overflowPolicy = OverflowPolicy.BLOCK;
+
+    public enum OverflowPolicy {
+        BLOCK,
+        DROP
+    }
+
     public Audit() {
     }
 
@@ -40,6 +50,10 @@ public class Audit {
         sb.append("manager='").append(manager).append('\'');
         sb.append(", maxDocuments=").append(maxDocuments);
         sb.append(", maxSize=").append(maxSize);
+        sb.append(", async=").append(async);
+        sb.append(", queueSize=").append(queueSize);
+        sb.append(", batchSize=").append(batchSize);
+        sb.append(", overflowPolicy=").append(overflowPolicy);
         sb.append('}');
         return sb.toString();
     }
@@ -70,4 +84,40 @@ public class Audit {
         this.maxSize = maxSize;
         return this;
     }
+
+    public boolean isAsync() {
+        return async;
+    }
+
+    public Audit setAsync(boolean async) {
+        this.async = async;
+        return this;
+    }
+
+    public int getQueueSize() {
+        return queueSize;
+    }
+
+    public Audit setQueueSize(int queueSize) {
+        this.queueSize = queueSize;
+        return this;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public Audit setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    public Audit setOverflowPolicy(OverflowPolicy overflowPolicy) {
+        this.overflowPolicy = overflowPolicy;
+        return this;
+    }
 }
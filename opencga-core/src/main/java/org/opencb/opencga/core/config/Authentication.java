@@ -25,11 +25,14 @@ import java.util.List;
 public class Authentication {
     private Long expiration;
     private List<AuthenticationOrigin> authenticationOrigins;
+    private LocalCache tokenCache;
 
     public Authentication() {
+        tokenCache = new LocalCache(true, 10000, 600);
     }
 
     public Authentication(Long expiration, List<AuthenticationOrigin> authenticationOrigins) {
+        this();
         this.expiration = expiration;
         this.authenticationOrigins = authenticationOrigins;
     }
@@ -52,11 +55,21 @@ public class Authentication {
         return this;
     }
 
+    public LocalCache getTokenCache() {
+        return tokenCache;
+    }
+
+    public Authentication setTokenCache(LocalCache tokenCache) {
+        this.tokenCache = tokenCache;
+        return this;
+    }
+
     @Override
     public String toString() {
         final StringBuilder sb = new StringBuilder("Authentication{");
         sb.append("expiration=").append(expiration);
         sb.append(", authenticationOrigins=").append(authenticationOrigins);
+        sb.append(", tokenCache=").append(tokenCache);
         sb.append('}');
         return sb.toString();
     }
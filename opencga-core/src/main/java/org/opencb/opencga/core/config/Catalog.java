@@ -23,13 +23,19 @@ public class Catalog {
 
     private DatabaseCredentials database;
     private DatabaseCredentials searchEngine;
+    private LocalCache authorizationCache;
+    private LocalCache resolutionCache;
 
     public Catalog() {
+        authorizationCache = new LocalCache();
+        resolutionCache = new LocalCache();
     }
 
     public Catalog(DatabaseCredentials database, DatabaseCredentials searchEngine) {
         this.database = database;
         this.searchEngine = searchEngine;
+        this.authorizationCache = new LocalCache();
+        this.resolutionCache = new LocalCache();
     }
 
     @Override
@@ -37,6 +43,8 @@ public class Catalog {
         final StringBuilder sb = new StringBuilder("Catalog{");
         sb.append("database=").append(database);
         sb.append(", searchEngine=").append(searchEngine);
+        sb.append(", authorizationCache=").append(authorizationCache);
+        sb.append(", resolutionCache=").append(resolutionCache);
         sb.append('}');
         return sb.toString();
     }
@@ -59,4 +67,22 @@ public class Catalog {
         return this;
     }
 
+    public LocalCache getAuthorizationCache() {
+        return authorizationCache;
+    }
+
+    public Catalog setAuthorizationCache(LocalCache authorizationCache) {
+        this.authorizationCache = authorizationCache;
+        return this;
+    }
+
+    public LocalCache getResolutionCache() {
+        return resolutionCache;
+    }
+
+    public Catalog setResolutionCache(LocalCache resolutionCache) {
+        this.resolutionCache = resolutionCache;
+        return this;
+    }
+
 }
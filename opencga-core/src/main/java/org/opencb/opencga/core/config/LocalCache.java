@@ -0,0 +1,75 @@
+/*
+ * Copyright 2015-2020 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencb.opencga.core.config;
+
+/**
+ * In-memory cache configuration.
+ */
+public class LocalCache {
+
+    private boolean active;
+    private long maxSize;
+    // Time to live of each entry, in seconds
+    private long expiration;
+
+    public LocalCache() {
+        this(true, 100000, 60);
+    }
+
+    public LocalCache(boolean active, long maxSize, long expiration) {
+        this.active = active;
+        this.maxSize = maxSize;
+        this.expiration = expiration;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("LocalCache{");
+        sb.append("active=").append(active);
+        sb.append(", maxSize=").append(maxSize);
+        sb.append(", expiration=").append(expiration);
+        sb.append('}');
+        return sb.toString();
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    public LocalCache setActive(boolean active) {
+        this.active = active;
+        return this;
+    }
+
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    public LocalCache setMaxSize(long maxSize) {
+        this.maxSize = maxSize;
+        return this;
+    }
+
+    public long getExpiration() {
+        return expiration;
+    }
+
+    public LocalCache setExpiration(long expiration) {
+        this.expiration = expiration;
+        return this;
+    }
+}
@@ -23,6 +23,8 @@ public class Monitor {
 
     private int daysToRemove;
     private int executionDaemonInterval;
+    private int executionDaemonPollingInterval;
+    private int executionDaemonThreads;
     private int fileDaemonInterval;
 
     private int port;
@@ -35,6 +37,8 @@ public class Monitor {
         final StringBuilder sb = new StringBuilder("Monitor{");
         sb.append("daysToRemove=").append(daysToRemove);
         sb.append(", executionDaemonInterval=").append(executionDaemonInterval);
+        sb.append(", executionDaemonPollingInterval=").append(executionDaemonPollingInterval);
+        sb.append(", executionDaemonThreads=").append(executionDaemonThreads);
         sb.append(", fileDaemonInterval=").append(fileDaemonInterval);
         sb.append(", port=").append(port);
         sb.append('}');
@@ -59,6 +63,24 @@ public class Monitor {
         return this;
     }
 
+    public int getExecutionDaemonPollingInterval() {
+        return executionDaemonPollingInterval;
+    }
+
+    public Monitor setExecutionDaemonPollingInterval(int executionDaemonPollingInterval) {
+        this.executionDaemonPollingInterval = executionDaemonPollingInterval;
+        return this;
+    }
+
+    public int getExecutionDaemonThreads() {
+        return executionDaemonThreads;
+    }
+
+    public Monitor setExecutionDaemonThreads(int executionDaemonThreads) {
+        this.executionDaemonThreads = executionDaemonThreads;
+        return this;
+    }
+
     public int getFileDaemonInterval() {
         return fileDaemonInterval;
     }
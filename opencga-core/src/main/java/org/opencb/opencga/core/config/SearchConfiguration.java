@@ -37,11 +37,15 @@ public class SearchConfiguration {
     private boolean active;
     private int timeout;
     private int insertBatchSize;
+    private int insertCommitWithin;
+    private int insertMaxInFlightBatches;
 
     private static final String DEFAULT_MODE = "cloud";
     private static final boolean DEFAULT_ACTIVE = true;
     private static final int DEFAULT_TIMEOUT = 30000;
     private static final int DEFAULT_INSERT_BATCH_SIZE = 10000;
+    private static final int DEFAULT_INSERT_COMMIT_WITHIN = 30000;
+    private static final int DEFAULT_INSERT_MAX_IN_FLIGHT_BATCHES = 2;
 
 
     public SearchConfiguration() {
@@ -59,6 +63,8 @@ public class SearchConfiguration {
         this.active = active;
         this.timeout = timeout;
         this.insertBatchSize = insertBatchSize;
+        this.insertCommitWithin = DEFAULT_INSERT_COMMIT_WITHIN;
+        this.insertMaxInFlightBatches = DEFAULT_INSERT_MAX_IN_FLIGHT_BATCHES;
     }
 
     @Override
@@ -73,6 +79,8 @@ public class SearchConfiguration {
                 ", active=" + active +
                 ", timeout=" + timeout +
                 ", insertBatchSize=" + insertBatchSize +
+                ", insertCommitWithin=" + insertCommitWithin +
+                ", insertMaxInFlightBatches=" + insertMaxInFlightBatches +
                 '}';
     }
 
@@ -176,4 +184,22 @@ public class SearchConfiguration {
         this.insertBatchSize = insertBatchSize;
         return this;
     }
+
+    public int getInsertCommitWithin() {
+        return insertCommitWithin;
+    }
+
+    public SearchConfiguration setInsertCommitWithin(int insertCommitWithin) {
+        this.insertCommitWithin = insertCommitWithin;
+        return this;
+    }
+
+    public int getInsertMaxInFlightBatches() {
+        return insertMaxInFlightBatches;
+    }
+
+    public SearchConfiguration setInsertMaxInFlightBatches(int insertMaxInFlightBatches) {
+        this.insertMaxInFlightBatches = insertMaxInFlightBatches;
+        return this;
+    }
 }
@@ -29,7 +29,8 @@ import java.util.Map;
  *
  * @author Jacobo Coll &lt;jacobo167@gmail.com&gt;
  */
-@JsonIgnoreProperties({"samples", "numTotalSamples", "numSamples", "source", "approximateCount", "approximateCountSamplingSize"})
+@JsonIgnoreProperties({"samples", "numTotalSamples", "numSamples", "source", "approximateCount", "approximateCountSamplingSize",
+        "approximateCountConfidenceInterval"})
 public class VariantQueryResult<T> extends OpenCGAResult<T> {
 
     private static final String SAMPLES = "samples";
@@ -38,6 +39,7 @@ public class VariantQueryResult<T> extends OpenCGAResult<T> {
     private static final String SOURCE = "source";
     private static final String APPROXIMATE_COUNT = "approximateCount";
     private static final String APPROXIMATE_COUNT_SAMPLING_SIZE = "approximateCountSamplingSize";
+    private static final String APPROXIMATE_COUNT_CONFIDENCE_INTERVAL = "approximateCountConfidenceInterval";
 
     public VariantQueryResult() {
     }
@@ -140,6 +142,20 @@ public class VariantQueryResult<T> extends OpenCGAResult<T> {
         return this;
     }
 
+    /**
+     * @return Lower and upper bounds of the 95% confidence interval of the approximate count, if any.
+     */
+    public List<Long> getApproximateCountConfidenceInterval() {
+        return getAttributes().containsKey(APPROXIMATE_COUNT_CONFIDENCE_INTERVAL)
+                ? getAttributes().getAsLongList(APPROXIMATE_COUNT_CONFIDENCE_INTERVAL)
+                : null;
+    }
+
+    public VariantQueryResult<T> setApproximateCountConfidenceInterval(List<Long> approximateCountConfidenceInterval) {
+        getAttributes().put(APPROXIMATE_COUNT_CONFIDENCE_INTERVAL, approximateCountConfidenceInterval);
+        return this;
+    }
+
     public String getSource() {
         return getAttributes().getString(SOURCE);
     }
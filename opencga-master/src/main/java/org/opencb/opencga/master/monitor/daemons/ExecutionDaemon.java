@@ -17,6 +17,7 @@
 package org.opencb.opencga.master.monitor.daemons;
 
 import com.google.common.base.CaseFormat;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.http.HttpStatus;
@@ -110,10 +111,13 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.Instant;
 import java.util.*;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -128,12 +132,27 @@ public class ExecutionDaemon extends MonitorParentDaemon {
     public static final String JOB_ID_PARAM = "job-id";
     public static final int EXECUTION_RESULT_FILE_EXPIRATION_MINUTES = 10;
     public static final String REDACTED_TOKEN = "xxxxxxxxxxxxxxxxxxxxx";
+    public static final int DEFAULT_POLLING_INTERVAL = 60000;
+    public static final int DEFAULT_THREADS = 4;
+    private static final String WAKE_UP = "";
     private String internalCli;
     private JobManager jobManager;
     private FileManager fileManager;
-    private final Map<String, Long> jobsCountByType = new HashMap<>();
+    // Uids of the queued and running jobs of each tool with a concurrency limit. Loaded from catalog on demand
+    private final Map<String, Set<Long>> activeJobsByTool = new ConcurrentHashMap<>();
+    // Set when a queued or running job leaves its slot free for a pending job of the same tool
+    private final AtomicBoolean releasedSlots = new AtomicBoolean();
     private final Map<String, Long> retainedLogsTime = new HashMap<>();
 
+    // Job events waking up the daemon before the next check. Each element is a job id, or WAKE_UP
+    private final BlockingQueue<String> notifications = new LinkedBlockingQueue<>();
+    private final Consumer<Job> jobSubmissionListener = job -> notifications.offer(job.getId());
+    private boolean executorNotifiesStatus;
+    // Full checks of all the jobs are only a safety net for missed events
+    private final long pollingInterval;
+    private long lastFullCheck = 0;
+    private long lastPendingJobUid = -1;
+
     private Path defaultJobDir;
 
     private static final Map<String, String> TOOL_CLI_MAP;
@@ -149,7 +168,21 @@ public class ExecutionDaemon extends MonitorParentDaemon {
     private final Query runningJobsQuery;
     private final QueryOptions queryOptions;
 
-    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    // Workers checking the status of queued and running jobs, and registering the results of the finished ones
+    private final ExecutorService jobWorkers;
+    // Webhooks of the same job are always sent by the same single thread executor, to keep the order of the notifications
+    private final ExecutorService[] webhookExecutors;
+
+    private final AtomicInteger jobsBacklog = new AtomicInteger();
+    private final AtomicLong checkedJobs = new AtomicLong();
+    private final AtomicLong checkTimeNanos = new AtomicLong();
+    private final AtomicLong finishedJobs = new AtomicLong();
+    private final AtomicLong finishedJobsTimeNanos = new AtomicLong();
+    private final AtomicLong maxFinishedJobTimeNanos = new AtomicLong();
+    private final AtomicInteger webhooksBacklog = new AtomicInteger();
+    private final AtomicLong webhooksSent = new AtomicLong();
+    private final AtomicLong webhooksFailed = new AtomicLong();
+    private final AtomicLong webhooksTimeNanos = new AtomicLong();
 
     static {
         TOOL_CLI_MAP = new HashMap<String, String>(){{
@@ -233,6 +266,23 @@ public class ExecutionDaemon extends MonitorParentDaemon {
 
         this.defaultJobDir = Paths.get(catalogManager.getConfiguration().getJobDir());
 
+        int configuredPollingInterval = catalogManager.getConfiguration().getMonitor() == null
+                ? 0
+                : catalogManager.getConfiguration().getMonitor().getExecutionDaemonPollingInterval();
+        this.pollingInterval = Math.max(interval, configuredPollingInterval > 0 ? configuredPollingInterval : DEFAULT_POLLING_INTERVAL);
+
+        int configuredThreads = catalogManager.getConfiguration().getMonitor() == null
+                ? 0
+                : catalogManager.getConfiguration().getMonitor().getExecutionDaemonThreads();
+        int threads = configuredThreads > 0 ? configuredThreads : DEFAULT_THREADS;
+        this.jobWorkers = Executors.newFixedThreadPool(threads,
+                new ThreadFactoryBuilder().setNameFormat("execution-worker-%d").setDaemon(true).build());
+        this.webhookExecutors = new ExecutorService[threads];
+        ThreadFactory webhookThreadFactory = new ThreadFactoryBuilder().setNameFormat("webhook-%d").setDaemon(true).build();
+        for (int i = 0; i < threads; i++) {
+            webhookExecutors[i] = Executors.newSingleThreadExecutor(webhookThreadFactory);
+        }
+
         pendingJobsQuery = new Query(JobDBAdaptor.QueryParams.INTERNAL_STATUS_NAME.key(), Enums.ExecutionStatus.PENDING);
         queuedJobsQuery = new Query(JobDBAdaptor.QueryParams.INTERNAL_STATUS_NAME.key(), Enums.ExecutionStatus.QUEUED);
         runningJobsQuery = new Query(JobDBAdaptor.QueryParams.INTERNAL_STATUS_NAME.key(), Enums.ExecutionStatus.RUNNING);
@@ -245,76 +295,252 @@ public class ExecutionDaemon extends MonitorParentDaemon {
 
     @Override
     public void run() {
+        jobManager.addJobSubmissionListener(jobSubmissionListener);
+        executorNotifiesStatus = batchExecutor.setStatusChangeListener(notifications::offer);
         while (!exit) {
+            boolean fullCheck;
             try {
-                Thread.sleep(interval);
+                fullCheck = waitForEvents();
             } catch (InterruptedException e) {
                 if (!exit) {
-                    e.printStackTrace();
+                    logger.warn("Execution daemon interrupted", e);
                 }
+                continue;
+            }
+            if (exit) {
+                break;
             }
 
             try {
-                checkJobs();
+                checkJobs(fullCheck);
             } catch (Exception e) {
                 logger.error("Catch exception " + e.getMessage(), e);
             }
         }
+        jobManager.removeJobSubmissionListener(jobSubmissionListener);
+        batchExecutor.setStatusChangeListener(null);
 
+        jobWorkers.shutdownNow();
         try {
             logger.info("Attempt to shutdown webhook executor");
-            executor.shutdown();
-            executor.awaitTermination(5, TimeUnit.SECONDS);
+            for (ExecutorService webhookExecutor : webhookExecutors) {
+                webhookExecutor.shutdown();
+            }
+            for (ExecutorService webhookExecutor : webhookExecutors) {
+                webhookExecutor.awaitTermination(5, TimeUnit.SECONDS);
+            }
         } catch (InterruptedException e) {
             logger.error("Webhook tasks interrupted");
         } finally {
-            if (!executor.isTerminated()) {
+            boolean terminated = true;
+            for (ExecutorService webhookExecutor : webhookExecutors) {
+                terminated &= webhookExecutor.isTerminated();
+                webhookExecutor.shutdownNow();
+            }
+            if (!terminated) {
                 logger.error("Cancel non-finished webhook tasks");
             }
-            executor.shutdownNow();
             logger.info("Webhook tasks finished");
         }
     }
 
-    protected void checkJobs() {
-        long pendingJobs = -1;
-        long queuedJobs = -1;
-        long runningJobs = -1;
-        try {
-            pendingJobs = jobManager.count(pendingJobsQuery, token).getNumMatches();
-            queuedJobs = jobManager.count(queuedJobsQuery, token).getNumMatches();
-            runningJobs = jobManager.count(runningJobsQuery, token).getNumMatches();
+    @Override
+    public void setExit(boolean exit) {
+        super.setExit(exit);
+        wakeUp();
+    }
+
+    /**
+     * Force a new check of the jobs without waiting for the next poll.
+     */
+    public void wakeUp() {
+        notifications.offer(WAKE_UP);
+    }
+
+    /**
+     * Wait until there is something to do. This is, any job event, new pending jobs submitted from other processes, a job status
+     * change for executors not able to notify them, or the polling interval for the full check.
+     *
+     * @return true if a full check of all the jobs is required
+     * @throws InterruptedException if interrupted while waiting
+     */
+    private boolean waitForEvents() throws InterruptedException {
+        while (!exit) {
+            long timeToFullCheck = lastFullCheck + pollingInterval - System.currentTimeMillis();
+            if (timeToFullCheck <= 0) {
+                return true;
+            }
+            String event = notifications.poll(Math.min(interval, timeToFullCheck), TimeUnit.MILLISECONDS);
+            if (event != null) {
+                // Coalesce all the received events into one single check
+                List<String> events = new ArrayList<>();
+                notifications.drainTo(events);
+                logger.debug("Woken up by {} job events", events.size() + 1);
+                return false;
+            }
+            if (!executorNotifiesStatus || hasNewPendingJobs()) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Cheap check for new pending jobs submitted from other processes, looking for the highest pending job uid.
+     *
+     * @return true if there is any pending job newer than the last one seen
+     */
+    private boolean hasNewPendingJobs() {
+        QueryOptions options = new QueryOptions(QueryOptions.INCLUDE, JobDBAdaptor.QueryParams.UID.key())
+                .append(QueryOptions.SORT, JobDBAdaptor.QueryParams.UID.key())
+                .append(QueryOptions.ORDER, QueryOptions.DESCENDING)
+                .append(QueryOptions.LIMIT, 1);
+        try (DBIterator<Job> iterator = jobManager.iterator(pendingJobsQuery, options, token)) {
+            if (iterator.hasNext()) {
+                long uid = iterator.next().getUid();
+                if (uid > lastPendingJobUid) {
+                    lastPendingJobUid = uid;
+                    return true;
+                }
+            }
         } catch (CatalogException e) {
             logger.error("{}", e.getMessage(), e);
+            return true;
+        }
+        return false;
+    }
+
+    protected void checkJobs() {
+        checkJobs(true);
+    }
+
+    /**
+     * Check pending, queued and running jobs.
+     *
+     * @param fullCheck Count all the jobs and reload the active jobs of each tool from catalog
+     */
+    protected void checkJobs(boolean fullCheck) {
+        if (fullCheck) {
+            lastFullCheck = System.currentTimeMillis();
+            // Discard the in-memory counts, in case any job was modified from outside this daemon
+            activeJobsByTool.clear();
+            logJobCounts();
+            logger.info("----- EXECUTION DAEMON  ----- {}", getStats().toJson());
         }
-        logger.info("----- EXECUTION DAEMON  ----- pending={}, queued={}, running={}", pendingJobs, queuedJobs, runningJobs);
 
             /*
             PENDING JOBS
              */
-        checkPendingJobs();
+        int handledJobs = checkPendingJobs();
 
             /*
             QUEUED JOBS
              */
-        checkQueuedJobs();
+        handledJobs = Math.max(handledJobs, checkQueuedJobs());
 
             /*
             RUNNING JOBS
              */
-        checkRunningJobs();
+        handledJobs = Math.max(handledJobs, checkRunningJobs());
+
+        if (releasedSlots.getAndSet(false)) {
+            // Pending jobs were checked before the finished jobs released their slots
+            handledJobs = Math.max(handledJobs, checkPendingJobs());
+        }
+
+        if (handledJobs >= NUM_JOBS_HANDLED) {
+            // There might be more jobs to handle. Do not wait
+            wakeUp();
+        }
     }
 
-    protected void checkRunningJobs() {
-        int handledRunningJobs = 0;
-        try (DBIterator<Job> iterator = jobManager.iterator(runningJobsQuery, queryOptions, token)) {
-            while (handledRunningJobs < NUM_JOBS_HANDLED && iterator.hasNext()) {
-                Job job = iterator.next();
-                handledRunningJobs += checkRunningJob(job);
+    private void logJobCounts() {
+        long pendingJobs = -1;
+        long queuedJobs = -1;
+        long runningJobs = -1;
+        try {
+            pendingJobs = jobManager.count(pendingJobsQuery, token).getNumMatches();
+            queuedJobs = jobManager.count(queuedJobsQuery, token).getNumMatches();
+            runningJobs = jobManager.count(runningJobsQuery, token).getNumMatches();
+        } catch (CatalogException e) {
+            logger.error("{}", e.getMessage(), e);
+        }
+        logger.info("----- EXECUTION DAEMON  ----- pending={}, queued={}, running={}", pendingJobs, queuedJobs, runningJobs);
+    }
+
+    /**
+     * Summary of the daemon activity. Includes the jobs and webhooks waiting to be processed, and the time spent processing them.
+     *
+     * @return ObjectMap with the daemon stats
+     */
+    public ObjectMap getStats() {
+        long numCheckedJobs = checkedJobs.get();
+        long numFinishedJobs = finishedJobs.get();
+        long numWebhooksSent = webhooksSent.get();
+        long numWebhooksFailed = webhooksFailed.get();
+        long numWebhooks = numWebhooksSent + numWebhooksFailed;
+        return new ObjectMap()
+                .append("jobsBacklog", jobsBacklog.get())
+                .append("checkedJobs", numCheckedJobs)
+                .append("avgCheckTimeMs", numCheckedJobs == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(checkTimeNanos.get())
+                        / (double) numCheckedJobs)
+                .append("finishedJobs", numFinishedJobs)
+                .append("avgFinishedJobTimeMs", numFinishedJobs == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(finishedJobsTimeNanos.get())
+                        / (double) numFinishedJobs)
+                .append("maxFinishedJobTimeMs", TimeUnit.NANOSECONDS.toMillis(maxFinishedJobTimeNanos.get()))
+                .append("webhooksBacklog", webhooksBacklog.get())
+                .append("webhooksSent", numWebhooksSent)
+                .append("webhooksFailed", numWebhooksFailed)
+                .append("avgWebhookTimeMs", numWebhooks == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(webhooksTimeNanos.get())
+                        / (double) numWebhooks);
+    }
+
+    /**
+     * Check the jobs matching the query in parallel, in batches of NUM_JOBS_HANDLED jobs, until NUM_JOBS_HANDLED jobs have
+     * changed the status. Each batch is finished before starting the next one, so a job is never checked twice at the same time.
+     *
+     * @param query Jobs query
+     * @param check Job check, returning 1 if the job has changed the status, 0 otherwise
+     * @return Number of jobs that changed the status
+     */
+    private int checkJobsInParallel(Query query, ToIntFunction<Job> check) {
+        int handledJobs = 0;
+        try (DBIterator<Job> iterator = jobManager.iterator(query, queryOptions, token)) {
+            while (handledJobs < NUM_JOBS_HANDLED && iterator.hasNext()) {
+                List<Future<Integer>> futures = new ArrayList<>(NUM_JOBS_HANDLED);
+                while (futures.size() < NUM_JOBS_HANDLED && iterator.hasNext()) {
+                    Job job = iterator.next();
+                    jobsBacklog.incrementAndGet();
+                    futures.add(jobWorkers.submit(() -> {
+                        long start = System.nanoTime();
+                        try {
+                            return check.applyAsInt(job);
+                        } finally {
+                            jobsBacklog.decrementAndGet();
+                            checkedJobs.incrementAndGet();
+                            checkTimeNanos.addAndGet(System.nanoTime() - start);
+                        }
+                    }));
+                }
+                for (Future<Integer> future : futures) {
+                    try {
+                        handledJobs += future.get();
+                    } catch (ExecutionException e) {
+                        logger.error("Unexpected error checking job: {}", e.getCause().getMessage(), e.getCause());
+                    }
+                }
             }
         } catch (CatalogException e) {
             logger.error("{}", e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("Interrupted while checking jobs");
         }
+        return handledJobs;
+    }
+
+    protected int checkRunningJobs() {
+        return checkJobsInParallel(runningJobsQuery, this::checkRunningJob);
     }
 
     protected int checkRunningJob(Job job) {
@@ -358,16 +584,8 @@ public class ExecutionDaemon extends MonitorParentDaemon {
         }
     }
 
-    protected void checkQueuedJobs() {
-        int handledQueuedJobs = 0;
-        try (DBIterator<Job> iterator = jobManager.iterator(queuedJobsQuery, queryOptions, token)) {
-            while (handledQueuedJobs < NUM_JOBS_HANDLED && iterator.hasNext()) {
-                Job job = iterator.next();
-                handledQueuedJobs += checkQueuedJob(job);
-            }
-        } catch (CatalogException e) {
-            logger.error("{}", e.getMessage(), e);
-        }
+    protected int checkQueuedJobs() {
+        return checkJobsInParallel(queuedJobsQuery, this::checkQueuedJob);
     }
 
     /**
@@ -406,10 +624,7 @@ public class ExecutionDaemon extends MonitorParentDaemon {
         }
     }
 
-    protected void checkPendingJobs() {
-        // Clear job counts each cycle
-        jobsCountByType.clear();
-
+    protected int checkPendingJobs() {
         int handledPendingJobs = 0;
         try (DBIterator<Job> iterator = jobManager.iterator(pendingJobsQuery, queryOptions, token)) {
             while (handledPendingJobs < NUM_JOBS_HANDLED && iterator.hasNext()) {
@@ -419,6 +634,7 @@ public class ExecutionDaemon extends MonitorParentDaemon {
         } catch (CatalogException e) {
             logger.error("{}", e.getMessage(), e);
         }
+        return handledPendingJobs;
     }
 
     /**
@@ -561,6 +777,7 @@ public class ExecutionDaemon extends MonitorParentDaemon {
         }
 
         job.getInternal().setStatus(updateParams.getInternal().getStatus());
+        addActiveJob(job);
         notifyStatusChange(job);
 
         return 1;
@@ -740,18 +957,7 @@ public class ExecutionDaemon extends MonitorParentDaemon {
     }
 
     private boolean canBeQueued(String toolId, int maxJobs) {
-        Query query = new Query()
-                .append(JobDBAdaptor.QueryParams.INTERNAL_STATUS_NAME.key(), Enums.ExecutionStatus.QUEUED + ","
-                        + Enums.ExecutionStatus.RUNNING)
-                .append(JobDBAdaptor.QueryParams.TOOL_ID.key(), toolId);
-        long currentJobs = jobsCountByType.computeIfAbsent(toolId, k -> {
-            try {
-                return catalogManager.getJobManager().count(query, token).getNumMatches();
-            } catch (CatalogException e) {
-                logger.error("Error counting the current number of running and queued \"" + toolId + "\" jobs", e);
-                return 0L;
-            }
-        });
+        long currentJobs = getActiveJobs(toolId).size();
         if (currentJobs >= maxJobs) {
             long now = System.currentTimeMillis();
             Long lastTimeLog = retainedLogsTime.getOrDefault(toolId, 0L);
@@ -763,12 +969,56 @@ public class ExecutionDaemon extends MonitorParentDaemon {
             }
             return false;
         } else {
-            jobsCountByType.remove(toolId);
             retainedLogsTime.put(toolId, 0L);
             return true;
         }
     }
 
+    /**
+     * Get the uids of the queued and running jobs of a tool. Loaded from catalog the first time, and kept up to date in memory
+     * with every status change done by this daemon.
+     *
+     * @param toolId Tool id
+     * @return Set of job uids
+     */
+    private Set<Long> getActiveJobs(String toolId) {
+        Set<Long> activeJobs = activeJobsByTool.get(toolId);
+        if (activeJobs == null) {
+            Query query = new Query()
+                    .append(JobDBAdaptor.QueryParams.INTERNAL_STATUS_NAME.key(), Enums.ExecutionStatus.QUEUED + ","
+                            + Enums.ExecutionStatus.RUNNING)
+                    .append(JobDBAdaptor.QueryParams.TOOL_ID.key(), toolId);
+            QueryOptions options = new QueryOptions(QueryOptions.INCLUDE, JobDBAdaptor.QueryParams.UID.key());
+            activeJobs = ConcurrentHashMap.newKeySet();
+            try (DBIterator<Job> iterator = jobManager.iterator(query, options, token)) {
+                while (iterator.hasNext()) {
+                    activeJobs.add(iterator.next().getUid());
+                }
+            } catch (CatalogException e) {
+                logger.error("Error getting the current running and queued \"" + toolId + "\" jobs", e);
+                // Do not keep incomplete results
+                return activeJobs;
+            }
+            activeJobsByTool.put(toolId, activeJobs);
+        }
+        return activeJobs;
+    }
+
+    private void addActiveJob(Job job) {
+        Set<Long> activeJobs = activeJobsByTool.get(job.getTool().getId());
+        if (activeJobs != null) {
+            activeJobs.add(job.getUid());
+        }
+    }
+
+    private void removeActiveJob(Job job) {
+        Set<Long> activeJobs = activeJobsByTool.get(job.getTool().getId());
+        if (activeJobs != null && activeJobs.remove(job.getUid())) {
+            releasedSlots.set(true);
+            wakeUp();
+        }
+    }
+
     private int abortJob(Job job, String description) {
         logger.info("Aborting job: {} - Reason: '{}'", job.getId(), description);
         return setStatus(job, new Enums.ExecutionStatus(Enums.ExecutionStatus.ABORTED, description));
@@ -786,6 +1036,11 @@ public class ExecutionDaemon extends MonitorParentDaemon {
         }
 
         job.getInternal().setStatus(status);
+        if (Enums.ExecutionStatus.QUEUED.equals(status.getName()) || Enums.ExecutionStatus.RUNNING.equals(status.getName())) {
+            addActiveJob(job);
+        } else {
+            removeActiveJob(job);
+        }
         notifyStatusChange(job);
 
         return 1;
@@ -897,6 +1152,18 @@ public class ExecutionDaemon extends MonitorParentDaemon {
     }
 
     private int processFinishedJob(Job job, Enums.ExecutionStatus status) {
+        long start = System.nanoTime();
+        try {
+            return registerFinishedJob(job, status);
+        } finally {
+            long time = System.nanoTime() - start;
+            finishedJobs.incrementAndGet();
+            finishedJobsTimeNanos.addAndGet(time);
+            maxFinishedJobTimeNanos.accumulateAndGet(time, Math::max);
+        }
+    }
+
+    private int registerFinishedJob(Job job, Enums.ExecutionStatus status) {
         logger.info("[{}] - Processing finished job with status {}", job.getId(), status.getName());
 
         Path outDirUri = Paths.get(job.getOutDir().getUri());
@@ -1006,6 +1273,7 @@ public class ExecutionDaemon extends MonitorParentDaemon {
         }
 
         job.getInternal().setStatus(updateParams.getInternal().getStatus());
+        removeActiveJob(job);
         notifyStatusChange(job);
 
         return 1;
@@ -1013,17 +1281,29 @@ public class ExecutionDaemon extends MonitorParentDaemon {
 
     private void notifyStatusChange(Job job) {
         if (job.getInternal().getWebhook().getUrl() != null) {
-            executor.submit(() -> {
+            ExecutorService webhookExecutor = webhookExecutors[Math.floorMod(Long.hashCode(job.getUid()), webhookExecutors.length)];
+            webhooksBacklog.incrementAndGet();
+            webhookExecutor.submit(() -> {
+                long start = System.nanoTime();
+                boolean sent = false;
                 try {
-                    sendWebhookNotification(job, job.getInternal().getWebhook().getUrl());
+                    sent = sendWebhookNotification(job, job.getInternal().getWebhook().getUrl());
                 } catch (URISyntaxException | CatalogException | CloneNotSupportedException e) {
                     logger.warn("Could not store notification status: {}", e.getMessage(), e);
+                } finally {
+                    webhooksBacklog.decrementAndGet();
+                    if (sent) {
+                        webhooksSent.incrementAndGet();
+                    } else {
+                        webhooksFailed.incrementAndGet();
+                    }
+                    webhooksTimeNanos.addAndGet(System.nanoTime() - start);
                 }
             });
         }
     }
 
-    private void sendWebhookNotification(Job job, URL url) throws URISyntaxException, CatalogException, CloneNotSupportedException {
+    private boolean sendWebhookNotification(Job job, URL url) throws URISyntaxException, CatalogException, CloneNotSupportedException {
         JobInternal jobInternal = new JobInternal(null, job.getInternal().getWebhook().clone(), null);
         PrivateJobUpdateParams updateParams = new PrivateJobUpdateParams()
                 .setInternal(jobInternal);
@@ -1048,9 +1328,10 @@ public class ExecutionDaemon extends MonitorParentDaemon {
 
             jobManager.update(job.getStudy().getId(), job.getId(), updateParams, options, token);
 
-            return;
+            return false;
         }
-        if (post.getStatus() == HttpStatus.SC_OK) {
+        boolean sent = post.getStatus() == HttpStatus.SC_OK;
+        if (sent) {
             jobInternal.getWebhook().getStatus().put(job.getInternal().getStatus().getName(), JobInternalWebhook.Status.SUCCESS);
         } else {
             jobInternal.getWebhook().getStatus().put(job.getInternal().getStatus().getName(), JobInternalWebhook.Status.ERROR);
@@ -1059,6 +1340,7 @@ public class ExecutionDaemon extends MonitorParentDaemon {
         }
 
         jobManager.update(job.getStudy().getId(), job.getId(), updateParams, options, token);
+        return sent;
     }
 
     private String getErrorLogFileName(Job job) {
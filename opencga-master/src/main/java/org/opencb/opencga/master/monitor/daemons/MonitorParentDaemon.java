@@ -39,7 +39,7 @@ public abstract class MonitorParentDaemon implements Runnable {
     protected DBAdaptorFactory dbAdaptorFactory;
     protected BatchExecutor batchExecutor;
 
-    protected boolean exit = false;
+    protected volatile boolean exit = false;
 
     protected String token;
 
@@ -17,6 +17,7 @@
 package org.opencb.opencga.master.monitor.executors;
 
 import java.nio.file.Path;
+import java.util.function.Consumer;
 
 /**
  * Created by pfurio on 22/08/16.
@@ -50,6 +51,17 @@ public interface BatchExecutor {
 
     boolean isExecutorAlive();
 
+    /**
+     * Register a listener to be notified with the job id every time the status of a job changes.
+     * Executors not able to detect status changes by themselves ignore the listener, so the status has to be polled.
+     *
+     * @param listener Listener receiving the job id
+     * @return true if the executor will notify the status changes
+     */
+    default boolean setStatusChangeListener(Consumer<String> listener) {
+        return false;
+    }
+
     default String getCommandLine(String commandLine) {
         return getCommandLine(commandLine, null, null);
     }
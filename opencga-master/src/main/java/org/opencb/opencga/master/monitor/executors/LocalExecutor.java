@@ -32,6 +32,7 @@ import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.function.Consumer;
 
 /**
  * Created by pfurio on 22/08/16.
@@ -45,6 +46,7 @@ public class LocalExecutor implements BatchExecutor {
     private final ExecutorService threadPool;
     private final Map<String, String> jobStatus;
     private final int maxConcurrentJobs;
+    private volatile Consumer<String> statusChangeListener;
 
     public LocalExecutor(Execution execution) {
         logger = LoggerFactory.getLogger(LocalExecutor.class);
@@ -65,7 +67,7 @@ public class LocalExecutor implements BatchExecutor {
             try {
                 Thread.currentThread().setName("LocalExecutor-" + nextThreadNum());
                 logger.info("Ready to run - {}", commandLine);
-                jobStatus.put(jobId, Enums.ExecutionStatus.RUNNING);
+                setStatus(jobId, Enums.ExecutionStatus.RUNNING);
                 Command com = new Command(commandLine);
 
                 DataOutputStream dataOutputStream = new DataOutputStream(new FileOutputStream(stdout.toFile()));
@@ -79,7 +81,7 @@ public class LocalExecutor implements BatchExecutor {
                     com.setStatus(RunnableProcess.Status.KILLED);
                     com.setExitValue(-2);
                     closeOutputStreams(com);
-                    jobStatus.put(jobId, Enums.ExecutionStatus.ERROR);
+                    setStatus(jobId, Enums.ExecutionStatus.ERROR);
                 });
 
                 logger.info("==========================================");
@@ -102,18 +104,30 @@ public class LocalExecutor implements BatchExecutor {
                 logger.info("==========================================");
 
                 if (com.getStatus().equals(RunnableProcess.Status.DONE)) {
-                    jobStatus.put(jobId, Enums.ExecutionStatus.DONE);
+                    setStatus(jobId, Enums.ExecutionStatus.DONE);
                 } else {
-                    jobStatus.put(jobId, Enums.ExecutionStatus.ERROR);
+                    setStatus(jobId, Enums.ExecutionStatus.ERROR);
                 }
             } catch (Throwable throwable) {
                 logger.error("Error running job " + jobId, throwable);
-                jobStatus.put(jobId, Enums.ExecutionStatus.ERROR);
+                setStatus(jobId, Enums.ExecutionStatus.ERROR);
             }
         };
         threadPool.submit(runnable);
     }
 
+    private void setStatus(String jobId, String status) {
+        jobStatus.put(jobId, status);
+        Consumer<String> listener = statusChangeListener;
+        if (listener != null) {
+            try {
+                listener.accept(jobId);
+            } catch (RuntimeException e) {
+                logger.warn("Error notifying status change of job {}", jobId, e);
+            }
+        }
+    }
+
     private static synchronized int nextThreadNum() {
         return threadInitNumber++;
     }
@@ -151,6 +165,12 @@ public class LocalExecutor implements BatchExecutor {
         return true;
     }
 
+    @Override
+    public boolean setStatusChangeListener(Consumer<String> listener) {
+        this.statusChangeListener = listener;
+        return true;
+    }
+
     private void closeOutputStreams(Command command) {
         /** Close output streams **/
         if (command.getOutputOutputStream() != null) {
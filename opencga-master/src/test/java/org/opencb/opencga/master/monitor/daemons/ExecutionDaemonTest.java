@@ -16,6 +16,8 @@
 
 package org.opencb.opencga.master.monitor.daemons;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.sun.net.httpserver.HttpServer;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -46,10 +48,13 @@ import org.opencb.opencga.core.tools.result.Status;
 import org.opencb.opencga.master.monitor.executors.BatchExecutor;
 import org.opencb.opencga.master.monitor.models.PrivateJobUpdateParams;
 
+import java.io.BufferedReader;
 import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.InetSocketAddress;
 import java.net.URI;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
@@ -144,6 +149,47 @@ public class ExecutionDaemonTest extends AbstractManagerTest {
         assertEquals(1, job.getInternal().getEvents().size());
         assertTrue(job.getInternal().getWebhook().getStatus().containsKey("QUEUED"));
         assertEquals(JobInternalWebhook.Status.ERROR, job.getInternal().getWebhook().getStatus().get("QUEUED"));
+        assertEquals(0L, daemon.getStats().getLong("webhooksSent"));
+        assertEquals(1L, daemon.getStats().getLong("webhooksFailed"));
+    }
+
+    @Test
+    public void testWebhookNotificationReceived() throws Exception {
+        List<String> received = Collections.synchronizedList(new ArrayList<>());
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/webhook", exchange -> {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8))) {
+                received.add(reader.lines().collect(Collectors.joining("\n")));
+            }
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        server.start();
+        try {
+            URL url = new URL("http://localhost:" + server.getAddress().getPort() + "/webhook");
+            catalogManager.getStudyManager().update(studyFqn, new StudyUpdateParams().setNotification(new StudyNotification(url)), null,
+                    token);
+
+            HashMap<String, Object> params = new HashMap<>();
+            String jobId = catalogManager.getJobManager().submit(studyFqn, "files-delete", Enums.Priority.MEDIUM, params, token)
+                    .first().getId();
+
+            daemon.checkPendingJobs();
+            long timeout = System.currentTimeMillis() + 10000;
+            while (daemon.getStats().getInt("webhooksBacklog") > 0 && System.currentTimeMillis() < timeout) {
+                Thread.sleep(10);
+            }
+
+            assertEquals(1, received.size());
+            JsonNode notifiedJob = JacksonUtils.getDefaultObjectMapper().readTree(received.get(0));
+            assertEquals(jobId, notifiedJob.get("id").asText());
+            assertEquals(Enums.ExecutionStatus.QUEUED, notifiedJob.get("internal").get("status").get("name").asText());
+            assertEquals(1L, daemon.getStats().getLong("webhooksSent"));
+            assertEquals(0L, daemon.getStats().getLong("webhooksFailed"));
+            assertEquals(JobInternalWebhook.Status.SUCCESS, getJob(jobId).getInternal().getWebhook().getStatus().get("QUEUED"));
+        } finally {
+            server.stop(0);
+        }
     }
 
     @Test
@@ -454,6 +500,30 @@ public class ExecutionDaemonTest extends AbstractManagerTest {
         assertEquals("Job could not finish successfully", getJob(jobId).getInternal().getStatus().getDescription());
     }
 
+    @Test
+    public void testMaxConcurrentJobs() throws Exception {
+        HashMap<String, Object> params = new HashMap<>();
+        String jobId1 = catalogManager.getJobManager().submit(studyFqn, "variant-index", Enums.Priority.MEDIUM, params, token)
+                .first().getId();
+        String jobId2 = catalogManager.getJobManager().submit(studyFqn, "variant-index", Enums.Priority.MEDIUM, params, token)
+                .first().getId();
+
+        daemon.checkJobs(false);
+
+        assertEquals(Enums.ExecutionStatus.QUEUED, getJob(jobId1).getInternal().getStatus().getName());
+        assertEquals(Enums.ExecutionStatus.PENDING, getJob(jobId2).getInternal().getStatus().getName());
+        createAnalysisResult(jobId1, "myTest", ar -> ar.setStatus(new Status(Status.Type.DONE, null, TimeUtils.getDate())));
+        executor.jobStatus.put(jobId1, Enums.ExecutionStatus.READY);
+
+        daemon.checkJobs(false);
+
+        // The finished job releases its slot in the same check, without reloading the counts from catalog
+        assertEquals(Enums.ExecutionStatus.DONE, getJob(jobId1).getInternal().getStatus().getName());
+        assertEquals(Enums.ExecutionStatus.QUEUED, getJob(jobId2).getInternal().getStatus().getName());
+        assertEquals(1L, daemon.getStats().getLong("finishedJobs"));
+        assertEquals(0, daemon.getStats().getInt("jobsBacklog"));
+    }
+
     @Test
     public void testRunJobFailMissingExecutionResult() throws Exception {
         HashMap<String, Object> params = new HashMap<>();
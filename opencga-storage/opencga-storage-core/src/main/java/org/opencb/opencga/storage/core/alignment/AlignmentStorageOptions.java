@@ -5,7 +5,11 @@ import org.opencb.opencga.storage.core.config.ConfigurationOption;
 
 public enum AlignmentStorageOptions implements ConfigurationOption {
 
-    BIG_WIG_WINDOWS_SIZE("bigWigWindowsSize", BamManager.DEFAULT_WINDOW_SIZE);
+    BIG_WIG_WINDOWS_SIZE("bigWigWindowsSize", BamManager.DEFAULT_WINDOW_SIZE),
+    COVERAGE_CACHE_MAX_SIZE("coverage.cache.maxSize", 256L * 1024 * 1024),
+    READERS_POOL_MAX_OPEN("readers.pool.maxOpen", 64),
+    READERS_POOL_MAX_INDEX_SIZE("readers.pool.maxIndexSize", 512L * 1024 * 1024),
+    READERS_POOL_IDLE_TIMEOUT("readers.pool.idleTimeout", 300);
 
     private final String key;
     private final Object value;
@@ -25,14 +25,30 @@ import org.opencb.biodata.tools.alignment.iterators.BamIterator;
 public class ProtoAlignmentIterator extends AlignmentIterator<Reads.ReadAlignment> {
 
     private BamIterator<Reads.ReadAlignment> protoIterator;
+    private AutoCloseable reader;
 
     public ProtoAlignmentIterator(BamIterator<Reads.ReadAlignment> protoIterator) {
+        this(protoIterator, null);
+    }
+
+    /**
+     * @param protoIterator Alignment iterator
+     * @param reader Reader used by the iterator, closed after the iterator
+     */
+    public ProtoAlignmentIterator(BamIterator<Reads.ReadAlignment> protoIterator, AutoCloseable reader) {
         this.protoIterator = protoIterator;
+        this.reader = reader;
     }
 
     @Override
     public void close() throws Exception {
-        protoIterator.close();
+        try {
+            protoIterator.close();
+        } finally {
+            if (reader != null) {
+                reader.close();
+            }
+        }
     }
 
     @Override
@@ -25,14 +25,30 @@ import org.opencb.biodata.tools.alignment.iterators.BamIterator;
 public class SamRecordAlignmentIterator extends AlignmentIterator<SAMRecord> {
 
     private BamIterator<SAMRecord> bamIterator;
+    private AutoCloseable reader;
 
     public SamRecordAlignmentIterator(BamIterator<SAMRecord> bamIterator) {
+        this(bamIterator, null);
+    }
+
+    /**
+     * @param bamIterator Alignment iterator
+     * @param reader Reader used by the iterator, closed after the iterator
+     */
+    public SamRecordAlignmentIterator(BamIterator<SAMRecord> bamIterator, AutoCloseable reader) {
         this.bamIterator = bamIterator;
+        this.reader = reader;
     }
 
     @Override
     public void close() throws Exception {
-        bamIterator.close();
+        try {
+            bamIterator.close();
+        } finally {
+            if (reader != null) {
+                reader.close();
+            }
+        }
     }
 
     @Override
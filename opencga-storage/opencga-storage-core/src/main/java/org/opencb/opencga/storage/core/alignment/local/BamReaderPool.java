@@ -0,0 +1,360 @@
+/*
+ * Copyright 2015-2020 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencb.opencga.storage.core.alignment.local;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.commons.io.FilenameUtils;
+import org.opencb.biodata.tools.alignment.BamManager;
+import org.opencb.commons.datastore.core.ObjectMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pool of opened BAM/CRAM readers, indexed by file path.
+ *
+ * Readers are borrowed exclusively, as they can not run two queries at the same time, and returned to the pool when released.
+ * The pool keeps up to a maximum number of opened readers, and a maximum size of the index files loaded by the idle readers.
+ * Idle readers are closed after a timeout, checked periodically in background, and readers of files modified on disk are discarded.
+ * If the pool is full and all the readers are in use, a new reader is opened and closed when released.
+ */
+public class BamReaderPool implements AutoCloseable {
+
+    private static final long MAX_EVICTION_INTERVAL_MS = TimeUnit.MINUTES.toMillis(1);
+    // Closes the expired idle readers of all the pools
+    private static final ScheduledExecutorService EVICTION_EXECUTOR = Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder()
+                    .setNameFormat("bam-reader-pool-eviction-%d")
+                    .setDaemon(true)
+                    .build());
+
+    private final int maxOpen;
+    private final long maxIndexSize;
+    private final long idleTimeoutMs;
+    private final ReaderFactory readerFactory;
+    private final ScheduledFuture<?> evictionTask;
+
+    // Idle readers. Least recently used first
+    private final LinkedList<PooledReader> idle = new LinkedList<>();
+    private long idleIndexSize = 0;
+    private int open = 0;
+    private boolean closed = false;
+
+    private final AtomicLong opened = new AtomicLong();
+    private final AtomicLong reused = new AtomicLong();
+    private final AtomicLong evicted = new AtomicLong();
+    private final AtomicLong invalidated = new AtomicLong();
+    private final AtomicLong notPooled = new AtomicLong();
+
+    private static Logger logger = LoggerFactory.getLogger(BamReaderPool.class);
+
+    @FunctionalInterface
+    public interface ReaderFactory {
+        BamManager open(Path path) throws IOException;
+    }
+
+    /**
+     * @param maxOpen        Maximum number of opened readers kept by the pool
+     * @param maxIndexSize   Maximum size in bytes of the index files of the idle readers
+     * @param idleTimeoutMs  Time in milliseconds after which an idle reader is closed
+     */
+    public BamReaderPool(int maxOpen, long maxIndexSize, long idleTimeoutMs) {
+        this(maxOpen, maxIndexSize, idleTimeoutMs, BamManager::new);
+    }
+
+    public BamReaderPool(int maxOpen, long maxIndexSize, long idleTimeoutMs, ReaderFactory readerFactory) {
+        this.maxOpen = Math.max(0, maxOpen);
+        this.maxIndexSize = maxIndexSize;
+        this.idleTimeoutMs = idleTimeoutMs;
+        this.readerFactory = readerFactory;
+        if (this.maxOpen > 0 && idleTimeoutMs > 0) {
+            long interval = Math.min(idleTimeoutMs, MAX_EVICTION_INTERVAL_MS);
+            this.evictionTask = EVICTION_EXECUTOR.scheduleWithFixedDelay(this::evictExpired, interval, interval, TimeUnit.MILLISECONDS);
+        } else {
+            this.evictionTask = null;
+        }
+    }
+
+    /**
+     * Borrow a reader for the given file. The reader must be closed after use to return it to the pool.
+     *
+     * @param path BAM or CRAM file
+     * @return A reader for exclusive use
+     * @throws IOException if the file could not be opened
+     */
+    public PooledReader borrow(Path path) throws IOException {
+        Path absolutePath = path.toAbsolutePath();
+        FileSignature signature = new FileSignature(absolutePath);
+        List<PooledReader> toClose = new ArrayList<>();
+        PooledReader reader = null;
+        boolean pooled;
+        synchronized (this) {
+            removeExpired(toClose);
+            // Most recently used first. Other valid readers of the same file are kept for concurrent queries
+            Iterator<PooledReader> iterator = idle.descendingIterator();
+            while (reader == null && iterator.hasNext()) {
+                PooledReader idleReader = iterator.next();
+                if (idleReader.path.equals(absolutePath)) {
+                    iterator.remove();
+                    idleIndexSize -= idleReader.signature.indexSize;
+                    if (idleReader.signature.equals(signature)) {
+                        reader = idleReader;
+                    } else {
+                        // File changed on disk
+                        open--;
+                        invalidated.incrementAndGet();
+                        toClose.add(idleReader);
+                    }
+                }
+            }
+            if (reader == null) {
+                while (open >= maxOpen && !idle.isEmpty()) {
+                    PooledReader evictedReader = idle.removeFirst();
+                    idleIndexSize -= evictedReader.signature.indexSize;
+                    open--;
+                    evicted.incrementAndGet();
+                    toClose.add(evictedReader);
+                }
+                pooled = !closed && open < maxOpen;
+                if (pooled) {
+                    open++;
+                }
+            } else {
+                pooled = true;
+            }
+        }
+        closeAll(toClose);
+
+        if (reader != null) {
+            reused.incrementAndGet();
+            reader.borrowed();
+            return reader;
+        }
+
+        BamManager bamManager;
+        try {
+            bamManager = readerFactory.open(absolutePath);
+        } catch (IOException | RuntimeException e) {
+            if (pooled) {
+                synchronized (this) {
+                    open--;
+                }
+            }
+            throw e;
+        }
+        opened.incrementAndGet();
+        if (!pooled) {
+            notPooled.incrementAndGet();
+        }
+        reader = new PooledReader(absolutePath, signature, bamManager, pooled);
+        reader.borrowed();
+        return reader;
+    }
+
+    private void release(PooledReader reader) {
+        boolean keep = reader.pooled && reader.signature.equals(new FileSignature(reader.path));
+        List<PooledReader> toClose = new ArrayList<>();
+        synchronized (this) {
+            if (keep && !closed) {
+                reader.lastUsed = System.currentTimeMillis();
+                idle.addLast(reader);
+                idleIndexSize += reader.signature.indexSize;
+                while (idleIndexSize > maxIndexSize && !idle.isEmpty()) {
+                    PooledReader evictedReader = idle.removeFirst();
+                    idleIndexSize -= evictedReader.signature.indexSize;
+                    open--;
+                    evicted.incrementAndGet();
+                    toClose.add(evictedReader);
+                }
+            } else {
+                if (reader.pooled) {
+                    open--;
+                    if (!keep) {
+                        invalidated.incrementAndGet();
+                    }
+                }
+                toClose.add(reader);
+            }
+        }
+        closeAll(toClose);
+    }
+
+    /**
+     * Close the idle readers not used for longer than the idle timeout.
+     */
+    void evictExpired() {
+        List<PooledReader> toClose = new ArrayList<>();
+        synchronized (this) {
+            removeExpired(toClose);
+        }
+        closeAll(toClose);
+    }
+
+    private void removeExpired(List<PooledReader> toClose) {
+        long limit = System.currentTimeMillis() - idleTimeoutMs;
+        while (!idle.isEmpty() && idle.getFirst().lastUsed < limit) {
+            PooledReader expired = idle.removeFirst();
+            idleIndexSize -= expired.signature.indexSize;
+            open--;
+            evicted.incrementAndGet();
+            toClose.add(expired);
+        }
+    }
+
+    private static void closeAll(List<PooledReader> readers) {
+        for (PooledReader reader : readers) {
+            try {
+                reader.bamManager.close();
+            } catch (IOException | RuntimeException e) {
+                logger.warn("Error closing BAM reader for file {}", reader.path, e);
+            }
+        }
+    }
+
+    /**
+     * Close all the idle readers. Readers in use are closed when released.
+     */
+    @Override
+    public void close() {
+        if (evictionTask != null) {
+            evictionTask.cancel(false);
+        }
+        List<PooledReader> toClose;
+        synchronized (this) {
+            closed = true;
+            toClose = new ArrayList<>(idle);
+            open -= idle.size();
+            idle.clear();
+            idleIndexSize = 0;
+        }
+        closeAll(toClose);
+    }
+
+    /**
+     * Summary of the pool usage. Each reused reader is a BAM file and index that did not need to be opened again.
+     *
+     * @return ObjectMap with the pool stats
+     */
+    public ObjectMap getStats() {
+        synchronized (this) {
+            return new ObjectMap()
+                    .append("open", open)
+                    .append("idle", idle.size())
+                    .append("idleIndexSize", idleIndexSize)
+                    .append("opened", opened.get())
+                    .append("reused", reused.get())
+                    .append("evicted", evicted.get())
+                    .append("invalidated", invalidated.get())
+                    .append("notPooled", notPooled.get());
+        }
+    }
+
+    /**
+     * Reader borrowed from the pool. Closing it returns the reader to the pool.
+     */
+    public final class PooledReader implements AutoCloseable {
+        private final Path path;
+        private final FileSignature signature;
+        private final BamManager bamManager;
+        private final boolean pooled;
+        private final AtomicBoolean inUse = new AtomicBoolean();
+        private long lastUsed;
+
+        private PooledReader(Path path, FileSignature signature, BamManager bamManager, boolean pooled) {
+            this.path = path;
+            this.signature = signature;
+            this.bamManager = bamManager;
+            this.pooled = pooled;
+        }
+
+        private void borrowed() {
+            inUse.set(true);
+        }
+
+        public BamManager getBamManager() {
+            return bamManager;
+        }
+
+        @Override
+        public void close() {
+            // Release only once
+            if (inUse.compareAndSet(true, false)) {
+                release(this);
+            }
+        }
+    }
+
+    /**
+     * Last modification time and size of a file and its index, to detect changes on disk.
+     */
+    private static final class FileSignature {
+        private final long lastModified;
+        private final long length;
+        private final long indexLastModified;
+        private final long indexSize;
+
+        private FileSignature(Path path) {
+            File file = path.toFile();
+            File index = getIndexFile(file);
+            this.lastModified = file.lastModified();
+            this.length = file.length();
+            this.indexLastModified = index == null ? 0 : index.lastModified();
+            this.indexSize = index == null ? 0 : index.length();
+        }
+
+        private static File getIndexFile(File file) {
+            String path = file.getPath();
+            for (String indexPath : Arrays.asList(path + ".bai", FilenameUtils.removeExtension(path) + ".bai", path + ".crai")) {
+                File index = new File(indexPath);
+                if (index.exists()) {
+                    return index;
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            FileSignature that = (FileSignature) o;
+            return lastModified == that.lastModified
+                    && length == that.length
+                    && indexLastModified == that.indexLastModified
+                    && indexSize == that.indexSize;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(lastModified, length, indexLastModified, indexSize);
+        }
+    }
+}
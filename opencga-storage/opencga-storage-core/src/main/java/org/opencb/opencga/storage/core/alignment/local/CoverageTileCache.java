@@ -0,0 +1,289 @@
+/*
+ * Copyright 2015-2020 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencb.opencga.storage.core.alignment.local;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import org.opencb.biodata.models.alignment.RegionCoverage;
+import org.opencb.biodata.models.alignment.RegionCoverageStats;
+import org.opencb.biodata.models.core.Region;
+import org.opencb.commons.datastore.core.ObjectMap;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Multi-resolution cache of coverage values.
+ *
+ * The coverage of each file is split in tiles of {@link #TILE_WINDOWS} windows, pre-aggregated at several window sizes (levels).
+ * Queries are answered from the closest level with a window size not bigger than the requested one, merging the windows of the
+ * level into the requested window size. Missing tiles are loaded from the coverage source, and kept off-heap.
+ *
+ * A tile at the coarsest level spans {@code 100000 * TILE_WINDOWS} bases, so it must only be used with sources that read
+ * pre-computed coverage, like BigWig files. Tiles are clamped to the chromosome length, when known. Otherwise, tiles are only loaded
+ * up to the end of the query, and loaded again if a later query goes further.
+ *
+ * Values are stored as floats, to keep twice as many tiles in the same memory. This keeps about 7 significant digits of the mean
+ * coverage of each window, which is below the precision of any coverage depth.
+ */
+public class CoverageTileCache {
+
+    public static final int[] LEVELS = {1, 10, 100, 1000, 10000, 100000};
+    public static final int TILE_WINDOWS = 10000;
+    private static final int TILE_BYTES = TILE_WINDOWS * Float.BYTES;
+
+    private final Cache<TileKey, Tile> cache;
+    private final boolean active;
+
+    @FunctionalInterface
+    public interface CoverageLoader {
+        RegionCoverage load(Region region, int windowSize) throws Exception;
+
+        /**
+         * @param chromosome Chromosome
+         * @return           Length of the chromosome, or {@link Integer#MAX_VALUE} if unknown
+         * @throws Exception if the length could not be read
+         */
+        default int getChromosomeLength(String chromosome) throws Exception {
+            return Integer.MAX_VALUE;
+        }
+    }
+
+    /**
+     * @param maxSize Maximum size of the cached tiles, in bytes. Use 0 to disable the cache
+     */
+    public CoverageTileCache(long maxSize) {
+        this.active = maxSize >= TILE_BYTES;
+        this.cache = CacheBuilder.newBuilder()
+                .maximumWeight(Math.max(0, maxSize))
+                .weigher((TileKey key, Tile tile) -> TILE_BYTES)
+                .recordStats()
+                .build();
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    /**
+     * Get the coverage of a region, using the cached tiles.
+     *
+     * @param source     Identifier of the coverage source. Must change if the file is modified
+     * @param region     Region
+     * @param windowSize Window size
+     * @param loader     Coverage loader, used to load the missing tiles
+     * @return           Region coverage, with the mean coverage of each window
+     * @throws Exception if the missing tiles could not be loaded
+     */
+    public RegionCoverage coverage(String source, Region region, int windowSize, CoverageLoader loader) throws Exception {
+        int start = Math.max(1, region.getStart());
+        int end = region.getEnd();
+        int window = Math.max(1, windowSize);
+        int level = getLevel(window);
+        long tileSpan = (long) level * TILE_WINDOWS;
+
+        int numWindows = (int) Math.max(0, (end - start + (long) window) / window);
+        double[] values = new double[numWindows];
+
+        long lastTileIdx = numWindows == 0 ? -1 : (end - 1) / tileSpan;
+        for (long tileIdx = (start - 1) / tileSpan; tileIdx <= lastTileIdx; tileIdx++) {
+            FloatBuffer tile = getTile(source, region.getChromosome(), level, tileIdx, end, loader);
+            long tileStart = tileIdx * tileSpan + 1;
+            int from = (int) (Math.max(0, start - tileStart) / level);
+            int to = (int) Math.min(TILE_WINDOWS - 1, (end - tileStart) / level);
+            for (int i = from; i <= to; i++) {
+                float value = tile.get(i);
+                if (value == 0) {
+                    continue;
+                }
+                // Split the level window among the overlapping query windows
+                long levelWindowStart = tileStart + (long) i * level;
+                long pos = Math.max(levelWindowStart, start);
+                long posEnd = Math.min(levelWindowStart + level - 1, end);
+                while (pos <= posEnd) {
+                    int q = (int) ((pos - start) / window);
+                    long segmentEnd = Math.min(posEnd, start + (long) (q + 1) * window - 1);
+                    values[q] += value * (segmentEnd - pos + 1);
+                    pos = segmentEnd + 1;
+                }
+            }
+        }
+
+        double min = Double.MAX_VALUE;
+        double max = 0;
+        double sum = 0;
+        for (int q = 0; q < values.length; q++) {
+            long windowStart = start + (long) q * window;
+            long windowEnd = Math.min(end, windowStart + window - 1);
+            values[q] /= windowEnd - windowStart + 1;
+            min = Math.min(min, values[q]);
+            max = Math.max(max, values[q]);
+            sum += values[q];
+        }
+
+        RegionCoverage regionCoverage = new RegionCoverage();
+        regionCoverage.setChromosome(region.getChromosome());
+        regionCoverage.setStart(start);
+        regionCoverage.setEnd(end);
+        regionCoverage.setWindowSize(window);
+        regionCoverage.setValues(values);
+        if (values.length > 0) {
+            regionCoverage.setStats(new RegionCoverageStats((int) Math.round(min), (int) Math.round(max), sum / values.length));
+        }
+        return regionCoverage;
+    }
+
+    /**
+     * Get the closest level for the given window size. This is, the biggest level not bigger than the window size.
+     *
+     * @param windowSize Window size
+     * @return Level window size
+     */
+    public static int getLevel(int windowSize) {
+        int level = LEVELS[0];
+        for (int l : LEVELS) {
+            if (l <= windowSize) {
+                level = l;
+            }
+        }
+        return level;
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * Summary of the cache usage. Each hit is a tile that did not need to be read from the BAM or BigWig file.
+     *
+     * @return ObjectMap with the cache stats
+     */
+    public ObjectMap getStats() {
+        CacheStats stats = cache.stats();
+        return new ObjectMap()
+                .append("active", active)
+                .append("tiles", cache.size())
+                .append("sizeBytes", cache.size() * TILE_BYTES)
+                .append("tileHits", stats.hitCount())
+                .append("tileLoads", stats.loadCount())
+                .append("hitRate", stats.hitRate())
+                .append("avgLoadTimeMs", stats.averageLoadPenalty() / 1000000)
+                .append("evictionCount", stats.evictionCount());
+    }
+
+    private FloatBuffer getTile(String source, String chromosome, int level, long tileIdx, int end, CoverageLoader loader)
+            throws Exception {
+        long tileSpan = (long) level * TILE_WINDOWS;
+        long tileStart = tileIdx * tileSpan + 1;
+        long tileEnd = tileStart + tileSpan - 1;
+        TileKey key = new TileKey(source, chromosome, level, tileIdx);
+        Callable<Tile> tileLoader = () -> loadTile(chromosome, level, tileStart, tileEnd, end, loader);
+        try {
+            Tile tile = cache.get(key, tileLoader);
+            if (tile.end < Math.min(tileEnd, end)) {
+                // Tile loaded up to the end of a shorter query, from a chromosome of unknown length
+                cache.invalidate(key);
+                tile = cache.get(key, tileLoader);
+            }
+            return tile.values;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            } else {
+                throw e;
+            }
+        }
+    }
+
+    private static Tile loadTile(String chromosome, int level, long tileStart, long tileEnd, int end, CoverageLoader loader)
+            throws Exception {
+        int chromosomeLength = loader.getChromosomeLength(chromosome);
+        long loadEnd;
+        long validEnd;
+        if (chromosomeLength == Integer.MAX_VALUE) {
+            // Unknown chromosome length. Do not read beyond the end of the query
+            loadEnd = Math.min(tileEnd, end);
+            validEnd = loadEnd;
+        } else {
+            loadEnd = Math.min(chromosomeLength, tileEnd);
+            validEnd = tileEnd;
+        }
+
+        FloatBuffer tile = ByteBuffer.allocateDirect(TILE_BYTES).order(ByteOrder.nativeOrder()).asFloatBuffer();
+        if (tileStart <= loadEnd) {
+            RegionCoverage coverage = loader.load(new Region(chromosome, (int) tileStart, (int) loadEnd), level);
+            if (coverage != null && coverage.getValues() != null) {
+                double[] values = coverage.getValues();
+                for (int i = 0; i < values.length && i < TILE_WINDOWS; i++) {
+                    tile.put(i, (float) values[i]);
+                }
+            }
+        }
+        return new Tile(tile.asReadOnlyBuffer(), validEnd);
+    }
+
+    private static final class Tile {
+        private final FloatBuffer values;
+        private final long end;
+
+        private Tile(FloatBuffer values, long end) {
+            this.values = values;
+            this.end = end;
+        }
+    }
+
+    private static final class TileKey {
+        private final String source;
+        private final String chromosome;
+        private final int level;
+        private final long tileIdx;
+        private final int hashCode;
+
+        private TileKey(String source, String chromosome, int level, long tileIdx) {
+            this.source = source;
+            this.chromosome = chromosome;
+            this.level = level;
+            this.tileIdx = tileIdx;
+            this.hashCode = Objects.hash(source, chromosome, level, tileIdx);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            TileKey tileKey = (TileKey) o;
+            return level == tileKey.level
+                    && tileIdx == tileKey.tileIdx
+                    && Objects.equals(source, tileKey.source)
+                    && Objects.equals(chromosome, tileKey.chromosome);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
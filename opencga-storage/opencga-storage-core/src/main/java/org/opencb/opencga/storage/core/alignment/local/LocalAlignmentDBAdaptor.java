@@ -18,6 +18,7 @@ package org.opencb.opencga.storage.core.alignment.local;
 
 import ga4gh.Reads;
 import htsjdk.samtools.SAMRecord;
+import htsjdk.samtools.SAMSequenceRecord;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.time.StopWatch;
 import org.ga4gh.models.ReadAlignment;
@@ -31,16 +32,21 @@ import org.opencb.biodata.tools.alignment.filters.AlignmentFilters;
 import org.opencb.biodata.tools.alignment.filters.SamRecordFilters;
 import org.opencb.biodata.tools.feature.BigWigManager;
 import org.opencb.biodata.tools.feature.WigUtils;
+import org.opencb.commons.datastore.core.ObjectMap;
 import org.opencb.commons.datastore.core.Query;
 import org.opencb.commons.datastore.core.QueryOptions;
 import org.opencb.commons.utils.FileUtils;
 import org.opencb.opencga.core.exceptions.ToolException;
 import org.opencb.opencga.core.response.OpenCGAResult;
 import org.opencb.opencga.storage.core.alignment.AlignmentDBAdaptor;
+import org.opencb.opencga.storage.core.alignment.AlignmentStorageOptions;
 import org.opencb.opencga.storage.core.alignment.iterators.AlignmentIterator;
 import org.opencb.opencga.storage.core.alignment.iterators.ProtoAlignmentIterator;
 import org.opencb.opencga.storage.core.alignment.iterators.SamRecordAlignmentIterator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
 import java.nio.charset.Charset;
@@ -50,15 +56,18 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import static org.opencb.opencga.core.api.ParamConstants.*;
 
 /**
  * Created by pfurio on 26/10/16.
  */
-public class LocalAlignmentDBAdaptor implements AlignmentDBAdaptor {
+public class LocalAlignmentDBAdaptor implements AlignmentDBAdaptor, AutoCloseable {
 
     private int chunkSize;
+    private final CoverageTileCache coverageCache;
+    private final BamReaderPool readerPool;
 
     private static final int MINOR_CHUNK_SIZE = 1000;
     private static final int DEFAULT_CHUNK_SIZE = 1000;
@@ -67,13 +76,32 @@ public class LocalAlignmentDBAdaptor implements AlignmentDBAdaptor {
     private static final String COVERAGE_SUFFIX = ".coverage";
     private static final String COVERAGE_DATABASE_NAME = "coverage.db";
 
+    private static Logger logger = LoggerFactory.getLogger(LocalAlignmentDBAdaptor.class);
+
 
     public LocalAlignmentDBAdaptor() {
         this(DEFAULT_CHUNK_SIZE);
     }
 
     public LocalAlignmentDBAdaptor(int chunkSize) {
+        this(chunkSize, new ObjectMap());
+    }
+
+    public LocalAlignmentDBAdaptor(ObjectMap options) {
+        this(DEFAULT_CHUNK_SIZE, options);
+    }
+
+    private LocalAlignmentDBAdaptor(int chunkSize, ObjectMap options) {
         this.chunkSize = chunkSize;
+        this.coverageCache = new CoverageTileCache(getLong(options, AlignmentStorageOptions.COVERAGE_CACHE_MAX_SIZE));
+        this.readerPool = new BamReaderPool(
+                (int) getLong(options, AlignmentStorageOptions.READERS_POOL_MAX_OPEN),
+                getLong(options, AlignmentStorageOptions.READERS_POOL_MAX_INDEX_SIZE),
+                TimeUnit.SECONDS.toMillis(getLong(options, AlignmentStorageOptions.READERS_POOL_IDLE_TIMEOUT)));
+    }
+
+    private static long getLong(ObjectMap options, AlignmentStorageOptions option) {
+        return options.getLong(option.key(), option.<Number>defaultValue().longValue());
     }
 
 
@@ -84,19 +112,20 @@ public class LocalAlignmentDBAdaptor implements AlignmentDBAdaptor {
 
             StopWatch watch = StopWatch.createStarted();
 
-            BamManager bamManager = new BamManager(path);
             Region region = parseRegion(query);
             AlignmentFilters<SAMRecord> alignmentFilters = parseQuery(query);
             AlignmentOptions alignmentOptions = parseQueryOptions(options);
 
             List<ReadAlignment> readAlignmentList;
-            if (region != null) {
-                readAlignmentList = bamManager.query(region, alignmentFilters, alignmentOptions, ReadAlignment.class);
-            } else {
-                readAlignmentList = bamManager.query(alignmentFilters, alignmentOptions, ReadAlignment.class);
+            try (BamReaderPool.PooledReader reader = readerPool.borrow(path)) {
+                BamManager bamManager = reader.getBamManager();
+                if (region != null) {
+                    readAlignmentList = bamManager.query(region, alignmentFilters, alignmentOptions, ReadAlignment.class);
+                } else {
+                    readAlignmentList = bamManager.query(alignmentFilters, alignmentOptions, ReadAlignment.class);
+                }
             }
 
-            bamManager.close();
             watch.stop();
             return new OpenCGAResult<>(((int) watch.getTime()), Collections.emptyList(), readAlignmentList.size(), readAlignmentList,
                     readAlignmentList.size());
@@ -118,34 +147,40 @@ public class LocalAlignmentDBAdaptor implements AlignmentDBAdaptor {
 
     @Override
     public <T> AlignmentIterator<T> iterator(Path path, Query query, QueryOptions options, Class<T> clazz) {
+        BamReaderPool.PooledReader reader = null;
         try {
             FileUtils.checkFile(path);
 
-            BamManager bamManager = new BamManager(path);
             Region region = parseRegion(query);
             AlignmentFilters<SAMRecord> alignmentFilters = parseQuery(query);
             AlignmentOptions alignmentOptions = parseQueryOptions(options);
 
+            // The reader is returned to the pool when the iterator is closed
+            reader = readerPool.borrow(path);
+            BamManager bamManager = reader.getBamManager();
             if (region != null) {
                 if (Reads.ReadAlignment.class == clazz) {
                     return (AlignmentIterator<T>) new ProtoAlignmentIterator(bamManager.iterator(region,
-                            alignmentFilters, alignmentOptions, Reads.ReadAlignment.class));
+                            alignmentFilters, alignmentOptions, Reads.ReadAlignment.class), reader);
                 } else if (SAMRecord.class == clazz) {
                     return (AlignmentIterator<T>) new SamRecordAlignmentIterator(bamManager.iterator(region,
-                            alignmentFilters, alignmentOptions, SAMRecord.class));
+                            alignmentFilters, alignmentOptions, SAMRecord.class), reader);
                 }
             } else {
                 if (Reads.ReadAlignment.class == clazz) {
                     return (AlignmentIterator<T>) new ProtoAlignmentIterator(bamManager.iterator(alignmentFilters,
-                            alignmentOptions, Reads.ReadAlignment.class));
+                            alignmentOptions, Reads.ReadAlignment.class), reader);
                 } else if (SAMRecord.class == clazz) {
                     return (AlignmentIterator<T>) new SamRecordAlignmentIterator(bamManager.iterator(alignmentFilters,
-                            alignmentOptions, SAMRecord.class));
+                            alignmentOptions, SAMRecord.class), reader);
                 }
             }
         } catch (Exception e) {
             e.printStackTrace();
         }
+        if (reader != null) {
+            reader.close();
+        }
         return null;
     }
 
@@ -157,18 +192,12 @@ public class LocalAlignmentDBAdaptor implements AlignmentDBAdaptor {
         StopWatch watch = StopWatch.createStarted();
 
         RegionCoverage regionCoverage;
-        if (path.toString().endsWith("bw") || path.toString().endsWith("bigwig")) {
-            regionCoverage = BamUtils.getCoverageFromBigWig(region, windowSize, path);
-//            System.out.println("BW region coverage:\t" + regionCoverage.toString());
-        } else {
-            File bwFile = new File(path.toAbsolutePath() + ".bw");
-            if (bwFile.exists()) {
-                regionCoverage = BamUtils.getCoverageFromBigWig(region, windowSize, bwFile.toPath());
+        try (CoverageSource coverageSource = new CoverageSource(path, readerPool)) {
+            // Tiles span up to whole chromosomes, so only pre-computed BigWig coverage is cached. BAM files are read as requested
+            if (coverageCache.isActive() && coverageSource.isBigWig()) {
+                regionCoverage = coverageCache.coverage(coverageSource.getId(), region, windowSize, coverageSource);
             } else {
-                BamManager bamManager = new BamManager(path);
-                regionCoverage = bamManager.coverage(region, windowSize);
-                bamManager.close();
-//            System.out.println("BAM region coverage:\t" + regionCoverage.toString());
+                regionCoverage = coverageSource.load(region, windowSize);
             }
         }
 
@@ -194,6 +223,23 @@ public class LocalAlignmentDBAdaptor implements AlignmentDBAdaptor {
     }
 
 
+    public ObjectMap getCoverageCacheStats() {
+        return coverageCache.getStats();
+    }
+
+    /**
+     * Close the pooled BAM readers and drop the cached coverage.
+     */
+    @Override
+    public void close() {
+        readerPool.close();
+        coverageCache.invalidateAll();
+    }
+
+    public ObjectMap getReaderPoolStats() {
+        return readerPool.getStats();
+    }
+
     @Override
     public OpenCGAResult<Long> getTotalCounts(Path path) throws AlignmentCoverageException, IOException {
         FileUtils.checkFile(path);
@@ -218,10 +264,21 @@ public class LocalAlignmentDBAdaptor implements AlignmentDBAdaptor {
         StopWatch watch = StopWatch.createStarted();
 
         ProtoAlignmentIterator iterator = iterator(path, query, options);
+        if (iterator == null) {
+            throw new IllegalStateException("Unable to read alignments from file " + path);
+        }
         long count = 0;
-        while (iterator.hasNext()) {
-            iterator.next();
-            count++;
+        try {
+            while (iterator.hasNext()) {
+                iterator.next();
+                count++;
+            }
+        } finally {
+            try {
+                iterator.close();
+            } catch (Exception e) {
+                logger.warn("Error closing alignment iterator for file {}", path, e);
+            }
         }
 
         watch.stop();
@@ -257,6 +314,75 @@ public class LocalAlignmentDBAdaptor implements AlignmentDBAdaptor {
     // PRIVATE METHODS
     //-------------------------------------------------------------------------
 
+    /**
+     * Reads the coverage from the BigWig file, if any, or from the BAM file. The BAM reader is borrowed only once, and only if needed.
+     */
+    private static final class CoverageSource implements CoverageTileCache.CoverageLoader, Closeable {
+        private final Path path;
+        // BAM file, if any. Used to read the chromosome lengths
+        private final Path bamPath;
+        private final boolean bigWig;
+        private final BamReaderPool readerPool;
+        private BamReaderPool.PooledReader reader;
+
+        private CoverageSource(Path path, BamReaderPool readerPool) {
+            this.readerPool = readerPool;
+            if (path.toString().endsWith("bw") || path.toString().endsWith("bigwig")) {
+                this.path = path;
+                this.bamPath = null;
+                this.bigWig = true;
+            } else {
+                File bwFile = new File(path.toAbsolutePath() + ".bw");
+                this.bigWig = bwFile.exists();
+                this.path = bigWig ? bwFile.toPath() : path;
+                this.bamPath = path;
+            }
+        }
+
+        private boolean isBigWig() {
+            return bigWig;
+        }
+
+        /**
+         * @return Identifier of the coverage source, including the last modification time to skip outdated cached values.
+         */
+        private String getId() {
+            return path.toAbsolutePath() + ":" + path.toFile().lastModified();
+        }
+
+        @Override
+        public RegionCoverage load(Region region, int windowSize) throws Exception {
+            if (bigWig) {
+                return BamUtils.getCoverageFromBigWig(region, windowSize, path);
+            } else {
+                return getReader().getBamManager().coverage(region, windowSize);
+            }
+        }
+
+        @Override
+        public int getChromosomeLength(String chromosome) throws Exception {
+            if (bamPath == null) {
+                return Integer.MAX_VALUE;
+            }
+            SAMSequenceRecord sequence = getReader().getBamManager().getHeader().getSequence(chromosome);
+            return sequence == null ? Integer.MAX_VALUE : sequence.getSequenceLength();
+        }
+
+        private BamReaderPool.PooledReader getReader() throws IOException {
+            if (reader == null) {
+                reader = readerPool.borrow(bamPath);
+            }
+            return reader;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (reader != null) {
+                reader.close();
+            }
+        }
+    }
+
     private Region parseRegion(Query query) {
         Region region = null;
         if (query != null) {
@@ -31,27 +31,39 @@ public class LocalAlignmentStorageEngine extends AlignmentStorageEngine {
 
     public LocalAlignmentStorageEngine() {
         super();
-        this.dbAdaptor = new LocalAlignmentDBAdaptor();
     }
 
     @Override
-    public AlignmentDBAdaptor getDBAdaptor() throws StorageEngineException {
+    public synchronized AlignmentDBAdaptor getDBAdaptor() throws StorageEngineException {
+        if (dbAdaptor == null) {
+            dbAdaptor = new LocalAlignmentDBAdaptor(getAlignmentOptions());
+        }
         return dbAdaptor;
     }
 
+    @Override
+    public synchronized void close() throws Exception {
+        if (dbAdaptor instanceof LocalAlignmentDBAdaptor) {
+            ((LocalAlignmentDBAdaptor) dbAdaptor).close();
+        }
+        dbAdaptor = null;
+    }
+
     @Override
     public void testConnection() throws StorageEngineException {
     }
 
     @Override
     public StoragePipeline newStoragePipeline(boolean connected) throws StorageEngineException {
-        ObjectMap alignment;
+        return new LocalAlignmentStoragePipeline(getAlignmentOptions());
+    }
+
+    private ObjectMap getAlignmentOptions() {
         if (getConfiguration() == null || getConfiguration().getAlignment() == null) {
-            alignment = new ObjectMap();
+            return new ObjectMap();
         } else {
-            alignment = getConfiguration().getAlignment();
+            return getConfiguration().getAlignment();
         }
-        return new LocalAlignmentStoragePipeline(alignment);
     }
 
 }
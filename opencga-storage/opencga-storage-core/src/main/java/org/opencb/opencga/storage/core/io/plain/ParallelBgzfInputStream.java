@@ -0,0 +1,280 @@
+/*
+ * Copyright 2015-2020 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencb.opencga.storage.core.io.plain;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.io.*;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.*;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Decompress a BGZF (Blocked GNU Zip Format) stream using multiple threads.
+ *
+ * BGZF files are a concatenation of independent gzip members, each with a header that contains the size of the
+ * compressed block. The block boundaries are found reading only the headers, and the blocks are inflated in parallel.
+ * Decompressed blocks are returned in the original order.
+ *
+ * See https://samtools.github.io/hts-specs/SAMv1.pdf , section 4.1
+ */
+public class ParallelBgzfInputStream extends InputStream {
+
+    private static final int HEADER_SIZE = 12;
+    private static final int TRAILER_SIZE = 8;
+    private static final int MAX_BLOCK_SIZE = 65536;
+    private static final byte[] EMPTY = new byte[0];
+
+    private final InputStream in;
+    private final ExecutorService executor;
+    private final int maxBlocksInFlight;
+    private final Deque<Future<byte[]>> pending = new ArrayDeque<>();
+    private final byte[] header = new byte[HEADER_SIZE];
+
+    private byte[] current = EMPTY;
+    private int pos = 0;
+    private boolean eof = false;
+    private boolean closed = false;
+
+    /**
+     * @param in      Compressed input stream
+     * @param threads Number of threads to inflate blocks
+     */
+    public ParallelBgzfInputStream(InputStream in, int threads) {
+        this.in = in;
+        int numThreads = Math.max(1, threads);
+        this.maxBlocksInFlight = numThreads * 4;
+        this.executor = Executors.newFixedThreadPool(numThreads, new ThreadFactoryBuilder()
+                .setNameFormat("bgzf-inflater-%d")
+                .setDaemon(true)
+                .build());
+    }
+
+    /**
+     * Check if the stream starts with a BGZF block. Requires {@link InputStream#markSupported()}.
+     *
+     * @param in Input stream
+     * @return if the first block of the stream is a BGZF block
+     * @throws IOException on error reading the stream
+     */
+    public static boolean isBgzf(InputStream in) throws IOException {
+        if (!in.markSupported()) {
+            throw new IllegalArgumentException("Mark not supported");
+        }
+        byte[] buffer = new byte[HEADER_SIZE + 6];
+        in.mark(buffer.length);
+        try {
+            int read = readFully(in, buffer, 0, buffer.length);
+            return read == buffer.length && isBgzfHeader(buffer) && getBlockSize(buffer, HEADER_SIZE, buffer.length - HEADER_SIZE) > 0;
+        } finally {
+            in.reset();
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!fill()) {
+            return -1;
+        }
+        return current[pos++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!fill()) {
+            return -1;
+        }
+        int n = Math.min(len, current.length - pos);
+        System.arraycopy(current, pos, b, off, n);
+        pos += n;
+        return n;
+    }
+
+    @Override
+    public int available() {
+        return current.length - pos;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            for (Future<byte[]> future : pending) {
+                future.cancel(true);
+            }
+            pending.clear();
+            executor.shutdownNow();
+            in.close();
+        }
+    }
+
+    private boolean fill() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        while (pos >= current.length) {
+            while (!eof && pending.size() < maxBlocksInFlight) {
+                byte[] block = readBlock();
+                if (block == null) {
+                    eof = true;
+                } else {
+                    pending.add(executor.submit(() -> inflate(block)));
+                }
+            }
+            Future<byte[]> future = pending.poll();
+            if (future == null) {
+                return false;
+            }
+            current = get(future);
+            pos = 0;
+        }
+        return true;
+    }
+
+    private static byte[] get(Future<byte[]> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(e.getMessage());
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * Read the next compressed block, without the header.
+     *
+     * @return Compressed data and trailer, or null if the stream is finished
+     * @throws IOException on error reading the stream, or if the block is not a valid BGZF block
+     */
+    private byte[] readBlock() throws IOException {
+        int read = readFully(in, header, 0, HEADER_SIZE);
+        if (read == 0) {
+            return null;
+        } else if (read != HEADER_SIZE || !isBgzfHeader(header)) {
+            throw new IOException("Invalid BGZF block header");
+        }
+        int xlen = (header[10] & 0xFF) | (header[11] & 0xFF) << 8;
+        byte[] extra = new byte[xlen];
+        if (readFully(in, extra, 0, xlen) != xlen) {
+            throw new EOFException("Truncated BGZF block");
+        }
+        int blockSize = getBlockSize(extra, 0, xlen);
+        if (blockSize <= 0 || blockSize > MAX_BLOCK_SIZE) {
+            throw new IOException("Invalid BGZF block size " + blockSize);
+        }
+        int remaining = blockSize - HEADER_SIZE - xlen;
+        if (remaining < TRAILER_SIZE) {
+            throw new IOException("Invalid BGZF block size " + blockSize);
+        }
+        byte[] block = new byte[remaining];
+        if (readFully(in, block, 0, remaining) != remaining) {
+            throw new EOFException("Truncated BGZF block");
+        }
+        return block;
+    }
+
+    private static byte[] inflate(byte[] block) throws IOException {
+        int cdataSize = block.length - TRAILER_SIZE;
+        long expectedCrc = readInt(block, cdataSize) & 0xFFFFFFFFL;
+        int uncompressedSize = readInt(block, cdataSize + 4);
+        if (uncompressedSize == 0) {
+            return EMPTY;
+        }
+        byte[] output = new byte[uncompressedSize];
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(block, 0, cdataSize);
+            int inflated = 0;
+            while (inflated < uncompressedSize) {
+                int n = inflater.inflate(output, inflated, uncompressedSize - inflated);
+                if (n == 0 && (inflater.finished() || inflater.needsInput())) {
+                    break;
+                }
+                inflated += n;
+            }
+            if (inflated != uncompressedSize) {
+                throw new IOException("Corrupted BGZF block. Expected " + uncompressedSize + " bytes, got " + inflated);
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupted BGZF block", e);
+        } finally {
+            inflater.end();
+        }
+        CRC32 crc32 = new CRC32();
+        crc32.update(output, 0, uncompressedSize);
+        if (crc32.getValue() != expectedCrc) {
+            throw new IOException("Corrupted BGZF block. CRC mismatch");
+        }
+        return output;
+    }
+
+    private static boolean isBgzfHeader(byte[] header) {
+        // ID1, ID2, CM = deflate, FLG = FEXTRA
+        return (header[0] & 0xFF) == 31 && (header[1] & 0xFF) == 139 && header[2] == 8 && (header[3] & 4) != 0;
+    }
+
+    /**
+     * Find the BC subfield in the extra field of the header.
+     *
+     * @param extra  Buffer with the extra field
+     * @param offset Start of the extra field in the buffer
+     * @param xlen   Length of the extra field
+     * @return Total size of the block, or -1 if not found
+     */
+    private static int getBlockSize(byte[] extra, int offset, int xlen) {
+        int i = offset;
+        int end = offset + xlen;
+        while (i + 4 <= end) {
+            int slen = (extra[i + 2] & 0xFF) | (extra[i + 3] & 0xFF) << 8;
+            if (extra[i] == 'B' && extra[i + 1] == 'C' && slen == 2 && i + 6 <= end) {
+                return ((extra[i + 4] & 0xFF) | (extra[i + 5] & 0xFF) << 8) + 1;
+            }
+            i += 4 + slen;
+        }
+        return -1;
+    }
+
+    private static int readInt(byte[] bytes, int offset) {
+        return (bytes[offset] & 0xFF)
+                | (bytes[offset + 1] & 0xFF) << 8
+                | (bytes[offset + 2] & 0xFF) << 16
+                | (bytes[offset + 3] & 0xFF) << 24;
+    }
+
+    private static int readFully(InputStream in, byte[] buffer, int offset, int length) throws IOException {
+        int total = 0;
+        while (total < length) {
+            int n = in.read(buffer, offset + total, length - total);
+            if (n < 0) {
+                break;
+            }
+            total += n;
+        }
+        return total;
+    }
+}
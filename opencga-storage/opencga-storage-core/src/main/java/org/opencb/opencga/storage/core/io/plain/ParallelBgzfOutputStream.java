@@ -0,0 +1,286 @@
+/*
+ * Copyright 2015-2020 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencb.opencga.storage.core.io.plain;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.*;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Compress a stream in BGZF (Blocked GNU Zip Format) using multiple threads.
+ *
+ * The input is split in blocks of {@link #BLOCK_SIZE} uncompressed bytes, that are deflated in parallel and written
+ * in order. Only the last block may be smaller, so the virtual file offset of any uncompressed position can be
+ * computed once its block is written. See {@link #getVirtualOffset(long)}.
+ *
+ * See https://samtools.github.io/hts-specs/SAMv1.pdf , section 4.1
+ */
+public class ParallelBgzfOutputStream extends OutputStream {
+
+    public static final int BLOCK_SIZE = 0xff00;
+    private static final int HEADER_SIZE = 18;
+    private static final int TRAILER_SIZE = 8;
+    private static final int MAX_BLOCK_SIZE = 65536;
+    private static final byte[] EOF_BLOCK = {
+            31, -117, 8, 4, 0, 0, 0, 0, 0, -1, 6, 0, 66, 67, 2, 0, 27, 0, 3, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+    };
+
+    private final OutputStream out;
+    private final ExecutorService executor;
+    private final int maxBlocksInFlight;
+    private final int compressionLevel;
+    private final Deque<Future<byte[]>> pending = new ArrayDeque<>();
+
+    private byte[] buffer = new byte[BLOCK_SIZE];
+    private int count = 0;
+    private long position = 0;
+    private long compressedPosition = 0;
+    private long[] blockAddresses = new long[1024];
+    private int writtenBlocks = 0;
+    private boolean finished = false;
+    private boolean closed = false;
+
+    /**
+     * @param out     Output stream
+     * @param threads Number of threads to deflate blocks
+     */
+    public ParallelBgzfOutputStream(OutputStream out, int threads) {
+        this(out, threads, Deflater.DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * @param out              Output stream
+     * @param threads          Number of threads to deflate blocks
+     * @param compressionLevel Deflate compression level
+     */
+    public ParallelBgzfOutputStream(OutputStream out, int threads, int compressionLevel) {
+        this.out = out;
+        this.compressionLevel = compressionLevel;
+        int numThreads = Math.max(1, threads);
+        this.maxBlocksInFlight = numThreads * 4;
+        this.executor = Executors.newFixedThreadPool(numThreads, new ThreadFactoryBuilder()
+                .setNameFormat("bgzf-deflater-%d")
+                .setDaemon(true)
+                .build());
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        ensureOpen();
+        buffer[count++] = (byte) b;
+        position++;
+        if (count == BLOCK_SIZE) {
+            submitBlock();
+        }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        ensureOpen();
+        while (len > 0) {
+            int n = Math.min(len, BLOCK_SIZE - count);
+            System.arraycopy(b, off, buffer, count, n);
+            count += n;
+            position += n;
+            off += n;
+            len -= n;
+            if (count == BLOCK_SIZE) {
+                submitBlock();
+            }
+        }
+    }
+
+    /**
+     * Write all the completed blocks and flush the underlying stream.
+     *
+     * The last incomplete block is not flushed, to keep a fixed block size. Use {@link #finish()} to write it.
+     *
+     * @throws IOException on error writing the blocks
+     */
+    @Override
+    public void flush() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        while (!pending.isEmpty()) {
+            writeBlock(pending.poll());
+        }
+        out.flush();
+    }
+
+    /**
+     * Write all the pending data and the EOF block, without closing the underlying stream.
+     *
+     * @throws IOException on error writing the blocks
+     */
+    public void finish() throws IOException {
+        if (finished) {
+            return;
+        }
+        ensureOpen();
+        if (count > 0) {
+            submitBlock();
+        }
+        flush();
+        out.write(EOF_BLOCK);
+        out.flush();
+        finished = true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!closed) {
+            try {
+                finish();
+            } finally {
+                closed = true;
+                for (Future<byte[]> future : pending) {
+                    future.cancel(true);
+                }
+                pending.clear();
+                executor.shutdownNow();
+                out.close();
+            }
+        }
+    }
+
+    /**
+     * @return Number of uncompressed bytes written
+     */
+    public long getPosition() {
+        return position;
+    }
+
+    /**
+     * Get the BGZF virtual file offset of an uncompressed position.
+     *
+     * @param uncompressedPosition Uncompressed position, as returned by {@link #getPosition()}
+     * @return Virtual file offset, or -1 if the block containing this position has not been written yet
+     */
+    public long getVirtualOffset(long uncompressedPosition) {
+        long block = uncompressedPosition / BLOCK_SIZE;
+        long offset = uncompressedPosition % BLOCK_SIZE;
+        if (block < writtenBlocks) {
+            return blockAddresses[(int) block] << 16 | offset;
+        } else if (block == writtenBlocks) {
+            // Next block to be written
+            return compressedPosition << 16 | offset;
+        } else {
+            return -1;
+        }
+    }
+
+    private void submitBlock() throws IOException {
+        byte[] data = buffer;
+        int length = count;
+        buffer = new byte[BLOCK_SIZE];
+        count = 0;
+        pending.add(executor.submit(() -> deflate(data, length, compressionLevel)));
+        if (pending.size() >= maxBlocksInFlight) {
+            writeBlock(pending.poll());
+        }
+    }
+
+    private void writeBlock(Future<byte[]> future) throws IOException {
+        byte[] block;
+        try {
+            block = future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(e.getMessage());
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause());
+        }
+        if (writtenBlocks == blockAddresses.length) {
+            blockAddresses = Arrays.copyOf(blockAddresses, blockAddresses.length * 2);
+        }
+        blockAddresses[writtenBlocks++] = compressedPosition;
+        out.write(block);
+        compressedPosition += block.length;
+    }
+
+    private static byte[] deflate(byte[] data, int length, int level) {
+        byte[] block = new byte[MAX_BLOCK_SIZE];
+        int cdataSize = deflate(data, length, level, block);
+        if (cdataSize < 0) {
+            // Incompressible data. Store the block without compression
+            cdataSize = deflate(data, length, Deflater.NO_COMPRESSION, block);
+        }
+        int blockSize = HEADER_SIZE + cdataSize + TRAILER_SIZE;
+
+        block[0] = 31;
+        block[1] = (byte) 139;
+        block[2] = 8;                   // CM = deflate
+        block[3] = 4;                   // FLG = FEXTRA
+        block[9] = (byte) 255;          // OS = unknown
+        block[10] = 6;                  // XLEN
+        block[12] = 'B';
+        block[13] = 'C';
+        block[14] = 2;                  // SLEN
+        writeShort(block, 16, blockSize - 1);
+
+        CRC32 crc32 = new CRC32();
+        crc32.update(data, 0, length);
+        writeInt(block, HEADER_SIZE + cdataSize, (int) crc32.getValue());
+        writeInt(block, HEADER_SIZE + cdataSize + 4, length);
+        return Arrays.copyOf(block, blockSize);
+    }
+
+    private static int deflate(byte[] data, int length, int level, byte[] block) {
+        Deflater deflater = new Deflater(level, true);
+        try {
+            deflater.setInput(data, 0, length);
+            deflater.finish();
+            int maxSize = block.length - HEADER_SIZE - TRAILER_SIZE;
+            int size = 0;
+            while (!deflater.finished() && size < maxSize) {
+                size += deflater.deflate(block, HEADER_SIZE + size, maxSize - size);
+            }
+            return deflater.finished() ? size : -1;
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static void writeShort(byte[] bytes, int offset, int value) {
+        bytes[offset] = (byte) value;
+        bytes[offset + 1] = (byte) (value >>> 8);
+    }
+
+    private static void writeInt(byte[] bytes, int offset, int value) {
+        bytes[offset] = (byte) value;
+        bytes[offset + 1] = (byte) (value >>> 8);
+        bytes[offset + 2] = (byte) (value >>> 16);
+        bytes[offset + 3] = (byte) (value >>> 24);
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        } else if (finished) {
+            throw new IOException("Stream finished");
+        }
+    }
+}
@@ -51,6 +51,7 @@ public class StringDataReader implements DataReader<String> {
     private BiConsumer<Long, Long> readLinesListener;
     private final InputStream is;
     private final boolean closeReader;
+    private int decompressionThreads = 1;
 
     public StringDataReader(Path path) {
         this.path = Objects.requireNonNull(path);
@@ -99,7 +100,7 @@ public class StringDataReader implements DataReader<String> {
                 }
                 if (fileName.endsWith(".gz")) {
                     logger.debug("Gzip input compress");
-                    this.reader = new BufferedReader(new InputStreamReader(new GZIPInputStream(sizeInputStream)));
+                    this.reader = new BufferedReader(new InputStreamReader(gunzip(sizeInputStream)));
                 } else if (fileName.endsWith(".snappy") || fileName.endsWith(".snz")) {
                     logger.debug("Snappy input compress");
                     this.reader = new BufferedReader(new InputStreamReader(new SnappyInputStream(sizeInputStream)));
@@ -115,6 +116,18 @@ public class StringDataReader implements DataReader<String> {
         return true;
     }
 
+    private InputStream gunzip(InputStream is) throws IOException {
+        if (decompressionThreads > 1) {
+            BufferedInputStream bufferedInputStream = new BufferedInputStream(is);
+            if (ParallelBgzfInputStream.isBgzf(bufferedInputStream)) {
+                logger.debug("BGZF input compress. Decompress using {} threads", decompressionThreads);
+                return new ParallelBgzfInputStream(bufferedInputStream, decompressionThreads);
+            }
+            is = bufferedInputStream;
+        }
+        return new GZIPInputStream(is);
+    }
+
     @Override
     public boolean close() {
         try {
@@ -191,6 +204,17 @@ public class StringDataReader implements DataReader<String> {
         return this;
     }
 
+    /**
+     * Number of threads to decompress the input, if it is a BGZF file. Other formats are decompressed in the reader thread.
+     *
+     * @param decompressionThreads Number of threads
+     * @return this
+     */
+    public StringDataReader setDecompressionThreads(int decompressionThreads) {
+        this.decompressionThreads = decompressionThreads;
+        return this;
+    }
+
     public long getFileSize() throws IOException {
         if (path != null) {
             return Files.size(path);
@@ -1,19 +1,45 @@
 package org.opencb.opencga.storage.core.metadata;
 
-import java.util.concurrent.ConcurrentHashMap;
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import org.opencb.commons.datastore.core.ObjectMap;
+
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
 import java.util.function.BiFunction;
 
 /**
+ * Bounded cache of metadata values, indexed by study and resource id.
+ *
+ * Entries are evicted when the cache exceeds the max size, in an approximate LRU order.
+ * Null values are not cached.
+ *
  * Created by jacobo on 27/02/19.
  */
 public class MetadataCache<ID, R> {
 
-    private final ConcurrentHashMap<String, R> cache;
+    public static final long DEFAULT_MAX_SIZE = 100000;
+
+    private final String name;
+    private final Cache<Key<ID>, R> cache;
     private final BiFunction<Integer, ID, R> function;
 
     public MetadataCache(BiFunction<Integer, ID, R> function) {
+        this("", DEFAULT_MAX_SIZE, function);
+    }
+
+    public MetadataCache(String name, long maxSize, BiFunction<Integer, ID, R> function) {
+        this.name = name;
         this.function = function;
-        this.cache = new ConcurrentHashMap<>();
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
     }
 
     /**
@@ -24,16 +50,15 @@ public class MetadataCache<ID, R> {
      * @return        Value
      */
     public R get(int studyId, ID id) {
-        String key = getKey(studyId, id);
-
-        // Avoid unnecessary synchronize blocks.
-        // ConcurrentHashMap::get does not have any synchronization block
-        R r = cache.get(key);
-        if (r != null) {
-            return r;
-        } else {
-            // Use this method to avoid executing the function twice
-            return cache.computeIfAbsent(key, k -> this.function.apply(studyId, id));
+        // Cache::get ensures that the function is executed only once for each key
+        try {
+            return cache.get(new Key<>(studyId, id), () -> this.function.apply(studyId, id));
+        } catch (CacheLoader.InvalidCacheLoadException e) {
+            // Function returned null. Null values are not cached
+            return null;
+        } catch (ExecutionException | UncheckedExecutionException | ExecutionError e) {
+            Throwables.propagateIfPossible(e.getCause());
+            throw new IllegalStateException(e.getCause());
         }
     }
 
@@ -46,35 +71,95 @@ public class MetadataCache<ID, R> {
      * @return Value
      */
     public R get(int studyId, ID id, R invalidValue) {
-        String key = getKey(studyId, id);
-
-        // Avoid unnecessary synchronize blocks.
-        // ConcurrentHashMap::get does not have any synchronization block
-        R r = cache.get(key);
-        if (r == null || r.equals(invalidValue)) {
-            // Use this method to avoid executing the function twice
-            return cache.compute(key, (k, v) -> {
-                if (v == null || v.equals(invalidValue)) {
-                    return this.function.apply(studyId, id);
-                } else {
-                    return v;
-                }
-            });
-        } else {
-            return r;
+        R r = get(studyId, id);
+        if (r != null && r.equals(invalidValue)) {
+            r = this.function.apply(studyId, id);
+            if (r == null) {
+                invalidate(studyId, id);
+            } else {
+                put(studyId, id, r);
+            }
         }
+        return r;
     }
 
     public void put(int studyId, ID id, R value) {
-        cache.put(getKey(studyId, id), value);
+        cache.put(new Key<>(studyId, id), value);
+    }
+
+    /**
+     * Remove one value from the cache.
+     *
+     * @param studyId Study id
+     * @param id      Resource id
+     */
+    public void invalidate(int studyId, ID id) {
+        cache.invalidate(new Key<>(studyId, id));
     }
 
     public void clear() {
-        cache.clear();
+        cache.invalidateAll();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long size() {
+        return cache.size();
     }
 
-    private String getKey(int studyId, ID id) {
-        return studyId + "_" + id;
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    /**
+     * Summary of the cache usage. Includes size, hits, misses and evictions.
+     *
+     * @return ObjectMap with the cache stats
+     */
+    public ObjectMap getStats() {
+        CacheStats stats = cache.stats();
+        return new ObjectMap()
+                .append("size", cache.size())
+                .append("hitCount", stats.hitCount())
+                .append("missCount", stats.missCount())
+                .append("hitRate", stats.hitRate())
+                .append("evictionCount", stats.evictionCount());
+    }
+
+    private static final class Key<ID> {
+        private final int studyId;
+        private final ID id;
+        private final int hashCode;
+
+        private Key(int studyId, ID id) {
+            this.studyId = studyId;
+            this.id = id;
+            this.hashCode = 31 * studyId + Objects.hashCode(id);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Key<?> key = (Key<?>) o;
+            return studyId == key.studyId && Objects.equals(id, key.id);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public String toString() {
+            return studyId + "_" + id;
+        }
     }
 
 }
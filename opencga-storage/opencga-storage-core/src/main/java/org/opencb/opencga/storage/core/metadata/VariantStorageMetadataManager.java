@@ -33,6 +33,7 @@ import org.opencb.opencga.core.common.UriUtils;
 import org.opencb.opencga.storage.core.exceptions.StorageEngineException;
 import org.opencb.opencga.storage.core.metadata.adaptors.*;
 import org.opencb.opencga.storage.core.metadata.models.*;
+import org.opencb.opencga.storage.core.utils.LockWaitQueue;
 import org.opencb.opencga.storage.core.variant.VariantStorageEngine;
 import org.opencb.opencga.storage.core.variant.VariantStorageOptions;
 import org.opencb.opencga.storage.core.variant.adaptors.VariantQueryException;
@@ -89,35 +90,41 @@ public class VariantStorageMetadataManager implements AutoCloseable {
     private final MetadataCache<Integer, String> cohortNameCache;
 
     public VariantStorageMetadataManager(VariantStorageMetadataDBAdaptorFactory dbAdaptorFactory) {
+        this(dbAdaptorFactory, new ObjectMap());
+    }
+
+    public VariantStorageMetadataManager(VariantStorageMetadataDBAdaptorFactory dbAdaptorFactory, ObjectMap options) {
+        long cacheMaxSize = options.getLong(VariantStorageOptions.METADATA_CACHE_MAX_SIZE.key(),
+                VariantStorageOptions.METADATA_CACHE_MAX_SIZE.<Number>defaultValue().longValue());
         this.projectDBAdaptor = dbAdaptorFactory.buildProjectMetadataDBAdaptor();
         this.studyDBAdaptor = dbAdaptorFactory.buildStudyMetadataDBAdaptor();
         this.fileDBAdaptor = dbAdaptorFactory.buildFileMetadataDBAdaptor();
         this.sampleDBAdaptor = dbAdaptorFactory.buildSampleMetadataDBAdaptor();
         this.cohortDBAdaptor = dbAdaptorFactory.buildCohortMetadataDBAdaptor();
         this.taskDBAdaptor = dbAdaptorFactory.buildTaskDBAdaptor();
-        sampleIdCache = new MetadataCache<>(sampleDBAdaptor::getSampleId);
-        sampleNameCache = new MetadataCache<>((studyId, sampleId) -> {
+        sampleIdCache = new MetadataCache<>("sampleId", cacheMaxSize, sampleDBAdaptor::getSampleId);
+        sampleNameCache = new MetadataCache<>("sampleName", cacheMaxSize, (studyId, sampleId) -> {
             SampleMetadata sampleMetadata = sampleDBAdaptor.getSampleMetadata(studyId, sampleId, null);
             if (sampleMetadata == null) {
                 throw VariantQueryException.sampleNotFound(sampleId, getStudyName(studyId));
             }
             return sampleMetadata.getName();
         });
-        sampleIdIndexedCache = new MetadataCache<>((studyId, sampleId) -> {
+        sampleIdIndexedCache = new MetadataCache<>("sampleIdIndexed", cacheMaxSize, (studyId, sampleId) -> {
             SampleMetadata sampleMetadata = sampleDBAdaptor.getSampleMetadata(studyId, sampleId, null);
             if (sampleMetadata == null) {
                 throw VariantQueryException.sampleNotFound(sampleId, getStudyName(studyId));
             }
             return sampleMetadata.isIndexed();
         });
-        sampleIdsFromFileIdCache = new MetadataCache<>((studyId, fileId) -> {
+        sampleIdsFromFileIdCache = new MetadataCache<>("sampleIdsFromFileId", cacheMaxSize, (studyId, fileId) -> {
             FileMetadata fileMetadata = fileDBAdaptor.getFileMetadata(studyId, fileId, null);
             if (fileMetadata == null) {
                 throw VariantQueryException.fileNotFound(fileId, getStudyName(studyId));
             }
             return fileMetadata.getSamples();
         });
-        splitDataCache = new MetadataCache<>((studyId, sampleId) -> {
+        splitDataCache = new MetadataCache<>("splitData", cacheMaxSize, (studyId, sampleId) -> {
             SampleMetadata sampleMetadata = sampleDBAdaptor.getSampleMetadata(studyId, sampleId, null);
             if (sampleMetadata == null) {
                 throw VariantQueryException.sampleNotFound(sampleId, getStudyName(studyId));
@@ -125,22 +132,22 @@ public class VariantStorageMetadataManager implements AutoCloseable {
             return sampleMetadata.getSplitData();
         });
 
-        fileIdCache = new MetadataCache<>(fileDBAdaptor::getFileId);
-        fileNameCache = new MetadataCache<>((studyId, fileId) -> {
+        fileIdCache = new MetadataCache<>("fileId", cacheMaxSize, fileDBAdaptor::getFileId);
+        fileNameCache = new MetadataCache<>("fileName", cacheMaxSize, (studyId, fileId) -> {
             FileMetadata fileMetadata = fileDBAdaptor.getFileMetadata(studyId, fileId, null);
             if (fileMetadata == null) {
                 throw VariantQueryException.fileNotFound(fileId, getStudyName(studyId));
             }
             return fileMetadata.getName();
         });
-        fileIdIndexedCache = new MetadataCache<>((studyId, fileId) -> {
+        fileIdIndexedCache = new MetadataCache<>("fileIdIndexed", cacheMaxSize, (studyId, fileId) -> {
             FileMetadata fileMetadata = fileDBAdaptor.getFileMetadata(studyId, fileId, null);
             if (fileMetadata == null) {
                 throw VariantQueryException.fileNotFound(fileId, getStudyName(studyId));
             }
             return fileMetadata.isIndexed();
         });
-        fileIdsFromSampleIdCache = new MetadataCache<>((studyId, sampleId) -> {
+        fileIdsFromSampleIdCache = new MetadataCache<>("fileIdsFromSampleId", cacheMaxSize, (studyId, sampleId) -> {
             SampleMetadata sampleMetadata = getSampleMetadata(studyId, sampleId);
             if (sampleMetadata == null) {
                 throw VariantQueryException.sampleNotFound(sampleId, getStudyName(studyId));
@@ -148,8 +155,8 @@ public class VariantStorageMetadataManager implements AutoCloseable {
             return sampleMetadata.getFiles();
         });
 
-        cohortIdCache = new MetadataCache<>(cohortDBAdaptor::getCohortId);
-        cohortNameCache = new MetadataCache<>((studyId, cohortId) -> {
+        cohortIdCache = new MetadataCache<>("cohortId", cacheMaxSize, cohortDBAdaptor::getCohortId);
+        cohortNameCache = new MetadataCache<>("cohortName", cacheMaxSize, (studyId, cohortId) -> {
             CohortMetadata cohortMetadata = cohortDBAdaptor.getCohortMetadata(studyId, cohortId, null);
             if (cohortMetadata == null) {
                 throw VariantQueryException.cohortNotFound(cohortId, studyId, getAvailableCohorts(studyId));
@@ -562,6 +569,8 @@ public class VariantStorageMetadataManager implements AutoCloseable {
     public void unsecureUpdateFileMetadata(int studyId, FileMetadata file) {
         file.setStudyId(studyId);
         fileDBAdaptor.updateFileMetadata(studyId, file, null);
+        fileIdIndexedCache.invalidate(studyId, file.getId());
+        sampleIdsFromFileIdCache.invalidate(studyId, file.getId());
     }
 
     public <E extends Exception> FileMetadata updateFileMetadata(int studyId, int fileId, UpdateFunction<FileMetadata, E> update)
@@ -681,8 +690,6 @@ public class VariantStorageMetadataManager implements AutoCloseable {
             logger.info("Register file " + name + " as INDEXED");
         }
         fileDBAdaptor.addIndexedFiles(studyId, fileIds);
-        fileIdsFromSampleIdCache.clear();
-        fileIdIndexedCache.clear();
     }
 
     public void removeIndexedFiles(int studyId, Collection<Integer> fileIds) throws StorageEngineException {
@@ -724,6 +731,9 @@ public class VariantStorageMetadataManager implements AutoCloseable {
     public void unsecureUpdateSampleMetadata(int studyId, SampleMetadata sample) {
         sample.setStudyId(studyId);
         sampleDBAdaptor.updateSampleMetadata(studyId, sample, null);
+        sampleIdIndexedCache.invalidate(studyId, sample.getId());
+        splitDataCache.invalidate(studyId, sample.getId());
+        fileIdsFromSampleIdCache.invalidate(studyId, sample.getId());
     }
 
     public <E extends Exception> SampleMetadata updateSampleMetadata(int studyId, int sampleId, UpdateFunction<SampleMetadata, E> update)
@@ -883,7 +893,10 @@ public class VariantStorageMetadataManager implements AutoCloseable {
         if (cohortId == null) {
             throw VariantQueryException.cohortNotFound(cohort.toString(), studyId, this);
         }
+        String cohortName = getCohortName(studyId, cohortId);
         cohortDBAdaptor.removeCohort(studyId, cohortId);
+        cohortIdCache.invalidate(studyId, cohortName);
+        cohortNameCache.invalidate(studyId, cohortId);
     }
 
     public Integer getCohortId(int studyId, String cohortName) {
@@ -1694,6 +1707,33 @@ public class VariantStorageMetadataManager implements AutoCloseable {
         }
     }
 
+    /**
+     * Usage summary of the internal metadata caches.
+     *
+     * @return ObjectMap with the stats of each cache
+     */
+    public ObjectMap getCacheStats() {
+        ObjectMap stats = new ObjectMap();
+        for (MetadataCache<?, ?> cache : Arrays.asList(sampleIdCache, sampleNameCache, sampleIdIndexedCache, sampleIdsFromFileIdCache,
+                splitDataCache, fileIdCache, fileNameCache, fileIdIndexedCache, fileIdsFromSampleIdCache, cohortIdCache,
+                cohortNameCache)) {
+            stats.put(cache.getName(), cache.getStats());
+        }
+        return stats;
+    }
+
+    /**
+     * Wait time and contention of each lock acquired from this JVM, by lock id. Includes the locks of any study or project.
+     *
+     * @return ObjectMap with the stats of each lock
+     * @see LockWaitQueue
+     */
+    public ObjectMap getLockStats() {
+        ObjectMap stats = new ObjectMap();
+        LockWaitQueue.getAllStats().forEach(stats::put);
+        return stats;
+    }
+
     @Override
     public void close() throws IOException {
         studyDBAdaptor.close();
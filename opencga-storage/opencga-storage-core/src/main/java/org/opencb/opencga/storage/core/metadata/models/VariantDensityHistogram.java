@@ -0,0 +1,168 @@
+package org.opencb.opencga.storage.core.metadata.models;
+
+import org.opencb.biodata.models.core.Region;
+import org.opencb.commons.datastore.core.ObjectMap;
+
+import java.util.*;
+
+/**
+ * Number of variants and length of each chromosome of the project. Variants are assumed to be uniformly distributed
+ * within each chromosome.
+ *
+ * Stored in the {@link ProjectMetadata#getAttributes()}, and updated after loading or removing files.
+ */
+public class VariantDensityHistogram {
+
+    public static final String ATTRIBUTE = "variantDensityHistogram";
+    private static final String COUNT = "count";
+    private static final String LENGTH = "length";
+
+    // Normalized chromosome -> {count, length}
+    private final Map<String, long[]> chromosomes = new LinkedHashMap<>();
+
+    public VariantDensityHistogram() {
+    }
+
+    /**
+     * Read the histogram from the attributes of the project.
+     *
+     * @param projectMetadata Project metadata
+     * @return the histogram, or null if missing
+     */
+    public static VariantDensityHistogram read(ProjectMetadata projectMetadata) {
+        Object value = projectMetadata.getAttributes().get(ATTRIBUTE);
+        if (!(value instanceof Map)) {
+            return null;
+        }
+        VariantDensityHistogram histogram = new VariantDensityHistogram();
+        for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+            if (entry.getValue() instanceof Map) {
+                ObjectMap chromosome = new ObjectMap((Map<String, Object>) entry.getValue());
+                histogram.add(entry.getKey().toString(), chromosome.getLong(COUNT), chromosome.getLong(LENGTH));
+            }
+        }
+        return histogram.isEmpty() ? null : histogram;
+    }
+
+    /**
+     * Write the histogram into the attributes of the project.
+     *
+     * @param projectMetadata Project metadata
+     */
+    public void write(ProjectMetadata projectMetadata) {
+        ObjectMap value = new ObjectMap();
+        for (Map.Entry<String, long[]> entry : chromosomes.entrySet()) {
+            value.put(entry.getKey(), new ObjectMap(COUNT, entry.getValue()[0]).append(LENGTH, entry.getValue()[1]));
+        }
+        projectMetadata.getAttributes().put(ATTRIBUTE, value);
+    }
+
+    /**
+     * Add variants to a chromosome.
+     *
+     * @param chromosome Chromosome
+     * @param count      Number of variants to add
+     * @param length     Length of the chromosome, if known. Otherwise, 0
+     * @return this
+     */
+    public VariantDensityHistogram add(String chromosome, long count, long length) {
+        long[] values = chromosomes.computeIfAbsent(Region.normalizeChromosome(chromosome), k -> new long[2]);
+        values[0] += count;
+        values[1] = Math.max(values[1], length);
+        return this;
+    }
+
+    /**
+     * Remove variants from a chromosome, e.g. after removing a file. Counts never go below 0, and chromosomes without
+     * variants are removed.
+     *
+     * @param chromosome Chromosome
+     * @param count      Number of variants to remove
+     * @return this
+     */
+    public VariantDensityHistogram remove(String chromosome, long count) {
+        String normalized = Region.normalizeChromosome(chromosome);
+        long[] values = chromosomes.get(normalized);
+        if (values != null) {
+            values[0] = Math.max(0, values[0] - count);
+            if (values[0] == 0) {
+                chromosomes.remove(normalized);
+            }
+        }
+        return this;
+    }
+
+    public boolean isEmpty() {
+        return chromosomes.isEmpty();
+    }
+
+    public Set<String> getChromosomes() {
+        return Collections.unmodifiableSet(chromosomes.keySet());
+    }
+
+    public long getCount(String chromosome) {
+        long[] values = chromosomes.get(Region.normalizeChromosome(chromosome));
+        return values == null ? 0 : values[0];
+    }
+
+    /**
+     * @param chromosome Chromosome
+     * @return Length of the chromosome, or 0 if unknown
+     */
+    public long getLength(String chromosome) {
+        long[] values = chromosomes.get(Region.normalizeChromosome(chromosome));
+        return values == null ? 0 : values[1];
+    }
+
+    public long getTotalCount() {
+        long total = 0;
+        for (long[] values : chromosomes.values()) {
+            total += values[0];
+        }
+        return total;
+    }
+
+    /**
+     * Expected number of variants in the first positions of the chromosome.
+     *
+     * @param chromosome Chromosome
+     * @param end        Last position, inclusive
+     * @return expected number of variants, or -1 if the length of the chromosome is unknown
+     */
+    public double getExpectedCount(String chromosome, long end) {
+        return getExpectedCount(chromosome, 1, end);
+    }
+
+    /**
+     * Expected number of variants in a range of the chromosome.
+     *
+     * @param chromosome Chromosome
+     * @param start      First position, inclusive
+     * @param end        Last position, inclusive
+     * @return expected number of variants, or -1 if the length of the chromosome is unknown
+     */
+    public double getExpectedCount(String chromosome, long start, long end) {
+        long length = getLength(chromosome);
+        long count = getCount(chromosome);
+        if (count == 0) {
+            return 0;
+        }
+        if (start <= 1 && end >= length && length > 0 || start <= 1 && end == Integer.MAX_VALUE) {
+            return count;
+        }
+        if (length <= 0) {
+            return -1;
+        }
+        long overlap = Math.min(end, length) - Math.max(start, 1) + 1;
+        return overlap <= 0 ? 0 : count * ((double) overlap / length);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("VariantDensityHistogram{");
+        for (Map.Entry<String, long[]> entry : chromosomes.entrySet()) {
+            sb.append(entry.getKey()).append('=').append(entry.getValue()[0]).append('/').append(entry.getValue()[1]).append(", ");
+        }
+        return sb.append('}').toString();
+    }
+}
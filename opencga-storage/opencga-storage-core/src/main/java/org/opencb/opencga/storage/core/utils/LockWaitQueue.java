@@ -0,0 +1,347 @@
+/*
+ * Copyright 2015-2020 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencb.opencga.storage.core.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Coordinates the threads of this JVM waiting for the same lock of a backing store (e.g. MongoDB or HBase).
+ *
+ * Waiting threads are queued in FIFO order, and only the thread at the head of the queue polls the backing store.
+ * Between attempts, it waits with an exponential backoff with jitter, capped to the 100ms of the previous fixed sleep,
+ * so locks released by other processes are not detected later than before. Any release of the lock from this JVM wakes
+ * up the polling thread immediately. Locks held by other processes are only detected by polling.
+ *
+ * Queues only exist while there are threads waiting for the lock. The statistics of each lock id are kept after the queue
+ * is removed, up to {@link #MAX_STATS} lock ids.
+ *
+ * The lock itself is not held locally, so expired locks can be taken by any thread as before.
+ */
+public final class LockWaitQueue {
+
+    public static final long MIN_BACKOFF_MILLIS = 10;
+    public static final long MAX_BACKOFF_MILLIS = 100;
+    public static final int MAX_STATS = 1000;
+
+    // Guarded by the map. Queues are removed when the last waiter leaves
+    private static final Map<String, LockWaitQueue> QUEUES = new HashMap<>();
+    // Least recently used lock ids are evicted
+    private static final Map<String, Counters> STATS = Collections.synchronizedMap(new LinkedHashMap<String, Counters>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Counters> eldest) {
+            return size() > MAX_STATS;
+        }
+    });
+    private static Logger logger = LoggerFactory.getLogger(LockWaitQueue.class);
+
+    private final String lockId;
+    // Only one thread per JVM polls the backing store. Fair, to serve the waiters in FIFO order
+    private final Semaphore poller = new Semaphore(1, true);
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+    private long releases = 0;
+    // Threads using this queue. Guarded by QUEUES
+    private int waiters = 0;
+    private final Counters counters;
+
+    @FunctionalInterface
+    public interface LockAttempt<T, E extends Exception> {
+        /**
+         * Try to acquire the lock from the backing store once.
+         *
+         * @return the lock, or null if the lock is taken
+         * @throws E on error accessing the backing store
+         */
+        T tryLock() throws E;
+    }
+
+    private LockWaitQueue(String lockId) {
+        this.lockId = lockId;
+        this.counters = STATS.computeIfAbsent(lockId, k -> new Counters());
+    }
+
+    /**
+     * Wait until the lock is acquired. Threads of this JVM waiting for the same lock id are queued.
+     *
+     * @param lockId  Unique identifier of the lock in the backing store
+     * @param attempt Attempt to acquire the lock from the backing store
+     * @param timeout Max time in milliseconds to wait for the lock
+     * @param <T>     Lock type
+     * @param <E>     Exception thrown by the backing store
+     * @return the acquired lock
+     * @throws E                    on error accessing the backing store
+     * @throws InterruptedException if any thread has interrupted the current thread.
+     * @throws TimeoutException     if the operations takes more than the timeout value.
+     */
+    public static <T, E extends Exception> T acquire(String lockId, LockAttempt<T, E> attempt, long timeout)
+            throws E, InterruptedException, TimeoutException {
+        LockWaitQueue queue;
+        synchronized (QUEUES) {
+            queue = QUEUES.computeIfAbsent(lockId, LockWaitQueue::new);
+            queue.waiters++;
+        }
+        try {
+            return queue.acquire(attempt, timeout);
+        } finally {
+            synchronized (QUEUES) {
+                queue.waiters--;
+                if (queue.waiters == 0) {
+                    QUEUES.remove(lockId);
+                }
+            }
+        }
+    }
+
+    /**
+     * Notify that the lock was released from this JVM, waking up the polling thread, if any.
+     *
+     * @param lockId Unique identifier of the lock in the backing store
+     */
+    public static void released(String lockId) {
+        LockWaitQueue queue;
+        synchronized (QUEUES) {
+            queue = QUEUES.get(lockId);
+        }
+        // No queue means no thread waiting for this lock
+        if (queue != null) {
+            queue.released();
+        }
+    }
+
+    /**
+     * @param lockId Unique identifier of the lock in the backing store
+     * @return Statistics of the lock, or null if never used from this JVM
+     */
+    public static LockStats getStats(String lockId) {
+        Counters counters = STATS.get(lockId);
+        return counters == null ? null : counters.toLockStats();
+    }
+
+    /**
+     * @return Statistics of the locks used from this JVM
+     */
+    public static Map<String, LockStats> getAllStats() {
+        Map<String, LockStats> stats = new HashMap<>();
+        synchronized (STATS) {
+            for (Map.Entry<String, Counters> entry : STATS.entrySet()) {
+                stats.put(entry.getKey(), entry.getValue().toLockStats());
+            }
+        }
+        return Collections.unmodifiableMap(stats);
+    }
+
+    static int getNumQueues() {
+        synchronized (QUEUES) {
+            return QUEUES.size();
+        }
+    }
+
+    private <T, E extends Exception> T acquire(LockAttempt<T, E> attempt, long timeout)
+            throws E, InterruptedException, TimeoutException {
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(timeout);
+        boolean contended = !poller.tryAcquire();
+        if (contended && !poller.tryAcquire(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+            timeout(start);
+        }
+        try {
+            long backoff = MIN_BACKOFF_MILLIS;
+            while (true) {
+                long lastRelease = getReleases();
+                counters.attempts.increment();
+                T t = attempt.tryLock();
+                if (t != null) {
+                    acquired(start, contended);
+                    return t;
+                }
+                contended = true;
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    timeout(start);
+                }
+                // Equal jitter, in [backoff / 2, backoff]
+                long sleep = backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+                if (awaitRelease(lastRelease, Math.min(TimeUnit.MILLISECONDS.toNanos(sleep), remaining))) {
+                    // Released from this JVM. Retry immediately
+                    backoff = MIN_BACKOFF_MILLIS;
+                } else {
+                    backoff = Math.min(backoff * 2, MAX_BACKOFF_MILLIS);
+                }
+            }
+        } finally {
+            poller.release();
+        }
+    }
+
+    private void released() {
+        lock.lock();
+        try {
+            releases++;
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private long getReleases() {
+        lock.lock();
+        try {
+            return releases;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean awaitRelease(long lastRelease, long nanos) throws InterruptedException {
+        lock.lock();
+        try {
+            while (releases == lastRelease && nanos > 0) {
+                nanos = released.awaitNanos(nanos);
+            }
+            return releases != lastRelease;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void acquired(long start, boolean contended) {
+        long wait = System.nanoTime() - start;
+        counters.acquisitions.increment();
+        counters.addWait(wait);
+        if (contended) {
+            counters.contendedAcquisitions.increment();
+            counters.contendedWaitNanos.add(wait);
+            logger.debug("Lock '{}' acquired after {}ms", lockId, TimeUnit.NANOSECONDS.toMillis(wait));
+        }
+    }
+
+    private void timeout(long start) throws TimeoutException {
+        long wait = System.nanoTime() - start;
+        counters.timeouts.increment();
+        counters.contendedWaitNanos.add(wait);
+        counters.addWait(wait);
+        logger.warn("Timeout waiting for lock '{}' after {}ms. {}", lockId, TimeUnit.NANOSECONDS.toMillis(wait),
+                counters.toLockStats());
+        throw new TimeoutException("Unable to get the lock");
+    }
+
+    private static final class Counters {
+        private final LongAdder acquisitions = new LongAdder();
+        private final LongAdder contendedAcquisitions = new LongAdder();
+        private final LongAdder timeouts = new LongAdder();
+        private final LongAdder attempts = new LongAdder();
+        private final LongAdder totalWaitNanos = new LongAdder();
+        private final LongAdder contendedWaitNanos = new LongAdder();
+        private final AtomicLong maxWaitNanos = new AtomicLong();
+
+        private void addWait(long wait) {
+            totalWaitNanos.add(wait);
+            maxWaitNanos.accumulateAndGet(wait, Math::max);
+        }
+
+        private LockStats toLockStats() {
+            return new LockStats(acquisitions.sum(), contendedAcquisitions.sum(), timeouts.sum(), attempts.sum(),
+                    TimeUnit.NANOSECONDS.toMillis(totalWaitNanos.sum()), TimeUnit.NANOSECONDS.toMillis(contendedWaitNanos.sum()),
+                    TimeUnit.NANOSECONDS.toMillis(maxWaitNanos.get()));
+        }
+    }
+
+    public static class LockStats {
+        private final long acquisitions;
+        private final long contendedAcquisitions;
+        private final long timeouts;
+        private final long attempts;
+        private final long totalWaitMillis;
+        private final long contendedWaitMillis;
+        private final long maxWaitMillis;
+
+        public LockStats(long acquisitions, long contendedAcquisitions, long timeouts, long attempts, long totalWaitMillis,
+                         long contendedWaitMillis, long maxWaitMillis) {
+            this.acquisitions = acquisitions;
+            this.contendedAcquisitions = contendedAcquisitions;
+            this.timeouts = timeouts;
+            this.attempts = attempts;
+            this.totalWaitMillis = totalWaitMillis;
+            this.contendedWaitMillis = contendedWaitMillis;
+            this.maxWaitMillis = maxWaitMillis;
+        }
+
+        public long getAcquisitions() {
+            return acquisitions;
+        }
+
+        /**
+         * @return Number of acquisitions that had to wait for the lock
+         */
+        public long getContendedAcquisitions() {
+            return contendedAcquisitions;
+        }
+
+        public long getTimeouts() {
+            return timeouts;
+        }
+
+        /**
+         * @return Number of attempts to acquire the lock from the backing store
+         */
+        public long getAttempts() {
+            return attempts;
+        }
+
+        public long getTotalWaitMillis() {
+            return totalWaitMillis;
+        }
+
+        /**
+         * @return Time waiting for the lock while it was taken, including the timeouts
+         */
+        public long getContendedWaitMillis() {
+            return contendedWaitMillis;
+        }
+
+        public long getMaxWaitMillis() {
+            return maxWaitMillis;
+        }
+
+        @Override
+        public String toString() {
+            return "LockStats{"
+                    + "acquisitions=" + acquisitions
+                    + ", contendedAcquisitions=" + contendedAcquisitions
+                    + ", timeouts=" + timeouts
+                    + ", attempts=" + attempts
+                    + ", totalWaitMillis=" + totalWaitMillis
+                    + ", contendedWaitMillis=" + contendedWaitMillis
+                    + ", maxWaitMillis=" + maxWaitMillis
+                    + '}';
+        }
+    }
+}
@@ -85,6 +85,10 @@ public class IntersectMultiKeyIterator<T> extends MultiKeyIterator<T> {
             Iterator<T> iterator = iterators.get(i);
             T t;
 
+            if (iterator instanceof SeekableIterator) {
+                // Skip lower elements without fetching them one by one
+                ((SeekableIterator<T>) iterator).seek(target);
+            }
             // Iterate until find a t equals or above to the target t
             do {
                 if (iterator.hasNext()) {
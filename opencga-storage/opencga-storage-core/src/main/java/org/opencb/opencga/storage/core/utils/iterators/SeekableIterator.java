@@ -0,0 +1,19 @@
+package org.opencb.opencga.storage.core.utils.iterators;
+
+import java.util.Iterator;
+
+/**
+ * Sorted iterator able to skip elements.
+ *
+ * @param <T> Element type
+ */
+public interface SeekableIterator<T> extends Iterator<T> {
+
+    /**
+     * Skip all the elements lower than the target. The next element, if any, will be equal or greater than the target.
+     *
+     * @param target Target element
+     */
+    void seek(T target);
+
+}
@@ -22,6 +22,7 @@ import org.opencb.biodata.models.core.Region;
 import org.opencb.biodata.models.variant.StudyEntry;
 import org.opencb.biodata.models.variant.Variant;
 import org.opencb.biodata.models.variant.avro.VariantAnnotation;
+import org.opencb.biodata.models.variant.metadata.VariantFileMetadata;
 import org.opencb.biodata.models.variant.metadata.VariantMetadata;
 import org.opencb.cellbase.client.config.ClientConfiguration;
 import org.opencb.cellbase.client.rest.CellBaseClient;
@@ -314,8 +315,10 @@ public abstract class VariantStorageEngine extends StorageEngine<VariantDBAdapto
     public long annotate(Query query, ObjectMap params) throws VariantAnnotatorException, StorageEngineException, IOException {
         // Merge with configuration
         ObjectMap options = getMergedOptions(params);
-        VariantAnnotationManager annotationManager = newVariantAnnotationManager(options);
-        return annotationManager.annotate(query, options);
+        try (VariantAnnotator annotator = newVariantAnnotator(options)) {
+            VariantAnnotationManager annotationManager = newVariantAnnotationManager(annotator);
+            return annotationManager.annotate(query, options);
+        }
     }
 
     /**
@@ -332,8 +335,10 @@ public abstract class VariantStorageEngine extends StorageEngine<VariantDBAdapto
         // Merge with configuration
         ObjectMap options = getMergedOptions(params);
         options.put(VariantAnnotationManager.LOAD_FILE, inputFile.toString());
-        VariantAnnotationManager annotationManager = newVariantAnnotationManager(options);
-        return annotationManager.annotate(new Query(), options);
+        try (VariantAnnotator annotator = newVariantAnnotator(options)) {
+            VariantAnnotationManager annotationManager = newVariantAnnotationManager(annotator);
+            return annotationManager.annotate(new Query(), options);
+        }
     }
 
     /**
@@ -381,11 +386,15 @@ public abstract class VariantStorageEngine extends StorageEngine<VariantDBAdapto
     }
 
     public void saveAnnotation(String name, ObjectMap params) throws StorageEngineException, VariantAnnotatorException {
-        newVariantAnnotationManager(params).saveAnnotation(name, params);
+        try (VariantAnnotator annotator = newVariantAnnotator(params)) {
+            newVariantAnnotationManager(annotator).saveAnnotation(name, params);
+        }
     }
 
     public void deleteAnnotation(String name, ObjectMap params) throws StorageEngineException, VariantAnnotatorException {
-        newVariantAnnotationManager(params).deleteAnnotation(name, params);
+        try (VariantAnnotator annotator = newVariantAnnotator(params)) {
+            newVariantAnnotationManager(annotator).deleteAnnotation(name, params);
+        }
     }
 
     public DataResult<VariantAnnotation> getAnnotation(String name, Query query, QueryOptions options) throws StorageEngineException {
@@ -420,19 +429,17 @@ public abstract class VariantStorageEngine extends StorageEngine<VariantDBAdapto
     }
 
     /**
-     * Provide a new VariantAnnotationManager for creating and loading annotations.
+     * Provide a new VariantAnnotator for the current project. Must be closed after use.
      *
      * @param params        Other params
-     * @return              A new instance of VariantAnnotationManager
-     * @throws StorageEngineException  if there is an error creating the VariantAnnotationManager
+     * @return              A new instance of VariantAnnotator
+     * @throws StorageEngineException  if there is an error reading the project metadata
      * @throws VariantAnnotatorException  if there is an error creating the VariantAnnotator
      */
-    protected final VariantAnnotationManager newVariantAnnotationManager(ObjectMap params)
+    protected final VariantAnnotator newVariantAnnotator(ObjectMap params)
             throws StorageEngineException, VariantAnnotatorException {
         ProjectMetadata projectMetadata = getMetadataManager().getProjectMetadata(params);
-        VariantAnnotator annotator = VariantAnnotatorFactory.buildVariantAnnotator(
-                configuration, projectMetadata, getMergedOptions(params));
-        return newVariantAnnotationManager(annotator);
+        return VariantAnnotatorFactory.buildVariantAnnotator(configuration, projectMetadata, getMergedOptions(params));
     }
 
     /**
@@ -827,6 +834,7 @@ public abstract class VariantStorageEngine extends StorageEngine<VariantDBAdapto
      *    Removes the samples removed from the default cohort {@link StudyEntry#DEFAULT_COHORT}
      *      * Be aware that some samples can be in multiple files.
      *    Invalidates the cohorts with removed samples
+     *    Subtracts the variants of the removed files from the {@link VariantDensityHistogram} of the project
      * If error:
      *    Updates remove status with ERROR
      *
@@ -838,6 +846,7 @@ public abstract class VariantStorageEngine extends StorageEngine<VariantDBAdapto
      */
     protected void postRemoveFiles(String study, List<Integer> fileIds, int taskId, boolean error) throws StorageEngineException {
         VariantStorageMetadataManager metadataManager = getMetadataManager();
+        Map<String, Long> removedChromosomeCount = new HashMap<>();
         metadataManager.updateStudyMetadata(study, studyMetadata -> {
             if (error) {
                 metadataManager.setStatus(studyMetadata.getId(), taskId, TaskMetadata.Status.ERROR);
@@ -875,11 +884,31 @@ public abstract class VariantStorageEngine extends StorageEngine<VariantDBAdapto
 
 
                 for (Integer fileId : fileIds) {
+                    VariantFileMetadata fileMetadata = metadataManager.getVariantFileMetadata(studyMetadata.getId(), fileId, null).first();
+                    if (fileMetadata != null && fileMetadata.getStats() != null && fileMetadata.getStats().getChromosomeCount() != null) {
+                        fileMetadata.getStats().getChromosomeCount()
+                                .forEach((chr, count) -> removedChromosomeCount.merge(chr, count, Long::sum));
+                    }
                     getDBAdaptor().getMetadataManager().removeVariantFileMetadata(studyMetadata.getId(), fileId);
                 }
             }
             return studyMetadata;
         });
+        if (!removedChromosomeCount.isEmpty()) {
+            // Subtract the variants of the removed files from the project histogram, added when they were loaded
+            metadataManager.updateProjectMetadata(projectMetadata -> {
+                VariantDensityHistogram histogram = VariantDensityHistogram.read(projectMetadata);
+                if (histogram != null) {
+                    removedChromosomeCount.forEach(histogram::remove);
+                    if (histogram.isEmpty()) {
+                        projectMetadata.getAttributes().remove(VariantDensityHistogram.ATTRIBUTE);
+                    } else {
+                        histogram.write(projectMetadata);
+                    }
+                }
+                return projectMetadata;
+            });
+        }
     }
 
     /**
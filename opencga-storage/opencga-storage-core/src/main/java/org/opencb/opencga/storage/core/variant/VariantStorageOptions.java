@@ -19,6 +19,8 @@ public enum VariantStorageOptions implements ConfigurationOption {
 
     TRANSFORM_BATCH_SIZE("transform.batchSize", 200),
     TRANSFORM_THREADS("transform.numThreads", 4),
+    TRANSFORM_DECOMPRESSION_THREADS("transform.decompression.numThreads", 4), // Threads to decompress BGZF input files
+    TRANSFORM_GVCF_PARTITIONED("transform.gvcf.partitioned", true), // Transform tabix indexed gVCF files by chromosome in parallel
     TRANSFORM_FORMAT("transform.format", "avro"),
     TRANSFORM_FAIL_ON_MALFORMED_VARIANT("transform.failOnMalformed", true),
     TRANSFORM_COMPRESSION("transform.compression", "gzip"),
@@ -62,6 +64,7 @@ public enum VariantStorageOptions implements ConfigurationOption {
     ANNOTATION_LOAD_BATCH_SIZE("annotation.load.batchSize", 100),
     ANNOTATION_LOAD_THREADS("annotation.load.numThreads", 4),
     ANNOTATION_OVERWEITE("annotation.overwrite"),
+    ANNOTATION_CACHE_DIR("annotation.cache.dir"),  // Persistent annotation cache, shared by all the projects. Disabled if empty
 
     ANNOTATOR("annotator"),
     ANNOTATOR_CLASS("annotator.class"),
@@ -70,6 +73,16 @@ public enum VariantStorageOptions implements ConfigurationOption {
     ANNOTATOR_CELLBASE_EXCLUDE("annotator.cellbase.exclude"),
     ANNOTATOR_CELLBASE_VARIANT_LENGTH_THRESHOLD("annotator.cellbase.variantLengthThreshold", 10000),
     ANNOTATOR_CELLBASE_IMPRECISE_VARIANTS("annotator.cellbase.impreciseVariants"),
+    ANNOTATOR_CELLBASE_REQUEST_TIMEOUT("annotator.cellbase.request.timeout", 60000), // millis. Timed out batches are split and retried
+    ANNOTATOR_CELLBASE_REQUEST_RETRIES("annotator.cellbase.request.retries", 3),
+    ANNOTATOR_CELLBASE_REQUEST_HEDGE("annotator.cellbase.request.hedge", true),     // Send a second request for slow responses
+
+    EXPORT_THREADS("export.numThreads", 4),              // Threads to serialize and compress variants when exporting
+    EXPORT_READ_THREADS("export.read.numThreads", 2),    // Regions read concurrently when exporting multi-region queries
+    EXPORT_INDEX("export.index", true),                  // Write a tabix index for exported VCF_GZ files
+    EXPORT_PARQUET_ROW_GROUP_SIZE("export.parquet.rowGroupSize", 128 * 1024 * 1024), // Row group size in bytes
+    EXPORT_PARQUET_PAGE_SIZE("export.parquet.pageSize", 1024 * 1024),                // Page size in bytes
+    EXPORT_PARQUET_DICTIONARY("export.parquet.dictionary", true),                    // Dictionary encoding, e.g. for genotypes
 
     INDEX_SEARCH("indexSearch", false), // Build secondary indexes using search engine.
 
@@ -85,8 +98,11 @@ public enum VariantStorageOptions implements ConfigurationOption {
     INTERSECT_ALWAYS("search.intersect.always", false),                      // Force intersect queries
     INTERSECT_PARAMS_THRESHOLD("search.intersect.params.threshold", 3),      // Minimum number of QueryParams in the query to intersect
 
+    METADATA_CACHE_MAX_SIZE("metadata.cache.maxSize", 100000), // Max number of elements in each cache of the metadata manager
+
     APPROXIMATE_COUNT_SAMPLING_SIZE("approximateCountSamplingSize", 1000),
     APPROXIMATE_COUNT("approximateCount", false),
+    APPROXIMATE_COUNT_TIME_BUDGET("approximateCountTimeBudget", 1000), // Max time in ms to read from the primary source to estimate
 
     // Do not store genotypes from the current file.
     // Not stored anymore in StudyMetadata
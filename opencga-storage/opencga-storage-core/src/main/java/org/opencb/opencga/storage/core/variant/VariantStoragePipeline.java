@@ -55,11 +55,13 @@ import org.opencb.opencga.storage.core.io.plain.StringDataReader;
 import org.opencb.opencga.storage.core.io.plain.StringDataWriter;
 import org.opencb.opencga.storage.core.metadata.VariantStorageMetadataManager;
 import org.opencb.opencga.storage.core.metadata.models.StudyMetadata;
+import org.opencb.opencga.storage.core.metadata.models.VariantDensityHistogram;
 import org.opencb.opencga.storage.core.variant.adaptors.VariantDBAdaptor;
 import org.opencb.opencga.storage.core.variant.io.VariantReaderUtils;
 import org.opencb.opencga.core.models.common.GenericRecordAvroJsonMixin;
 import org.opencb.opencga.storage.core.variant.query.VariantQueryUtils;
 import org.opencb.opencga.storage.core.variant.transform.MalformedVariantHandler;
+import org.opencb.opencga.storage.core.variant.transform.PartitionedVariantTransform;
 import org.opencb.opencga.storage.core.variant.transform.VariantTransformTask;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -69,6 +71,9 @@ import java.io.OutputStream;
 import java.io.UncheckedIOException;
 import java.net.URI;
 import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
 import java.util.concurrent.ExecutionException;
 import java.util.function.Supplier;
@@ -277,6 +282,9 @@ public abstract class VariantStoragePipeline implements StoragePipeline {
         } catch (IOException e) {
             throw StorageEngineException.ioException(e);
         }
+        stringReader.setDecompressionThreads(options.getInt(
+                VariantStorageOptions.TRANSFORM_DECOMPRESSION_THREADS.key(),
+                VariantStorageOptions.TRANSFORM_DECOMPRESSION_THREADS.defaultValue()));
         ProgressLogger progressLogger = new ProgressLogger("Transforming file:", fileSize, 200);
         stringReader.setReadBytesListener((totalRead, delta) -> progressLogger.increment(delta, "Bytes"));
 
@@ -304,14 +312,32 @@ public abstract class VariantStoragePipeline implements StoragePipeline {
                 }
             }
         }
+
+        // Stateful tasks can still run in parallel, one chromosome at a time, if the input file is indexed
+        boolean partitioned = generateReferenceBlocks && ("avro".equals(format) || "json".equals(format))
+                && options.getBoolean(VariantStorageOptions.TRANSFORM_GVCF_PARTITIONED.key(),
+                VariantStorageOptions.TRANSFORM_GVCF_PARTITIONED.defaultValue());
+        if (partitioned && (stdin || stdout || !"file".equals(input.getScheme())
+                || !PartitionedVariantTransform.isSupported(Paths.get(input)))) {
+            logger.info("Unable to transform gVCF file by partitions. Input file must be a local file with a tabix index (.tbi)");
+            partitioned = false;
+        }
+        // The stats calculator is shared by all the partitions, so it is initialized and finished by the partitioned transform
+        boolean manageStatsCalculator = !partitioned;
         Supplier<Task<String, Variant>> task = () ->
                 new VariantTransformTask(header.getKey(), header.getValue(), studyId, metadata, statsCalculator, generateReferenceBlocks,
                         normalizerConfig)
                 .setFailOnError(failOnError)
                 .addMalformedErrorHandler(malformedHandler)
-                .setIncludeSrc(false);
+                .setIncludeSrc(false)
+                .setManageStatsCalculator(manageStatsCalculator);
 
-        ParallelTaskRunner ptr;
+        Path partitionsTmpDir = "file".equals(output.getScheme())
+                ? Paths.get(output)
+                : Paths.get(System.getProperty("java.io.tmpdir"));
+
+        ParallelTaskRunner ptr = null;
+        PartitionedVariantTransform<?> partitionedTransform = null;
         if ("avro".equals(format)) {
             Supplier<Task<Variant, ByteBuffer>> encoder = () -> Task.forEach(Variant::getImpl)
                     .then(new AvroEncoder<>(VariantAvro.getClassSchema(), true));
@@ -329,7 +355,18 @@ public abstract class VariantStoragePipeline implements StoragePipeline {
                 throw StorageEngineException.ioException(e);
             }
 
-            ptr = buildTransformPtr(parallelParse, stringReader, task, encoder, dataWriter, config);
+            if (partitioned) {
+                partitionedTransform = new PartitionedVariantTransform<>(Paths.get(input), task, encoder, dataWriter,
+                        byteBuffer -> {
+                            byte[] bytes = new byte[byteBuffer.remaining()];
+                            byteBuffer.duplicate().get(bytes);
+                            return bytes;
+                        },
+                        ByteBuffer::wrap, partitionsTmpDir, numTasks, batchSize)
+                        .setSharedTask(statsCalculator);
+            } else {
+                ptr = buildTransformPtr(parallelParse, stringReader, task, encoder, dataWriter, config);
+            }
         } else if ("json".equals(format)) {
             Supplier<Task<Variant, String>> encoder = () -> Task.forEach(Variant::toJson);
 
@@ -346,7 +383,14 @@ public abstract class VariantStoragePipeline implements StoragePipeline {
                 }
             }
 
-            ptr = buildTransformPtr(parallelParse, stringReader, task, encoder, dataWriter, config);
+            if (partitioned) {
+                partitionedTransform = new PartitionedVariantTransform<>(Paths.get(input), task, encoder, dataWriter,
+                        json -> json.getBytes(StandardCharsets.UTF_8),
+                        bytes -> new String(bytes, StandardCharsets.UTF_8), partitionsTmpDir, numTasks, batchSize)
+                        .setSharedTask(statsCalculator);
+            } else {
+                ptr = buildTransformPtr(parallelParse, stringReader, task, encoder, dataWriter, config);
+            }
         } else if ("proto".equals(format)) {
             ptr = transformProto(metadata, outputVariantsFile, stringReader, task);
         } else {
@@ -355,7 +399,11 @@ public abstract class VariantStoragePipeline implements StoragePipeline {
 
         stopWatch = StopWatch.createStarted();
         try {
-            ptr.run();
+            if (partitionedTransform != null) {
+                partitionedTransform.run();
+            } else {
+                ptr.run();
+            }
         } catch (ExecutionException e) {
             throw new StorageEngineException("Error while executing TransformVariants in ParallelTaskRunner", e);
         }
@@ -617,9 +665,60 @@ public abstract class VariantStoragePipeline implements StoragePipeline {
             finalSecurePostLoad(finalFileIds, sm);
             return sm;
         });
+
+        updateVariantDensityHistogram(finalFileIds);
         return input;
     }
 
+    /**
+     * Add the number of variants per chromosome of the loaded files to the {@link VariantDensityHistogram} of the project.
+     *
+     * Variants shared between files are counted multiple times. This is acceptable, as the histogram is only
+     * used to estimate the proportion of variants in each region.
+     *
+     * @param fileIds Loaded files
+     * @throws StorageEngineException on error updating the project metadata
+     */
+    private void updateVariantDensityHistogram(List<Integer> fileIds) throws StorageEngineException {
+        VariantStorageMetadataManager metadataManager = getMetadataManager();
+        Map<String, Long> chromosomeCount = new HashMap<>();
+        for (Integer fileId : fileIds) {
+            VariantFileMetadata fileMetadata = metadataManager.getVariantFileMetadata(getStudyId(), fileId, null).first();
+            if (fileMetadata != null && fileMetadata.getStats() != null && fileMetadata.getStats().getChromosomeCount() != null) {
+                fileMetadata.getStats().getChromosomeCount().forEach((chr, count) -> chromosomeCount.merge(chr, count, Long::sum));
+            }
+        }
+        if (chromosomeCount.isEmpty()) {
+            return;
+        }
+        StudyMetadata studyMetadata = getStudyMetadata();
+        metadataManager.updateProjectMetadata(projectMetadata -> {
+            VariantDensityHistogram histogram = VariantDensityHistogram.read(projectMetadata);
+            if (histogram == null) {
+                histogram = new VariantDensityHistogram();
+            }
+            for (Map.Entry<String, Long> entry : chromosomeCount.entrySet()) {
+                histogram.add(entry.getKey(), entry.getValue(), getContigLength(studyMetadata, entry.getKey()));
+            }
+            histogram.write(projectMetadata);
+            return projectMetadata;
+        });
+    }
+
+    private static long getContigLength(StudyMetadata studyMetadata, String chromosome) {
+        VariantFileHeaderComplexLine contig = studyMetadata.getVariantHeaderLine("contig", chromosome);
+        if (contig == null) {
+            contig = studyMetadata.getVariantHeaderLine("contig", "chr" + chromosome);
+        }
+        if (contig != null && contig.getGenericFields() != null) {
+            String length = contig.getGenericFields().get("length");
+            if (StringUtils.isNotEmpty(length) && StringUtils.isNumeric(length)) {
+                return Long.parseLong(length);
+            }
+        }
+        return 0;
+    }
+
     protected void securePostLoad(List<Integer> fileIds, StudyMetadata studyMetadata) throws StorageEngineException {
     }
 
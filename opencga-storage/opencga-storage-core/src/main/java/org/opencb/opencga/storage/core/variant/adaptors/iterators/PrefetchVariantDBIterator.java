@@ -0,0 +1,222 @@
+/*
+ * Copyright 2015-2020 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencb.opencga.storage.core.variant.adaptors.iterators;
+
+import org.opencb.biodata.models.variant.Variant;
+import org.opencb.opencga.storage.core.utils.iterators.SeekableIterator;
+import org.opencb.opencga.storage.core.variant.adaptors.VariantQueryException;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Reads a sorted VariantDBIterator in background, keeping a lookahead buffer of batches.
+ *
+ * Each batch is fetched by one task of the given executor. The task is not resubmitted while the buffer is full, so
+ * the threads of the executor are never blocked waiting for the consumer, and can be shared between several iterators.
+ */
+public class PrefetchVariantDBIterator extends VariantDBIterator implements SeekableIterator<Variant> {
+
+    private final VariantDBIterator delegate;
+    private final Executor executor;
+    private final int batchSize;
+    private final int maxBufferedBatches;
+
+    private final Queue<List<Variant>> buffer = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean fetching = new AtomicBoolean(false);
+    private final Object lock = new Object();
+    private volatile boolean exhausted = false;
+    private volatile boolean closed = false;
+    private volatile RuntimeException error;
+
+    private List<Variant> batch = Collections.emptyList();
+    private int batchIdx = 0;
+    private int count = 0;
+
+    /**
+     * @param delegate           Sorted iterator to read in background
+     * @param executor           Executor to run the fetch tasks
+     * @param batchSize          Number of variants fetched by each task
+     * @param maxBufferedBatches Max number of batches fetched and not consumed
+     */
+    public PrefetchVariantDBIterator(VariantDBIterator delegate, Executor executor, int batchSize, int maxBufferedBatches) {
+        this.delegate = delegate;
+        this.executor = executor;
+        this.batchSize = Math.max(1, batchSize);
+        this.maxBufferedBatches = Math.max(1, maxBufferedBatches);
+        schedule();
+    }
+
+    @Override
+    public boolean hasNext() {
+        return nextBatchIfNeeded();
+    }
+
+    @Override
+    public Variant next() {
+        if (!nextBatchIfNeeded()) {
+            throw new NoSuchElementException();
+        }
+        count++;
+        return batch.get(batchIdx++);
+    }
+
+    @Override
+    public void seek(Variant target) {
+        while (nextBatchIfNeeded()) {
+            if (VARIANT_COMPARATOR.compare(batch.get(batch.size() - 1), target) < 0) {
+                // Skip the whole batch
+                batchIdx = batch.size();
+            } else {
+                while (VARIANT_COMPARATOR.compare(batch.get(batchIdx), target) < 0) {
+                    batchIdx++;
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Estimated number of variants per base of the iterator, from the first batch. Lower values are more selective.
+     * Blocks until the first batch is available.
+     *
+     * @return estimated density of variants
+     */
+    public double estimateDensity() {
+        if (!nextBatchIfNeeded()) {
+            return 0;
+        }
+        Variant first = batch.get(batchIdx);
+        Variant last = batch.get(batch.size() - 1);
+        int numVariants = batch.size() - batchIdx;
+        if (buffer.isEmpty() && exhausted && !fetching.get() || !first.getChromosome().equals(last.getChromosome())) {
+            // Iterator fully read, or batch spanning multiple chromosomes. Sparse iterator
+            return numVariants / (double) Integer.MAX_VALUE;
+        } else {
+            return numVariants / (double) Math.max(1, last.getStart() - first.getStart() + 1);
+        }
+    }
+
+    private boolean nextBatchIfNeeded() {
+        if (batchIdx < batch.size()) {
+            return true;
+        }
+        batch = Collections.emptyList();
+        batchIdx = 0;
+        long start = System.nanoTime();
+        try {
+            while (true) {
+                List<Variant> polled = buffer.poll();
+                if (polled != null) {
+                    schedule();
+                    batch = polled;
+                    return true;
+                }
+                if (error != null) {
+                    throw error;
+                }
+                if (exhausted && !fetching.get()) {
+                    // The buffer may have been filled just before finishing
+                    polled = buffer.poll();
+                    if (polled == null) {
+                        return false;
+                    }
+                    batch = polled;
+                    return true;
+                }
+                schedule();
+                synchronized (lock) {
+                    if (buffer.isEmpty() && fetching.get()) {
+                        lock.wait(TimeUnit.SECONDS.toMillis(1));
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw VariantQueryException.internalException(e);
+        } finally {
+            timeFetching += System.nanoTime() - start;
+        }
+    }
+
+    private void schedule() {
+        if (!exhausted && !closed && buffer.size() < maxBufferedBatches && fetching.compareAndSet(false, true)) {
+            try {
+                executor.execute(this::fetchBatch);
+            } catch (RuntimeException e) {
+                fetching.set(false);
+                throw e;
+            }
+        }
+    }
+
+    private void fetchBatch() {
+        try {
+            if (!closed) {
+                List<Variant> variants = new ArrayList<>(batchSize);
+                while (variants.size() < batchSize && delegate.hasNext()) {
+                    variants.add(delegate.next());
+                }
+                if (!variants.isEmpty()) {
+                    buffer.add(variants);
+                }
+                if (variants.size() < batchSize) {
+                    exhausted = true;
+                }
+            }
+        } catch (RuntimeException e) {
+            error = e;
+            exhausted = true;
+        } finally {
+            synchronized (lock) {
+                fetching.set(false);
+                lock.notifyAll();
+            }
+        }
+        schedule();
+    }
+
+    @Override
+    public int getCount() {
+        return count;
+    }
+
+    @Override
+    public long getTimeConverting() {
+        return delegate.getTimeConverting();
+    }
+
+    @Override
+    public void close() throws Exception {
+        closed = true;
+        // Wait for the running fetch task, if any, before closing the delegated iterator
+        synchronized (lock) {
+            while (fetching.get()) {
+                lock.wait(TimeUnit.SECONDS.toMillis(1));
+            }
+        }
+        buffer.clear();
+        try {
+            delegate.close();
+        } finally {
+            super.close();
+        }
+    }
+}
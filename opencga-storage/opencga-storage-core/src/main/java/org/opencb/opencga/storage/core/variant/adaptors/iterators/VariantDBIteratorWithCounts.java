@@ -11,6 +11,7 @@ public class VariantDBIteratorWithCounts extends DelegatedVariantDBIterator {
 
     private final LinkedHashMap<String, Integer> chrCount;
     private String chromosome;
+    private int position;
 
     public VariantDBIteratorWithCounts(VariantDBIterator iterator) {
         super(iterator);
@@ -21,6 +22,7 @@ public class VariantDBIteratorWithCounts extends DelegatedVariantDBIterator {
     public Variant next() {
         Variant next = super.next();
         chromosome = next.getChromosome();
+        position = next.getStart();
         chrCount.merge(chromosome, 1, Integer::sum);
         return next;
     }
@@ -44,4 +46,8 @@ public class VariantDBIteratorWithCounts extends DelegatedVariantDBIterator {
     public String getCurrentChromosome() {
         return chromosome;
     }
+
+    public int getCurrentPosition() {
+        return position;
+    }
 }
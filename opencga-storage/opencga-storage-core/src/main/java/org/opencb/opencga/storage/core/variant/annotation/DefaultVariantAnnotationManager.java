@@ -44,6 +44,7 @@ import org.opencb.opencga.storage.core.exceptions.StorageEngineException;
 import org.opencb.opencga.storage.core.io.managers.IOConnectorProvider;
 import org.opencb.opencga.storage.core.metadata.VariantStorageMetadataManager;
 import org.opencb.opencga.storage.core.metadata.models.FileMetadata;
+import org.opencb.opencga.storage.core.metadata.models.ProjectMetadata;
 import org.opencb.opencga.storage.core.metadata.models.TaskMetadata;
 import org.opencb.opencga.storage.core.variant.VariantStorageOptions;
 import org.opencb.opencga.storage.core.variant.adaptors.VariantDBAdaptor;
@@ -237,13 +238,15 @@ public class DefaultVariantAnnotationManager extends VariantAnnotationManager {
                     }
                 }, 200);
             }
+            VariantAnnotationCache cache = openAnnotationCache(params);
             Task<Variant, VariantAnnotation> annotationTask = variantList -> {
                 List<VariantAnnotation> variantAnnotationList;
                 long start = System.currentTimeMillis();
                 logger.debug("Annotating batch of {} genomic variants.", variantList.size());
-                variantAnnotationList = variantAnnotator.annotate(variantList);
+                variantAnnotationList = annotate(variantList, cache);
                 progressLogger.increment(variantList.size(),
-                        () -> ", up to position " + variantList.get(variantList.size() - 1).toString());
+                        () -> ", up to position " + variantList.get(variantList.size() - 1).toString()
+                                + (cache == null ? "" : ". Annotation cache " + cache));
                 numAnnotationsToLoad.addAndGet(variantList.size());
 
                 logger.debug("Annotated batch of {} genomic variants. Time: {}s", variantList.size(),
@@ -271,7 +274,14 @@ public class DefaultVariantAnnotationManager extends VariantAnnotationManager {
                     .setSorted(false).build();
             ParallelTaskRunner<Variant, VariantAnnotation> parallelTaskRunner =
                     new ParallelTaskRunner<>(variantDataReader, annotationTask, variantAnnotationDataWriter, config);
-            parallelTaskRunner.run();
+            try {
+                parallelTaskRunner.run();
+            } finally {
+                if (cache != null) {
+                    logger.info("Annotation cache {}", cache);
+                    cache.close();
+                }
+            }
         } catch (ExecutionException e) {
             throw new VariantAnnotatorException("Error creating annotations", e);
         }
@@ -279,6 +289,87 @@ public class DefaultVariantAnnotationManager extends VariantAnnotationManager {
         return fileUri;
     }
 
+    /**
+     * Annotate the variants missing in the annotation cache, if any.
+     *
+     * Annotations are returned in the order of the input variants. Annotations from the annotator that can not be matched
+     * with any input variant are added at the end.
+     *
+     * @param variants Variants to annotate
+     * @param cache    Annotation cache. May be null
+     * @return Variant annotations
+     * @throws VariantAnnotatorException if the annotator fails
+     */
+    protected List<VariantAnnotation> annotate(List<Variant> variants, VariantAnnotationCache cache) throws VariantAnnotatorException {
+        if (cache == null) {
+            return variantAnnotator.annotate(variants);
+        }
+        List<VariantAnnotation> cachedAnnotations = cache.get(variants);
+        List<Variant> missingVariants = new ArrayList<>();
+        for (int i = 0; i < variants.size(); i++) {
+            if (cachedAnnotations.get(i) == null) {
+                missingVariants.add(variants.get(i));
+            }
+        }
+        if (missingVariants.isEmpty()) {
+            return cachedAnnotations;
+        }
+        List<VariantAnnotation> newAnnotations = variantAnnotator.annotate(missingVariants);
+        cache.put(newAnnotations);
+
+        Map<String, VariantAnnotation> newAnnotationsById = new LinkedHashMap<>();
+        for (VariantAnnotation annotation : newAnnotations) {
+            newAnnotationsById.putIfAbsent(VariantAnnotationCache.getVariantId(annotation), annotation);
+        }
+        List<VariantAnnotation> variantAnnotationList = new ArrayList<>(variants.size());
+        for (int i = 0; i < variants.size(); i++) {
+            VariantAnnotation annotation = cachedAnnotations.get(i);
+            if (annotation == null) {
+                annotation = newAnnotationsById.remove(variants.get(i).toString());
+            }
+            if (annotation != null) {
+                variantAnnotationList.add(annotation);
+            }
+        }
+        variantAnnotationList.addAll(newAnnotationsById.values());
+        return variantAnnotationList;
+    }
+
+    /**
+     * Open the persistent annotation cache, if configured with {@link VariantStorageOptions#ANNOTATION_CACHE_DIR}.
+     * The cache is shared by all the projects using the same annotator, species and assembly.
+     *
+     * @param params Annotation params
+     * @return the annotation cache, or null if not configured or not available
+     */
+    protected VariantAnnotationCache openAnnotationCache(ObjectMap params) {
+        String cacheDir = params.getString(VariantStorageOptions.ANNOTATION_CACHE_DIR.key());
+        if (StringUtils.isEmpty(cacheDir)) {
+            return null;
+        }
+        try {
+            ProjectMetadata.VariantAnnotatorProgram program = variantAnnotator.getVariantAnnotatorProgram();
+            if (program == null) {
+                logger.warn("Unknown annotator program. Skip annotation cache");
+                return null;
+            }
+            ObjectMap annotatorParams = new ObjectMap();
+            for (VariantStorageOptions option : Arrays.asList(
+                    VariantStorageOptions.ANNOTATOR_CELLBASE_INCLUDE,
+                    VariantStorageOptions.ANNOTATOR_CELLBASE_EXCLUDE)) {
+                if (params.containsKey(option.key())) {
+                    annotatorParams.put(option.key(), params.getString(option.key()));
+                }
+            }
+            byte[] namespace = VariantAnnotationCache.buildNamespace(program, variantAnnotator.getVariantAnnotatorSourceVersion(),
+                    dbAdaptor.getMetadataManager().getProjectMetadata(), annotatorParams);
+            return VariantAnnotationCache.open(Paths.get(cacheDir), namespace);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Unable to open annotation cache at '" + cacheDir + "'. Annotate without cache", e);
+            return null;
+        }
+    }
+
     protected DataReader<Variant> getVariantDataReader(Query query, QueryOptions iteratorQueryOptions, ObjectMap params) {
         return new VariantDBReader(dbAdaptor, query, iteratorQueryOptions);
     }
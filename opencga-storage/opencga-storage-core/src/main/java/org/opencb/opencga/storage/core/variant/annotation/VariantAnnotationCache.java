@@ -0,0 +1,306 @@
+/*
+ * Copyright 2015-2020 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencb.opencga.storage.core.variant.annotation;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.apache.avro.SchemaNormalization;
+import org.opencb.biodata.models.variant.Variant;
+import org.opencb.biodata.models.variant.avro.AdditionalAttribute;
+import org.opencb.biodata.models.variant.avro.VariantAnnotation;
+import org.opencb.commons.datastore.core.ObjectMap;
+import org.opencb.opencga.storage.core.metadata.models.ProjectMetadata;
+import org.opencb.opencga.storage.core.variant.io.json.mixin.VariantAnnotationMixin;
+import org.rocksdb.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.opencb.opencga.storage.core.variant.adaptors.VariantField.AdditionalAttributes.GROUP_NAME;
+import static org.opencb.opencga.storage.core.variant.adaptors.VariantField.AdditionalAttributes.VARIANT_ID;
+
+/**
+ * Persistent variant annotation cache, backed by an embedded RocksDB.
+ *
+ * Annotations are stored as JSON by normalized variant, within a namespace derived from the annotator program, the annotator
+ * source versions, the species, the assembly and the {@link VariantAnnotation} schema. Projects sharing the same cache
+ * directory and the same annotator reuse their annotations, while any change in the annotator uses a new namespace.
+ *
+ * The same directory can be opened by several annotations in the same JVM. RocksDB does not allow opening the same
+ * database from different processes.
+ */
+public class VariantAnnotationCache implements AutoCloseable {
+
+    private static final int NAMESPACE_SIZE = 16;
+    private static final Map<Path, Store> OPEN_STORES = new HashMap<>();
+    private static final ObjectWriter WRITER;
+    private static final ObjectReader READER;
+    private static Logger logger = LoggerFactory.getLogger(VariantAnnotationCache.class);
+
+    static {
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.addMixIn(VariantAnnotation.class, VariantAnnotationMixin.class);
+        objectMapper.configure(MapperFeature.REQUIRE_SETTERS_FOR_GETTERS, true);
+        WRITER = objectMapper.writerFor(VariantAnnotation.class);
+        READER = objectMapper.readerFor(VariantAnnotation.class);
+    }
+
+    private final Store store;
+    private final byte[] namespace;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private boolean closed = false;
+
+    private VariantAnnotationCache(Store store, byte[] namespace) {
+        this.store = store;
+        this.namespace = namespace;
+    }
+
+    /**
+     * Open the cache stored at the given directory.
+     *
+     * @param dir       Cache directory
+     * @param namespace Cache namespace. See {@link #buildNamespace}
+     * @return the annotation cache
+     * @throws IOException if the cache can not be opened
+     */
+    public static VariantAnnotationCache open(Path dir, byte[] namespace) throws IOException {
+        Path path = dir.toAbsolutePath().normalize();
+        Store store;
+        synchronized (OPEN_STORES) {
+            store = OPEN_STORES.get(path);
+            if (store == null) {
+                store = new Store(path);
+                OPEN_STORES.put(path, store);
+            }
+            store.references++;
+        }
+        return new VariantAnnotationCache(store, namespace);
+    }
+
+    /**
+     * Build the namespace for the annotations generated by an annotator.
+     *
+     * @param program         Annotator program
+     * @param sourceVersions  Annotator source versions
+     * @param projectMetadata Project metadata, with the species and assembly
+     * @param params          Other params that modify the generated annotations
+     * @return namespace
+     */
+    public static byte[] buildNamespace(ProjectMetadata.VariantAnnotatorProgram program, List<ObjectMap> sourceVersions,
+                                        ProjectMetadata projectMetadata, ObjectMap params) {
+        StringBuilder sb = new StringBuilder()
+                .append(program.getName()).append('\n')
+                .append(program.getVersion()).append('\n')
+                .append(program.getCommit()).append('\n')
+                .append(projectMetadata.getSpecies()).append('\n')
+                .append(projectMetadata.getAssembly()).append('\n')
+                .append(SchemaNormalization.parsingFingerprint64(VariantAnnotation.getClassSchema())).append('\n');
+        if (sourceVersions != null) {
+            for (ObjectMap sourceVersion : sourceVersions) {
+                sb.append(new TreeMap<>(sourceVersion)).append('\n');
+            }
+        }
+        if (params != null) {
+            sb.append(new TreeMap<>(params));
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(sb.toString().getBytes(StandardCharsets.UTF_8));
+            return Arrays.copyOf(digest, NAMESPACE_SIZE);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Get the cached annotations of the given variants.
+     *
+     * @param variants Variants
+     * @return List of the same size as the input, with the cached annotation or null for each variant
+     */
+    public List<VariantAnnotation> get(List<Variant> variants) {
+        List<byte[]> keys = new ArrayList<>(variants.size());
+        for (Variant variant : variants) {
+            keys.add(buildKey(variant.toString()));
+        }
+        Map<byte[], byte[]> values;
+        try {
+            values = store.db.multiGet(keys);
+        } catch (RocksDBException e) {
+            logger.warn("Error reading from the annotation cache", e);
+            values = Collections.emptyMap();
+        }
+        List<VariantAnnotation> annotations = new ArrayList<>(variants.size());
+        int batchHits = 0;
+        for (byte[] key : keys) {
+            // RocksDB returns the same key instances
+            byte[] value = values.get(key);
+            VariantAnnotation annotation = value == null ? null : deserialize(value);
+            if (annotation != null) {
+                batchHits++;
+            }
+            annotations.add(annotation);
+        }
+        hits.addAndGet(batchHits);
+        misses.addAndGet(variants.size() - batchHits);
+        return annotations;
+    }
+
+    /**
+     * Store new annotations in the cache.
+     *
+     * @param annotations Annotations generated by the annotator
+     */
+    public void put(List<VariantAnnotation> annotations) {
+        if (annotations.isEmpty()) {
+            return;
+        }
+        try (WriteBatch batch = new WriteBatch()) {
+            for (VariantAnnotation annotation : annotations) {
+                batch.put(buildKey(getVariantId(annotation)), serialize(annotation));
+            }
+            store.db.write(store.writeOptions, batch);
+        } catch (RocksDBException e) {
+            logger.warn("Error writing into the annotation cache", e);
+        }
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public double getHitRate() {
+        long total = hits.get() + misses.get();
+        return total == 0 ? 0 : ((double) hits.get()) / total;
+    }
+
+    @Override
+    public void close() {
+        synchronized (OPEN_STORES) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (--store.references == 0) {
+                OPEN_STORES.remove(store.path);
+                store.close();
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("hits: %d, misses: %d, hit rate: %.2f%%", hits.get(), misses.get(), getHitRate() * 100);
+    }
+
+    private byte[] buildKey(String variantId) {
+        byte[] id = variantId.getBytes(StandardCharsets.UTF_8);
+        byte[] key = Arrays.copyOf(namespace, namespace.length + id.length);
+        System.arraycopy(id, 0, key, namespace.length, id.length);
+        return key;
+    }
+
+    /**
+     * Get the normalized variant of an annotation. Structural variants store the original variant id as an additional
+     * attribute, as the annotation does not contain the structural variant information.
+     *
+     * @param annotation Variant annotation
+     * @return Variant id, as returned by {@link Variant#toString()}
+     */
+    static String getVariantId(VariantAnnotation annotation) {
+        if (annotation.getAdditionalAttributes() != null) {
+            AdditionalAttribute attribute = annotation.getAdditionalAttributes().get(GROUP_NAME.key());
+            if (attribute != null && attribute.getAttribute().containsKey(VARIANT_ID.key())) {
+                return attribute.getAttribute().get(VARIANT_ID.key());
+            }
+        }
+        return new Variant(annotation.getChromosome(), annotation.getStart(), annotation.getReference(), annotation.getAlternate())
+                .toString();
+    }
+
+    private static byte[] serialize(VariantAnnotation annotation) {
+        try {
+            return WRITER.writeValueAsBytes(annotation);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unable to serialize annotation of variant " + getVariantId(annotation), e);
+        }
+    }
+
+    private static VariantAnnotation deserialize(byte[] value) {
+        try {
+            return READER.readValue(value);
+        } catch (IOException e) {
+            // Corrupted entry. Annotate again
+            logger.debug("Unable to read annotation from cache", e);
+            return null;
+        }
+    }
+
+    private static final class Store {
+        private final Path path;
+        private final Options options;
+        private final WriteOptions writeOptions;
+        private final RocksDB db;
+        private int references = 0;
+
+        Store(Path path) throws IOException {
+            RocksDB.loadLibrary();
+            this.path = path;
+            Files.createDirectories(path);
+            options = new Options()
+                    .setCreateIfMissing(true)
+                    .setCompressionType(CompressionType.LZ4_COMPRESSION);
+            // Lost entries are annotated again. Skip the write ahead log
+            writeOptions = new WriteOptions().setDisableWAL(true);
+            try {
+                db = RocksDB.open(options, path.toString());
+            } catch (RocksDBException e) {
+                writeOptions.close();
+                options.close();
+                throw new IOException("Unable to open annotation cache at " + path, e);
+            }
+            logger.info("Open annotation cache at {}", path);
+        }
+
+        void close() {
+            try (FlushOptions flushOptions = new FlushOptions().setWaitForFlush(true)) {
+                db.flush(flushOptions);
+            } catch (RocksDBException e) {
+                logger.warn("Error flushing annotation cache at " + path, e);
+            } finally {
+                db.close();
+                writeOptions.close();
+                options.close();
+            }
+        }
+    }
+}
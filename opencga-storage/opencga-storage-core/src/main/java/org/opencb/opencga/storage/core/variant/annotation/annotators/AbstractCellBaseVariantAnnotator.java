@@ -55,6 +55,8 @@ public abstract class AbstractCellBaseVariantAnnotator extends VariantAnnotator
     protected final QueryOptions queryOptions;
     protected final boolean impreciseVariants;
     protected final int variantLengthThreshold;
+    protected final int requestTimeout;
+    protected final AdaptiveRequestExecutor<Variant, QueryResult<VariantAnnotation>> requestExecutor;
 
     public AbstractCellBaseVariantAnnotator(StorageConfiguration storageConfiguration, ProjectMetadata projectMetadata, ObjectMap params)
             throws VariantAnnotatorException {
@@ -78,6 +80,21 @@ public abstract class AbstractCellBaseVariantAnnotator extends VariantAnnotator
                 VariantStorageOptions.ANNOTATOR_CELLBASE_VARIANT_LENGTH_THRESHOLD.key(),
                 VariantStorageOptions.ANNOTATOR_CELLBASE_VARIANT_LENGTH_THRESHOLD.defaultValue());
         impreciseVariants = params.getBoolean(VariantStorageOptions.ANNOTATOR_CELLBASE_IMPRECISE_VARIANTS.key(), true);
+        requestTimeout = params.getInt(
+                VariantStorageOptions.ANNOTATOR_CELLBASE_REQUEST_TIMEOUT.key(),
+                VariantStorageOptions.ANNOTATOR_CELLBASE_REQUEST_TIMEOUT.defaultValue());
+        // Requests from all the annotation threads share the same in-flight limit
+        requestExecutor = new AdaptiveRequestExecutor<>(this::annotateFiltered,
+                params.getInt(
+                        VariantStorageOptions.ANNOTATION_THREADS.key(),
+                        VariantStorageOptions.ANNOTATION_THREADS.defaultValue()),
+                requestTimeout,
+                params.getInt(
+                        VariantStorageOptions.ANNOTATOR_CELLBASE_REQUEST_RETRIES.key(),
+                        VariantStorageOptions.ANNOTATOR_CELLBASE_REQUEST_RETRIES.defaultValue()),
+                params.getBoolean(
+                        VariantStorageOptions.ANNOTATOR_CELLBASE_REQUEST_HEDGE.key(),
+                        VariantStorageOptions.ANNOTATOR_CELLBASE_REQUEST_HEDGE.defaultValue()));
 
         checkNotNull(cellbaseVersion, "cellbase version");
         checkNotNull(species, "species");
@@ -104,11 +121,22 @@ public abstract class AbstractCellBaseVariantAnnotator extends VariantAnnotator
     public final List<VariantAnnotation> annotate(List<Variant> variants) throws VariantAnnotatorException {
         List<Variant> nonStructuralVariations = filterStructuralVariants(variants);
         StopWatch stopWatch = StopWatch.createStarted();
-        List<QueryResult<VariantAnnotation>> queryResults = annotateFiltered(nonStructuralVariations);
+        List<QueryResult<VariantAnnotation>> queryResults;
+        try {
+            queryResults = requestExecutor.execute(nonStructuralVariations);
+        } catch (VariantAnnotatorException e) {
+            throw e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new VariantAnnotatorException("Interrupted annotating variants", e);
+        } catch (Exception e) {
+            throw new VariantAnnotatorException("Error annotating variants", e);
+        }
         stopWatch.stop();
         if (stopWatch.getTime(TimeUnit.SECONDS) > SLOW_CELLBASE_SECONDS) {
             logger.warn("Slow annotation from CellBase."
-                    + " Annotating " + variants.size() + " variants took " + TimeUtils.durationToString(stopWatch));
+                    + " Annotating " + variants.size() + " variants took " + TimeUtils.durationToString(stopWatch)
+                    + ". Annotation requests: " + requestExecutor);
         }
         return getVariantAnnotationList(nonStructuralVariations, queryResults);
     }
@@ -196,4 +224,10 @@ public abstract class AbstractCellBaseVariantAnnotator extends VariantAnnotator
                 + "Expected '" + expected + "', " + "but got '" + actual + "'.");
     }
 
+    @Override
+    public void close() {
+        logger.info("Annotation requests: {}", requestExecutor);
+        requestExecutor.close();
+    }
+
 }
@@ -0,0 +1,317 @@
+/*
+ * Copyright 2015-2020 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencb.opencga.storage.core.variant.annotation.annotators;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Execute batched requests against a remote service, adapting the number of concurrent requests to the observed latency.
+ *
+ * <ul>
+ *     <li>The number of requests in flight is limited following an AIMD (additive increase, multiplicative decrease)
+ *     policy. The limit grows while the latency per element is stable, and is halved on latency spikes, timeouts and
+ *     failures. Callers block until there is room for a new request.</li>
+ *     <li>Requests slower than the expected latency are hedged: a second identical request is sent if the limit allows
+ *     it, and the first response is used.</li>
+ *     <li>Timed out batches are split in two halves and retried. Failed batches are retried with an exponential
+ *     backoff.</li>
+ * </ul>
+ *
+ * Results of split batches are concatenated in order, so the request must return the results in the same order as
+ * the input elements.
+ *
+ * Requests run in a bounded pool of threads, that must be released with {@link #close()}. Requests abandoned after a
+ * timeout or a faster hedged response are interrupted, but may keep a thread busy until the underlying client times out,
+ * so the request should have its own socket timeouts.
+ *
+ * @param <T> Type of the request elements
+ * @param <R> Type of the results
+ */
+public class AdaptiveRequestExecutor<T, R> implements AutoCloseable {
+
+    private static final int MIN_LIMIT = 1;
+    private static final double DECREASE_RATIO = 0.5;
+    private static final double LATENCY_TOLERANCE = 2.0;
+    private static final double EWMA_ALPHA = 0.2;
+    private static final long MIN_HEDGE_DELAY_MILLIS = 100;
+    private static final long RETRY_BACKOFF_MILLIS = 1000;
+    private static final long METRICS_LOG_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    private static final long THREAD_KEEP_ALIVE_SECONDS = 60;
+
+    private static Logger logger = LoggerFactory.getLogger(AdaptiveRequestExecutor.class);
+
+    private final Request<T, R> request;
+    private final int maxLimit;
+    private final long timeoutMillis;
+    private final int maxRetries;
+    private final boolean hedge;
+    private final ThreadPoolExecutor executor;
+
+    // Guarded by this
+    private double limit;
+    private int inFlight = 0;
+    private double latencyPerElement = -1;
+
+    private final long startTime = System.currentTimeMillis();
+    private final AtomicLong lastMetricsLog = new AtomicLong(startTime);
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong elements = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong splits = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong hedges = new AtomicLong();
+    private final AtomicLong hedgesWon = new AtomicLong();
+
+    @FunctionalInterface
+    public interface Request<T, R> {
+        List<R> call(List<T> batch) throws Exception;
+    }
+
+    /**
+     * @param request       Request to execute
+     * @param maxLimit      Max number of requests in flight
+     * @param timeoutMillis Timeout of each request
+     * @param maxRetries    Max number of retries for each batch
+     * @param hedge         Send hedged requests for slow responses
+     */
+    public AdaptiveRequestExecutor(Request<T, R> request, int maxLimit, long timeoutMillis, int maxRetries, boolean hedge) {
+        this.request = request;
+        this.maxLimit = Math.max(MIN_LIMIT, maxLimit);
+        this.timeoutMillis = timeoutMillis;
+        this.maxRetries = Math.max(0, maxRetries);
+        this.hedge = hedge;
+        this.limit = this.maxLimit;
+        // Room for the requests in flight, plus the abandoned requests that did not finish yet
+        int maxThreads = this.maxLimit * 2;
+        this.executor = new ThreadPoolExecutor(maxThreads, maxThreads, THREAD_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                new ThreadFactoryBuilder()
+                        .setNameFormat("adaptive-request-%d")
+                        .setDaemon(true)
+                        .build());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Execute the request for the given batch.
+     *
+     * @param batch Elements of the request
+     * @return Results of the request
+     * @throws Exception if the request fails after all the retries
+     */
+    public List<R> execute(List<T> batch) throws Exception {
+        if (batch.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<R> results = execute(batch, 0);
+        elements.addAndGet(batch.size());
+        logMetrics();
+        return results;
+    }
+
+    private List<R> execute(List<T> batch, int attempt) throws Exception {
+        try {
+            return executeHedged(batch);
+        } catch (TimeoutException | ExecutionException e) {
+            Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+            if (attempt >= maxRetries) {
+                throw cause instanceof Exception ? (Exception) cause : new ExecutionException(cause);
+            }
+            retries.incrementAndGet();
+            if (e instanceof TimeoutException && batch.size() > 1) {
+                splits.incrementAndGet();
+                int half = batch.size() / 2;
+                logger.warn("Request of {} elements timed out after {}ms. Retry split in two batches", batch.size(), timeoutMillis);
+                List<R> results = new ArrayList<>(execute(batch.subList(0, half), attempt + 1));
+                results.addAll(execute(batch.subList(half, batch.size()), attempt + 1));
+                return results;
+            } else {
+                long backoff = RETRY_BACKOFF_MILLIS << attempt;
+                logger.warn("Request of {} elements failed: {}. Retry {}/{} in {}ms",
+                        batch.size(), cause.getMessage(), attempt + 1, maxRetries, backoff);
+                Thread.sleep(backoff);
+                return execute(batch, attempt + 1);
+            }
+        }
+    }
+
+    private List<R> executeHedged(List<T> batch) throws InterruptedException, TimeoutException, ExecutionException {
+        acquire();
+        int permits = 1;
+        CompletionService<List<R>> completionService = new ExecutorCompletionService<>(executor);
+        List<Future<List<R>>> futures = new ArrayList<>(2);
+        long start = System.currentTimeMillis();
+        try {
+            futures.add(completionService.submit(() -> request.call(batch)));
+            requests.incrementAndGet();
+            long hedgeDelay = hedge ? getHedgeDelay(batch.size()) : -1;
+            boolean hedgePending = hedgeDelay > 0 && hedgeDelay < timeoutMillis;
+            ExecutionException failure = null;
+            int completed = 0;
+            while (completed < futures.size()) {
+                long elapsed = System.currentTimeMillis() - start;
+                long wait = (hedgePending ? hedgeDelay : timeoutMillis) - elapsed;
+                Future<List<R>> future = completionService.poll(Math.max(0, wait), TimeUnit.MILLISECONDS);
+                if (future == null) {
+                    if (hedgePending) {
+                        hedgePending = false;
+                        if (tryAcquire()) {
+                            permits++;
+                            hedges.incrementAndGet();
+                            requests.incrementAndGet();
+                            futures.add(completionService.submit(() -> request.call(batch)));
+                        }
+                        continue;
+                    }
+                    timeouts.incrementAndGet();
+                    onFailure();
+                    throw new TimeoutException("Request of " + batch.size() + " elements timed out after " + timeoutMillis + "ms");
+                }
+                completed++;
+                try {
+                    List<R> results = future.get();
+                    if (future != futures.get(0)) {
+                        hedgesWon.incrementAndGet();
+                    }
+                    onSuccess(System.currentTimeMillis() - start, batch.size());
+                    return results;
+                } catch (ExecutionException e) {
+                    // Wait for the hedged request, if any
+                    failure = e;
+                }
+            }
+            onFailure();
+            throw failure;
+        } finally {
+            for (Future<List<R>> future : futures) {
+                future.cancel(true);
+            }
+            release(permits);
+        }
+    }
+
+    private synchronized void acquire() throws InterruptedException {
+        while (inFlight >= getCurrentLimit()) {
+            wait();
+        }
+        inFlight++;
+    }
+
+    private synchronized boolean tryAcquire() {
+        if (inFlight < getCurrentLimit()) {
+            inFlight++;
+            return true;
+        } else {
+            return false;
+        }
+    }
+
+    private synchronized void release(int permits) {
+        inFlight -= permits;
+        notifyAll();
+    }
+
+    private synchronized long getHedgeDelay(int size) {
+        if (latencyPerElement < 0) {
+            return -1;
+        }
+        return Math.max(MIN_HEDGE_DELAY_MILLIS, (long) (latencyPerElement * size * LATENCY_TOLERANCE));
+    }
+
+    private synchronized void onSuccess(long latency, int size) {
+        double newLatencyPerElement = ((double) latency) / size;
+        if (latencyPerElement < 0) {
+            latencyPerElement = newLatencyPerElement;
+        }
+        boolean congested = newLatencyPerElement > latencyPerElement * LATENCY_TOLERANCE;
+        latencyPerElement += EWMA_ALPHA * (newLatencyPerElement - latencyPerElement);
+        if (congested) {
+            limit = Math.max(MIN_LIMIT, limit * DECREASE_RATIO);
+        } else {
+            limit = Math.min(maxLimit, limit + 1.0 / limit);
+            notifyAll();
+        }
+    }
+
+    private synchronized void onFailure() {
+        limit = Math.max(MIN_LIMIT, limit * DECREASE_RATIO);
+    }
+
+    private synchronized int getCurrentLimit() {
+        return Math.max(MIN_LIMIT, (int) limit);
+    }
+
+    public synchronized double getLimit() {
+        return limit;
+    }
+
+    public long getRequests() {
+        return requests.get();
+    }
+
+    public long getRetries() {
+        return retries.get();
+    }
+
+    public long getSplits() {
+        return splits.get();
+    }
+
+    public long getHedges() {
+        return hedges.get();
+    }
+
+    /**
+     * @return Number of elements processed per second
+     */
+    public double getThroughput() {
+        long elapsed = System.currentTimeMillis() - startTime;
+        return elapsed == 0 ? 0 : elements.get() * 1000.0 / elapsed;
+    }
+
+    private void logMetrics() {
+        long last = lastMetricsLog.get();
+        long now = System.currentTimeMillis();
+        if (now - last > METRICS_LOG_INTERVAL_MILLIS && lastMetricsLog.compareAndSet(last, now)) {
+            logger.info("Annotation requests: {}", this);
+        }
+    }
+
+    /**
+     * Stop the threads of the pool. Requests still running are interrupted.
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("requests: %d, elements: %d, throughput: %.1f elements/s, in-flight limit: %.1f, retries: %d, "
+                        + "split batches: %d, timeouts: %d, hedged requests: %d (%d faster)",
+                requests.get(), elements.get(), getThroughput(), getLimit(), retries.get(),
+                splits.get(), timeouts.get(), hedges.get(), hedgesWon.get());
+    }
+}
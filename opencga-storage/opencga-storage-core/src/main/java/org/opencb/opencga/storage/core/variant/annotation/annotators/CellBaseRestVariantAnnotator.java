@@ -40,8 +40,6 @@ import java.util.stream.Collectors;
  * @author Jacobo Coll &lt;jacobo167@gmail.com&gt;
  */
 public class CellBaseRestVariantAnnotator extends AbstractCellBaseVariantAnnotator {
-    private static final int TIMEOUT = 10000;
-
     private final CellBaseClient cellBaseClient;
     private final Function<Variant, String> variantSerializer;
 
@@ -57,7 +55,8 @@ public class CellBaseRestVariantAnnotator extends AbstractCellBaseVariantAnnotat
         String cellbaseRest = hosts.get(0);
         checkNotNull(cellbaseRest, "cellbase hosts");
         ClientConfiguration clientConfiguration = storageConfiguration.getCellbase().toClientConfiguration();
-        clientConfiguration.getRest().setTimeout(TIMEOUT);
+        // Socket timeouts of the client, so requests abandoned by the request executor do not hang forever
+        clientConfiguration.getRest().setTimeout(requestTimeout);
         cellBaseClient = new CellBaseClient(species, assembly, clientConfiguration);
 
         logger.info("Annotating with Cellbase REST. host '{}', version '{}', species '{}', assembly '{}'",
@@ -18,6 +18,10 @@ package org.opencb.opencga.storage.core.variant.io;
 
 import com.fasterxml.jackson.databind.MapperFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import htsjdk.samtools.util.BlockCompressedOutputStream;
+import htsjdk.tribble.index.Index;
+import htsjdk.tribble.util.LittleEndianOutputStream;
+import htsjdk.variant.vcf.VCFHeader;
 import org.opencb.biodata.formats.variant.vcf4.io.VariantVcfReader;
 import org.opencb.biodata.models.metadata.Individual;
 import org.opencb.biodata.models.variant.Variant;
@@ -27,6 +31,7 @@ import org.opencb.biodata.models.variant.metadata.VariantStudyMetadata;
 import org.opencb.commons.ProgressLogger;
 import org.opencb.commons.datastore.core.Query;
 import org.opencb.commons.datastore.core.QueryOptions;
+import org.opencb.commons.io.DataReader;
 import org.opencb.commons.io.DataWriter;
 import org.opencb.commons.run.ParallelTaskRunner;
 import org.opencb.commons.run.Task;
@@ -35,7 +40,9 @@ import org.opencb.opencga.storage.core.exceptions.StorageEngineException;
 import org.opencb.opencga.storage.core.io.managers.IOConnectorProvider;
 import org.opencb.opencga.storage.core.metadata.VariantMetadataFactory;
 import org.opencb.opencga.storage.core.variant.VariantStorageEngine;
+import org.opencb.opencga.storage.core.variant.VariantStorageOptions;
 import org.opencb.opencga.storage.core.variant.io.VariantWriterFactory.VariantOutputFormat;
+import org.opencb.opencga.storage.core.variant.io.db.RegionPartitionedVariantDBReader;
 import org.opencb.opencga.storage.core.variant.io.db.VariantDBReader;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -45,6 +52,7 @@ import java.io.*;
 import java.net.URI;
 import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 
@@ -61,6 +69,7 @@ public class VariantExporter {
     public static final String METADATA_FILE_EXTENSION = ".meta.json.gz";
     public static final String TPED_FILE_EXTENSION = ".tped";
     public static final String TFAM_FILE_EXTENSION = ".tfam";
+    public static final String TABIX_INDEX_EXTENSION = ".tbi";
     protected final VariantStorageEngine engine;
     protected final VariantWriterFactory variantWriterFactory;
     protected final VariantMetadataFactory metadataFactory;
@@ -75,7 +84,7 @@ public class VariantExporter {
     public VariantExporter(VariantStorageEngine engine, VariantMetadataFactory metadataFactory, IOConnectorProvider ioConnectorProvider)
             throws StorageEngineException {
         this.engine = engine;
-        variantWriterFactory = new VariantWriterFactory(engine.getDBAdaptor());
+        variantWriterFactory = new VariantWriterFactory(engine.getDBAdaptor(), engine.getOptions());
         this.metadataFactory = metadataFactory;
         this.ioConnectorProvider = ioConnectorProvider;
     }
@@ -99,9 +108,15 @@ public class VariantExporter {
             ioConnectorProvider.checkWritable(outputFile);
         }
 
-        try (OutputStream os = VariantWriterFactory.getOutputStream(outputFile, outputFormat, ioConnectorProvider)) {
+        int numThreads = getInt(queryOptions, VariantStorageOptions.EXPORT_THREADS);
+        URI indexFile = null;
+        if (outputFormat == VariantOutputFormat.VCF_GZ && !VariantWriterFactory.isStandardOutput(outputFile)
+                && getBoolean(queryOptions, VariantStorageOptions.EXPORT_INDEX)) {
+            indexFile = UriUtils.replacePath(outputFile, outputFile.getPath() + TABIX_INDEX_EXTENSION);
+        }
+        try (OutputStream os = VariantWriterFactory.getOutputStream(outputFile, outputFormat, ioConnectorProvider, numThreads)) {
             boolean logProgress = !VariantWriterFactory.isStandardOutput(outputFile);
-            exportData(os, outputFormat, variantsFile, query, queryOptions, logProgress);
+            exportData(os, outputFormat, variantsFile, query, queryOptions, logProgress, indexFile);
         }
         if (metadataFactory != null && !VariantWriterFactory.isStandardOutput(outputFile)) {
             VariantMetadata metadata = metadataFactory.makeVariantMetadata(query, queryOptions);
@@ -116,6 +131,27 @@ public class VariantExporter {
     protected void exportData(OutputStream outputStream, VariantOutputFormat outputFormat, URI variantsFile,
                               Query query, QueryOptions queryOptions, boolean logProgress)
             throws StorageEngineException, IOException {
+        exportData(outputStream, outputFormat, variantsFile, query, queryOptions, logProgress, null);
+    }
+
+    /**
+     * Export the variants into the given output stream.
+     *
+     * With more than one thread, VCF lines are serialized in parallel. Multi-region queries are read concurrently.
+     *
+     * @param outputStream  Output stream
+     * @param outputFormat  Variant output format
+     * @param variantsFile  Optional variants file
+     * @param query         Query with the variants to export
+     * @param queryOptions  Query options
+     * @param logProgress   Log the progress of the export
+     * @param indexFile     Optional tabix index file. Only for BGZF compressed VCF files
+     * @throws IOException  If there is any IO error
+     * @throws StorageEngineException  If there is any error exporting variants
+     */
+    protected void exportData(OutputStream outputStream, VariantOutputFormat outputFormat, URI variantsFile,
+                              Query query, QueryOptions queryOptions, boolean logProgress, @Nullable URI indexFile)
+            throws StorageEngineException, IOException {
         if (query == null) {
             query = new Query();
         }
@@ -123,13 +159,26 @@ public class VariantExporter {
             queryOptions = new QueryOptions();
         }
 
+        int numThreads = getInt(queryOptions, VariantStorageOptions.EXPORT_THREADS);
+        int readThreads = getInt(queryOptions, VariantStorageOptions.EXPORT_READ_THREADS);
+        boolean parallelVcf = numThreads > 1 && (outputFormat == VariantOutputFormat.VCF || outputFormat == VariantOutputFormat.VCF_GZ);
+        // Bigger batches to keep the VCF encoder threads busy
+        int batchSize = parallelVcf ? 100 : 10;
+
         // DataReader
-        VariantDBReader variantDBReader;
+        VariantDBReader variantDBReader = null;
+        RegionPartitionedVariantDBReader regionsReader = null;
+        DataReader<Variant> reader;
         if (variantsFile != null) {
             Iterator<Variant> variants = toVariantsIterator(variantsFile);
             variantDBReader = new VariantDBReader(engine.iterator(variants, query, queryOptions));
+            reader = variantDBReader;
+        } else if (readThreads > 1 && RegionPartitionedVariantDBReader.isSupported(query, queryOptions)) {
+            regionsReader = new RegionPartitionedVariantDBReader(engine, query, queryOptions, readThreads, batchSize);
+            reader = regionsReader;
         } else {
             variantDBReader = new VariantDBReader(engine, query, queryOptions);
+            reader = variantDBReader;
         }
 
         // TaskMetadata<Variant, Variant>
@@ -155,21 +204,72 @@ public class VariantExporter {
             progressTask = batch -> batch;
         }
 
-        // DataWriter
-        DataWriter<Variant> variantDataWriter = variantWriterFactory.newDataWriter(outputFormat, outputStream, query, queryOptions);
+        if (parallelVcf) {
+            // Serialize VCF lines in parallel. Single writer, keeping the order
+            VariantMetadata variantMetadata = variantWriterFactory.getVcfVariantMetadata(query, queryOptions);
+            List<String> annotations = queryOptions.getAsStringList("annotations");
+            VCFHeader header = VcfDataWriter.buildHeader(variantMetadata, annotations);
+            String study = variantMetadata.getStudies().get(0).getId();
+            List<String> samples = VcfDataWriter.getSamples(variantMetadata);
+            VcfLineDataWriter vcfLineDataWriter = new VcfLineDataWriter(header, outputStream, indexFile != null);
 
-        ParallelTaskRunner.Config config = ParallelTaskRunner.Config.builder().setNumTasks(1).setBatchSize(10).build();
+            ParallelTaskRunner.Config config = ParallelTaskRunner.Config.builder()
+                    .setNumTasks(numThreads)
+                    .setBatchSize(batchSize)
+                    .setCapacity(numThreads * 2)
+                    .setSorted(true)
+                    .build();
+            Task<Variant, Variant> finalProgressTask = progressTask;
+            ParallelTaskRunner<Variant, VcfEncoderTask.VcfLine> ptr = new ParallelTaskRunner<>(reader,
+                    () -> finalProgressTask.then(new VcfEncoderTask(header, study, samples, annotations)), vcfLineDataWriter, config);
+            run(ptr);
 
-        ParallelTaskRunner<Variant, Variant> ptr = new ParallelTaskRunner<>(variantDBReader, progressTask, variantDataWriter, config);
+            if (vcfLineDataWriter.getIndex() != null) {
+                writeTabixIndex(vcfLineDataWriter.getIndex(), indexFile);
+            }
+        } else {
+            // DataWriter
+            DataWriter<Variant> variantDataWriter = variantWriterFactory.newDataWriter(outputFormat, outputStream, query, queryOptions);
+
+            ParallelTaskRunner.Config config = ParallelTaskRunner.Config.builder().setNumTasks(1).setBatchSize(batchSize).build();
+
+            run(new ParallelTaskRunner<>(reader, progressTask, variantDataWriter, config));
+        }
+
+        if (variantDBReader != null) {
+            logger.info("Time fetching data: " + variantDBReader.getTimeFetching(TimeUnit.MILLISECONDS) / 1000.0 + 's');
+            logger.info("Time converting data: " + variantDBReader.getTimeConverting(TimeUnit.MILLISECONDS) / 1000.0 + 's');
+        } else {
+            logger.info("Time fetching data: " + regionsReader.getTimeFetching(TimeUnit.MILLISECONDS) / 1000.0 + 's');
+            logger.info("Time converting data: " + regionsReader.getTimeConverting(TimeUnit.MILLISECONDS) / 1000.0 + 's');
+        }
+    }
+
+    private void run(ParallelTaskRunner<Variant, ?> ptr) throws StorageEngineException {
         try {
             ptr.run();
         } catch (ExecutionException e) {
             throw new StorageEngineException("Error exporting variants", e);
         }
+    }
+
+    private void writeTabixIndex(Index index, URI indexFile) throws IOException {
+        // Tabix indexes are BGZF compressed
+        try (LittleEndianOutputStream os = new LittleEndianOutputStream(
+                new BlockCompressedOutputStream(ioConnectorProvider.newOutputStreamRaw(indexFile), (File) null))) {
+            index.write(os);
+        }
+        logger.info("Tabix index written at {}", indexFile);
+    }
 
-        logger.info("Time fetching data: " + variantDBReader.getTimeFetching(TimeUnit.MILLISECONDS) / 1000.0 + 's');
-        logger.info("Time converting data: " + variantDBReader.getTimeConverting(TimeUnit.MILLISECONDS) / 1000.0 + 's');
+    private int getInt(QueryOptions queryOptions, VariantStorageOptions option) {
+        int value = engine.getOptions().getInt(option.key(), option.defaultValue());
+        return queryOptions == null ? value : queryOptions.getInt(option.key(), value);
+    }
 
+    private boolean getBoolean(QueryOptions queryOptions, VariantStorageOptions option) {
+        boolean value = engine.getOptions().getBoolean(option.key(), option.defaultValue());
+        return queryOptions == null ? value : queryOptions.getBoolean(option.key(), value);
     }
 
     protected void writeMetadata(VariantMetadata metadata, URI metadataFile) throws IOException {
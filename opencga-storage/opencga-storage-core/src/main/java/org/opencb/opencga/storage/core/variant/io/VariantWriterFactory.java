@@ -17,25 +17,31 @@
 package org.opencb.opencga.storage.core.variant.io;
 
 import org.apache.commons.lang3.StringUtils;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
 import org.opencb.biodata.models.variant.Variant;
 import org.opencb.biodata.models.variant.avro.VariantAvro;
 import org.opencb.biodata.models.variant.metadata.VariantMetadata;
 import org.opencb.biodata.tools.variant.stats.writer.VariantStatsPopulationFrequencyExporter;
 import org.opencb.biodata.tools.variant.stats.writer.VariantStatsTsvExporter;
+import org.opencb.commons.datastore.core.ObjectMap;
 import org.opencb.commons.datastore.core.Query;
 import org.opencb.commons.datastore.core.QueryOptions;
 import org.opencb.commons.io.DataWriter;
 import org.opencb.opencga.core.common.UriUtils;
 import org.opencb.opencga.storage.core.exceptions.StorageEngineException;
 import org.opencb.opencga.storage.core.io.managers.IOConnectorProvider;
+import org.opencb.opencga.storage.core.io.plain.ParallelBgzfOutputStream;
 import org.opencb.opencga.storage.core.metadata.VariantMetadataFactory;
 import org.opencb.opencga.storage.core.metadata.VariantStorageMetadataManager;
 import org.opencb.opencga.storage.core.metadata.models.CohortMetadata;
 import org.opencb.opencga.storage.core.metadata.models.StudyMetadata;
+import org.opencb.opencga.storage.core.variant.VariantStorageOptions;
 import org.opencb.opencga.storage.core.variant.adaptors.VariantDBAdaptor;
+import org.opencb.opencga.storage.core.variant.adaptors.VariantField;
 import org.opencb.opencga.storage.core.variant.query.projection.VariantQueryProjectionParser;
 import org.opencb.opencga.storage.core.variant.io.avro.VariantAvroWriter;
 import org.opencb.opencga.storage.core.variant.io.json.VariantJsonWriter;
+import org.opencb.opencga.storage.core.variant.io.parquet.VariantParquetWriter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -44,8 +50,12 @@ import java.io.*;
 import java.net.URI;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Set;
 import java.util.zip.GZIPOutputStream;
 
+import static org.opencb.opencga.storage.core.variant.VariantStorageOptions.EXPORT_PARQUET_DICTIONARY;
+import static org.opencb.opencga.storage.core.variant.VariantStorageOptions.EXPORT_PARQUET_PAGE_SIZE;
+import static org.opencb.opencga.storage.core.variant.VariantStorageOptions.EXPORT_PARQUET_ROW_GROUP_SIZE;
 import static org.opencb.opencga.storage.core.variant.adaptors.VariantQueryParam.INCLUDE_STUDY;
 import static org.opencb.opencga.storage.core.variant.io.VariantWriterFactory.VariantOutputFormat.TPED;
 import static org.opencb.opencga.storage.core.variant.io.VariantWriterFactory.VariantOutputFormat.VCF;
@@ -60,13 +70,27 @@ public class VariantWriterFactory {
 
     private static Logger logger = LoggerFactory.getLogger(VariantWriterFactory.class);
     private final VariantStorageMetadataManager variantStorageMetadataManager;
+    private final ObjectMap options;
 
     public VariantWriterFactory(VariantDBAdaptor dbAdaptor) {
-        variantStorageMetadataManager = dbAdaptor.getMetadataManager();
+        this(dbAdaptor.getMetadataManager());
+    }
+
+    /**
+     * @param dbAdaptor VariantDBAdaptor
+     * @param options   Default export options, like the options of the storage engine. Overridden by the query options.
+     */
+    public VariantWriterFactory(VariantDBAdaptor dbAdaptor, ObjectMap options) {
+        this(dbAdaptor.getMetadataManager(), options);
     }
 
     public VariantWriterFactory(VariantStorageMetadataManager variantStorageMetadataManager) {
+        this(variantStorageMetadataManager, new ObjectMap());
+    }
+
+    public VariantWriterFactory(VariantStorageMetadataManager variantStorageMetadataManager, ObjectMap options) {
         this.variantStorageMetadataManager = variantStorageMetadataManager;
+        this.options = options == null ? new ObjectMap() : options;
     }
 
     public enum VariantOutputFormat {
@@ -194,6 +218,25 @@ public class VariantWriterFactory {
 
     public static OutputStream getOutputStream(URI output, VariantOutputFormat outputFormat, IOConnectorProvider ioConnectorProvider)
             throws IOException {
+        return getOutputStream(output, outputFormat, ioConnectorProvider, 1);
+    }
+
+    /**
+     * Create the output stream for the given output format.
+     *
+     * Compressed VCF outputs use BGZF when more than one compression thread is requested. BGZF files are valid gzip files,
+     * and can be indexed. Other formats are always compressed with a single thread.
+     *
+     * @param output                Output file. Standard output if null
+     * @param outputFormat          Output format
+     * @param ioConnectorProvider   IOConnector provider
+     * @param compressionThreads    Number of threads to compress the output
+     * @return                      OutputStream
+     * @throws IOException          If there is any IO error
+     */
+    public static OutputStream getOutputStream(URI output, VariantOutputFormat outputFormat, IOConnectorProvider ioConnectorProvider,
+                                               int compressionThreads)
+            throws IOException {
         boolean gzip = outputFormat.isGzip();
 
         // output format has priority over output name
@@ -207,8 +250,13 @@ public class VariantWriterFactory {
         }
 
         // If compressed a GZip output stream is used
-        if (gzip && outputFormat != VariantOutputFormat.AVRO_GZ) {
-            outputStream = new GZIPOutputStream(outputStream);
+        // Avro and Parquet files compress their own blocks
+        if (gzip && outputFormat != VariantOutputFormat.AVRO_GZ && outputFormat != VariantOutputFormat.PARQUET_GZ) {
+            if (compressionThreads > 1 && outputFormat == VariantOutputFormat.VCF_GZ) {
+                outputStream = new ParallelBgzfOutputStream(outputStream, compressionThreads);
+            } else {
+                outputStream = new GZIPOutputStream(outputStream);
+            }
         } else {
             outputStream = new BufferedOutputStream(outputStream);
         }
@@ -225,19 +273,9 @@ public class VariantWriterFactory {
         switch (outputFormat) {
             case VCF_GZ:
             case VCF:
-                VariantMetadataFactory metadataFactory = new VariantMetadataFactory(variantStorageMetadataManager);
-                VariantMetadata variantMetadata;
-                try {
-                    variantMetadata = metadataFactory.makeVariantMetadata(query, queryOptions);
-                } catch (StorageEngineException e) {
-                    throw new IOException(e);
-                }
-                if (!variantMetadata.getStudies().isEmpty()) {
-                    List<String> annotations = queryOptions.getAsStringList("annotations");
-                    exporter = VcfDataWriter.newWriterForAvro(variantMetadata, annotations, outputStream);
-                } else {
-                    throw new IllegalArgumentException("No study found named " + query.getAsStringList(INCLUDE_STUDY.key()));
-                }
+                VariantMetadata variantMetadata = getVcfVariantMetadata(query, queryOptions);
+                List<String> annotations = queryOptions.getAsStringList("annotations");
+                exporter = VcfDataWriter.newWriterForAvro(variantMetadata, annotations, outputStream);
                 break;
 
             case JSON_GZ:
@@ -257,6 +295,18 @@ public class VariantWriterFactory {
                 exporter = new VariantAvroWriter(VariantAvro.getClassSchema(), codecName, outputStream);
                 break;
 
+            case PARQUET:
+            case PARQUET_GZ:
+                Set<VariantField> fields = new VariantQueryProjectionParser(variantStorageMetadataManager)
+                        .parseVariantQueryProjection(query, queryOptions).getFields();
+                exporter = new VariantParquetWriter(outputStream,
+                        outputFormat.isGzip() ? CompressionCodecName.GZIP : CompressionCodecName.UNCOMPRESSED,
+                        fields,
+                        getInt(queryOptions, EXPORT_PARQUET_ROW_GROUP_SIZE),
+                        getInt(queryOptions, EXPORT_PARQUET_PAGE_SIZE),
+                        getBoolean(queryOptions, EXPORT_PARQUET_DICTIONARY));
+                break;
+
             case STATS_GZ:
             case STATS:
                 StudyMetadata sm = getStudyMetadata(query, true);
@@ -283,6 +333,30 @@ public class VariantWriterFactory {
         return exporter;
     }
 
+    private int getInt(QueryOptions queryOptions, VariantStorageOptions option) {
+        int value = options.getInt(option.key(), option.defaultValue());
+        return queryOptions == null ? value : queryOptions.getInt(option.key(), value);
+    }
+
+    private boolean getBoolean(QueryOptions queryOptions, VariantStorageOptions option) {
+        boolean value = options.getBoolean(option.key(), option.defaultValue());
+        return queryOptions == null ? value : queryOptions.getBoolean(option.key(), value);
+    }
+
+    public VariantMetadata getVcfVariantMetadata(Query query, QueryOptions queryOptions) throws IOException {
+        VariantMetadataFactory metadataFactory = new VariantMetadataFactory(variantStorageMetadataManager);
+        VariantMetadata variantMetadata;
+        try {
+            variantMetadata = metadataFactory.makeVariantMetadata(query, queryOptions);
+        } catch (StorageEngineException e) {
+            throw new IOException(e);
+        }
+        if (variantMetadata.getStudies().isEmpty()) {
+            throw new IllegalArgumentException("No study found named " + query.getAsStringList(INCLUDE_STUDY.key()));
+        }
+        return variantMetadata;
+    }
+
     protected static IllegalArgumentException variantFormatNotSupported(String outputFormatStr) {
         return new IllegalArgumentException("Unknown output format " + outputFormatStr);
     }
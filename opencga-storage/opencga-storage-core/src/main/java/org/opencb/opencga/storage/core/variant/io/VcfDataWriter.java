@@ -83,19 +83,31 @@ public abstract class VcfDataWriter<T> implements DataWriter<T> {
     public boolean pre() {
         String study = metadata.getStudies().get(0).getId();
         if (samples == null) {
-            samples = metadata.getStudies().get(0).getIndividuals().stream()
-                    .flatMap(individual -> individual.getSamples().stream()).map(Sample::getId).collect(Collectors.toList());
+            samples = getSamples(metadata);
         }
 
-        VCFHeader vcfHeader = new VariantStudyMetadataToVCFHeaderConverter().convert(metadata.getStudies().get(0), annotations);
+        VCFHeader vcfHeader = buildHeader(metadata, annotations);
         // Warning: Calling to vcfHeader.getSequenceDictionary() may fail if any contig has null length
-        variantContextWriter = VcfUtils.createVariantContextWriter(outputStream, null, Options.ALLOW_MISSING_FIELDS_IN_HEADER);
+        variantContextWriter = newVariantContextWriter(outputStream);
         variantContextWriter.writeHeader(vcfHeader);
         converter = newConverter(study, samples, annotations);
 
         return true;
     }
 
+    static List<String> getSamples(VariantMetadata metadata) {
+        return metadata.getStudies().get(0).getIndividuals().stream()
+                .flatMap(individual -> individual.getSamples().stream()).map(Sample::getId).collect(Collectors.toList());
+    }
+
+    static VCFHeader buildHeader(VariantMetadata metadata, List<String> annotations) {
+        return new VariantStudyMetadataToVCFHeaderConverter().convert(metadata.getStudies().get(0), annotations);
+    }
+
+    static VariantContextWriter newVariantContextWriter(OutputStream outputStream) {
+        return VcfUtils.createVariantContextWriter(outputStream, null, Options.ALLOW_MISSING_FIELDS_IN_HEADER);
+    }
+
     public abstract VariantContextConverter<T> newConverter(String study, List<String> samples, List<String> annotations);
 
     @Override
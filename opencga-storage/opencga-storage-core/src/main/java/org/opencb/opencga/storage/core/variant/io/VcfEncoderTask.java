@@ -0,0 +1,66 @@
+package org.opencb.opencga.storage.core.variant.io;
+
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.vcf.VCFEncoder;
+import htsjdk.variant.vcf.VCFHeader;
+import org.opencb.biodata.models.variant.Variant;
+import org.opencb.biodata.tools.variant.converters.VariantContextConverter;
+import org.opencb.biodata.tools.variant.converters.avro.VariantAvroToVariantContextConverter;
+import org.opencb.commons.run.Task;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Serialize variants into VCF lines, so the conversion can run in multiple threads.
+ * Lines are written with a {@link VcfLineDataWriter}.
+ */
+public class VcfEncoderTask implements Task<Variant, VcfEncoderTask.VcfLine> {
+
+    private final VariantContextConverter<Variant> converter;
+    private final VCFEncoder encoder;
+
+    public VcfEncoderTask(VCFHeader header, String study, List<String> samples, List<String> annotations) {
+        converter = new VariantAvroToVariantContextConverter(study, samples, annotations);
+        encoder = new VCFEncoder(header, true, false);
+    }
+
+    @Override
+    public List<VcfLine> apply(List<Variant> variants) {
+        List<VcfLine> lines = new ArrayList<>(variants.size());
+        for (VariantContext context : converter.apply(variants)) {
+            lines.add(new VcfLine(encoder.encode(context), context.getContig(), context.getStart(), context.getEnd()));
+        }
+        return lines;
+    }
+
+    public static class VcfLine {
+        private final String line;
+        private final String contig;
+        private final int start;
+        private final int end;
+
+        public VcfLine(String line, String contig, int start, int end) {
+            this.line = line;
+            this.contig = contig;
+            this.start = start;
+            this.end = end;
+        }
+
+        public String getLine() {
+            return line;
+        }
+
+        public String getContig() {
+            return contig;
+        }
+
+        public int getStart() {
+            return start;
+        }
+
+        public int getEnd() {
+            return end;
+        }
+    }
+}
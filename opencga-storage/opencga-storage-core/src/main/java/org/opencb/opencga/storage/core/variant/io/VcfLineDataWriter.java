@@ -0,0 +1,144 @@
+package org.opencb.opencga.storage.core.variant.io;
+
+import htsjdk.tribble.SimpleFeature;
+import htsjdk.tribble.index.Index;
+import htsjdk.tribble.index.tabix.TabixFormat;
+import htsjdk.tribble.index.tabix.TabixIndexCreator;
+import htsjdk.variant.variantcontext.writer.VariantContextWriter;
+import htsjdk.variant.vcf.VCFHeader;
+import org.opencb.commons.io.DataWriter;
+import org.opencb.opencga.storage.core.io.plain.ParallelBgzfOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Write VCF lines serialized by {@link VcfEncoderTask}.
+ *
+ * If the output is a {@link ParallelBgzfOutputStream}, a tabix index can be generated while writing the lines.
+ * The index is available with {@link #getIndex()} after {@link #post()}.
+ */
+public class VcfLineDataWriter implements DataWriter<VcfEncoderTask.VcfLine> {
+
+    private static final byte[] NEW_LINE = {'\n'};
+    private final Logger logger = LoggerFactory.getLogger(VcfLineDataWriter.class);
+
+    private final VCFHeader header;
+    private final OutputStream outputStream;
+    private final ParallelBgzfOutputStream bgzfOutputStream;
+    private final Deque<IndexedLine> pendingLines = new ArrayDeque<>();
+    private TabixIndexCreator indexCreator;
+    private Index index;
+
+    /**
+     * @param header       VCF header
+     * @param outputStream Output stream
+     * @param createIndex  Create a tabix index. Requires a {@link ParallelBgzfOutputStream}
+     */
+    public VcfLineDataWriter(VCFHeader header, OutputStream outputStream, boolean createIndex) {
+        this.header = header;
+        this.outputStream = outputStream;
+        if (createIndex && outputStream instanceof ParallelBgzfOutputStream) {
+            bgzfOutputStream = (ParallelBgzfOutputStream) outputStream;
+            indexCreator = new TabixIndexCreator(TabixFormat.VCF);
+        } else {
+            bgzfOutputStream = null;
+            indexCreator = null;
+        }
+    }
+
+    @Override
+    public boolean pre() {
+        ByteArrayOutputStream headerOutputStream = new ByteArrayOutputStream();
+        VariantContextWriter headerWriter = VcfDataWriter.newVariantContextWriter(headerOutputStream);
+        headerWriter.writeHeader(header);
+        headerWriter.close();
+        try {
+            headerOutputStream.writeTo(outputStream);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean write(List<VcfEncoderTask.VcfLine> batch) {
+        try {
+            for (VcfEncoderTask.VcfLine line : batch) {
+                if (indexCreator != null) {
+                    pendingLines.add(new IndexedLine(line, bgzfOutputStream.getPosition()));
+                }
+                outputStream.write(line.getLine().getBytes(StandardCharsets.UTF_8));
+                outputStream.write(NEW_LINE);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        addPendingLinesToIndex();
+        return true;
+    }
+
+    @Override
+    public boolean post() {
+        if (indexCreator != null) {
+            try {
+                // Write all the blocks to know the final position of every line
+                bgzfOutputStream.finish();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            addPendingLinesToIndex();
+        }
+        // Still null if the index was discarded while adding the last lines
+        if (indexCreator != null) {
+            index = indexCreator.finalizeIndex(bgzfOutputStream.getVirtualOffset(bgzfOutputStream.getPosition()));
+        }
+        return true;
+    }
+
+    /**
+     * @return Tabix index of the written file, or null if not created
+     */
+    public Index getIndex() {
+        return index;
+    }
+
+    private void addPendingLinesToIndex() {
+        while (indexCreator != null && !pendingLines.isEmpty()) {
+            IndexedLine pendingLine = pendingLines.peek();
+            long virtualOffset = bgzfOutputStream.getVirtualOffset(pendingLine.position);
+            if (virtualOffset < 0) {
+                // Block not written yet
+                break;
+            }
+            pendingLines.poll();
+            VcfEncoderTask.VcfLine line = pendingLine.line;
+            try {
+                indexCreator.addFeature(new SimpleFeature(line.getContig(), line.getStart(), line.getEnd()), virtualOffset);
+            } catch (RuntimeException e) {
+                // Unsorted variants can not be indexed
+                logger.warn("Unable to create tabix index: {}", e.getMessage());
+                indexCreator = null;
+                pendingLines.clear();
+            }
+        }
+    }
+
+    private static class IndexedLine {
+        private final VcfEncoderTask.VcfLine line;
+        private final long position;
+
+        IndexedLine(VcfEncoderTask.VcfLine line, long position) {
+            this.line = line;
+            this.position = position;
+        }
+    }
+}
@@ -0,0 +1,238 @@
+/*
+ * Copyright 2015-2020 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencb.opencga.storage.core.variant.io.db;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.opencb.biodata.models.core.Region;
+import org.opencb.biodata.models.variant.Variant;
+import org.opencb.commons.datastore.core.Query;
+import org.opencb.commons.datastore.core.QueryOptions;
+import org.opencb.commons.io.DataReader;
+import org.opencb.opencga.storage.core.variant.adaptors.VariantIterable;
+import org.opencb.opencga.storage.core.variant.adaptors.VariantQueryParam;
+import org.opencb.opencga.storage.core.variant.adaptors.iterators.VariantDBIterator;
+import org.opencb.opencga.storage.core.variant.query.VariantQueryUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.opencb.opencga.storage.core.variant.adaptors.VariantQueryParam.*;
+
+/**
+ * Read the variants from a multi-region query, querying each region concurrently.
+ *
+ * Regions of the same chromosome are merged, sorted by position and returned in order. Chromosomes are returned in the
+ * order of the query, as each storage engine sorts chromosomes differently (e.g. lexicographically or naturally).
+ * Up to "numThreads" regions are read at the same time, buffering a limited number of batches for each region.
+ */
+public class RegionPartitionedVariantDBReader implements DataReader<Variant> {
+
+    private static final List<Variant> END_OF_REGION = Collections.unmodifiableList(new ArrayList<>());
+    private static Logger logger = LoggerFactory.getLogger(RegionPartitionedVariantDBReader.class);
+
+    private final VariantIterable iterable;
+    private final Query query;
+    private final QueryOptions options;
+    private final List<Region> regions;
+    private final int numThreads;
+    private final int batchSize;
+    private final int capacity;
+    private final AtomicLong timeFetching = new AtomicLong();
+    private final AtomicLong timeConverting = new AtomicLong();
+
+    private ExecutorService executor;
+    private List<BlockingQueue<List<Variant>>> queues;
+    private List<Future<?>> futures;
+    private int currentRegion;
+    private volatile boolean closed;
+
+    /**
+     * @param iterable   Variants source
+     * @param query      Query with the regions to read
+     * @param options    Query options
+     * @param numThreads Number of regions to read concurrently
+     * @param batchSize  Size of the batches returned by the reader
+     */
+    public RegionPartitionedVariantDBReader(VariantIterable iterable, Query query, QueryOptions options, int numThreads, int batchSize) {
+        this.iterable = iterable;
+        this.query = query;
+        this.options = options == null ? new QueryOptions() : options;
+        this.regions = getRegions(query);
+        this.numThreads = Math.max(1, numThreads);
+        this.batchSize = Math.max(1, batchSize);
+        this.capacity = 4;
+    }
+
+    /**
+     * Check if the query can be split by region. The query must contain more than one region, and no other filter that
+     * could be combined with the regions, like genes or variant ids. Queries with limit or skip are not supported.
+     *
+     * @param query   Query
+     * @param options Query options
+     * @return if the query can be read by regions
+     */
+    public static boolean isSupported(Query query, QueryOptions options) {
+        if (query == null || !VariantQueryUtils.isValidParam(query, REGION)) {
+            return false;
+        }
+        for (VariantQueryParam param : Arrays.asList(ID, GENE, ANNOT_XREF)) {
+            if (VariantQueryUtils.isValidParam(query, param)) {
+                return false;
+            }
+        }
+        if (options != null && (options.containsKey(QueryOptions.LIMIT) || options.containsKey(QueryOptions.SKIP))) {
+            return false;
+        }
+        return getRegions(query).size() > 1;
+    }
+
+    private static List<Region> getRegions(Query query) {
+        // Group by chromosome, keeping the order of the query
+        Map<String, List<Region>> regionsByChromosome = new LinkedHashMap<>();
+        for (String regionStr : query.getAsStringList(REGION.key())) {
+            Region region = Region.parseRegion(regionStr);
+            regionsByChromosome.computeIfAbsent(region.getChromosome(), k -> new ArrayList<>()).add(region);
+        }
+        List<Region> regions = new ArrayList<>();
+        for (List<Region> chromosomeRegions : regionsByChromosome.values()) {
+            // Only one chromosome, so regions are only sorted by position
+            regions.addAll(VariantQueryUtils.mergeRegions(chromosomeRegions));
+        }
+        return regions;
+    }
+
+    @Override
+    public boolean open() {
+        executor = Executors.newFixedThreadPool(numThreads, new ThreadFactoryBuilder()
+                .setNameFormat("variant-region-reader-%d")
+                .setDaemon(true)
+                .build());
+        queues = new ArrayList<>(regions.size());
+        futures = new ArrayList<>(regions.size());
+        currentRegion = 0;
+        closed = false;
+        // Regions are submitted in order, so the region being consumed is always either finished or running
+        for (int i = 0; i < regions.size(); i++) {
+            BlockingQueue<List<Variant>> queue = new ArrayBlockingQueue<>(capacity);
+            int regionIdx = i;
+            queues.add(queue);
+            futures.add(executor.submit(() -> {
+                readRegion(regionIdx, queue);
+                return null;
+            }));
+        }
+        logger.info("Reading {} regions using {} threads", regions.size(), numThreads);
+        return true;
+    }
+
+    @Override
+    public List<Variant> read(int batchSize) {
+        while (currentRegion < regions.size()) {
+            List<Variant> batch;
+            try {
+                batch = queues.get(currentRegion).take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+            if (batch == END_OF_REGION) {
+                try {
+                    futures.get(currentRegion).get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException(e);
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("Error reading region " + regions.get(currentRegion), e.getCause());
+                }
+                currentRegion++;
+            } else {
+                return batch;
+            }
+        }
+        return Collections.emptyList();
+    }
+
+    @Override
+    public boolean close() {
+        closed = true;
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+        return true;
+    }
+
+    public long getTimeFetching(TimeUnit timeUnit) {
+        return timeUnit.convert(timeFetching.get(), TimeUnit.MILLISECONDS);
+    }
+
+    public long getTimeConverting(TimeUnit timeUnit) {
+        return timeUnit.convert(timeConverting.get(), TimeUnit.MILLISECONDS);
+    }
+
+    private void readRegion(int regionIdx, BlockingQueue<List<Variant>> queue) throws Exception {
+        Region region = regions.get(regionIdx);
+        Query regionQuery = new Query(query);
+        regionQuery.put(REGION.key(), region.toString());
+        try (VariantDBIterator iterator = iterable.iterator(regionQuery, new QueryOptions(options))) {
+            List<Variant> batch = new ArrayList<>(batchSize);
+            while (iterator.hasNext()) {
+                Variant variant = iterator.next();
+                // Variants overlapping a previous region were already returned by that region
+                if (!overlapsPreviousRegion(regionIdx, variant)) {
+                    batch.add(variant);
+                }
+                if (batch.size() == batchSize) {
+                    queue.put(batch);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+            if (!batch.isEmpty()) {
+                queue.put(batch);
+            }
+            timeFetching.addAndGet(iterator.getTimeFetching(TimeUnit.MILLISECONDS));
+            timeConverting.addAndGet(iterator.getTimeConverting(TimeUnit.MILLISECONDS));
+        } finally {
+            // Once closed, nobody is waiting for this region, and the queue might be full
+            if (!closed) {
+                try {
+                    queue.put(END_OF_REGION);
+                } catch (InterruptedException e) {
+                    // Reader closed. Nobody is waiting for this region
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    private boolean overlapsPreviousRegion(int regionIdx, Variant variant) {
+        for (int i = regionIdx - 1; i >= 0; i--) {
+            Region region = regions.get(i);
+            if (!region.getChromosome().equals(variant.getChromosome())) {
+                // Regions are grouped by chromosome
+                break;
+            }
+            if (region.overlaps(variant.getChromosome(), variant.getStart(), variant.getEnd())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright 2015-2020 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencb.opencga.storage.core.variant.io.parquet;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.IndexedRecord;
+import org.apache.hadoop.fs.Path;
+import org.apache.parquet.avro.AvroParquetWriter;
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+import org.opencb.biodata.models.variant.Variant;
+import org.opencb.biodata.models.variant.avro.VariantAvro;
+import org.opencb.commons.io.DataWriter;
+import org.opencb.opencga.storage.core.variant.adaptors.VariantField;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Write variants in Parquet format, using the {@link VariantAvro} schema.
+ *
+ * Only the top level fields included in the query projection are written. Variant identity fields (chromosome, start,
+ * end, reference and alternate) are always included.
+ *
+ * Parquet files are written to a local temporary file, and copied into the output stream on close, as the footer of
+ * the file can only be written once all the row groups are known.
+ */
+public class VariantParquetWriter implements DataWriter<Variant> {
+
+    public static final int DEFAULT_ROW_GROUP_SIZE = ParquetWriter.DEFAULT_BLOCK_SIZE;
+    public static final int DEFAULT_PAGE_SIZE = ParquetWriter.DEFAULT_PAGE_SIZE;
+    private static final Set<VariantField> MANDATORY_FIELDS = Collections.unmodifiableSet(EnumSet.of(
+            VariantField.CHROMOSOME,
+            VariantField.START,
+            VariantField.END,
+            VariantField.REFERENCE,
+            VariantField.ALTERNATE));
+
+    private final Logger logger = LoggerFactory.getLogger(VariantParquetWriter.class);
+
+    private final OutputStream outputStream;
+    private final CompressionCodecName codec;
+    private final int rowGroupSize;
+    private final int pageSize;
+    private final boolean dictionary;
+    private final Schema schema;
+    private final int[] fieldsMap;
+
+    private java.nio.file.Path tmpDir;
+    private java.nio.file.Path tmpFile;
+    private ParquetWriter<IndexedRecord> writer;
+    private long numWrites = 0;
+
+    /**
+     * @param outputStream  Output stream
+     * @param codec         Compression codec for the column chunks
+     * @param includeFields Fields to write. If null, all the fields are written
+     * @param rowGroupSize  Row group size in bytes
+     * @param pageSize      Page size in bytes
+     * @param dictionary    Use dictionary encoding. Low cardinality columns, like genotypes, benefit from it
+     */
+    public VariantParquetWriter(OutputStream outputStream, CompressionCodecName codec, Set<VariantField> includeFields,
+                                int rowGroupSize, int pageSize, boolean dictionary) {
+        this.outputStream = outputStream;
+        this.codec = codec;
+        this.rowGroupSize = rowGroupSize;
+        this.pageSize = pageSize;
+        this.dictionary = dictionary;
+
+        Schema variantSchema = VariantAvro.getClassSchema();
+        List<Schema.Field> fields = new ArrayList<>();
+        List<Integer> fieldsMap = new ArrayList<>();
+        for (Schema.Field field : variantSchema.getFields()) {
+            VariantField variantField = VariantField.get(field.name());
+            if (includeFields == null || variantField == null || MANDATORY_FIELDS.contains(variantField)
+                    || includeFields.contains(variantField)) {
+                fields.add(new Schema.Field(field.name(), field.schema(), field.doc(), field.defaultValue()));
+                fieldsMap.add(field.pos());
+            }
+        }
+        schema = Schema.createRecord(variantSchema.getName(), variantSchema.getDoc(), variantSchema.getNamespace(), false);
+        schema.setFields(fields);
+        this.fieldsMap = fieldsMap.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    @Override
+    public boolean open() {
+        try {
+            tmpDir = Files.createTempDirectory("variant_parquet_");
+            tmpFile = tmpDir.resolve("variants.parquet");
+            writer = new AvroParquetWriter<>(new Path(tmpFile.toUri()), schema, codec, rowGroupSize, pageSize, dictionary);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean write(List<Variant> batch) {
+        try {
+            for (Variant variant : batch) {
+                writer.write(new ProjectedVariantRecord(variant.getImpl()));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        numWrites += batch.size();
+        return true;
+    }
+
+    @Override
+    public boolean close() {
+        if (writer == null) {
+            // Not opened, or failed to open. Nothing to write
+            deleteTmpDir();
+            return true;
+        }
+        try {
+            writer.close();
+            Files.copy(tmpFile, outputStream);
+            outputStream.flush();
+            logger.debug("Written {} variants in parquet format", numWrites);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            deleteTmpDir();
+        }
+        return true;
+    }
+
+    public Schema getSchema() {
+        return schema;
+    }
+
+    private void deleteTmpDir() {
+        if (tmpDir == null) {
+            return;
+        }
+        try (Stream<java.nio.file.Path> files = Files.list(tmpDir)) {
+            // Includes the hadoop checksum files
+            for (java.nio.file.Path file : (Iterable<java.nio.file.Path>) files::iterator) {
+                Files.deleteIfExists(file);
+            }
+            Files.deleteIfExists(tmpDir);
+        } catch (IOException e) {
+            logger.warn("Unable to delete temporary directory " + tmpDir, e);
+        }
+    }
+
+    /**
+     * View of a {@link VariantAvro} with the projected schema. Avoids copying the variant.
+     */
+    private class ProjectedVariantRecord implements IndexedRecord {
+        private final VariantAvro variant;
+
+        ProjectedVariantRecord(VariantAvro variant) {
+            this.variant = variant;
+        }
+
+        @Override
+        public void put(int i, Object v) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Object get(int i) {
+            return variant.get(fieldsMap[i]);
+        }
+
+        @Override
+        public Schema getSchema() {
+            return schema;
+        }
+    }
+}
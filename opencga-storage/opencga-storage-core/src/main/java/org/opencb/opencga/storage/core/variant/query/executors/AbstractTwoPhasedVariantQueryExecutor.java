@@ -2,20 +2,26 @@ package org.opencb.opencga.storage.core.variant.query.executors;
 
 import com.google.common.collect.Iterators;
 import org.apache.commons.lang3.time.StopWatch;
+import org.opencb.biodata.models.core.Region;
 import org.opencb.biodata.models.variant.Variant;
 import org.opencb.commons.datastore.core.ObjectMap;
 import org.opencb.commons.datastore.core.Query;
 import org.opencb.commons.datastore.core.QueryOptions;
+import org.opencb.commons.datastore.core.QueryParam;
 import org.opencb.opencga.core.common.TimeUtils;
 import org.opencb.opencga.core.response.VariantQueryResult;
 import org.opencb.opencga.storage.core.metadata.VariantStorageMetadataManager;
+import org.opencb.opencga.storage.core.metadata.models.VariantDensityHistogram;
 import org.opencb.opencga.storage.core.variant.VariantStorageOptions;
 import org.opencb.opencga.storage.core.variant.adaptors.iterators.VariantDBIteratorWithCounts;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Arrays;
+import java.util.List;
+
 import static org.opencb.opencga.storage.core.variant.VariantStorageOptions.APPROXIMATE_COUNT;
-import static org.opencb.opencga.storage.core.variant.adaptors.VariantQueryParam.REGION;
+import static org.opencb.opencga.storage.core.variant.adaptors.VariantQueryParam.*;
 import static org.opencb.opencga.storage.core.variant.query.VariantQueryUtils.isValidParam;
 
 /**
@@ -84,6 +90,10 @@ public abstract class AbstractTwoPhasedVariantQueryExecutor extends VariantQuery
                 return;
             }
 
+            if (setEstimatedNumTotalResults(variantsFromPrimary, result, query, options, numVariantsFromPrimary, numResults, skip)) {
+                return;
+            }
+
             long totalCount;
             if (variantsFromPrimary.hasNext()) {
                 if (!isValidParam(query, REGION)) {
@@ -118,6 +128,57 @@ public abstract class AbstractTwoPhasedVariantQueryExecutor extends VariantQuery
         }
     }
 
+    /**
+     * Estimate the number of total results using the {@link VariantDensityHistogram} of the project, if available.
+     *
+     * @param variantsFromPrimary    Variants from primary source
+     * @param result                 VariantQueryResult to modify
+     * @param query                  Query being executed
+     * @param options                Options of the query
+     * @param numVariantsFromPrimary Number of variants read from the primary source
+     * @param numResults             Final number of results
+     * @param skip                   Number of skipped results
+     * @return if the result was modified
+     */
+    private boolean setEstimatedNumTotalResults(VariantDBIteratorWithCounts variantsFromPrimary, VariantQueryResult<Variant> result,
+                                                Query query, QueryOptions options, int numVariantsFromPrimary, int numResults,
+                                                int skip) {
+        for (QueryParam param : Arrays.asList(ID, GENE, ANNOT_XREF, ANNOT_GO, ANNOT_EXPRESSION, ANNOT_GENE_TRAIT_ID,
+                ANNOT_GENE_TRAIT_NAME, ANNOT_DRUG)) {
+            if (isValidParam(query, param)) {
+                // Histogram can not be restricted to these filters
+                return false;
+            }
+        }
+        VariantDensityHistogram histogram = VariantDensityHistogram.read(getMetadataManager().getProjectMetadata());
+        if (histogram == null) {
+            return false;
+        }
+        List<Region> regions = isValidParam(query, REGION) ? Region.parseRegions(query.getString(REGION.key())) : null;
+        ApproximateCountEstimator estimator = new ApproximateCountEstimator(histogram, regions);
+        if (!estimator.isValid()) {
+            return false;
+        }
+        StopWatch stopWatch = StopWatch.createStarted();
+        long timeBudget = options.getLong(VariantStorageOptions.APPROXIMATE_COUNT_TIME_BUDGET.key(),
+                getOptions().getLong(VariantStorageOptions.APPROXIMATE_COUNT_TIME_BUDGET.key(),
+                        VariantStorageOptions.APPROXIMATE_COUNT_TIME_BUDGET.defaultValue()));
+        ApproximateCountEstimator.Estimation estimation = estimator.estimate(variantsFromPrimary, numVariantsFromPrimary, numResults,
+                numResults + skip, timeBudget);
+        if (estimation == null) {
+            logger.info("Unable to estimate count from the variant density histogram. Read "
+                    + variantsFromPrimary.getCount() + " variants from " + primarySource);
+            return false;
+        }
+        logger.info("Estimated count from the variant density histogram, reading " + variantsFromPrimary.getCount()
+                + " variants from " + primarySource + " in " + TimeUtils.durationToString(stopWatch) + " : " + estimation);
+        result.setApproximateCount(!estimation.isExact());
+        result.setNumTotalResults(estimation.getCount());
+        result.setApproximateCountSamplingSize(numVariantsFromPrimary);
+        result.setApproximateCountConfidenceInterval(Arrays.asList(estimation.getLower(), estimation.getUpper()));
+        return true;
+    }
+
     protected boolean shouldGetApproximateCount(QueryOptions options) {
         return shouldGetApproximateCount(options, false);
     }
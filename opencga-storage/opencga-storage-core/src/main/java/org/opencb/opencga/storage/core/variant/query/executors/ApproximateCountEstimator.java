@@ -0,0 +1,280 @@
+package org.opencb.opencga.storage.core.variant.query.executors;
+
+import org.apache.commons.lang3.StringUtils;
+import org.opencb.biodata.models.core.Region;
+import org.opencb.opencga.storage.core.metadata.models.VariantDensityHistogram;
+import org.opencb.opencga.storage.core.variant.adaptors.iterators.VariantDBIteratorWithCounts;
+import org.opencb.opencga.storage.core.variant.query.VariantQueryUtils;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Estimates the total number of results of a two phased query, with a confidence interval.
+ *
+ * The total number of variants from the primary source is extrapolated from the fraction of the
+ * {@link VariantDensityHistogram} already covered by the primary iterator, assuming a uniform density within each
+ * chromosome. Then, it is multiplied by the proportion of variants from the primary accepted by the second phase.
+ *
+ * Both estimators are treated as independent, and their relative variances are added to build the confidence interval.
+ */
+public class ApproximateCountEstimator {
+
+    public static final double Z_95 = 1.96;
+
+    // Numeric chromosomes first, sorted by number. Then, the rest in lexicographical order
+    private static final Comparator<String> NATURAL_CHROMOSOME_COMPARATOR = (c1, c2) -> {
+        boolean numeric1 = StringUtils.isNumeric(c1);
+        boolean numeric2 = StringUtils.isNumeric(c2);
+        if (numeric1 && numeric2) {
+            return Long.compare(Long.parseLong(c1), Long.parseLong(c2));
+        } else if (numeric1) {
+            return -1;
+        } else if (numeric2) {
+            return 1;
+        } else {
+            return c1.compareTo(c2);
+        }
+    };
+
+    private final VariantDensityHistogram histogram;
+    private final Map<String, List<Region>> regions;
+
+    /**
+     * @param histogram Density of variants of the project
+     * @param regions   Regions of the query, if any.
+     */
+    public ApproximateCountEstimator(VariantDensityHistogram histogram, List<Region> regions) {
+        this.histogram = histogram;
+        if (regions == null || regions.isEmpty()) {
+            this.regions = null;
+        } else {
+            this.regions = new HashMap<>();
+            for (Region region : VariantQueryUtils.mergeRegions(new ArrayList<>(regions))) {
+                this.regions.computeIfAbsent(Region.normalizeChromosome(region.getChromosome()), k -> new ArrayList<>()).add(region);
+            }
+        }
+    }
+
+    public static class Estimation {
+        private final long count;
+        private final long lower;
+        private final long upper;
+        private final boolean exact;
+
+        public Estimation(long count, long lower, long upper, boolean exact) {
+            this.count = count;
+            this.lower = lower;
+            this.upper = upper;
+            this.exact = exact;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getLower() {
+            return lower;
+        }
+
+        public long getUpper() {
+            return upper;
+        }
+
+        public boolean isExact() {
+            return exact;
+        }
+
+        @Override
+        public String toString() {
+            return count + " [" + lower + ", " + upper + "]" + (exact ? " (exact)" : "");
+        }
+    }
+
+    /**
+     * Check if the histogram can be used to estimate queries over the given regions.
+     *
+     * @return if the expected number of variants within the regions is known
+     */
+    public boolean isValid() {
+        return getTotalMass() > 0;
+    }
+
+    /**
+     * Estimate the total number of results.
+     *
+     * Reads more variants from the primary iterator until it is exhausted or the time budget is consumed, to get a
+     * better coverage of the histogram.
+     *
+     * @param primary                Iterator over the primary source
+     * @param numVariantsFromPrimary Number of variants from the primary used to obtain the results
+     * @param numResults             Number of results obtained from those variants
+     * @param minCount               Minimum valid value. e.g. the number of results already returned plus the skip
+     * @param timeBudget             Max time in milliseconds to read from the primary
+     * @return Estimation, or null if the estimation was not possible
+     */
+    public Estimation estimate(VariantDBIteratorWithCounts primary, int numVariantsFromPrimary, int numResults, long minCount,
+                               long timeBudget) {
+        if (numVariantsFromPrimary <= 0) {
+            return null;
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeBudget);
+        while (primary.hasNext() && System.nanoTime() < deadline) {
+            primary.next();
+        }
+
+        // Estimate the total number of variants from the primary source
+        long n = primary.getCount();
+        double primaryTotal;
+        double relVarPrimary;
+        boolean exhausted = !primary.hasNext();
+        if (exhausted) {
+            primaryTotal = n;
+            relVarPrimary = 0;
+        } else {
+            double fraction = getCoveredFraction(primary.getChromosomes(), primary.getCurrentChromosome(), primary.getCurrentPosition());
+            if (fraction <= 0 || fraction >= 1) {
+                // Empty or outdated histogram
+                return null;
+            }
+            primaryTotal = n / fraction;
+            relVarPrimary = (1 - fraction) / n;
+        }
+
+        // Estimate the proportion of variants from the primary source accepted by the second phase
+        int m = numVariantsFromPrimary;
+        int r = numResults;
+        // Finite population correction. Zero if all the variants from the primary were used
+        double fpc = Math.max(0, 1 - m / primaryTotal);
+        double count;
+        double lower;
+        double upper;
+        if (r == 0) {
+            // Rule of three
+            count = 0;
+            lower = 0;
+            upper = fpc == 0 ? 0 : primaryTotal * 3 / m;
+        } else {
+            double p = r / (double) m;
+            double relVarProportion = (1 - p) / r * fpc;
+            count = primaryTotal * p;
+            double delta = Z_95 * Math.sqrt(relVarPrimary + relVarProportion) * count;
+            lower = count - delta;
+            upper = count + delta;
+        }
+        boolean exact = exhausted && fpc == 0;
+        long roundedCount = Math.max(minCount, Math.round(count));
+        return new Estimation(roundedCount,
+                Math.min(roundedCount, Math.max(minCount, (long) Math.floor(lower))),
+                Math.max(roundedCount, (long) Math.ceil(upper)),
+                exact);
+    }
+
+    /**
+     * Fraction of the histogram covered by an iterator sorted by chromosome and position.
+     *
+     * The storage engines do not share the order of the chromosomes, so only the chromosomes preceding the current one
+     * in every order compatible with the visited chromosomes are considered to be covered.
+     *
+     * @param visitedChromosomes Chromosomes visited by the iterator, in order
+     * @param chromosome         Current chromosome
+     * @param position           Current position
+     * @return fraction of the expected variants already covered, or -1 if unknown
+     */
+    protected double getCoveredFraction(List<String> visitedChromosomes, String chromosome, int position) {
+        if (chromosome == null) {
+            return 0;
+        }
+        double total = getTotalMass();
+        if (total <= 0) {
+            return -1;
+        }
+        List<String> visited = new ArrayList<>(visitedChromosomes.size());
+        for (String visitedChromosome : visitedChromosomes) {
+            visited.add(Region.normalizeChromosome(visitedChromosome));
+        }
+        String current = Region.normalizeChromosome(chromosome);
+
+        List<Comparator<String>> comparators = new ArrayList<>(2);
+        for (Comparator<String> comparator : Arrays.asList(Comparator.<String>naturalOrder(), NATURAL_CHROMOSOME_COMPARATOR)) {
+            if (isSorted(visited, comparator)) {
+                comparators.add(comparator);
+            }
+        }
+
+        Set<String> covered = new HashSet<>(visited);
+        covered.remove(current);
+        if (!comparators.isEmpty()) {
+            for (String other : histogram.getChromosomes()) {
+                boolean before = true;
+                for (Comparator<String> comparator : comparators) {
+                    before &= comparator.compare(other, current) < 0;
+                }
+                if (before) {
+                    covered.add(other);
+                }
+            }
+        }
+
+        double coveredMass = 0;
+        for (String other : covered) {
+            coveredMass += getMass(other, Integer.MAX_VALUE);
+        }
+        double currentMass = getMass(current, position);
+        if (currentMass < 0) {
+            // Unknown length. Assume half of the chromosome
+            currentMass = getMass(current, Integer.MAX_VALUE) / 2;
+        }
+        return (coveredMass + currentMass) / total;
+    }
+
+    /**
+     * @return Expected number of variants within the regions, or -1 if unknown
+     */
+    protected double getTotalMass() {
+        double total = 0;
+        Collection<String> chromosomes = regions == null ? histogram.getChromosomes() : regions.keySet();
+        for (String chromosome : chromosomes) {
+            double mass = getMass(chromosome, Integer.MAX_VALUE);
+            if (mass < 0) {
+                return -1;
+            }
+            total += mass;
+        }
+        return total;
+    }
+
+    /**
+     * Expected number of variants within the regions in the first positions of a chromosome.
+     *
+     * @param chromosome Normalized chromosome
+     * @param end        Last position, inclusive
+     * @return expected number of variants, or -1 if unknown
+     */
+    private double getMass(String chromosome, int end) {
+        if (regions == null) {
+            return histogram.getExpectedCount(chromosome, end);
+        }
+        double mass = 0;
+        for (Region region : regions.getOrDefault(chromosome, Collections.emptyList())) {
+            if (region.getStart() > end) {
+                continue;
+            }
+            double regionMass = histogram.getExpectedCount(chromosome, region.getStart(), Math.min(region.getEnd(), end));
+            if (regionMass < 0) {
+                return -1;
+            }
+            mass += regionMass;
+        }
+        return mass;
+    }
+
+    private static boolean isSorted(List<String> list, Comparator<String> comparator) {
+        for (int i = 1; i < list.size(); i++) {
+            if (comparator.compare(list.get(i - 1), list.get(i)) >= 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,237 @@
+/*
+ * Copyright 2015-2020 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencb.opencga.storage.core.variant.search.solr;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.client.solrj.response.UpdateResponse;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Streams batches of documents into a Solr collection without committing after each batch.
+ *
+ * Batches are sent asynchronously, with up to a maximum number of batches in flight. Documents become visible by the
+ * "commitWithin" time, and a hard commit is done at the end of the load with {@link #commit()}, or every
+ * "maxUncommittedBatches" batches to bound the number of callbacks waiting.
+ * The callback of each batch is executed once the batch has been hard committed, in the same order the batches were added,
+ * in the thread calling {@link #add} or {@link #commit()} that triggered the commit.
+ */
+public class SolrStreamingLoader implements Closeable {
+
+    public static final int DEFAULT_MAX_UNCOMMITTED_BATCHES = 10;
+
+    private final SolrClient solrClient;
+    private final String collection;
+    private final int commitWithinMs;
+    private final int maxInFlightBatches;
+    private final int maxUncommittedBatches;
+    private final ExecutorService executor;
+    private final Deque<PendingBatch> pending = new ArrayDeque<>();
+    // Callbacks of the batches accepted by Solr and not hard committed yet
+    private final List<BatchCallback> uncommittedCallbacks = new ArrayList<>();
+    private int uncommittedBatches = 0;
+
+    private long numBatches = 0;
+    private long numDocuments = 0;
+    private long numCommits = 0;
+    private long totalBatchTimeNanos = 0;
+    private long maxBatchTimeNanos = 0;
+
+    @FunctionalInterface
+    public interface BatchCallback {
+        void onLoaded() throws IOException;
+    }
+
+    /**
+     * @param solrClient         Solr client
+     * @param collection         Collection name
+     * @param commitWithinMs     Max time in milliseconds until the documents are committed. Use -1 to wait for the final commit
+     * @param maxInFlightBatches Max number of batches sent and not yet accepted by Solr
+     */
+    public SolrStreamingLoader(SolrClient solrClient, String collection, int commitWithinMs, int maxInFlightBatches) {
+        this(solrClient, collection, commitWithinMs, maxInFlightBatches, DEFAULT_MAX_UNCOMMITTED_BATCHES);
+    }
+
+    /**
+     * @param solrClient            Solr client
+     * @param collection            Collection name
+     * @param commitWithinMs        Max time in milliseconds until the documents are committed. Use -1 to wait for the final commit
+     * @param maxInFlightBatches    Max number of batches sent and not yet accepted by Solr
+     * @param maxUncommittedBatches Max number of batches accepted by Solr before doing a hard commit
+     */
+    public SolrStreamingLoader(SolrClient solrClient, String collection, int commitWithinMs, int maxInFlightBatches,
+                               int maxUncommittedBatches) {
+        this.solrClient = solrClient;
+        this.collection = collection;
+        this.commitWithinMs = commitWithinMs > 0 ? commitWithinMs : -1;
+        this.maxInFlightBatches = Math.max(1, maxInFlightBatches);
+        this.maxUncommittedBatches = Math.max(1, maxUncommittedBatches);
+        this.executor = Executors.newFixedThreadPool(this.maxInFlightBatches, new ThreadFactoryBuilder()
+                .setNameFormat("solr-load-" + collection + "-%d")
+                .setDaemon(true)
+                .build());
+    }
+
+    /**
+     * Send a batch of documents. Blocks while the max number of batches in flight is reached.
+     *
+     * @param documents Documents to add
+     * @param callback  Executed once the batch is hard committed
+     * @throws IOException         if any previous batch failed
+     * @throws SolrServerException if any previous batch failed
+     */
+    public void add(Collection<?> documents, BatchCallback callback) throws IOException, SolrServerException {
+        // Complete finished batches first, and wait for the oldest if there are too many in flight
+        while (!pending.isEmpty() && (pending.peekFirst().future.isDone() || pending.size() >= maxInFlightBatches)) {
+            complete(pending.pollFirst());
+        }
+        if (uncommittedBatches >= maxUncommittedBatches) {
+            commit();
+        }
+        if (documents.isEmpty()) {
+            // Nothing to send. Keep the callbacks order
+            pending.addLast(new PendingBatch(CompletableFuture.completedFuture(0L), 0, callback));
+            return;
+        }
+        Future<Long> future = executor.submit(() -> {
+            long start = System.nanoTime();
+            UpdateResponse response = solrClient.addBeans(collection, documents, commitWithinMs);
+            if (response.getStatus() != 0) {
+                throw new SolrServerException("Error adding documents to collection '" + collection + "'. "
+                        + "Status " + response.getStatus());
+            }
+            return System.nanoTime() - start;
+        });
+        pending.addLast(new PendingBatch(future, documents.size(), callback));
+    }
+
+    /**
+     * Wait for all the batches in flight. Their callbacks are executed on the next hard commit.
+     *
+     * @throws IOException         if any batch failed
+     * @throws SolrServerException if any batch failed
+     */
+    public void flush() throws IOException, SolrServerException {
+        while (!pending.isEmpty()) {
+            complete(pending.pollFirst());
+        }
+    }
+
+    /**
+     * Wait for all the batches in flight, hard commit the collection, and execute the callbacks of the committed batches.
+     *
+     * @throws IOException         if any batch or callback failed
+     * @throws SolrServerException if any batch failed
+     */
+    public void commit() throws IOException, SolrServerException {
+        flush();
+        solrClient.commit(collection);
+        numCommits++;
+        uncommittedBatches = 0;
+        List<BatchCallback> callbacks = new ArrayList<>(uncommittedCallbacks);
+        uncommittedCallbacks.clear();
+        for (BatchCallback callback : callbacks) {
+            callback.onLoaded();
+        }
+    }
+
+    private void complete(PendingBatch batch) throws IOException, SolrServerException {
+        long batchTime;
+        try {
+            batchTime = batch.future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while loading variants into Solr", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SolrServerException) {
+                throw (SolrServerException) cause;
+            } else if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else {
+                throw new IOException(cause);
+            }
+        }
+        if (batch.size > 0) {
+            numBatches++;
+            numDocuments += batch.size;
+            totalBatchTimeNanos += batchTime;
+            maxBatchTimeNanos = Math.max(maxBatchTimeNanos, batchTime);
+        }
+        uncommittedBatches++;
+        if (batch.callback != null) {
+            uncommittedCallbacks.add(batch.callback);
+        }
+    }
+
+    /**
+     * Stop sending batches. Does not commit. Batches in flight are cancelled, and the callbacks of the batches not committed are
+     * discarded.
+     */
+    @Override
+    public void close() {
+        for (PendingBatch batch : pending) {
+            batch.future.cancel(true);
+        }
+        pending.clear();
+        uncommittedCallbacks.clear();
+        executor.shutdownNow();
+    }
+
+    public long getNumBatches() {
+        return numBatches;
+    }
+
+    public long getNumDocuments() {
+        return numDocuments;
+    }
+
+    public long getNumCommits() {
+        return numCommits;
+    }
+
+    public double getAvgBatchTimeMs() {
+        return numBatches == 0 ? 0 : totalBatchTimeNanos / 1000000.0 / numBatches;
+    }
+
+    public double getMaxBatchTimeMs() {
+        return maxBatchTimeNanos / 1000000.0;
+    }
+
+    private static final class PendingBatch {
+        private final Future<Long> future;
+        private final int size;
+        private final BatchCallback callback;
+
+        private PendingBatch(Future<Long> future, int size, BatchCallback callback) {
+            this.future = future;
+            this.size = size;
+            this.callback = callback;
+        }
+    }
+}
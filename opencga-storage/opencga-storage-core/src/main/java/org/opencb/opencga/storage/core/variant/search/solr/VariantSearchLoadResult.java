@@ -26,10 +26,39 @@ public class VariantSearchLoadResult {
      */
     private final long numDeletedVariants;
 
+    /**
+     * Number of batches sent to the Search Engine.
+     */
+    private final long numBatches;
+
+    /**
+     * Average time in milliseconds for the Search Engine to accept a batch.
+     */
+    private final double avgBatchTimeMs;
+
+    /**
+     * Max time in milliseconds for the Search Engine to accept a batch.
+     */
+    private final double maxBatchTimeMs;
+
+    /**
+     * Total load time in milliseconds, including the final commit.
+     */
+    private final long loadTimeMs;
+
     public VariantSearchLoadResult(long numProcessedVariants, long numLoadedVariants, long numDeletedVariants) {
+        this(numProcessedVariants, numLoadedVariants, numDeletedVariants, 0, 0, 0, 0);
+    }
+
+    public VariantSearchLoadResult(long numProcessedVariants, long numLoadedVariants, long numDeletedVariants,
+                                   long numBatches, double avgBatchTimeMs, double maxBatchTimeMs, long loadTimeMs) {
         this.numProcessedVariants = numProcessedVariants;
         this.numLoadedVariants = numLoadedVariants;
         this.numDeletedVariants = numDeletedVariants;
+        this.numBatches = numBatches;
+        this.avgBatchTimeMs = avgBatchTimeMs;
+        this.maxBatchTimeMs = maxBatchTimeMs;
+        this.loadTimeMs = loadTimeMs;
     }
 
     public long getNumProcessedVariants() {
@@ -44,12 +73,40 @@ public class VariantSearchLoadResult {
         return numDeletedVariants;
     }
 
+    public long getNumBatches() {
+        return numBatches;
+    }
+
+    public double getAvgBatchTimeMs() {
+        return avgBatchTimeMs;
+    }
+
+    public double getMaxBatchTimeMs() {
+        return maxBatchTimeMs;
+    }
+
+    public long getLoadTimeMs() {
+        return loadTimeMs;
+    }
+
+    /**
+     * @return Number of loaded variants per second
+     */
+    public double getThroughput() {
+        return loadTimeMs == 0 ? 0 : numLoadedVariants * 1000.0 / loadTimeMs;
+    }
+
     @Override
     public String toString() {
         return new ToStringBuilder(this, ToStringStyle.JSON_STYLE)
                 .append("numProcessedVariants", numProcessedVariants)
                 .append("numLoadedVariants", numLoadedVariants)
                 .append("numDeletedVariants", numDeletedVariants)
+                .append("numBatches", numBatches)
+                .append("avgBatchTimeMs", avgBatchTimeMs)
+                .append("maxBatchTimeMs", maxBatchTimeMs)
+                .append("loadTimeMs", loadTimeMs)
+                .append("throughput", getThroughput())
                 .toString();
     }
 }
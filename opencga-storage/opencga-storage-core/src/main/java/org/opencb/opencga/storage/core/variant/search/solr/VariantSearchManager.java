@@ -76,6 +76,8 @@ public class VariantSearchManager {
     private StorageConfiguration storageConfiguration;
     private VariantSearchToVariantConverter variantSearchToVariantConverter;
     private int insertBatchSize;
+    private int insertCommitWithin;
+    private int insertMaxInFlightBatches;
 
     private Logger logger;
 
@@ -83,6 +85,7 @@ public class VariantSearchManager {
     public static final String SEARCH_ENGINE_ID = "solr";
     public static final String USE_SEARCH_INDEX = "useSearchIndex";
     public static final int DEFAULT_INSERT_BATCH_SIZE = 10000;
+    public static final int DEFAULT_INSERT_MAX_IN_FLIGHT_BATCHES = 2;
 
     public VariantSearchManager(VariantStorageMetadataManager variantStorageMetadataManager, StorageConfiguration storageConfiguration) {
         this.storageConfiguration = storageConfiguration;
@@ -98,6 +101,10 @@ public class VariantSearchManager {
         insertBatchSize = storageConfiguration.getSearch().getInsertBatchSize() > 0
                 ? storageConfiguration.getSearch().getInsertBatchSize()
                 : DEFAULT_INSERT_BATCH_SIZE;
+        insertCommitWithin = storageConfiguration.getSearch().getInsertCommitWithin();
+        insertMaxInFlightBatches = storageConfiguration.getSearch().getInsertMaxInFlightBatches() > 0
+                ? storageConfiguration.getSearch().getInsertMaxInFlightBatches()
+                : DEFAULT_INSERT_MAX_IN_FLIGHT_BATCHES;
 
         logger = LoggerFactory.getLogger(VariantSearchManager.class);
     }
@@ -184,6 +191,28 @@ public class VariantSearchManager {
         }
     }
 
+    /**
+     * Insert a list of variants into the given Solr collection, without committing.
+     * The variants are committed by the "commitWithin" time of the loader, or by its final commit.
+     *
+     * @param loader   Streaming loader
+     * @param variants List of variants to insert
+     * @param callback Executed once the variants are accepted by Solr
+     * @throws IOException   IOException
+     * @throws SolrServerException SolrServerException
+     */
+    private void insert(SolrStreamingLoader loader, List<Variant> variants, SolrStreamingLoader.BatchCallback callback)
+            throws IOException, SolrServerException {
+        List<VariantSearchModel> variantSearchModels = CollectionUtils.isEmpty(variants)
+                ? Collections.emptyList()
+                : variantSearchToVariantConverter.convertListToStorageType(variants);
+        loader.add(variantSearchModels, callback);
+    }
+
+    private SolrStreamingLoader newStreamingLoader(String collection) {
+        return new SolrStreamingLoader(solrManager.getSolrClient(), collection, insertCommitWithin, insertMaxInFlightBatches);
+    }
+
     /**
      * Load a Solr core/collection from a Avro or JSON file.
      *
@@ -233,6 +262,8 @@ public class VariantSearchManager {
 
         AtomicInteger count = new AtomicInteger();
         AtomicInteger numLoadedVariants = new AtomicInteger();
+        StopWatch stopWatch = StopWatch.createStarted();
+        SolrStreamingLoader loader = newStreamingLoader(collection);
 
         ParallelTaskRunner<Variant, Variant> ptr = new ParallelTaskRunner<>((n) -> {
             List<Variant> batch = new ArrayList<>(n);
@@ -248,8 +279,8 @@ public class VariantSearchManager {
             try {
                 loadListener.preLoad(batch);
                 numLoadedVariants.addAndGet(batch.size());
-                insert(collection, batch);
-                loadListener.postLoad(batch);
+                // Variants are marked as loaded only once they are hard committed
+                insert(loader, batch, () -> loadListener.postLoad(batch));
             } catch (SolrServerException | IOException e) {
                 throw new RuntimeException(e);
             }
@@ -260,17 +291,25 @@ public class VariantSearchManager {
                 .setNumTasks(1)
                 .build());
 
-        StopWatch stopWatch = StopWatch.createStarted();
         try {
             ptr.run();
-        } catch (ExecutionException e) {
+            // Final hard commit. Runs the last load listener callbacks in this thread, once the writer thread is finished
+            loader.commit();
+        } catch (ExecutionException | IOException | SolrServerException e) {
             throw new VariantSearchException("Error loading secondary index", e);
+        } finally {
+            loader.close();
         }
 
         loadListener.close();
 
+        stopWatch.stop();
         logger.info("Variant Search loading done. " + numLoadedVariants + " variants indexed in " + TimeUtils.durationToString(stopWatch));
-        return new VariantSearchLoadResult(count.get(), numLoadedVariants.get(), 0);
+        logger.info("Loaded {} batches. Average batch time: {}ms, max batch time: {}ms",
+                loader.getNumBatches(), String.format("%.2f", loader.getAvgBatchTimeMs()),
+                String.format("%.2f", loader.getMaxBatchTimeMs()));
+        return new VariantSearchLoadResult(count.get(), numLoadedVariants.get(), 0, loader.getNumBatches(),
+                loader.getAvgBatchTimeMs(), loader.getMaxBatchTimeMs(), stopWatch.getTime());
     }
 
 
@@ -567,21 +606,24 @@ public class VariantSearchManager {
             int count = 0;
             String line;
             ObjectReader objectReader = new ObjectMapper().readerFor(Variant.class);
-            while ((line = bufferedReader.readLine()) != null) {
-                Variant variant = objectReader.readValue(line);
-                variants.add(variant);
-                count++;
-                if (count % insertBatchSize == 0) {
-                    logger.debug("Loading variants from '{}', {} variants loaded", uri.toString(), count);
-                    insert(collection, variants);
-                    variants.clear();
+            try (SolrStreamingLoader loader = newStreamingLoader(collection)) {
+                while ((line = bufferedReader.readLine()) != null) {
+                    Variant variant = objectReader.readValue(line);
+                    variants.add(variant);
+                    count++;
+                    if (count % insertBatchSize == 0) {
+                        logger.debug("Loading variants from '{}', {} variants loaded", uri.toString(), count);
+                        insert(loader, variants, null);
+                        variants = new ArrayList<>(insertBatchSize);
+                    }
                 }
-            }
 
-            // Insert the remaining variants
-            if (CollectionUtils.isNotEmpty(variants)) {
-                logger.debug("Loading remaining variants from '{}', {} variants loaded", uri.toString(), count);
-                insert(collection, variants);
+                // Insert the remaining variants
+                if (CollectionUtils.isNotEmpty(variants)) {
+                    logger.debug("Loading remaining variants from '{}', {} variants loaded", uri.toString(), count);
+                    insert(loader, variants, null);
+                }
+                loader.commit();
             }
         }
     }
@@ -595,12 +637,15 @@ public class VariantSearchManager {
         int bufferSize = 10000;
 
         List<Variant> variants;
-        do {
-            variants = reader.read(bufferSize);
-            insert(collection, variants);
-        } while (CollectionUtils.isNotEmpty(variants));
-
-        reader.close();
+        try (SolrStreamingLoader loader = newStreamingLoader(collection)) {
+            do {
+                variants = reader.read(bufferSize);
+                insert(loader, variants, null);
+            } while (CollectionUtils.isNotEmpty(variants));
+            loader.commit();
+        } finally {
+            reader.close();
+        }
     }
 
     private void delete(String collection, List<String> variants) throws IOException, SolrServerException {
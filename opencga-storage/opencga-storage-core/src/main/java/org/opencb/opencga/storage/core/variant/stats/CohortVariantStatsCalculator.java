@@ -0,0 +1,264 @@
+/*
+ * Copyright 2015-2020 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencb.opencga.storage.core.variant.stats;
+
+import org.apache.commons.lang3.StringUtils;
+import org.opencb.biodata.models.variant.Genotype;
+import org.opencb.biodata.models.variant.StudyEntry;
+import org.opencb.biodata.models.variant.Variant;
+import org.opencb.biodata.models.variant.avro.FileEntry;
+import org.opencb.biodata.models.variant.avro.SampleEntry;
+import org.opencb.biodata.models.variant.stats.VariantStats;
+import org.opencb.biodata.tools.variant.stats.VariantStatsCalculator;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * Calculates the stats of a set of cohorts in one single pass over the samples of each variant.
+ *
+ * The cohort membership is precomputed as a bitset for each sample position, and reused while the samples of the
+ * study do not change. Genotypes are translated into codes, and counted into primitive arrays for all the cohorts at
+ * once. The genotype counts are converted into {@link VariantStats} with {@link VariantStatsCalculator}.
+ *
+ * Not thread safe.
+ */
+public class CohortVariantStatsCalculator {
+
+    private static final int[] EMPTY = new int[0];
+
+    private final List<String> cohortNames;
+    private final List<Collection<String>> cohortSamples;
+    private final int numCohorts;
+    private final int cohortWords;
+
+    // Layout of the samples of the last processed study
+    private Map<String, Integer> samplesPosition;
+    private long[] membership = new long[0];
+
+    // Genotype dictionary
+    private final Map<String, Integer> genotypeCodes = new HashMap<>();
+    private final List<String> genotypes = new ArrayList<>();
+
+    // Buffers reused between variants
+    private int[] gtCounts = EMPTY;
+    private final BitSet[] cohortFiles;
+    private final boolean[] cohortWithoutFileIndex;
+
+    public CohortVariantStatsCalculator(Map<String, ? extends Collection<String>> cohorts) {
+        cohortNames = new ArrayList<>(cohorts.size());
+        cohortSamples = new ArrayList<>(cohorts.size());
+        for (Map.Entry<String, ? extends Collection<String>> entry : cohorts.entrySet()) {
+            cohortNames.add(entry.getKey());
+            cohortSamples.add(entry.getValue() == null ? Collections.emptyList() : entry.getValue());
+        }
+        numCohorts = cohortNames.size();
+        cohortWords = (numCohorts + 63) / 64;
+        cohortFiles = new BitSet[numCohorts];
+        for (int c = 0; c < numCohorts; c++) {
+            cohortFiles[c] = new BitSet();
+        }
+        cohortWithoutFileIndex = new boolean[numCohorts];
+    }
+
+    public List<String> getCohortNames() {
+        return cohortNames;
+    }
+
+    /**
+     * Calculate the stats of the cohorts for the given variant.
+     *
+     * @param variant       Variant
+     * @param study         Study entry of the variant
+     * @param cohortFilter  Cohorts to calculate
+     * @return              Stats of the selected cohorts, in the same order as the cohorts
+     */
+    public List<VariantStats> calculate(Variant variant, StudyEntry study, Predicate<String> cohortFilter) {
+        boolean[] selected = new boolean[numCohorts];
+        boolean anySelected = false;
+        for (int c = 0; c < numCohorts; c++) {
+            selected[c] = cohortFilter.test(cohortNames.get(c));
+            anySelected |= selected[c];
+        }
+        if (!anySelected) {
+            return new ArrayList<>();
+        }
+
+        Integer gtIdx = study.getSampleDataKeyPosition("GT");
+        if (gtIdx == null || gtIdx < 0) {
+            // Nothing to count. Let the VariantStatsCalculator deal with it
+            List<VariantStats> stats = new ArrayList<>();
+            for (int c = 0; c < numCohorts; c++) {
+                if (selected[c]) {
+                    VariantStats variantStats = VariantStatsCalculator.calculate(variant, study, cohortSamples.get(c));
+                    variantStats.setCohortId(cohortNames.get(c));
+                    stats.add(variantStats);
+                }
+            }
+            return stats;
+        }
+
+        updateLayout(study.getSamplesPosition());
+        countGenotypes(study, gtIdx);
+
+        List<VariantStats> stats = new ArrayList<>();
+        int stride = genotypes.size();
+        for (int c = 0; c < numCohorts; c++) {
+            if (!selected[c]) {
+                continue;
+            }
+            Map<Genotype, Integer> gtCount = new HashMap<>();
+            for (int code = 0; code < stride; code++) {
+                int count = gtCounts[c * stride + code];
+                if (count > 0) {
+                    gtCount.put(new Genotype(genotypes.get(code)), count);
+                }
+            }
+            VariantStats variantStats = VariantStatsCalculator.calculate(variant, gtCount, false);
+            variantStats.setCohortId(cohortNames.get(c));
+            calculateFileStats(variantStats, study, c);
+            stats.add(variantStats);
+        }
+        return stats;
+    }
+
+    /**
+     * Single pass over the samples of the study, counting the genotypes of all the cohorts.
+     */
+    private void countGenotypes(StudyEntry study, int gtIdx) {
+        List<SampleEntry> samples = study.getSamples();
+        int numSamples = samples == null ? 0 : Math.min(samples.size(), membership.length / Math.max(1, cohortWords));
+        int stride = Math.max(8, genotypes.size());
+        gtCounts = new int[numCohorts * stride];
+        for (int c = 0; c < numCohorts; c++) {
+            cohortFiles[c].clear();
+            cohortWithoutFileIndex[c] = false;
+        }
+
+        for (int p = 0; p < numSamples; p++) {
+            int offset = p * cohortWords;
+            SampleEntry sample = samples.get(p);
+            List<String> data = sample.getData();
+            String gt = data == null || gtIdx >= data.size() ? null : data.get(gtIdx);
+            if (gt == null || gt.isEmpty()) {
+                // Samples without genotype are not counted
+                continue;
+            }
+            int code = getGenotypeCode(gt);
+            if (code >= stride) {
+                gtCounts = resize(gtCounts, stride, genotypes.size() * 2);
+                stride = genotypes.size() * 2;
+            }
+            Integer fileIndex = sample.getFileIndex();
+            for (int w = 0; w < cohortWords; w++) {
+                long word = membership[offset + w];
+                while (word != 0) {
+                    int c = (w << 6) + Long.numberOfTrailingZeros(word);
+                    word &= word - 1;
+                    gtCounts[c * stride + code]++;
+                    if (fileIndex == null) {
+                        cohortWithoutFileIndex[c] = true;
+                    } else {
+                        cohortFiles[c].set(fileIndex);
+                    }
+                }
+            }
+        }
+        // Compact to the actual number of genotypes
+        if (stride != genotypes.size()) {
+            gtCounts = resize(gtCounts, stride, genotypes.size());
+        }
+    }
+
+    /**
+     * Filter and quality stats from the files of the samples of the cohort. If any sample does not refer to its file,
+     * all the files of the study are used.
+     */
+    private void calculateFileStats(VariantStats stats, StudyEntry study, int cohort) {
+        List<FileEntry> files = study.getFiles();
+        if (files == null) {
+            files = Collections.emptyList();
+        }
+        int numFiles = 0;
+        int numQualFiles = 0;
+        double qualSum = 0;
+        for (int i = 0; i < files.size(); i++) {
+            if (!cohortWithoutFileIndex[cohort] && !cohortFiles[cohort].get(i)) {
+                continue;
+            }
+            Map<String, String> data = files.get(i).getData();
+            String filter = data.get(StudyEntry.FILTER);
+            // Ensure missing filters are counted
+            if (StringUtils.isEmpty(filter)) {
+                filter = ".";
+            }
+            VariantStatsCalculator.addFileFilter(filter, stats.getFilterCount());
+            numFiles++;
+            String qual = data.get(StudyEntry.QUAL);
+            if (StringUtils.isNotEmpty(qual) && !qual.equals(".")) {
+                qualSum += Double.parseDouble(qual);
+                numQualFiles++;
+            }
+        }
+        VariantStatsCalculator.calculateFilterFreq(stats, numFiles);
+        stats.setQualityAvg((float) (qualSum / numQualFiles));
+        stats.setQualityCount(numQualFiles);
+    }
+
+    private void updateLayout(Map<String, Integer> newSamplesPosition) {
+        if (newSamplesPosition == null) {
+            newSamplesPosition = Collections.emptyMap();
+        }
+        if (newSamplesPosition == samplesPosition) {
+            return;
+        }
+        if (samplesPosition != null && samplesPosition.equals(newSamplesPosition)) {
+            // Same samples in a different map instance. Keep the layout
+            samplesPosition = newSamplesPosition;
+            return;
+        }
+        samplesPosition = newSamplesPosition;
+        membership = new long[samplesPosition.size() * cohortWords];
+        for (int c = 0; c < numCohorts; c++) {
+            for (String sample : cohortSamples.get(c)) {
+                Integer position = samplesPosition.get(sample);
+                if (position != null && position < samplesPosition.size()) {
+                    membership[position * cohortWords + (c >> 6)] |= 1L << (c & 63);
+                }
+            }
+        }
+    }
+
+    private int getGenotypeCode(String gt) {
+        Integer code = genotypeCodes.get(gt);
+        if (code == null) {
+            code = genotypes.size();
+            genotypes.add(gt);
+            genotypeCodes.put(gt, code);
+        }
+        return code;
+    }
+
+    private int[] resize(int[] counts, int oldStride, int newStride) {
+        int[] newCounts = new int[numCohorts * newStride];
+        int length = Math.min(oldStride, newStride);
+        for (int c = 0; c < numCohorts; c++) {
+            System.arraycopy(counts, c * oldStride, newCounts, c * newStride, length);
+        }
+        return newCounts;
+    }
+}
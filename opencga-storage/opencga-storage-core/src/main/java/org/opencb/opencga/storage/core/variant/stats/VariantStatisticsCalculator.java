@@ -34,6 +34,8 @@ public class VariantStatisticsCalculator {
     private boolean overwrite;
     private VariantAggregatedStatsCalculator aggregatedCalculator;
     private Aggregation aggregation;
+    private CohortVariantStatsCalculator cohortCalculator;
+    private Map<String, Set<String>> cohortCalculatorSamples;
 
     public VariantStatisticsCalculator() {
         this(false);
@@ -127,15 +129,9 @@ public class VariantStatisticsCalculator {
             }
 
             if (!AggregationUtils.isAggregated(aggregation) && samples != null) {
-                List<VariantStats> stats = new ArrayList<>(samples.size());
-                for (Map.Entry<String, Set<String>> cohort : samples.entrySet()) {
-                    if (overwrite || study.getStats(cohort.getKey()) == null) {
-
-                        VariantStats variantStats = VariantStatsCalculator.calculate(variant, study, cohort.getValue());
-                        variantStats.setCohortId(cohort.getKey());
-                        stats.add(variantStats);
-                    }
-                }
+                StudyEntry finalStudy = study;
+                List<VariantStats> stats = getCohortCalculator(samples)
+                        .calculate(variant, study, cohort -> overwrite || finalStudy.getStats(cohort) == null);
                 study.setStats(stats);
             } else if (aggregatedCalculator != null) { // another way to say that the study is aggregated (!Aggregation
                 // .NONE.equals(aggregation))
@@ -155,6 +151,20 @@ public class VariantStatisticsCalculator {
         return variantStatsWrappers;
     }
 
+    /**
+     * Reuse the cohort calculator, and its precomputed sample layout, while the cohorts do not change.
+     *
+     * @param samples cohorts
+     * @return calculator for the given cohorts
+     */
+    private CohortVariantStatsCalculator getCohortCalculator(Map<String, Set<String>> samples) {
+        if (cohortCalculator == null || cohortCalculatorSamples != samples) {
+            cohortCalculator = new CohortVariantStatsCalculator(samples);
+            cohortCalculatorSamples = samples;
+        }
+        return cohortCalculator;
+    }
+
     @Deprecated
     public static Map<String, String> removeAttributePrefix(Map<String, String> attributes)
             throws IllegalArgumentException {
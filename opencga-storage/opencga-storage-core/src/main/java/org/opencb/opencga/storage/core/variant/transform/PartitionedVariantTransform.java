@@ -0,0 +1,259 @@
+/*
+ * Copyright 2015-2020 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencb.opencga.storage.core.variant.transform;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import htsjdk.tribble.index.Index;
+import htsjdk.tribble.index.IndexFactory;
+import htsjdk.tribble.readers.TabixReader;
+import org.apache.commons.lang3.time.StopWatch;
+import org.opencb.biodata.models.variant.Variant;
+import org.opencb.commons.io.DataWriter;
+import org.opencb.commons.run.Task;
+import org.opencb.opencga.core.common.TimeUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Transform a tabix indexed VCF file splitting it by chromosome.
+ *
+ * Each chromosome is read from the index and transformed by a new transform task, so stateful tasks, like the
+ * generation of reference blocks for gVCF files, can run in parallel. Partial outputs are written to temporary files,
+ * and stitched in the order of the index into the final writer.
+ *
+ * The stats of the file are merged by the stats calculator shared by all the transform tasks. Its {@code pre} and
+ * {@code post} are called only once, before the first and after the last partition. See {@link #setSharedTask(Task)}.
+ *
+ * @param <W> Type of the encoded variants to write
+ */
+public class PartitionedVariantTransform<W> {
+
+    private static Logger logger = LoggerFactory.getLogger(PartitionedVariantTransform.class);
+
+    private final Path input;
+    private final Path index;
+    private final Supplier<Task<String, Variant>> transformTask;
+    private final Supplier<Task<Variant, W>> encoder;
+    private final DataWriter<W> writer;
+    private final Function<W, byte[]> serializer;
+    private final Function<byte[], W> deserializer;
+    private final Path tmpDir;
+    private final int numThreads;
+    private final int batchSize;
+    private Task<?, ?> sharedTask;
+
+    /**
+     * @param input         Input VCF file, compressed with BGZF
+     * @param transformTask Stateful transform task. A new instance is used for each chromosome
+     * @param encoder       Encoder task
+     * @param writer        Final writer
+     * @param serializer    Serializer to write the encoded variants into the temporary files
+     * @param deserializer  Deserializer to read the encoded variants from the temporary files
+     * @param tmpDir        Directory for the temporary files
+     * @param numThreads    Number of chromosomes to transform in parallel
+     * @param batchSize     Number of lines to transform in each batch
+     */
+    public PartitionedVariantTransform(Path input, Supplier<Task<String, Variant>> transformTask, Supplier<Task<Variant, W>> encoder,
+                                       DataWriter<W> writer, Function<W, byte[]> serializer, Function<byte[], W> deserializer,
+                                       Path tmpDir, int numThreads, int batchSize) {
+        this.input = input;
+        this.index = getIndex(input);
+        this.transformTask = transformTask;
+        this.encoder = encoder;
+        this.writer = writer;
+        this.serializer = serializer;
+        this.deserializer = deserializer;
+        this.tmpDir = tmpDir;
+        this.numThreads = Math.max(1, numThreads);
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    /**
+     * @param sharedTask Task shared by the transform tasks of all the partitions, like the stats calculator. Its pre and post
+     *                   are called once for the whole file, so the transform tasks must not call them.
+     * @return this
+     */
+    public PartitionedVariantTransform<W> setSharedTask(Task<?, ?> sharedTask) {
+        this.sharedTask = sharedTask;
+        return this;
+    }
+
+    /**
+     * Check if the input file has a tabix index, required to split the file.
+     *
+     * @param input Input VCF file
+     * @return if the file can be transformed by partitions
+     */
+    public static boolean isSupported(Path input) {
+        return input != null && Files.exists(getIndex(input));
+    }
+
+    private static Path getIndex(Path input) {
+        return Paths.get(input.toString() + ".tbi");
+    }
+
+    public void run() throws ExecutionException {
+        List<String> chromosomes = getChromosomes();
+        logger.info("Transform file by chromosome, using {} threads. Found {} chromosomes in the index: {}",
+                numThreads, chromosomes.size(), chromosomes);
+
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads, new ThreadFactoryBuilder()
+                .setNameFormat("transform-partition-%d")
+                .build());
+        List<Future<Path>> futures = new ArrayList<>(chromosomes.size());
+        try {
+            if (sharedTask != null) {
+                sharedTask.pre();
+            }
+            for (String chromosome : chromosomes) {
+                futures.add(executor.submit(() -> transform(chromosome)));
+            }
+            writer.open();
+            writer.pre();
+            // Stitch the partial outputs in order, while the next chromosomes are being transformed
+            for (Future<Path> future : futures) {
+                Path partialOutput = future.get();
+                try {
+                    copy(partialOutput);
+                } finally {
+                    Files.deleteIfExists(partialOutput);
+                }
+            }
+            // All the partitions are transformed
+            if (sharedTask != null) {
+                sharedTask.post();
+            }
+            writer.post();
+            writer.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ExecutionException(e);
+        } catch (ExecutionException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new ExecutionException(e);
+        } finally {
+            executor.shutdownNow();
+            for (Future<Path> future : futures) {
+                deletePartialOutput(future);
+            }
+        }
+    }
+
+    private List<String> getChromosomes() throws ExecutionException {
+        try {
+            Index tabixIndex = IndexFactory.loadIndex(index.toString());
+            return new ArrayList<>(tabixIndex.getSequenceNames());
+        } catch (RuntimeException e) {
+            throw new ExecutionException("Error reading index " + index, e);
+        }
+    }
+
+    private Path transform(String chromosome) throws Exception {
+        StopWatch stopWatch = StopWatch.createStarted();
+        Path partialOutput = Files.createTempFile(tmpDir, "transform_partition_", ".bin");
+        Task<String, Variant> task = transformTask.get();
+        Task<Variant, W> encoderTask = encoder.get();
+        TabixReader reader = new TabixReader(input.toString(), index.toString());
+        long lines = 0;
+        try (DataOutputStream os = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(partialOutput)))) {
+            task.pre();
+            encoderTask.pre();
+            TabixReader.Iterator iterator = reader.query(reader.chr2tid(chromosome), 0, Integer.MAX_VALUE);
+            List<String> batch = new ArrayList<>(batchSize);
+            String line;
+            while ((line = iterator.next()) != null) {
+                batch.add(line);
+                if (batch.size() == batchSize) {
+                    write(os, encoderTask.apply(task.apply(batch)));
+                    lines += batch.size();
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                write(os, encoderTask.apply(task.apply(batch)));
+                lines += batch.size();
+            }
+            write(os, encoderTask.apply(task.drain()));
+            write(os, encoderTask.drain());
+            task.post();
+            encoderTask.post();
+        } catch (Exception e) {
+            Files.deleteIfExists(partialOutput);
+            throw e;
+        } finally {
+            reader.close();
+        }
+        logger.info("Transformed chromosome '{}' with {} lines in {}", chromosome, lines, TimeUtils.durationToString(stopWatch));
+        return partialOutput;
+    }
+
+    private void write(DataOutputStream os, List<W> encoded) throws IOException {
+        for (W w : encoded) {
+            byte[] bytes = serializer.apply(w);
+            os.writeInt(bytes.length);
+            os.write(bytes);
+        }
+    }
+
+    private void copy(Path partialOutput) throws IOException {
+        try (DataInputStream is = new DataInputStream(new BufferedInputStream(Files.newInputStream(partialOutput)))) {
+            List<W> batch = new ArrayList<>(batchSize);
+            while (true) {
+                int length;
+                try {
+                    length = is.readInt();
+                } catch (EOFException e) {
+                    break;
+                }
+                byte[] bytes = new byte[length];
+                is.readFully(bytes);
+                batch.add(deserializer.apply(bytes));
+                if (batch.size() == batchSize) {
+                    writer.write(batch);
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                writer.write(batch);
+            }
+        }
+    }
+
+    private static void deletePartialOutput(Future<Path> future) {
+        if (future.isDone() && !future.isCancelled()) {
+            try {
+                Files.deleteIfExists(future.get());
+            } catch (InterruptedException | ExecutionException | IOException e) {
+                // Partial output not created, or already deleted
+                logger.debug("Unable to delete partial output", e);
+            }
+        } else {
+            future.cancel(true);
+        }
+    }
+}
@@ -70,6 +70,8 @@ public class VariantTransformTask implements Task<String, Variant> {
     protected final AtomicLong normTime = new AtomicLong(0);
     protected final List<BiConsumer<String, RuntimeException>> errorHandlers = new ArrayList<>();
     protected boolean failOnError = true;
+    // If false, the pre and post of the shared stats calculator are called by the caller
+    protected boolean manageStatsCalculator = true;
     private VariantStudyMetadata metadata;
 
     public VariantTransformTask(VariantFactory factory,
@@ -122,8 +124,10 @@ public class VariantTransformTask implements Task<String, Variant> {
 
     @Override
     public void pre() {
-        synchronized (variantStatsTask) {
-            variantStatsTask.pre();
+        if (manageStatsCalculator) {
+            synchronized (variantStatsTask) {
+                variantStatsTask.pre();
+            }
         }
     }
 
@@ -236,8 +240,10 @@ public class VariantTransformTask implements Task<String, Variant> {
 
     @Override
     public void post() {
-        synchronized (variantStatsTask) {
-            variantStatsTask.post();
+        if (manageStatsCalculator) {
+            synchronized (variantStatsTask) {
+                variantStatsTask.post();
+            }
         }
         logger.debug("Time txt2hts: " + this.htsConvertTime.get());
         logger.debug("Time hts2biodata: " + this.biodataConvertTime.get());
@@ -269,6 +275,16 @@ public class VariantTransformTask implements Task<String, Variant> {
         return this;
     }
 
+    /**
+     * @param manageStatsCalculator If false, {@link #pre()} and {@link #post()} do not call the stats calculator, so it can be
+     *                              initialized and finished only once by the caller when it is shared by many tasks.
+     * @return this
+     */
+    public VariantTransformTask setManageStatsCalculator(boolean manageStatsCalculator) {
+        this.manageStatsCalculator = manageStatsCalculator;
+        return this;
+    }
+
     public VariantTransformTask setFailOnError(boolean failOnError) {
         this.failOnError = failOnError;
         return this;
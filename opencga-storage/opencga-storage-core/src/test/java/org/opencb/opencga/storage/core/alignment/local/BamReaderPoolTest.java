@@ -0,0 +1,161 @@
+package org.opencb.opencga.storage.core.alignment.local;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.opencb.biodata.tools.alignment.BamManager;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class BamReaderPoolTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private Path bam1;
+    private Path bam2;
+    private AtomicInteger opens;
+
+    @Before
+    public void setUp() throws Exception {
+        bam1 = copyBam("file1.bam");
+        bam2 = copyBam("file2.bam");
+        opens = new AtomicInteger();
+    }
+
+    @Test
+    public void testReuse() throws Exception {
+        BamReaderPool pool = newPool(10, Long.MAX_VALUE, 60000);
+        BamManager bamManager;
+        try (BamReaderPool.PooledReader reader = pool.borrow(bam1)) {
+            bamManager = reader.getBamManager();
+        }
+        try (BamReaderPool.PooledReader reader = pool.borrow(bam1)) {
+            assertSame(bamManager, reader.getBamManager());
+        }
+        assertEquals(1, opens.get());
+        assertEquals(1L, pool.getStats().getLong("reused"));
+        assertEquals(1, pool.getStats().getInt("idle"));
+    }
+
+    @Test
+    public void testExclusiveBorrow() throws Exception {
+        BamReaderPool pool = newPool(10, Long.MAX_VALUE, 60000);
+        try (BamReaderPool.PooledReader reader1 = pool.borrow(bam1);
+             BamReaderPool.PooledReader reader2 = pool.borrow(bam1)) {
+            assertNotSame(reader1.getBamManager(), reader2.getBamManager());
+        }
+        assertEquals(2, opens.get());
+        assertEquals(2, pool.getStats().getInt("idle"));
+
+        // Both readers are still valid, so both are reused
+        try (BamReaderPool.PooledReader reader1 = pool.borrow(bam1);
+             BamReaderPool.PooledReader reader2 = pool.borrow(bam1)) {
+            assertNotSame(reader1.getBamManager(), reader2.getBamManager());
+            assertEquals(0, pool.getStats().getInt("idle"));
+        }
+        assertEquals(2, opens.get());
+        assertEquals(2L, pool.getStats().getLong("reused"));
+        assertEquals(0L, pool.getStats().getLong("invalidated"));
+        assertEquals(2, pool.getStats().getInt("idle"));
+    }
+
+    @Test
+    public void testMaxOpen() throws Exception {
+        BamReaderPool pool = newPool(1, Long.MAX_VALUE, 60000);
+        pool.borrow(bam1).close();
+        pool.borrow(bam2).close();
+        assertEquals(1L, pool.getStats().getLong("evicted"));
+        assertEquals(1, pool.getStats().getInt("open"));
+
+        // All readers in use. Open a reader out of the pool
+        try (BamReaderPool.PooledReader reader1 = pool.borrow(bam2);
+             BamReaderPool.PooledReader reader2 = pool.borrow(bam1)) {
+            assertNotNull(reader1.getBamManager());
+            assertNotNull(reader2.getBamManager());
+            assertEquals(1L, pool.getStats().getLong("notPooled"));
+        }
+        assertEquals(1, pool.getStats().getInt("open"));
+        assertEquals(1, pool.getStats().getInt("idle"));
+    }
+
+    @Test
+    public void testMaxIndexSize() throws Exception {
+        BamReaderPool pool = newPool(10, 0, 60000);
+        pool.borrow(bam1).close();
+        assertEquals(0, pool.getStats().getInt("idle"));
+        assertEquals(0, pool.getStats().getInt("open"));
+    }
+
+    @Test
+    public void testIdleTimeout() throws Exception {
+        BamReaderPool pool = newPool(10, Long.MAX_VALUE, -1);
+        pool.borrow(bam1).close();
+        pool.borrow(bam1).close();
+        assertEquals(2, opens.get());
+        assertEquals(1L, pool.getStats().getLong("evicted"));
+    }
+
+    @Test
+    public void testIdleTimeoutInBackground() throws Exception {
+        BamReaderPool pool = newPool(10, Long.MAX_VALUE, 100);
+        pool.borrow(bam1).close();
+        assertEquals(1, pool.getStats().getInt("idle"));
+
+        // Expired readers are closed without waiting for the next borrow
+        long timeout = System.currentTimeMillis() + 10000;
+        while (pool.getStats().getInt("idle") > 0 && System.currentTimeMillis() < timeout) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, pool.getStats().getInt("idle"));
+        assertEquals(0, pool.getStats().getInt("open"));
+        assertEquals(1L, pool.getStats().getLong("evicted"));
+        pool.close();
+    }
+
+    @Test
+    public void testFileModified() throws Exception {
+        BamReaderPool pool = newPool(10, Long.MAX_VALUE, 60000);
+        pool.borrow(bam1).close();
+        assertTrue(bam1.toFile().setLastModified(bam1.toFile().lastModified() - 10000));
+        pool.borrow(bam1).close();
+        assertEquals(2, opens.get());
+        assertEquals(1L, pool.getStats().getLong("invalidated"));
+    }
+
+    @Test
+    public void testCloseTwice() throws Exception {
+        BamReaderPool pool = newPool(10, Long.MAX_VALUE, 60000);
+        BamReaderPool.PooledReader reader = pool.borrow(bam1);
+        reader.close();
+        reader.close();
+        assertEquals(1, pool.getStats().getInt("idle"));
+
+        pool.close();
+        assertEquals(0, pool.getStats().getInt("open"));
+    }
+
+    private BamReaderPool newPool(int maxOpen, long maxIndexSize, long idleTimeoutMs) {
+        return new BamReaderPool(maxOpen, maxIndexSize, idleTimeoutMs, path -> {
+            opens.incrementAndGet();
+            return new BamManager(path);
+        });
+    }
+
+    private Path copyBam(String name) throws Exception {
+        Path bam = temporaryFolder.getRoot().toPath().resolve(name);
+        try (InputStream is = getClass().getResourceAsStream("/HG00096.chrom20.small.bam")) {
+            Files.copy(is, bam);
+        }
+        try (InputStream is = getClass().getResourceAsStream("/HG00096.chrom20.small.bam.bai")) {
+            Files.copy(is, temporaryFolder.getRoot().toPath().resolve(name + ".bai"));
+        }
+        return bam;
+    }
+}
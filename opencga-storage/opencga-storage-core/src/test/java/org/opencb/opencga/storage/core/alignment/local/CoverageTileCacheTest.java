@@ -0,0 +1,165 @@
+package org.opencb.opencga.storage.core.alignment.local;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.opencb.biodata.models.alignment.RegionCoverage;
+import org.opencb.biodata.models.core.Region;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class CoverageTileCacheTest {
+
+    private CoverageTileCache cache;
+    private AtomicInteger loads;
+
+    @Before
+    public void setUp() {
+        cache = new CoverageTileCache(100L * 1024 * 1024);
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    public void testGetLevel() {
+        assertEquals(1, CoverageTileCache.getLevel(0));
+        assertEquals(1, CoverageTileCache.getLevel(1));
+        assertEquals(1, CoverageTileCache.getLevel(9));
+        assertEquals(10, CoverageTileCache.getLevel(50));
+        assertEquals(1000, CoverageTileCache.getLevel(1000));
+        assertEquals(100000, CoverageTileCache.getLevel(5000000));
+    }
+
+    @Test
+    public void testCoverage() throws Exception {
+        RegionCoverage coverage = cache.coverage("file", new Region("1", 101, 110), 1, this::load);
+        assertEquals(101, coverage.getStart());
+        assertEquals(110, coverage.getEnd());
+        assertArrayEquals(new double[]{101, 102, 103, 104, 105, 106, 107, 108, 109, 110}, coverage.getValues(), 0.0001);
+        assertEquals(1, loads.get());
+
+        // Overlapping region, already cached
+        coverage = cache.coverage("file", new Region("1", 105, 108), 1, this::load);
+        assertArrayEquals(new double[]{105, 106, 107, 108}, coverage.getValues(), 0.0001);
+        assertEquals(1, loads.get());
+
+        // Other file
+        cache.coverage("file2", new Region("1", 105, 108), 1, this::load);
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void testCoverageMergeWindows() throws Exception {
+        // Windows of 4 from level 1
+        RegionCoverage coverage = cache.coverage("file", new Region("1", 1, 10), 4, this::load);
+        assertEquals(4, coverage.getWindowSize());
+        assertArrayEquals(new double[]{2.5, 6.5, 9.5}, coverage.getValues(), 0.0001);
+    }
+
+    @Test
+    public void testCoverageMultipleTiles() throws Exception {
+        int start = CoverageTileCache.TILE_WINDOWS - 1;
+        RegionCoverage coverage = cache.coverage("file", new Region("1", start, start + 3), 1, this::load);
+        assertArrayEquals(new double[]{start, start + 1, start + 2, start + 3}, coverage.getValues(), 0.0001);
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void testClampToChromosomeLength() throws Exception {
+        int chromosomeLength = 250000;
+        List<Region> loadedRegions = new ArrayList<>();
+        CoverageTileCache.CoverageLoader loader = new CoverageTileCache.CoverageLoader() {
+            @Override
+            public RegionCoverage load(Region region, int windowSize) {
+                loadedRegions.add(region);
+                return CoverageTileCacheTest.this.load(region, windowSize);
+            }
+
+            @Override
+            public int getChromosomeLength(String chromosome) {
+                return chromosomeLength;
+            }
+        };
+
+        RegionCoverage coverage = cache.coverage("file", new Region("1", 1, 200000), 100000, loader);
+        assertEquals(2, coverage.getValues().length);
+        assertEquals(1, loadedRegions.size());
+        assertEquals(1, loadedRegions.get(0).getStart());
+        assertEquals(chromosomeLength, loadedRegions.get(0).getEnd());
+    }
+
+    @Test
+    public void testClampToQueryIfUnknownChromosomeLength() throws Exception {
+        List<Region> loadedRegions = new ArrayList<>();
+        CoverageTileCache.CoverageLoader loader = (region, windowSize) -> {
+            loadedRegions.add(region);
+            return load(region, windowSize);
+        };
+
+        RegionCoverage coverage = cache.coverage("file", new Region("1", 1, 200000), 100000, loader);
+        assertArrayEquals(new double[]{50000.5, 150000.5}, coverage.getValues(), 0.0001);
+        assertEquals(1, loadedRegions.size());
+        assertEquals(1, loadedRegions.get(0).getStart());
+        assertEquals(200000, loadedRegions.get(0).getEnd());
+
+        // Incomplete tiles are not cached
+        cache.coverage("file", new Region("1", 1, 200000), 100000, loader);
+        assertEquals(2, loadedRegions.size());
+    }
+
+    @Test
+    public void testClampToQueryIfUnknownChromosomeLength() throws Exception {
+        List<Region> loadedRegions = new ArrayList<>();
+        CoverageTileCache.CoverageLoader loader = (region, windowSize) -> {
+            loadedRegions.add(region);
+            return load(region, windowSize);
+        };
+
+        RegionCoverage coverage = cache.coverage("file", new Region("1", 1, 200000), 100000, loader);
+        assertArrayEquals(new double[]{50000.5, 150000.5}, coverage.getValues(), 0.01);
+        assertEquals(1, loadedRegions.size());
+        assertEquals(1, loadedRegions.get(0).getStart());
+        assertEquals(200000, loadedRegions.get(0).getEnd());
+
+        // Within the loaded part of the tile
+        cache.coverage("file", new Region("1", 1, 150000), 100000, loader);
+        assertEquals(1, loadedRegions.size());
+
+        // Beyond the loaded part of the tile
+        cache.coverage("file", new Region("1", 1, 300000), 100000, loader);
+        assertEquals(2, loadedRegions.size());
+        assertEquals(300000, loadedRegions.get(1).getEnd());
+    }
+
+    @Test
+    public void testDisabled() throws Exception {
+        cache = new CoverageTileCache(0);
+        cache.coverage("file", new Region("1", 101, 110), 1, this::load);
+        cache.coverage("file", new Region("1", 101, 110), 1, this::load);
+        assertEquals(2, loads.get());
+    }
+
+    /**
+     * Fake coverage, where the coverage of each position is the position itself.
+     */
+    private RegionCoverage load(Region region, int windowSize) {
+        loads.incrementAndGet();
+        int numWindows = (region.getEnd() - region.getStart() + windowSize) / windowSize;
+        double[] values = new double[numWindows];
+        for (int i = 0; i < numWindows; i++) {
+            int windowStart = region.getStart() + i * windowSize;
+            int windowEnd = Math.min(region.getEnd(), windowStart + windowSize - 1);
+            values[i] = (windowStart + windowEnd) / 2.0;
+        }
+        RegionCoverage coverage = new RegionCoverage();
+        coverage.setChromosome(region.getChromosome());
+        coverage.setStart(region.getStart());
+        coverage.setEnd(region.getEnd());
+        coverage.setWindowSize(windowSize);
+        coverage.setValues(values);
+        return coverage;
+    }
+}
@@ -0,0 +1,102 @@
+package org.opencb.opencga.storage.core.io.plain;
+
+import htsjdk.samtools.util.BlockCompressedOutputStream;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.*;
+
+public class ParallelBgzfInputStreamTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testRead() throws Exception {
+        List<String> lines = lines(100000);
+        byte[] bgzf = bgzf(lines);
+
+        assertTrue(ParallelBgzfInputStream.isBgzf(new BufferedInputStream(new ByteArrayInputStream(bgzf))));
+        try (InputStream is = new ParallelBgzfInputStream(new ByteArrayInputStream(bgzf), 4)) {
+            assertEquals(String.join("\n", lines) + "\n", new String(readAll(is), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    public void testIsNotBgzf() throws Exception {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        try (OutputStream gzip = new GZIPOutputStream(os)) {
+            gzip.write("#CHROM\tPOS\n".getBytes(StandardCharsets.UTF_8));
+        }
+        assertFalse(ParallelBgzfInputStream.isBgzf(new BufferedInputStream(new ByteArrayInputStream(os.toByteArray()))));
+        assertFalse(ParallelBgzfInputStream.isBgzf(new BufferedInputStream(new ByteArrayInputStream(new byte[0]))));
+    }
+
+    @Test(expected = IOException.class)
+    public void testCorrupted() throws Exception {
+        byte[] bgzf = bgzf(lines(1000));
+        // Modify the compressed data of the first block
+        bgzf[30] = (byte) ~bgzf[30];
+        try (InputStream is = new ParallelBgzfInputStream(new ByteArrayInputStream(bgzf), 2)) {
+            readAll(is);
+        }
+    }
+
+    @Test
+    public void testStringDataReader() throws Exception {
+        List<String> lines = lines(50000);
+        Path path = temporaryFolder.getRoot().toPath().resolve("variants.vcf.gz");
+        try (OutputStream os = new FileOutputStream(path.toFile())) {
+            os.write(bgzf(lines));
+        }
+
+        StringDataReader reader = new StringDataReader(path).setDecompressionThreads(4);
+        reader.open();
+        reader.pre();
+        List<String> read = new ArrayList<>();
+        List<String> batch;
+        do {
+            batch = reader.read(1000);
+            read.addAll(batch);
+        } while (!batch.isEmpty());
+        reader.post();
+        reader.close();
+        assertEquals(lines, read);
+    }
+
+    private static byte[] readAll(InputStream is) throws IOException {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int n;
+        while ((n = is.read(buffer)) > 0) {
+            os.write(buffer, 0, n);
+        }
+        return os.toByteArray();
+    }
+
+    private static List<String> lines(int n) {
+        List<String> lines = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            lines.add("1\t" + (i + 1) + "\t.\tA\tC\t.\tPASS\tAC=" + (i % 7) + "\tGT\t0/1\t1/1");
+        }
+        return lines;
+    }
+
+    private static byte[] bgzf(List<String> lines) throws IOException {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        try (BlockCompressedOutputStream bgzf = new BlockCompressedOutputStream(os, (File) null)) {
+            for (String line : lines) {
+                bgzf.write((line + "\n").getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        return os.toByteArray();
+    }
+}
@@ -0,0 +1,88 @@
+package org.opencb.opencga.storage.core.io.plain;
+
+import htsjdk.samtools.util.BlockCompressedInputStream;
+import org.junit.Test;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.*;
+
+public class ParallelBgzfOutputStreamTest {
+
+    @Test
+    public void testWrite() throws Exception {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        List<String> lines = new ArrayList<>();
+        List<Long> positions = new ArrayList<>();
+        List<Long> virtualOffsets = new ArrayList<>();
+        try (ParallelBgzfOutputStream bgzf = new ParallelBgzfOutputStream(os, 4)) {
+            for (int i = 0; i < 100000; i++) {
+                String line = "1\t" + (i + 1) + "\t.\tA\tC\t.\tPASS\tAC=" + (i % 7) + "\tGT\t0/1\t1/1";
+                lines.add(line);
+                positions.add(bgzf.getPosition());
+                bgzf.write((line + "\n").getBytes(StandardCharsets.UTF_8));
+            }
+            bgzf.finish();
+            for (Long position : positions) {
+                virtualOffsets.add(bgzf.getVirtualOffset(position));
+            }
+        }
+        byte[] bytes = os.toByteArray();
+
+        // Valid gzip file
+        try (InputStream is = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+            assertEquals(String.join("\n", lines) + "\n", new String(readAll(is), StandardCharsets.UTF_8));
+        }
+        // Valid BGZF file
+        assertTrue(ParallelBgzfInputStream.isBgzf(new BufferedInputStream(new ByteArrayInputStream(bytes))));
+        try (InputStream is = new ParallelBgzfInputStream(new ByteArrayInputStream(bytes), 2)) {
+            assertEquals(String.join("\n", lines) + "\n", new String(readAll(is), StandardCharsets.UTF_8));
+        }
+        File file = toFile(bytes);
+        assertEquals(BlockCompressedInputStream.FileTermination.HAS_TERMINATOR_BLOCK, BlockCompressedInputStream.checkTermination(file));
+        // Virtual offsets
+        try (BlockCompressedInputStream is = new BlockCompressedInputStream(file)) {
+            for (int i = 0; i < lines.size(); i += 997) {
+                is.seek(virtualOffsets.get(i));
+                assertEquals(lines.get(i), is.readLine());
+            }
+        }
+    }
+
+    @Test
+    public void testIncompressibleData() throws Exception {
+        byte[] data = new byte[ParallelBgzfOutputStream.BLOCK_SIZE * 3 + 10];
+        new Random(1).nextBytes(data);
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        try (OutputStream bgzf = new ParallelBgzfOutputStream(os, 2)) {
+            bgzf.write(data);
+        }
+        try (InputStream is = new ParallelBgzfInputStream(new ByteArrayInputStream(os.toByteArray()), 2)) {
+            assertArrayEquals(data, readAll(is));
+        }
+    }
+
+    private static File toFile(byte[] bytes) throws IOException {
+        File file = File.createTempFile("bgzf", ".gz");
+        file.deleteOnExit();
+        try (OutputStream os = new FileOutputStream(file)) {
+            os.write(bytes);
+        }
+        return file;
+    }
+
+    private static byte[] readAll(InputStream is) throws IOException {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int n;
+        while ((n = is.read(buffer)) > 0) {
+            os.write(buffer, 0, n);
+        }
+        return os.toByteArray();
+    }
+}
@@ -0,0 +1,73 @@
+package org.opencb.opencga.storage.core.metadata;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class MetadataCacheTest {
+
+    private AtomicInteger calls;
+    private MetadataCache<String, Integer> cache;
+
+    @Before
+    public void setUp() {
+        calls = new AtomicInteger();
+        cache = new MetadataCache<>("test", 10, (studyId, id) -> {
+            calls.incrementAndGet();
+            return id.startsWith("null") ? null : studyId * 1000 + Integer.valueOf(id);
+        });
+    }
+
+    @Test
+    public void testGet() {
+        assertEquals(1005, cache.get(1, "5").intValue());
+        assertEquals(1005, cache.get(1, "5").intValue());
+        assertEquals(2005, cache.get(2, "5").intValue());
+        assertEquals(2, calls.get());
+        assertEquals(1, cache.stats().hitCount());
+        assertEquals(2, cache.stats().missCount());
+    }
+
+    @Test
+    public void testNullNotCached() {
+        assertNull(cache.get(1, "null"));
+        assertNull(cache.get(1, "null"));
+        assertEquals(2, calls.get());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testMaxSize() {
+        for (int i = 0; i < 100; i++) {
+            cache.get(1, String.valueOf(i));
+        }
+        assertTrue(cache.size() <= 10);
+        assertTrue(cache.stats().evictionCount() >= 90);
+    }
+
+    @Test
+    public void testInvalidate() {
+        cache.get(1, "1");
+        cache.get(1, "2");
+        cache.get(2, "1");
+
+        cache.invalidate(1, "1");
+        assertEquals(2, cache.size());
+        cache.get(1, "1");
+        assertEquals(4, calls.get());
+        cache.get(2, "1");
+        assertEquals(4, calls.get());
+    }
+
+    @Test
+    public void testInvalidValue() {
+        cache.put(1, "5", -1);
+        assertEquals(-1, cache.get(1, "5").intValue());
+        assertEquals(1005, cache.get(1, "5", -1).intValue());
+        assertEquals(1005, cache.get(1, "5").intValue());
+        assertEquals(1, calls.get());
+    }
+}
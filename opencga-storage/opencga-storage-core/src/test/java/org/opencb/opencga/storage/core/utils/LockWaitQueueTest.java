@@ -0,0 +1,109 @@
+package org.opencb.opencga.storage.core.utils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class LockWaitQueueTest {
+
+    private ExecutorService executor;
+    private final AtomicBoolean locked = new AtomicBoolean();
+    private final AtomicInteger concurrentAttempts = new AtomicInteger();
+    private final AtomicInteger maxConcurrentAttempts = new AtomicInteger();
+
+    @Before
+    public void setUp() {
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testAcquireFree() throws Exception {
+        assertTrue(LockWaitQueue.acquire("testAcquireFree", this::tryLock, 1000));
+        LockWaitQueue.LockStats stats = LockWaitQueue.getStats("testAcquireFree");
+        assertEquals(1, stats.getAcquisitions());
+        assertEquals(0, stats.getContendedAcquisitions());
+        assertEquals(1, stats.getAttempts());
+    }
+
+    @Test
+    public void testTimeout() throws Exception {
+        locked.set(true);
+        try {
+            LockWaitQueue.acquire("testTimeout", this::tryLock, 200);
+            fail("Expected timeout");
+        } catch (TimeoutException e) {
+            LockWaitQueue.LockStats stats = LockWaitQueue.getStats("testTimeout");
+            assertEquals(1, stats.getTimeouts());
+            assertTrue(stats.getMaxWaitMillis() >= 200);
+            assertTrue(stats.getContendedWaitMillis() >= 200);
+        }
+    }
+
+    @Test
+    public void testWakeUpOnRelease() throws Exception {
+        String lockId = "testWakeUpOnRelease";
+        locked.set(true);
+        Future<Long> future = executor.submit(() -> {
+            LockWaitQueue.acquire(lockId, this::tryLock, 60000);
+            return System.currentTimeMillis();
+        });
+        // Let the backoff grow up to the max
+        Thread.sleep(3 * LockWaitQueue.MAX_BACKOFF_MILLIS);
+        long releaseTime = System.currentTimeMillis();
+        locked.set(false);
+        LockWaitQueue.released(lockId);
+        long acquiredTime = future.get(10, TimeUnit.SECONDS);
+        // Do not wait for the backoff
+        assertTrue(acquiredTime - releaseTime < LockWaitQueue.MAX_BACKOFF_MILLIS / 2);
+        assertEquals(1, LockWaitQueue.getStats(lockId).getContendedAcquisitions());
+    }
+
+    @Test
+    public void testSinglePollerPerLock() throws Exception {
+        String lockId = "testSinglePollerPerLock";
+        int numThreads = 10;
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < numThreads; i++) {
+            futures.add(executor.submit(() -> {
+                LockWaitQueue.acquire(lockId, this::tryLock, 60000);
+                Thread.sleep(20);
+                locked.set(false);
+                LockWaitQueue.released(lockId);
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        assertEquals(1, maxConcurrentAttempts.get());
+        assertEquals(numThreads, LockWaitQueue.getStats(lockId).getAcquisitions());
+        // The queue is removed after the last waiter. Stats are kept
+        assertEquals(0, LockWaitQueue.getNumQueues());
+        assertNotNull(LockWaitQueue.getAllStats().get(lockId));
+    }
+
+    private Boolean tryLock() throws InterruptedException {
+        int current = concurrentAttempts.incrementAndGet();
+        maxConcurrentAttempts.accumulateAndGet(current, Math::max);
+        try {
+            // Simulate a slow backing store
+            Thread.sleep(1);
+            return locked.compareAndSet(false, true) ? Boolean.TRUE : null;
+        } finally {
+            concurrentAttempts.decrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package org.opencb.opencga.storage.core.variant.adaptors.iterators;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.opencb.biodata.models.variant.Variant;
+
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class PrefetchVariantDBIteratorTest {
+
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        // Less threads than iterators, to ensure the pool is never blocked
+        executor = Executors.newFixedThreadPool(2);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testIterate() throws Exception {
+        List<Variant> variants = variants(1, 1000, 1);
+        try (PrefetchVariantDBIterator iterator = prefetch(variants, 7, 3)) {
+            List<Variant> actual = new ArrayList<>();
+            iterator.forEachRemaining(actual::add);
+            assertEquals(variants, actual);
+            assertEquals(variants.size(), iterator.getCount());
+            assertFalse(iterator.hasNext());
+        }
+    }
+
+    @Test
+    public void testEmpty() throws Exception {
+        try (PrefetchVariantDBIterator iterator = prefetch(Collections.emptyList(), 10, 2)) {
+            assertFalse(iterator.hasNext());
+            assertEquals(0, iterator.estimateDensity(), 0);
+        }
+    }
+
+    @Test
+    public void testSeek() throws Exception {
+        List<Variant> variants = variants(1, 1000, 2);
+        try (PrefetchVariantDBIterator iterator = prefetch(variants, 10, 2)) {
+            iterator.seek(new Variant("1:501:A:C"));
+            assertEquals(new Variant("1:501:A:C"), iterator.next());
+            iterator.seek(new Variant("1:520:A:C"));
+            assertEquals(new Variant("1:521:A:C"), iterator.next());
+            // Seek backwards does nothing
+            iterator.seek(new Variant("1:1:A:C"));
+            assertEquals(new Variant("1:523:A:C"), iterator.next());
+            iterator.seek(new Variant("2:1:A:C"));
+            assertFalse(iterator.hasNext());
+        }
+    }
+
+    @Test
+    public void testEstimateDensity() throws Exception {
+        try (PrefetchVariantDBIterator dense = prefetch(variants(1, 10000, 1), 100, 2);
+             PrefetchVariantDBIterator sparse = prefetch(variants(1, 10000, 50), 100, 2)) {
+            assertTrue(sparse.estimateDensity() < dense.estimateDensity());
+            // Estimating does not consume the iterator
+            assertEquals(new Variant("1:1:A:C"), dense.next());
+        }
+    }
+
+    @Test
+    public void testIntersect() throws Exception {
+        List<Variant> v2 = variants(1, 5000, 2);
+        List<Variant> v3 = variants(1, 5000, 3);
+        List<Variant> v7 = variants(1, 5000, 7);
+        Set<Variant> expected = new TreeSet<>(VariantDBIterator.VARIANT_COMPARATOR);
+        expected.addAll(v2);
+        expected.retainAll(v3);
+        expected.retainAll(v7);
+
+        List<VariantDBIterator> iterators = new ArrayList<>();
+        iterators.add(prefetch(v7, 50, 2));
+        iterators.add(prefetch(v2, 50, 2));
+        iterators.add(prefetch(v3, 50, 2));
+        try (VariantDBIterator iterator = new IntersectMultiVariantKeyIterator(iterators, Collections.emptyList())) {
+            List<Variant> actual = new ArrayList<>();
+            iterator.forEachRemaining(actual::add);
+            assertEquals(new ArrayList<>(expected), actual);
+        }
+    }
+
+    @Test
+    public void testError() throws Exception {
+        Iterator<Variant> failing = new Iterator<Variant>() {
+            private int i = 0;
+
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public Variant next() {
+                if (i == 15) {
+                    throw new IllegalStateException("Broken");
+                }
+                return new Variant("1:" + (++i) + ":A:C");
+            }
+        };
+        try (PrefetchVariantDBIterator iterator = new PrefetchVariantDBIterator(VariantDBIterator.wrapper(failing), executor, 10, 2)) {
+            for (int i = 0; i < 10; i++) {
+                iterator.next();
+            }
+            iterator.hasNext();
+            fail("Expected exception");
+        } catch (IllegalStateException e) {
+            assertEquals("Broken", e.getMessage());
+        }
+    }
+
+    private PrefetchVariantDBIterator prefetch(List<Variant> variants, int batchSize, int lookahead) {
+        return new PrefetchVariantDBIterator(VariantDBIterator.wrapper(variants.iterator()), executor, batchSize, lookahead);
+    }
+
+    private static List<Variant> variants(int start, int end, int step) {
+        return Stream.iterate(start, i -> i + step)
+                .limit((end - start) / step + 1)
+                .map(i -> new Variant("1:" + i + ":A:C"))
+                .collect(Collectors.toList());
+    }
+}
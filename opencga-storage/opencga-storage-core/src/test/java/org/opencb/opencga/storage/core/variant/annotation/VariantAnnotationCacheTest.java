@@ -0,0 +1,131 @@
+package org.opencb.opencga.storage.core.variant.annotation;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.opencb.biodata.models.variant.Variant;
+import org.opencb.biodata.models.variant.avro.VariantAnnotation;
+import org.opencb.commons.datastore.core.ObjectMap;
+import org.opencb.opencga.storage.core.io.managers.IOConnectorProvider;
+import org.opencb.opencga.storage.core.io.managers.LocalIOConnector;
+import org.opencb.opencga.storage.core.metadata.models.ProjectMetadata;
+import org.opencb.opencga.storage.core.variant.VariantStorageOptions;
+import org.opencb.opencga.storage.core.variant.dummy.DummyVariantDBAdaptor;
+
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class VariantAnnotationCacheTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testCache() throws Exception {
+        Path dir = temporaryFolder.newFolder("cache").toPath();
+        byte[] namespace = buildNamespace("v1");
+        List<Variant> variants = Arrays.asList(new Variant("1:100:A:C"), new Variant("1:200:-:AT"), new Variant("2:300:G:T"));
+
+        try (VariantAnnotationCache cache = VariantAnnotationCache.open(dir, namespace)) {
+            assertEquals(Arrays.asList(null, null, null), cache.get(variants));
+            cache.put(Arrays.asList(annotation(variants.get(0)), annotation(variants.get(1))));
+            List<VariantAnnotation> annotations = cache.get(variants);
+            assertEquals(variants.get(0).getStart(), annotations.get(0).getStart());
+            assertEquals("AT", annotations.get(1).getAlternate());
+            assertNull(annotations.get(2));
+            assertEquals(2, cache.getHits());
+            assertEquals(4, cache.getMisses());
+        }
+
+        // Reopen
+        try (VariantAnnotationCache cache = VariantAnnotationCache.open(dir, namespace)) {
+            assertNotNull(cache.get(variants).get(0));
+            assertEquals(1.0, cache.getHitRate(), 0.0001);
+        }
+
+        // Different annotator version
+        try (VariantAnnotationCache cache = VariantAnnotationCache.open(dir, buildNamespace("v2"))) {
+            assertNull(cache.get(variants).get(0));
+        }
+    }
+
+    @Test
+    public void testOpenTwice() throws Exception {
+        Path dir = temporaryFolder.newFolder("cache").toPath();
+        Variant variant = new Variant("1:100:A:C");
+        try (VariantAnnotationCache cache1 = VariantAnnotationCache.open(dir, buildNamespace("v1"));
+             VariantAnnotationCache cache2 = VariantAnnotationCache.open(dir, buildNamespace("v1"))) {
+            cache1.put(Collections.singletonList(annotation(variant)));
+            assertNotNull(cache2.get(Collections.singletonList(variant)).get(0));
+        }
+    }
+
+    @Test
+    public void testAnnotateWithCache() throws Exception {
+        Path dir = temporaryFolder.newFolder("cache").toPath();
+        List<Variant> annotated = new ArrayList<>();
+        DummyTestAnnotator annotator = new DummyTestAnnotator(null, null, new ObjectMap(DummyTestAnnotator.ANNOT_KEY, "v1")) {
+            @Override
+            public List<VariantAnnotation> annotate(List<Variant> variants) throws VariantAnnotatorException {
+                annotated.addAll(variants);
+                // Annotators do not need to keep the input order
+                List<VariantAnnotation> annotations = new ArrayList<>(super.annotate(variants));
+                Collections.reverse(annotations);
+                return annotations;
+            }
+        };
+        DefaultVariantAnnotationManager manager = new DefaultVariantAnnotationManager(annotator, new DummyVariantDBAdaptor("test"),
+                new IOConnectorProvider(LocalIOConnector.class));
+        ObjectMap params = new ObjectMap(VariantStorageOptions.ANNOTATION_CACHE_DIR.key(), dir.toString());
+        List<Variant> variants = Arrays.asList(new Variant("1:100:A:C"), new Variant("1:200:-:AT"), new Variant("2:300:G:T"),
+                new Variant("3:400:C:G"), new Variant("3:500:T:A"));
+
+        try (VariantAnnotationCache cache = manager.openAnnotationCache(params)) {
+            assertNotNull(cache);
+            checkAnnotationOrder(variants.subList(1, 3), manager.annotate(variants.subList(1, 3), cache));
+            assertEquals(variants.subList(1, 3), annotated);
+
+            annotated.clear();
+            checkAnnotationOrder(variants, manager.annotate(variants, cache));
+            // Only the missing variants are sent to the annotator
+            assertEquals(Arrays.asList(variants.get(0), variants.get(3), variants.get(4)), annotated);
+            assertEquals(2, cache.getHits());
+            assertEquals(5, cache.getMisses());
+        }
+
+        // Reopen
+        annotated.clear();
+        try (VariantAnnotationCache cache = manager.openAnnotationCache(params)) {
+            checkAnnotationOrder(variants, manager.annotate(variants, cache));
+            assertEquals(Collections.emptyList(), annotated);
+            assertEquals(1.0, cache.getHitRate(), 0.0001);
+        }
+    }
+
+    private static void checkAnnotationOrder(List<Variant> variants, List<VariantAnnotation> annotations) {
+        assertEquals(variants.size(), annotations.size());
+        for (int i = 0; i < variants.size(); i++) {
+            assertEquals(variants.get(i).toString(), VariantAnnotationCache.getVariantId(annotations.get(i)));
+        }
+    }
+
+    private static byte[] buildNamespace(String version) {
+        ProjectMetadata projectMetadata = new ProjectMetadata("hsapiens", "GRCh38", 1);
+        return VariantAnnotationCache.buildNamespace(new ProjectMetadata.VariantAnnotatorProgram("cellbase", version, null),
+                Collections.singletonList(new ObjectMap("name", "ensembl").append("version", "99")), projectMetadata, new ObjectMap());
+    }
+
+    private static VariantAnnotation annotation(Variant variant) {
+        VariantAnnotation annotation = new VariantAnnotation();
+        annotation.setChromosome(variant.getChromosome());
+        annotation.setStart(variant.getStart());
+        annotation.setEnd(variant.getEnd());
+        annotation.setReference(variant.getReference());
+        annotation.setAlternate(variant.getAlternate());
+        annotation.setId(variant.toString());
+        annotation.setConsequenceTypes(Collections.emptyList());
+        return annotation;
+    }
+}
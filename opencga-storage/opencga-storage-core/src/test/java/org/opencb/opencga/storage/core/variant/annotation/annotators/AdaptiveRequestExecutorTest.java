@@ -0,0 +1,112 @@
+package org.opencb.opencga.storage.core.variant.annotation.annotators;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class AdaptiveRequestExecutorTest {
+
+    private static final List<Integer> BATCH = Arrays.asList(1, 2, 3, 4, 5, 6, 7, 8);
+
+    @Test
+    public void testSplitOnTimeout() throws Exception {
+        AdaptiveRequestExecutor<Integer, Integer> executor = new AdaptiveRequestExecutor<>(batch -> {
+            if (batch.size() > 2) {
+                Thread.sleep(2000);
+            }
+            return new ArrayList<>(batch);
+        }, 4, 200, 3, false);
+
+        assertEquals(BATCH, executor.execute(BATCH));
+        assertEquals(3, executor.getSplits());
+    }
+
+    @Test
+    public void testRetryFailures() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        AdaptiveRequestExecutor<Integer, Integer> executor = new AdaptiveRequestExecutor<>(batch -> {
+            if (calls.incrementAndGet() <= 2) {
+                throw new IOException("Transient error");
+            }
+            return new ArrayList<>(batch);
+        }, 4, 1000, 3, false);
+
+        assertEquals(BATCH, executor.execute(BATCH));
+        assertEquals(2, executor.getRetries());
+        assertEquals(0, executor.getSplits());
+        assertTrue(executor.getLimit() < 4);
+    }
+
+    @Test(expected = IOException.class)
+    public void testFailAfterRetries() throws Exception {
+        AdaptiveRequestExecutor<Integer, Integer> executor = new AdaptiveRequestExecutor<>(batch -> {
+            throw new IOException("Permanent error");
+        }, 4, 1000, 1, false);
+
+        executor.execute(BATCH);
+    }
+
+    @Test
+    public void testHedgeSlowRequest() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        AdaptiveRequestExecutor<Integer, Integer> executor = new AdaptiveRequestExecutor<>(batch -> {
+            // The first request of the second batch gets stuck
+            if (calls.incrementAndGet() == 2) {
+                Thread.sleep(10000);
+            }
+            return new ArrayList<>(batch);
+        }, 4, 20000, 0, true);
+
+        assertEquals(BATCH, executor.execute(BATCH));
+        long start = System.currentTimeMillis();
+        assertEquals(BATCH, executor.execute(BATCH));
+        assertTrue(System.currentTimeMillis() - start < 5000);
+        assertEquals(1, executor.getHedges());
+        assertEquals(3, executor.getRequests());
+    }
+
+    @Test
+    public void testConcurrencyLimit() throws Exception {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        AdaptiveRequestExecutor<Integer, Integer> executor = new AdaptiveRequestExecutor<>(batch -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            Thread.sleep(20);
+            inFlight.decrementAndGet();
+            return new ArrayList<>(batch);
+        }, 2, 10000, 0, false);
+
+        ExecutorService threads = Executors.newFixedThreadPool(8);
+        List<Future<List<Integer>>> futures = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            futures.add(threads.submit(() -> executor.execute(BATCH)));
+        }
+        for (Future<List<Integer>> future : futures) {
+            assertEquals(BATCH, future.get());
+        }
+        threads.shutdown();
+        assertTrue(maxInFlight.get() <= 2);
+        assertEquals(40, executor.getRequests());
+        assertTrue(executor.getThroughput() > 0);
+    }
+
+    @Test
+    public void testClose() throws Exception {
+        AdaptiveRequestExecutor<Integer, Integer> executor = new AdaptiveRequestExecutor<>(ArrayList::new, 4, 1000, 0, false);
+        assertEquals(BATCH, executor.execute(BATCH));
+        executor.close();
+        try {
+            executor.execute(BATCH);
+            fail("Expected RejectedExecutionException");
+        } catch (RejectedExecutionException e) {
+            // Expected
+        }
+    }
+}
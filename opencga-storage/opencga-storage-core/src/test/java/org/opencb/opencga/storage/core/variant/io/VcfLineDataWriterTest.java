@@ -0,0 +1,89 @@
+package org.opencb.opencga.storage.core.variant.io;
+
+import htsjdk.samtools.util.BlockCompressedOutputStream;
+import htsjdk.tribble.index.Index;
+import htsjdk.tribble.readers.TabixReader;
+import htsjdk.tribble.util.LittleEndianOutputStream;
+import htsjdk.variant.vcf.VCFHeader;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.opencb.opencga.storage.core.io.plain.ParallelBgzfOutputStream;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class VcfLineDataWriterTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testWriteIndex() throws Exception {
+        File file = temporaryFolder.newFile("variants.vcf.gz");
+        VCFHeader header = new VCFHeader(Collections.emptySet(), Collections.singletonList("S1"));
+        List<String> chromosomes = Arrays.asList("1", "2", "X");
+        Map<String, List<String>> expected = new HashMap<>();
+
+        VcfLineDataWriter writer = new VcfLineDataWriter(header, new ParallelBgzfOutputStream(new FileOutputStream(file), 4), true);
+        writer.open();
+        writer.pre();
+        for (String chromosome : chromosomes) {
+            List<VcfEncoderTask.VcfLine> batch = new ArrayList<>();
+            for (int i = 1; i <= 20000; i++) {
+                int start = i * 100;
+                String line = chromosome + "\t" + start + "\t.\tA\tC\t.\tPASS\t.\tGT\t0/1";
+                batch.add(new VcfEncoderTask.VcfLine(line, chromosome, start, start));
+                if (start >= 50000 && start <= 50500) {
+                    expected.computeIfAbsent(chromosome, k -> new ArrayList<>()).add(line);
+                }
+                if (batch.size() == 1000) {
+                    writer.write(batch);
+                    batch.clear();
+                }
+            }
+        }
+        writer.post();
+        writer.close();
+        Index index = writer.getIndex();
+        assertNotNull(index);
+
+        try (LittleEndianOutputStream os = new LittleEndianOutputStream(
+                new BlockCompressedOutputStream(new FileOutputStream(file.getPath() + ".tbi"), (File) null))) {
+            index.write(os);
+        }
+
+        TabixReader reader = new TabixReader(file.getPath());
+        try {
+            for (String chromosome : chromosomes) {
+                List<String> lines = new ArrayList<>();
+                TabixReader.Iterator iterator = reader.query(chromosome + ":50000-50500");
+                String line;
+                while ((line = iterator.next()) != null) {
+                    lines.add(line);
+                }
+                assertEquals(expected.get(chromosome), lines);
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    @Test
+    public void testUnsortedNotIndexed() throws Exception {
+        File file = temporaryFolder.newFile("variants.vcf.gz");
+        VCFHeader header = new VCFHeader(Collections.emptySet(), Collections.singletonList("S1"));
+        VcfLineDataWriter writer = new VcfLineDataWriter(header, new ParallelBgzfOutputStream(new FileOutputStream(file), 2), true);
+        writer.open();
+        writer.pre();
+        writer.write(Arrays.asList(
+                new VcfEncoderTask.VcfLine("1\t200\t.\tA\tC\t.\tPASS\t.\tGT\t0/1", "1", 200, 200),
+                new VcfEncoderTask.VcfLine("1\t100\t.\tA\tC\t.\tPASS\t.\tGT\t0/1", "1", 100, 100)));
+        writer.post();
+        writer.close();
+        assertNull(writer.getIndex());
+    }
+}
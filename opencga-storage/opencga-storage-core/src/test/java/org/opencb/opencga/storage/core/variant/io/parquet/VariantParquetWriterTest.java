@@ -0,0 +1,94 @@
+package org.opencb.opencga.storage.core.variant.io.parquet;
+
+import org.apache.avro.generic.GenericRecord;
+import org.apache.hadoop.fs.Path;
+import org.apache.parquet.avro.AvroParquetReader;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.opencb.biodata.models.variant.Variant;
+import org.opencb.opencga.storage.core.variant.adaptors.VariantField;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class VariantParquetWriterTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testWrite() throws Exception {
+        List<Variant> variants = createVariants();
+        File file = write(variants, null, CompressionCodecName.GZIP);
+
+        List<GenericRecord> records = read(file);
+        assertEquals(variants.size(), records.size());
+        for (int i = 0; i < variants.size(); i++) {
+            Variant variant = variants.get(i);
+            GenericRecord record = records.get(i);
+            assertEquals(variant.getChromosome(), record.get("chromosome").toString());
+            assertEquals(variant.getStart(), record.get("start"));
+            assertEquals(variant.getAlternate(), record.get("alternate").toString());
+            assertNotNull(record.getSchema().getField("annotation"));
+        }
+    }
+
+    @Test
+    public void testWriteProjection() throws Exception {
+        List<Variant> variants = createVariants();
+        File file = write(variants, EnumSet.of(VariantField.ID, VariantField.STUDIES), CompressionCodecName.UNCOMPRESSED);
+
+        List<GenericRecord> records = read(file);
+        assertEquals(variants.size(), records.size());
+        for (int i = 0; i < variants.size(); i++) {
+            GenericRecord record = records.get(i);
+            assertEquals(variants.get(i).getStart(), record.get("start"));
+            assertEquals(variants.get(i).getId(), record.get("id").toString());
+            assertNull(record.getSchema().getField("annotation"));
+        }
+    }
+
+    private File write(List<Variant> variants, Set<VariantField> fields, CompressionCodecName codec) throws Exception {
+        File file = temporaryFolder.newFile("variants.parquet");
+        try (OutputStream os = new FileOutputStream(file)) {
+            VariantParquetWriter writer = new VariantParquetWriter(os, codec, fields, 1024 * 1024, 64 * 1024, true);
+            writer.open();
+            writer.pre();
+            for (int i = 0; i < variants.size(); i += 100) {
+                writer.write(variants.subList(i, Math.min(i + 100, variants.size())));
+            }
+            writer.post();
+            writer.close();
+        }
+        return file;
+    }
+
+    private List<GenericRecord> read(File file) throws Exception {
+        List<GenericRecord> records = new ArrayList<>();
+        try (AvroParquetReader<GenericRecord> reader = new AvroParquetReader<>(new Path(file.toURI()))) {
+            GenericRecord record;
+            while ((record = reader.read()) != null) {
+                records.add(record);
+            }
+        }
+        return records;
+    }
+
+    private List<Variant> createVariants() {
+        List<Variant> variants = new ArrayList<>();
+        for (int i = 1; i <= 1000; i++) {
+            Variant variant = new Variant("1:" + (i * 10) + ":A:" + (i % 2 == 0 ? "C" : "T"));
+            variant.setId(variant.toString());
+            variant.setNames(Collections.emptyList());
+            variant.setStudies(Collections.emptyList());
+            variants.add(variant);
+        }
+        return variants;
+    }
+}
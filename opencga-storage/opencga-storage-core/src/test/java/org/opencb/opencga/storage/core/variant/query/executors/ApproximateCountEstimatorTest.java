@@ -0,0 +1,125 @@
+package org.opencb.opencga.storage.core.variant.query.executors;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.opencb.biodata.models.core.Region;
+import org.opencb.biodata.models.variant.Variant;
+import org.opencb.opencga.storage.core.metadata.models.ProjectMetadata;
+import org.opencb.opencga.storage.core.metadata.models.VariantDensityHistogram;
+import org.opencb.opencga.storage.core.variant.adaptors.iterators.VariantDBIterator;
+import org.opencb.opencga.storage.core.variant.adaptors.iterators.VariantDBIteratorWithCounts;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ApproximateCountEstimatorTest {
+
+    private VariantDensityHistogram histogram;
+
+    @Before
+    public void setUp() {
+        histogram = new VariantDensityHistogram()
+                .add("1", 10000, 1000000)
+                .add("2", 10000, 1000000)
+                .add("10", 5000, 500000)
+                .add("X", 5000, 500000);
+    }
+
+    @Test
+    public void testReadWrite() {
+        ProjectMetadata projectMetadata = new ProjectMetadata("hsapiens", "grch38", 1);
+        assertNull(VariantDensityHistogram.read(projectMetadata));
+        histogram.write(projectMetadata);
+        VariantDensityHistogram read = VariantDensityHistogram.read(projectMetadata);
+        assertEquals(histogram.getChromosomes(), read.getChromosomes());
+        for (String chromosome : histogram.getChromosomes()) {
+            assertEquals(histogram.getCount(chromosome), read.getCount(chromosome));
+            assertEquals(histogram.getLength(chromosome), read.getLength(chromosome));
+        }
+        assertEquals(30000, read.getTotalCount());
+        assertEquals(5000, read.getCount("chrX"));
+        assertEquals(5000, read.getExpectedCount("1", 500000), 0.001);
+    }
+
+    @Test
+    public void testRemove() {
+        histogram.remove("chrX", 2000).remove("10", 6000).remove("22", 100);
+        assertEquals(3000, histogram.getCount("X"));
+        assertEquals(0, histogram.getCount("10"));
+        assertFalse(histogram.getChromosomes().contains("10"));
+        assertEquals(23000, histogram.getTotalCount());
+    }
+
+    @Test
+    public void testCoveredFraction() {
+        ApproximateCountEstimator estimator = new ApproximateCountEstimator(histogram, null);
+        assertEquals(5000 / 30000.0, estimator.getCoveredFraction(Arrays.asList("1"), "1", 500000), 0.0001);
+        // "1" and "2" are compatible with lexicographic and natural order. "10" only before "2" in lexicographic order
+        assertEquals(15000 / 30000.0, estimator.getCoveredFraction(Arrays.asList("1", "2"), "2", 500000), 0.0001);
+        // Natural order. "10" before "X"
+        assertEquals(27500 / 30000.0, estimator.getCoveredFraction(Arrays.asList("1", "2", "10", "X"), "X", 250000), 0.0001);
+        // Lexicographic order. "10" and "2" before "X"
+        assertEquals(27500 / 30000.0, estimator.getCoveredFraction(Arrays.asList("1", "10", "X"), "X", 250000), 0.0001);
+    }
+
+    @Test
+    public void testCoveredFractionRegions() {
+        ApproximateCountEstimator estimator = new ApproximateCountEstimator(histogram,
+                Arrays.asList(new Region("1:1-100000"), new Region("2")));
+        assertTrue(estimator.isValid());
+        // 1000 variants in chr1 + 10000 in chr2
+        assertEquals(500 / 11000.0, estimator.getCoveredFraction(Arrays.asList("1"), "1", 50000), 0.0001);
+        assertEquals(6000 / 11000.0, estimator.getCoveredFraction(Arrays.asList("1", "2"), "2", 500000), 0.0001);
+
+        estimator = new ApproximateCountEstimator(histogram, Collections.singletonList(new Region("3:1-1000")));
+        assertFalse(estimator.isValid());
+    }
+
+    @Test
+    public void testEstimate() {
+        // One variant every 100 bases in chr1 and chr2, as described by the histogram
+        List<Variant> variants = new ArrayList<>();
+        for (String chr : Arrays.asList("1", "2")) {
+            for (int i = 1; i <= 10000; i++) {
+                variants.add(new Variant(chr + ":" + (i * 100) + ":A:C"));
+            }
+        }
+        ApproximateCountEstimator estimator = new ApproximateCountEstimator(histogram,
+                Arrays.asList(new Region("1"), new Region("2")));
+
+        // Exhausted primary. Sampling all the variants gives the exact count
+        VariantDBIteratorWithCounts primary = primary(variants, variants.size());
+        ApproximateCountEstimator.Estimation estimation = estimator.estimate(primary, variants.size(), 500, 500, 10000);
+        assertTrue(estimation.isExact());
+        assertEquals(500, estimation.getCount());
+        assertEquals(500, estimation.getLower());
+        assertEquals(500, estimation.getUpper());
+
+        // No time to read more variants. 1000 variants from the primary, 1/10 of the chr1
+        primary = primary(variants, 1000);
+        estimation = estimator.estimate(primary, 1000, 100, 10, 0);
+        assertFalse(estimation.isExact());
+        assertEquals(2000, estimation.getCount(), 20);
+        assertTrue(estimation.getLower() < estimation.getCount());
+        assertTrue(estimation.getUpper() > estimation.getCount());
+
+        // No results in the sampled variants
+        primary = primary(variants, 1000);
+        estimation = estimator.estimate(primary, 1000, 0, 0, 0);
+        assertEquals(0, estimation.getCount());
+        assertEquals(0, estimation.getLower());
+        assertEquals(60, estimation.getUpper(), 1);
+    }
+
+    private static VariantDBIteratorWithCounts primary(List<Variant> variants, int read) {
+        VariantDBIteratorWithCounts iterator = new VariantDBIteratorWithCounts(VariantDBIterator.wrapper(variants.iterator()));
+        for (int i = 0; i < read; i++) {
+            iterator.next();
+        }
+        return iterator;
+    }
+}
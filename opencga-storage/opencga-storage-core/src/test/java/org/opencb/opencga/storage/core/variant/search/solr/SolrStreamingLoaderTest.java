@@ -0,0 +1,166 @@
+package org.opencb.opencga.storage.core.variant.search.solr;
+
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.SolrRequest;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.client.solrj.beans.Field;
+import org.apache.solr.client.solrj.request.AbstractUpdateRequest;
+import org.apache.solr.client.solrj.request.UpdateRequest;
+import org.apache.solr.common.util.NamedList;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class SolrStreamingLoaderTest {
+
+    private final List<Integer> commitWithin = new CopyOnWriteArrayList<>();
+    private final AtomicInteger documents = new AtomicInteger();
+    private final AtomicInteger commits = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private volatile CountDownLatch latch = new CountDownLatch(0);
+    private volatile int status = 0;
+
+    @Test
+    public void testLoad() throws Exception {
+        List<Integer> callbacks = new ArrayList<>();
+        try (SolrStreamingLoader loader = new SolrStreamingLoader(new FakeSolrClient(), "c", 10000, 2)) {
+            for (int i = 0; i < 10; i++) {
+                int batch = i;
+                loader.add(documents(5), () -> callbacks.add(batch));
+            }
+            assertEquals(0, commits.get());
+            // Callbacks are executed after the hard commit
+            assertEquals(0, callbacks.size());
+            loader.commit();
+
+            assertEquals(10, loader.getNumBatches());
+            assertEquals(50, loader.getNumDocuments());
+            assertEquals(1, loader.getNumCommits());
+        }
+        assertEquals(50, documents.get());
+        assertEquals(1, commits.get());
+        assertEquals(Collections.nCopies(10, 10000), commitWithin);
+        // Callbacks executed in order
+        for (int i = 0; i < 10; i++) {
+            assertEquals(i, callbacks.get(i).intValue());
+        }
+    }
+
+    @Test
+    public void testMaxUncommittedBatches() throws Exception {
+        List<Integer> callbacks = new ArrayList<>();
+        try (SolrStreamingLoader loader = new SolrStreamingLoader(new FakeSolrClient(), "c", 10000, 1, 3)) {
+            for (int i = 0; i < 10; i++) {
+                int batch = i;
+                loader.add(documents(5), () -> callbacks.add(batch));
+            }
+            // Hard commit every 3 batches accepted by Solr
+            assertEquals(3, commits.get());
+            assertEquals(9, callbacks.size());
+            loader.commit();
+        }
+        assertEquals(4, commits.get());
+        for (int i = 0; i < 10; i++) {
+            assertEquals(i, callbacks.get(i).intValue());
+        }
+    }
+
+    @Test
+    public void testMaxInFlightBatches() throws Exception {
+        latch = new CountDownLatch(1);
+        try (SolrStreamingLoader loader = new SolrStreamingLoader(new FakeSolrClient(), "c", -1, 2)) {
+            loader.add(documents(1), null);
+            loader.add(documents(1), null);
+            Thread thread = new Thread(() -> {
+                try {
+                    loader.add(documents(1), null);
+                } catch (IOException | SolrServerException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            thread.start();
+            thread.join(200);
+            // Third batch blocked until the first completes
+            assertTrue(thread.isAlive());
+            latch.countDown();
+            thread.join(TimeUnit.SECONDS.toMillis(10));
+            assertFalse(thread.isAlive());
+            loader.flush();
+        }
+        assertEquals(2, maxInFlight.get());
+        assertEquals(Collections.nCopies(3, -1), commitWithin);
+    }
+
+    @Test(expected = SolrServerException.class)
+    public void testError() throws Exception {
+        status = 1;
+        try (SolrStreamingLoader loader = new SolrStreamingLoader(new FakeSolrClient(), "c", 10000, 2)) {
+            loader.add(documents(5), () -> fail("Callback of failed batch"));
+            loader.commit();
+        } finally {
+            assertEquals(0, commits.get());
+        }
+    }
+
+    private static List<Doc> documents(int n) {
+        List<Doc> docs = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            docs.add(new Doc("id_" + i));
+        }
+        return docs;
+    }
+
+    public static class Doc {
+        @Field
+        private String id;
+
+        public Doc() {
+        }
+
+        public Doc(String id) {
+            this.id = id;
+        }
+    }
+
+    private class FakeSolrClient extends SolrClient {
+        @Override
+        public NamedList<Object> request(SolrRequest request, String collection) throws SolrServerException, IOException {
+            UpdateRequest updateRequest = (UpdateRequest) request;
+            if (updateRequest.getAction() == AbstractUpdateRequest.ACTION.COMMIT) {
+                commits.incrementAndGet();
+            } else {
+                int current = inFlight.incrementAndGet();
+                maxInFlight.accumulateAndGet(current, Math::max);
+                try {
+                    latch.await();
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                } finally {
+                    inFlight.decrementAndGet();
+                }
+                commitWithin.add(updateRequest.getCommitWithin());
+                documents.addAndGet(updateRequest.getDocuments().size());
+            }
+            NamedList<Object> header = new NamedList<>();
+            header.add("status", status);
+            header.add("QTime", 0);
+            NamedList<Object> response = new NamedList<>();
+            response.add("responseHeader", header);
+            return response;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
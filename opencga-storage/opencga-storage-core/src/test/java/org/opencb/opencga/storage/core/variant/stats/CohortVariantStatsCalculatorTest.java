@@ -0,0 +1,130 @@
+package org.opencb.opencga.storage.core.variant.stats;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.opencb.biodata.models.variant.StudyEntry;
+import org.opencb.biodata.models.variant.Variant;
+import org.opencb.biodata.models.variant.avro.FileEntry;
+import org.opencb.biodata.models.variant.stats.VariantStats;
+import org.opencb.biodata.tools.variant.stats.VariantStatsCalculator;
+
+import java.util.*;
+
+import static org.junit.Assert.assertEquals;
+
+public class CohortVariantStatsCalculatorTest {
+
+    private static final String[] GENOTYPES = {"0/0", "0/1", "1/1", "./.", "0|1", "1|0", "0/2"};
+
+    private List<String> samples;
+    private Map<String, Set<String>> cohorts;
+
+    @Before
+    public void setUp() {
+        Random random = new Random(1);
+        samples = new ArrayList<>();
+        for (int i = 0; i < 150; i++) {
+            samples.add("S" + i);
+        }
+        cohorts = new LinkedHashMap<>();
+        cohorts.put(StudyEntry.DEFAULT_COHORT, new HashSet<>(samples));
+        for (int c = 0; c < 70; c++) {
+            Set<String> cohort = new HashSet<>();
+            for (String sample : samples) {
+                if (random.nextInt(4) == 0) {
+                    cohort.add(sample);
+                }
+            }
+            cohorts.put("C" + c, cohort);
+        }
+        cohorts.put("EMPTY", Collections.emptySet());
+        cohorts.put("SMALL", new HashSet<>(Arrays.asList("S1", "S2")));
+    }
+
+    @Test
+    public void testSameGenotypeStats() {
+        Random random = new Random(2);
+        CohortVariantStatsCalculator calculator = new CohortVariantStatsCalculator(cohorts);
+        for (int i = 0; i < 20; i++) {
+            Variant variant = new Variant("1:" + (1000 + i) + ":A:C");
+            StudyEntry study = newStudy(random);
+
+            List<VariantStats> statsList = calculator.calculate(variant, study, cohort -> true);
+            assertEquals(cohorts.size(), statsList.size());
+            int idx = 0;
+            for (Map.Entry<String, Set<String>> cohort : cohorts.entrySet()) {
+                VariantStats expected = VariantStatsCalculator.calculate(variant, study, cohort.getValue());
+                VariantStats stats = statsList.get(idx++);
+                assertEquals(cohort.getKey(), stats.getCohortId());
+                assertEquals(cohort.getKey(), expected.getGenotypeCount(), stats.getGenotypeCount());
+                assertEquals(cohort.getKey(), expected.getGenotypeFreq(), stats.getGenotypeFreq());
+                assertEquals(cohort.getKey(), expected.getAlleleCount(), stats.getAlleleCount());
+                assertEquals(cohort.getKey(), expected.getAltAlleleCount(), stats.getAltAlleleCount());
+                assertEquals(cohort.getKey(), expected.getRefAlleleFreq(), stats.getRefAlleleFreq());
+                assertEquals(cohort.getKey(), expected.getAltAlleleFreq(), stats.getAltAlleleFreq());
+                assertEquals(cohort.getKey(), expected.getMaf(), stats.getMaf());
+                assertEquals(cohort.getKey(), expected.getMafAllele(), stats.getMafAllele());
+                assertEquals(cohort.getKey(), expected.getMgf(), stats.getMgf());
+                assertEquals(cohort.getKey(), expected.getMissingAlleleCount(), stats.getMissingAlleleCount());
+                assertEquals(cohort.getKey(), expected.getMissingGenotypeCount(), stats.getMissingGenotypeCount());
+            }
+        }
+    }
+
+    @Test
+    public void testCohortFilter() {
+        CohortVariantStatsCalculator calculator = new CohortVariantStatsCalculator(cohorts);
+        Variant variant = new Variant("1:1000:A:C");
+        List<VariantStats> statsList = calculator.calculate(variant, newStudy(new Random(3)), cohort -> cohort.equals("C5"));
+        assertEquals(1, statsList.size());
+        assertEquals("C5", statsList.get(0).getCohortId());
+    }
+
+    @Test
+    public void testFileStats() {
+        Map<String, Set<String>> cohorts = new LinkedHashMap<>();
+        cohorts.put("C1", new HashSet<>(Arrays.asList("S0", "S1")));
+        cohorts.put("C2", new HashSet<>(Collections.singletonList("S2")));
+        CohortVariantStatsCalculator calculator = new CohortVariantStatsCalculator(cohorts);
+
+        Variant variant = new Variant("1:1000:A:C");
+        StudyEntry study = new StudyEntry("s", Collections.emptyList(), Collections.singletonList("GT"));
+        study.addSampleData("S0", Collections.singletonList("0/1"));
+        study.addSampleData("S1", Collections.singletonList("1/1"));
+        study.addSampleData("S2", Collections.singletonList("0/1"));
+        study.setFiles(Arrays.asList(
+                new FileEntry("F0", null, newFileData("PASS", "20")),
+                new FileEntry("F1", null, newFileData("LowQual", ".")),
+                new FileEntry("F2", null, newFileData("PASS", "40"))));
+        for (int i = 0; i < 3; i++) {
+            study.getSamples().get(i).setFileIndex(i);
+        }
+
+        List<VariantStats> statsList = calculator.calculate(variant, study, cohort -> true);
+        VariantStats c1 = statsList.get(0);
+        assertEquals(1, c1.getFilterCount().get("PASS").intValue());
+        assertEquals(1, c1.getFilterCount().get("LowQual").intValue());
+        assertEquals(1, c1.getQualityCount().intValue());
+        assertEquals(20, c1.getQualityAvg(), 0.0001);
+
+        VariantStats c2 = statsList.get(1);
+        assertEquals(1, c2.getFilterCount().get("PASS").intValue());
+        assertEquals(null, c2.getFilterCount().get("LowQual"));
+        assertEquals(40, c2.getQualityAvg(), 0.0001);
+    }
+
+    private StudyEntry newStudy(Random random) {
+        StudyEntry study = new StudyEntry("s", Collections.emptyList(), Collections.singletonList("GT"));
+        for (String sample : samples) {
+            study.addSampleData(sample, Collections.singletonList(GENOTYPES[random.nextInt(GENOTYPES.length)]));
+        }
+        return study;
+    }
+
+    private static Map<String, String> newFileData(String filter, String qual) {
+        Map<String, String> data = new HashMap<>();
+        data.put(StudyEntry.FILTER, filter);
+        data.put(StudyEntry.QUAL, qual);
+        return data;
+    }
+}
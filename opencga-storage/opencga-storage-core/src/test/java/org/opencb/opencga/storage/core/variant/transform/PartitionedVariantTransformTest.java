@@ -0,0 +1,193 @@
+package org.opencb.opencga.storage.core.variant.transform;
+
+import htsjdk.samtools.util.BlockCompressedOutputStream;
+import htsjdk.tribble.index.IndexFactory;
+import htsjdk.tribble.index.tabix.TabixFormat;
+import htsjdk.tribble.readers.TabixReader;
+import htsjdk.variant.vcf.VCFCodec;
+import htsjdk.variant.vcf.VCFHeader;
+import htsjdk.variant.vcf.VCFHeaderVersion;
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.opencb.biodata.models.variant.Variant;
+import org.opencb.biodata.models.variant.VariantFileMetadata;
+import org.opencb.biodata.tools.variant.VariantNormalizer;
+import org.opencb.biodata.tools.variant.stats.VariantSetStatsCalculator;
+import org.opencb.commons.io.DataWriter;
+import org.opencb.commons.run.Task;
+import org.opencb.opencga.storage.core.io.managers.IOConnectorProvider;
+import org.opencb.opencga.storage.core.io.managers.LocalIOConnector;
+import org.opencb.opencga.storage.core.variant.io.VariantReaderUtils;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class PartitionedVariantTransformTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private static final List<String> CHROMOSOMES = Arrays.asList("1", "2", "10", "X");
+
+    @Test
+    public void testTransform() throws Exception {
+        Path input = createIndexedVcf(1000);
+        assertTrue(PartitionedVariantTransform.isSupported(input));
+        Path tmpDir = temporaryFolder.newFolder("tmp").toPath();
+
+        List<String> written = Collections.synchronizedList(new ArrayList<>());
+        new PartitionedVariantTransform<>(input, SingleChromosomeTask::new, () -> Task.forEach(Variant::toString),
+                new DataWriter<String>() {
+                    @Override
+                    public boolean write(List<String> batch) {
+                        written.addAll(batch);
+                        return true;
+                    }
+
+                    @Override
+                    public boolean write(String elem) {
+                        written.add(elem);
+                        return true;
+                    }
+                },
+                s -> s.getBytes(StandardCharsets.UTF_8), b -> new String(b, StandardCharsets.UTF_8), tmpDir, 3, 100)
+                .run();
+
+        List<String> expected = new ArrayList<>();
+        for (String chromosome : CHROMOSOMES) {
+            for (int i = 1; i <= 1000; i++) {
+                expected.add(new Variant(chromosome, i * 10, "A", "C").toString());
+            }
+            // Generated by the stateful task at the end of each partition
+            expected.add(new Variant(chromosome, 1000000, "N", "<*>").toString());
+        }
+        assertEquals(expected, written);
+        // Temporary files are removed
+        assertEquals(0, Files.list(tmpDir).count());
+    }
+
+    @Test
+    public void testTransformGvcf() throws Exception {
+        Path input = createIndexedVcf(1000);
+        Path tmpDir = temporaryFolder.newFolder("tmp").toPath();
+        VariantReaderUtils variantReaderUtils = new VariantReaderUtils(new IOConnectorProvider(LocalIOConnector.class));
+        Pair<VCFHeader, VCFHeaderVersion> header = variantReaderUtils.readHtsHeader(input.toUri(), false);
+
+        // Expected output, transforming the whole file with one single task
+        VariantFileMetadata expectedMetadata = variantReaderUtils.readVariantFileMetadata(input,
+                VariantReaderUtils.createEmptyVariantFileMetadata(input));
+        VariantTransformTask task = newTransformTask(header, expectedMetadata, new VariantSetStatsCalculator("1", expectedMetadata));
+        List<String> expected = new ArrayList<>();
+        List<String> lines = new ArrayList<>();
+        TabixReader reader = new TabixReader(input.toString());
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (!line.startsWith("#")) {
+                lines.add(line);
+            }
+        }
+        reader.close();
+        task.pre();
+        task.apply(lines).forEach(variant -> expected.add(variant.toJson()));
+        task.drain().forEach(variant -> expected.add(variant.toJson()));
+        task.post();
+
+        VariantFileMetadata metadata = variantReaderUtils.readVariantFileMetadata(input,
+                VariantReaderUtils.createEmptyVariantFileMetadata(input));
+        VariantSetStatsCalculator statsCalculator = new VariantSetStatsCalculator("1", metadata);
+        List<String> written = Collections.synchronizedList(new ArrayList<>());
+        new PartitionedVariantTransform<>(input, () -> newTransformTask(header, metadata, statsCalculator).setManageStatsCalculator(false),
+                () -> Task.forEach(Variant::toJson),
+                new DataWriter<String>() {
+                    @Override
+                    public boolean write(List<String> batch) {
+                        written.addAll(batch);
+                        return true;
+                    }
+
+                    @Override
+                    public boolean write(String elem) {
+                        written.add(elem);
+                        return true;
+                    }
+                },
+                s -> s.getBytes(StandardCharsets.UTF_8), b -> new String(b, StandardCharsets.UTF_8), tmpDir, 3, 100)
+                .setSharedTask(statsCalculator)
+                .run();
+
+        assertEquals(expected, written);
+        // Stats of all the partitions are merged, as if the file was transformed by one task
+        assertEquals(expectedMetadata.getStats().getChromosomeCount(), metadata.getStats().getChromosomeCount());
+    }
+
+    @Test
+    public void testNotIndexed() throws Exception {
+        assertFalse(PartitionedVariantTransform.isSupported(Paths.get(temporaryFolder.newFile("file.vcf.gz").toString())));
+    }
+
+    private Path createIndexedVcf(int variantsPerChromosome) throws Exception {
+        File file = temporaryFolder.newFile("file.vcf.gz");
+        try (BlockCompressedOutputStream os = new BlockCompressedOutputStream(file)) {
+            StringBuilder sb = new StringBuilder();
+            sb.append("##fileformat=VCFv4.2\n");
+            sb.append("##FORMAT=<ID=GT,Number=1,Type=String,Description=\"Genotype\">\n");
+            for (String chromosome : CHROMOSOMES) {
+                sb.append("##contig=<ID=").append(chromosome).append(">\n");
+            }
+            sb.append("#CHROM\tPOS\tID\tREF\tALT\tQUAL\tFILTER\tINFO\tFORMAT\tS1\n");
+            for (String chromosome : CHROMOSOMES) {
+                for (int i = 1; i <= variantsPerChromosome; i++) {
+                    sb.append(chromosome).append('\t').append(i * 10).append("\t.\tA\tC\t.\tPASS\t.\tGT\t0/1\n");
+                }
+            }
+            os.write(sb.toString().getBytes(StandardCharsets.UTF_8));
+        }
+        IndexFactory.createTabixIndex(file, new VCFCodec(), TabixFormat.VCF, null)
+                .write(new File(file.getPath() + ".tbi"));
+        return file.toPath();
+    }
+
+    private static VariantTransformTask newTransformTask(Pair<VCFHeader, VCFHeaderVersion> header, VariantFileMetadata metadata,
+                                                        VariantSetStatsCalculator statsCalculator) {
+        VariantNormalizer.VariantNormalizerConfig normalizerConfig = new VariantNormalizer.VariantNormalizerConfig()
+                .setReuseVariants(true)
+                .setNormalizeAlleles(true)
+                .setDecomposeMNVs(false)
+                .setGenerateReferenceBlocks(true);
+        return new VariantTransformTask(header.getKey(), header.getValue(), "1", metadata, statsCalculator, true, normalizerConfig)
+                .setIncludeSrc(false);
+    }
+
+    /**
+     * Stateful task that expects all the variants from the same chromosome, and generates one extra variant at the end.
+     */
+    private static class SingleChromosomeTask implements Task<String, Variant> {
+        private final Set<String> chromosomes = new HashSet<>();
+
+        @Override
+        public List<Variant> apply(List<String> batch) {
+            List<Variant> variants = batch.stream().map(line -> {
+                String[] split = line.split("\t");
+                return new Variant(split[0], Integer.parseInt(split[1]), split[3], split[4]);
+            }).collect(Collectors.toList());
+            variants.forEach(variant -> chromosomes.add(variant.getChromosome()));
+            assertEquals(1, chromosomes.size());
+            return variants;
+        }
+
+        @Override
+        public List<Variant> drain() {
+            assertEquals(1, chromosomes.size());
+            return Collections.singletonList(new Variant(chromosomes.iterator().next(), 1000000, "N", "<*>"));
+        }
+    }
+}
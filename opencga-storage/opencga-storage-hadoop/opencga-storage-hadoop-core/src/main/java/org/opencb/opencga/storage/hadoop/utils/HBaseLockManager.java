@@ -18,11 +18,11 @@ package org.opencb.opencga.storage.hadoop.utils;
 
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.apache.commons.lang3.RandomStringUtils;
-import org.apache.commons.lang3.time.StopWatch;
 import org.apache.hadoop.hbase.client.*;
 import org.apache.hadoop.hbase.util.Bytes;
 import org.apache.solr.common.StringUtils;
 import org.opencb.opencga.storage.core.metadata.models.Lock;
+import org.opencb.opencga.storage.core.utils.LockWaitQueue;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -125,33 +125,21 @@ public class HBaseLockManager {
         // Minimum lock duration of 100ms
         lockDuration = Math.max(lockDuration, 100);
 
-        String[] lockValue;
-        String readToken = "";
-        StopWatch stopWatch = new StopWatch();
-        stopWatch.start();
-
-        lockValue = readLockValue(row, column);
-        do {
+        long finalLockDuration = lockDuration;
+        LockWaitQueue.acquire(getLockId(row, column), () -> {
+            String[] lockValue = readLockValue(row, column);
             // If the lock is taken, wait
-            while (isLockTaken(lockValue)) {
-                Thread.sleep(100);
-                lockValue = readLockValue(row, column);
-                //Check if the lock is still valid
-                if (stopWatch.getTime() > timeout) {
-                    throw new TimeoutException("Unable to get the lock");
-                }
-            }
-            //Check if the lock is still valid
-            if (stopWatch.getTime() > timeout) {
-                throw new TimeoutException("Unable to get the lock");
+            if (isLockTaken(lockValue)) {
+                return null;
             }
 
             // Append token to the lock cell
-            appendToken(token, lockDuration, row, column);
+            appendToken(token, finalLockDuration, row, column);
 
             lockValue = readLockValue(row, column);
 
             // Get the first non expired lock
+            String readToken = "";
             for (String lock : lockValue) {
                 if (!isLockExpired(lock)) {
                     readToken = readLockToken(lock);
@@ -160,14 +148,17 @@ public class HBaseLockManager {
             }
 
             // You win the lock if the first available lock is yours.
-        } while (!readToken.equals(token));
+            if (!readToken.equals(token)) {
+                return null;
+            }
+            logger.debug("Won the lock with token " + token + " (" + token.hashCode() + ") from lock: " + Arrays.toString(lockValue));
+            return token;
+        }, timeout);
 
-        logger.debug("Won the lock with token " + token + " (" + token.hashCode() + ") from lock: " + Arrays.toString(lockValue));
         // Overwrite the lock with the winner current lock. Remove previous expired locks
         putCurrentLock(token, lockDuration, row, column);
 
         long tokenHash = token.hashCode();
-        long finalLockDuration = lockDuration;
         return new Lock(THREAD_POOL, (int) (finalLockDuration / 4), tokenHash) {
             @Override
             public void unlock0() {
@@ -269,6 +260,12 @@ public class HBaseLockManager {
 
         logger.debug("Unlock lock with token " + lockToken);
         clearLock(row, column);
+        LockWaitQueue.released(getLockId(row, column));
+    }
+
+    private String getLockId(byte[] row, byte[] column) {
+        return tableName + '/' + Bytes.toStringBinary(row) + '/'
+                + Bytes.toStringBinary(columnFamily) + ':' + Bytes.toStringBinary(column);
     }
 
     private void appendToken(String token, long lockDuration, byte[] row, byte[] qualifier) throws IOException {
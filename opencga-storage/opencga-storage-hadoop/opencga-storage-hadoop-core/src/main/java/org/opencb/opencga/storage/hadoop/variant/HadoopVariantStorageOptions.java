@@ -87,6 +87,9 @@ public enum HadoopVariantStorageOptions implements ConfigurationOption {
     SAMPLE_INDEX_TABLE_COMPRESSION("storage.hadoop.sampleIndex.table.compression", Compression.Algorithm.SNAPPY.getName()),
     SAMPLE_INDEX_TABLE_PRESPLIT_SIZE("storage.hadoop.sampleIndex.table.preSplit.samplesPerSplit", 15),
     SAMPLE_INDEX_ANNOTATION_MAX_SAMPLES_PER_MR("storage.hadoop.sampleIndex.annotation.maxSamplesPerMR", 5000),
+    SAMPLE_INDEX_QUERY_PREFETCH_THREADS("storage.hadoop.sampleIndex.query.prefetch.threads", 16),
+    SAMPLE_INDEX_QUERY_PREFETCH_BATCH_SIZE("storage.hadoop.sampleIndex.query.prefetch.batchSize", 1000),
+    SAMPLE_INDEX_QUERY_PREFETCH_LOOKAHEAD("storage.hadoop.sampleIndex.query.prefetch.lookahead", 4),
 
     /////////////////////////
     // Annotation index table  configuration
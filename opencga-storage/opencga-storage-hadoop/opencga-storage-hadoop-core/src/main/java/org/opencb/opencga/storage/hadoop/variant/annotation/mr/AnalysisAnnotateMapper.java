@@ -133,6 +133,14 @@ public class AnalysisAnnotateMapper extends AbstractHBaseVariantMapper<NullWrita
         }
     }
 
+    @Override
+    protected void cleanup(Context context) throws IOException, InterruptedException {
+        if (variantAnnotator != null) {
+            variantAnnotator.close();
+        }
+        super.cleanup(context);
+    }
+
     @Override
     protected void map(ImmutableBytesWritable key, Result value, Context context) throws IOException,
             InterruptedException {
@@ -0,0 +1,339 @@
+package org.opencb.opencga.storage.hadoop.variant.index.sample;
+
+import com.google.common.collect.Iterators;
+import com.google.common.collect.PeekingIterator;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.ResultScanner;
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.client.Table;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.hbase.util.CollectionUtils;
+import org.opencb.biodata.models.core.Region;
+import org.opencb.opencga.storage.core.metadata.models.StudyMetadata;
+import org.opencb.opencga.storage.core.variant.adaptors.VariantQueryException;
+import org.opencb.opencga.storage.core.variant.query.VariantQueryUtils;
+import org.opencb.opencga.storage.core.variant.query.VariantQueryUtils.QueryOperation;
+import org.opencb.opencga.storage.hadoop.utils.HBaseManager;
+import org.opencb.opencga.storage.hadoop.variant.index.query.SampleIndexQuery;
+import org.opencb.opencga.storage.hadoop.variant.index.query.SingleSampleIndexQuery;
+import org.opencb.opencga.storage.hadoop.variant.index.sample.SampleIndexEntry.SampleIndexGtEntry;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Counts the results of a multi-sample SampleIndexQuery using only the sample index, without building any Variant.
+ *
+ * The rows of all the samples are sorted the same way (chromosome and batch), so the scans of the samples are merged
+ * row by row. Within a row, the encoded variants of each sample are intersected (AND) or merged (OR) at byte level.
+ * Regions are split in groups of batches, which are counted in parallel. Queries without regions are split by chromosome.
+ *
+ * Only queries filtering by genotype and region are supported. See {@link #isSupported(SampleIndexQuery)}.
+ */
+public class SampleIndexCounter {
+
+    public static final int BATCHES_PER_TASK = 10;
+    // Used when the study does not define any contig
+    private static final List<String> DEFAULT_CHROMOSOMES = Arrays.asList("1", "2", "3", "4", "5", "6", "7", "8", "9", "10", "11", "12",
+            "13", "14", "15", "16", "17", "18", "19", "20", "21", "22", "X", "Y", "MT");
+
+    private final SampleIndexDBAdaptor dbAdaptor;
+    private final HBaseManager hBaseManager;
+    private final ExecutorService executor;
+    private final SampleIndexVariantBiConverter variantConverter = new SampleIndexVariantBiConverter();
+
+    public SampleIndexCounter(SampleIndexDBAdaptor dbAdaptor, HBaseManager hBaseManager, ExecutorService executor) {
+        this.dbAdaptor = dbAdaptor;
+        this.hBaseManager = hBaseManager;
+        this.executor = executor;
+    }
+
+    /**
+     * Check if the query can be counted only with the encoded variants.
+     *
+     * @param query SampleIndexQuery
+     * @return if the query only filters by genotype and region
+     */
+    public static boolean isSupported(SampleIndexQuery query) {
+        if (!query.getMendelianErrorSet().isEmpty()) {
+            return false;
+        }
+        for (String sample : query.getSamplesMap().keySet()) {
+            if (!query.forSample(sample).emptyOrRegionFilter()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long count(SampleIndexQuery query, String tableName) {
+        boolean intersect = !QueryOperation.OR.equals(query.getQueryOperation());
+        List<SingleSampleIndexQuery> queries = new ArrayList<>();
+        List<SingleSampleIndexQuery> negatedQueries = new ArrayList<>();
+        for (Map.Entry<String, List<String>> entry : query.getSamplesMap().entrySet()) {
+            String sample = entry.getKey();
+            List<String> gts = entry.getValue();
+            if (query.isNegated(sample)) {
+                // Negated samples only apply to intersections. Skip if GTs to query is empty!
+                if (intersect && !gts.isEmpty()) {
+                    negatedQueries.add(query.forSample(sample, gts));
+                }
+            } else if (gts.isEmpty()) {
+                if (intersect) {
+                    // This sample will find none
+                    return 0;
+                }
+            } else {
+                queries.add(query.forSample(sample, gts));
+            }
+        }
+        if (queries.isEmpty()) {
+            return 0;
+        }
+
+        List<Future<Long>> futures = new ArrayList<>();
+        if (CollectionUtils.isEmpty(query.getRegions())) {
+            List<String> boundaries = splitChromosomes(getChromosomes(query.getStudy()));
+            for (int i = 0; i < boundaries.size(); i++) {
+                String from = boundaries.get(i);
+                String to = i + 1 < boundaries.size() ? boundaries.get(i + 1) : null;
+                futures.add(executor.submit(() -> count(tableName, queries, negatedQueries, intersect, null, from, to)));
+            }
+        } else {
+            for (Region region : splitRegions(query.getRegions())) {
+                futures.add(executor.submit(() -> count(tableName, queries, negatedQueries, intersect, region, null, null)));
+            }
+        }
+        long count = 0;
+        try {
+            for (Future<Long> future : futures) {
+                count += future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw VariantQueryException.internalException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            } else {
+                throw VariantQueryException.internalException(e);
+            }
+        } finally {
+            for (Future<Long> future : futures) {
+                future.cancel(true);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Split the regions in groups of {@link #BATCHES_PER_TASK} batches.
+     *
+     * @param regions Regions to split
+     * @return List of regions
+     */
+    protected static List<Region> splitRegions(List<Region> regions) {
+        int taskSize = SampleIndexSchema.BATCH_SIZE * BATCHES_PER_TASK;
+        List<Region> split = new ArrayList<>();
+        for (Region region : VariantQueryUtils.mergeRegions(regions)) {
+            int start = region.getStart();
+            while (region.getEnd() != Integer.MAX_VALUE && region.getEnd() - start >= taskSize) {
+                int end = start - start % taskSize + taskSize - 1;
+                if (end >= region.getEnd()) {
+                    break;
+                }
+                split.add(new Region(region.getChromosome(), start, end));
+                start = end + 1;
+            }
+            split.add(new Region(region.getChromosome(), start, region.getEnd()));
+        }
+        return split;
+    }
+
+    /**
+     * Split the whole sample index of a sample by chromosome. Each chromosome is used as a boundary between the rows of two
+     * consecutive tasks, so the rows of chromosomes not in the list are also counted, by the task of the previous boundary.
+     *
+     * @param chromosomes Chromosomes
+     * @return Sorted boundaries, starting with null for the first rows of the sample
+     */
+    protected static List<String> splitChromosomes(Collection<String> chromosomes) {
+        TreeSet<String> sorted = new TreeSet<>((c1, c2) -> Bytes.compareTo(Bytes.toBytes(c1), Bytes.toBytes(c2)));
+        for (String chromosome : chromosomes) {
+            sorted.add(Region.normalizeChromosome(chromosome));
+        }
+        List<String> boundaries = new ArrayList<>(sorted.size() + 1);
+        boundaries.add(null);
+        boundaries.addAll(sorted);
+        return boundaries;
+    }
+
+    private Collection<String> getChromosomes(String study) {
+        StudyMetadata studyMetadata = dbAdaptor.getMetadataManager().getStudyMetadata(study);
+        Collection<String> contigs = studyMetadata == null ? null : studyMetadata.getVariantHeaderLines("contig").keySet();
+        return CollectionUtils.isEmpty(contigs) ? DEFAULT_CHROMOSOMES : contigs;
+    }
+
+    private long count(String tableName, List<SingleSampleIndexQuery> queries, List<SingleSampleIndexQuery> negatedQueries,
+                       boolean intersect, Region region, String fromChromosome, String toChromosome) throws IOException {
+        // Only filter by position if the region does not match with the batches
+        Region regionFilter = SampleIndexDBAdaptor.matchesWithBatch(region) ? null : region;
+        return hBaseManager.act(tableName, table -> {
+            List<ResultScanner> scanners = new ArrayList<>(queries.size() + negatedQueries.size());
+            try {
+                List<PeekingIterator<Result>> iterators = scan(table, queries, region, fromChromosome, toChromosome, scanners);
+                List<PeekingIterator<Result>> negatedIterators = scan(table, negatedQueries, region, fromChromosome, toChromosome,
+                        scanners);
+                if (intersect) {
+                    return intersect(iterators, negatedIterators, regionFilter);
+                } else {
+                    return union(iterators, regionFilter);
+                }
+            } finally {
+                for (ResultScanner scanner : scanners) {
+                    scanner.close();
+                }
+            }
+        });
+    }
+
+    private List<PeekingIterator<Result>> scan(Table table, List<SingleSampleIndexQuery> queries, Region region,
+                                               String fromChromosome, String toChromosome, List<ResultScanner> scanners)
+            throws IOException {
+        List<PeekingIterator<Result>> iterators = new ArrayList<>(queries.size());
+        for (SingleSampleIndexQuery query : queries) {
+            Scan scan = dbAdaptor.parse(query, region);
+            if (region == null) {
+                // Restrict the scan of the whole sample to the rows between the two chromosome boundaries
+                byte[] samplePrefix = scan.getStartRow();
+                if (fromChromosome != null) {
+                    scan.setStartRow(Bytes.add(samplePrefix, Bytes.toBytes(fromChromosome)));
+                }
+                if (toChromosome != null) {
+                    scan.setStopRow(Bytes.add(samplePrefix, Bytes.toBytes(toChromosome)));
+                }
+            }
+            ResultScanner scanner = table.getScanner(scan);
+            scanners.add(scanner);
+            iterators.add(Iterators.peekingIterator(scanner.iterator()));
+        }
+        return iterators;
+    }
+
+    private long intersect(List<PeekingIterator<Result>> iterators, List<PeekingIterator<Result>> negatedIterators,
+                           Region regionFilter) {
+        long count = 0;
+        HBaseToSampleIndexConverter converter = new HBaseToSampleIndexConverter(dbAdaptor.getConfiguration());
+        // Reused for every row
+        Set<ByteBuffer> variants = new HashSet<>();
+        Set<ByteBuffer> sampleVariants = new HashSet<>();
+        while (true) {
+            // Find a row present in all the samples
+            byte[] target = null;
+            boolean match = true;
+            for (PeekingIterator<Result> iterator : iterators) {
+                if (!iterator.hasNext()) {
+                    return count;
+                }
+                byte[] row = iterator.peek().getRow();
+                if (target == null) {
+                    target = row;
+                } else {
+                    int c = compareRows(row, target);
+                    if (c != 0) {
+                        match = false;
+                        if (c > 0) {
+                            target = row;
+                        }
+                    }
+                }
+            }
+            if (!match) {
+                for (PeekingIterator<Result> iterator : iterators) {
+                    skipLowerRows(iterator, target);
+                }
+                continue;
+            }
+
+            variants.clear();
+            boolean first = true;
+            for (PeekingIterator<Result> iterator : iterators) {
+                if (first) {
+                    readVariants(converter.convert(iterator.next()), regionFilter, variants);
+                    first = false;
+                } else {
+                    sampleVariants.clear();
+                    readVariants(converter.convert(iterator.next()), regionFilter, sampleVariants);
+                    variants.retainAll(sampleVariants);
+                }
+            }
+            for (PeekingIterator<Result> negatedIterator : negatedIterators) {
+                skipLowerRows(negatedIterator, target);
+                if (!variants.isEmpty() && negatedIterator.hasNext() && compareRows(negatedIterator.peek().getRow(), target) == 0) {
+                    sampleVariants.clear();
+                    readVariants(converter.convert(negatedIterator.next()), regionFilter, sampleVariants);
+                    variants.removeAll(sampleVariants);
+                }
+            }
+            count += variants.size();
+        }
+    }
+
+    private long union(List<PeekingIterator<Result>> iterators, Region regionFilter) {
+        long count = 0;
+        HBaseToSampleIndexConverter converter = new HBaseToSampleIndexConverter(dbAdaptor.getConfiguration());
+        // Reused for every row
+        Set<ByteBuffer> variants = new HashSet<>();
+        while (true) {
+            // Find the lowest row
+            byte[] target = null;
+            for (PeekingIterator<Result> iterator : iterators) {
+                if (iterator.hasNext()) {
+                    byte[] row = iterator.peek().getRow();
+                    if (target == null || compareRows(row, target) < 0) {
+                        target = row;
+                    }
+                }
+            }
+            if (target == null) {
+                return count;
+            }
+            variants.clear();
+            for (PeekingIterator<Result> iterator : iterators) {
+                if (iterator.hasNext() && compareRows(iterator.peek().getRow(), target) == 0) {
+                    readVariants(converter.convert(iterator.next()), regionFilter, variants);
+                }
+            }
+            count += variants.size();
+        }
+    }
+
+    private void readVariants(SampleIndexEntry entry, Region regionFilter, Set<ByteBuffer> variants) {
+        for (SampleIndexGtEntry gtEntry : entry.getGts().values()) {
+            variantConverter.forEachEncodedVariant(gtEntry, (bytes, offset, length, relativeStart) -> {
+                if (regionFilter == null || regionFilter.contains(entry.getChromosome(), entry.getBatchStart() + relativeStart)) {
+                    variants.add(ByteBuffer.wrap(bytes, offset, length).slice());
+                }
+            });
+        }
+    }
+
+    private static void skipLowerRows(PeekingIterator<Result> iterator, byte[] target) {
+        while (iterator.hasNext() && compareRows(iterator.peek().getRow(), target) < 0) {
+            iterator.next();
+        }
+    }
+
+    /**
+     * Compare two rows from different samples, skipping the sample id.
+     */
+    private static int compareRows(byte[] row1, byte[] row2) {
+        return Bytes.compareTo(
+                row1, Bytes.SIZEOF_INT, row1.length - Bytes.SIZEOF_INT,
+                row2, Bytes.SIZEOF_INT, row2.length - Bytes.SIZEOF_INT);
+    }
+}
@@ -1,6 +1,7 @@
 package org.opencb.opencga.storage.hadoop.variant.index.sample;
 
 import com.google.common.collect.Iterators;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.hadoop.hbase.client.Get;
 import org.apache.hadoop.hbase.client.Result;
@@ -24,10 +25,12 @@ import org.opencb.opencga.storage.core.utils.iterators.CloseableIterator;
 import org.opencb.opencga.storage.core.variant.query.VariantQueryUtils;
 import org.opencb.opencga.storage.core.variant.query.VariantQueryUtils.QueryOperation;
 import org.opencb.opencga.storage.core.variant.adaptors.iterators.IntersectMultiVariantKeyIterator;
+import org.opencb.opencga.storage.core.variant.adaptors.iterators.PrefetchVariantDBIterator;
 import org.opencb.opencga.storage.core.variant.adaptors.iterators.UnionMultiVariantKeyIterator;
 import org.opencb.opencga.storage.core.variant.adaptors.iterators.VariantDBIterator;
 import org.opencb.opencga.storage.hadoop.utils.HBaseManager;
 import org.opencb.opencga.storage.hadoop.variant.GenomeHelper;
+import org.opencb.opencga.storage.hadoop.variant.HadoopVariantStorageOptions;
 import org.opencb.opencga.storage.hadoop.variant.index.IndexUtils;
 import org.opencb.opencga.storage.hadoop.variant.index.query.SampleAnnotationIndexQuery.PopulationFrequencyQuery;
 import org.opencb.opencga.storage.hadoop.variant.index.query.SampleIndexQuery;
@@ -38,6 +41,10 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import static org.opencb.opencga.storage.hadoop.variant.adaptors.phoenix.VariantSqlQueryParser.DEFAULT_LOADED_GENOTYPES;
@@ -58,6 +65,8 @@ public class SampleIndexDBAdaptor implements VariantIterable {
     private SampleIndexQueryParser parser;
     private final SampleIndexConfiguration configuration;
     private final HBaseToSampleIndexConverter converter;
+    // Shared between all the multi-sample queries. Tasks never wait for other tasks, so the pool can be bounded
+    private static ExecutorService queryExecutor;
 
     public SampleIndexDBAdaptor(HBaseManager hBaseManager, HBaseVariantTableNameGenerator tableNameGenerator,
                                 VariantStorageMetadataManager metadataManager) {
@@ -119,7 +128,7 @@ public class SampleIndexDBAdaptor implements VariantIterable {
 
             if (query.isNegated(sample)) {
                 if (!gts.isEmpty()) {
-                    negatedIterators.add(internalIterator(query.forSample(sample, gts)));
+                    negatedIterators.add(prefetchIterator(internalIterator(query.forSample(sample, gts))));
                 }
                 // Skip if GTs to query is empty!
                 // Otherwise, it will return ALL genotypes instead of none
@@ -128,7 +137,7 @@ public class SampleIndexDBAdaptor implements VariantIterable {
                     // If empty, should find none. Add empty iterator for this sample
                     iterators.add(VariantDBIterator.emptyIterator());
                 } else {
-                    iterators.add(internalIterator(query.forSample(sample, gts)));
+                    iterators.add(prefetchIterator(internalIterator(query.forSample(sample, gts))));
                 }
             }
         }
@@ -137,6 +146,8 @@ public class SampleIndexDBAdaptor implements VariantIterable {
             logger.info("Union of " + iterators.size() + " sample indexes");
             iterator = new UnionMultiVariantKeyIterator(iterators);
         } else {
+            // The intersection is driven by the first iterator, seeking the others. Start with the most selective sample
+            sortBySelectivity(iterators);
             logger.info("Intersection of " + iterators.size() + " sample indexes plus " + negatedIterators.size() + " negated indexes");
             iterator = new IntersectMultiVariantKeyIterator(iterators, negatedIterators);
         }
@@ -144,6 +155,53 @@ public class SampleIndexDBAdaptor implements VariantIterable {
         return applyLimitSkip(iterator, options);
     }
 
+    private VariantDBIterator prefetchIterator(VariantDBIterator iterator) {
+        int batchSize = hBaseManager.getConf().getInt(
+                HadoopVariantStorageOptions.SAMPLE_INDEX_QUERY_PREFETCH_BATCH_SIZE.key(),
+                HadoopVariantStorageOptions.SAMPLE_INDEX_QUERY_PREFETCH_BATCH_SIZE.defaultValue());
+        int lookahead = hBaseManager.getConf().getInt(
+                HadoopVariantStorageOptions.SAMPLE_INDEX_QUERY_PREFETCH_LOOKAHEAD.key(),
+                HadoopVariantStorageOptions.SAMPLE_INDEX_QUERY_PREFETCH_LOOKAHEAD.defaultValue());
+        if (lookahead <= 0) {
+            return iterator;
+        }
+        return new PrefetchVariantDBIterator(iterator, getQueryExecutor(), batchSize, lookahead);
+    }
+
+    private static void sortBySelectivity(List<VariantDBIterator> iterators) {
+        Map<VariantDBIterator, Double> density = new IdentityHashMap<>();
+        for (VariantDBIterator iterator : iterators) {
+            if (iterator instanceof PrefetchVariantDBIterator) {
+                density.put(iterator, ((PrefetchVariantDBIterator) iterator).estimateDensity());
+            } else if (!iterator.hasNext()) {
+                density.put(iterator, 0.0);
+            } else {
+                density.put(iterator, Double.MAX_VALUE);
+            }
+        }
+        iterators.sort(Comparator.comparing(density::get));
+        logger.debug("Sample index iterators density: {}", iterators.stream().map(density::get).collect(Collectors.toList()));
+    }
+
+    private ExecutorService getQueryExecutor() {
+        synchronized (SampleIndexDBAdaptor.class) {
+            if (queryExecutor == null) {
+                int threads = hBaseManager.getConf().getInt(
+                        HadoopVariantStorageOptions.SAMPLE_INDEX_QUERY_PREFETCH_THREADS.key(),
+                        HadoopVariantStorageOptions.SAMPLE_INDEX_QUERY_PREFETCH_THREADS.defaultValue());
+                ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                        new LinkedBlockingQueue<>(),
+                        new ThreadFactoryBuilder()
+                                .setNameFormat("sample-index-query-%d")
+                                .setDaemon(true)
+                                .build());
+                executor.allowCoreThreadTimeOut(true);
+                queryExecutor = executor;
+            }
+            return queryExecutor;
+        }
+    }
+
     protected VariantDBIterator applyLimitSkip(VariantDBIterator iterator, QueryOptions options) {
         int limit = options.getInt(QueryOptions.LIMIT, -1);
         int skip = options.getInt(QueryOptions.SKIP, -1);
@@ -316,6 +374,10 @@ public class SampleIndexDBAdaptor implements VariantIterable {
         if (query.getSamplesMap().size() == 1 && query.getMendelianErrorSet().isEmpty()) {
             String sample = query.getSamplesMap().keySet().iterator().next();
             return count(query.forSample(sample));
+        } else if (SampleIndexCounter.isSupported(query)) {
+            // Count directly from the encoded variants
+            String tableName = tableNameGenerator.getSampleIndexTableName(toStudyId(query.getStudy()));
+            return new SampleIndexCounter(this, hBaseManager, getQueryExecutor()).count(query, tableName);
         } else {
             return Iterators.size(iterator(query));
         }
@@ -389,6 +451,10 @@ public class SampleIndexDBAdaptor implements VariantIterable {
         return parser;
     }
 
+    public VariantStorageMetadataManager getMetadataManager() {
+        return metadataManager;
+    }
+
     public SampleIndexConfiguration getConfiguration() {
         return configuration;
     }
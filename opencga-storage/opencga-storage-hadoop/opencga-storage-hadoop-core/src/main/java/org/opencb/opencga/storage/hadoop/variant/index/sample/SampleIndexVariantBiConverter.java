@@ -149,6 +149,40 @@ public class SampleIndexVariantBiConverter {
         return variants;
     }
 
+    /**
+     * Walk through the encoded variants of a genotype entry, without converting them into Variant objects.
+     * Two encoded variants from the same batch are equal if, and only if, the variants are the same.
+     *
+     * @param gtEntry  Genotype entry
+     * @param consumer Consumer of each encoded variant, excluding the inter-variant separator
+     */
+    public void forEachEncodedVariant(SampleIndexEntry.SampleIndexGtEntry gtEntry, EncodedVariantConsumer consumer) {
+        byte[] bytes = gtEntry.getVariants();
+        if (bytes == null) {
+            return;
+        }
+        int offset = gtEntry.getVariantsOffset();
+        int end = offset + gtEntry.getVariantsLength();
+        while (end - offset >= INT24_LENGTH) {
+            int relativeStart = read24bitInteger(bytes, offset) & 0x0F_FF_FF;
+            if (hasEncodedAlleles(bytes, offset)) {
+                consumer.accept(bytes, offset, INT24_LENGTH, relativeStart);
+                offset += INT24_LENGTH;
+            } else {
+                int referenceLength = readNextSeparator(bytes, offset + INT24_LENGTH);
+                int alternateLength = readNextSeparator(bytes, offset + INT24_LENGTH + referenceLength + SEPARATOR_LENGTH);
+                int length = INT24_LENGTH + referenceLength + SEPARATOR_LENGTH + alternateLength;
+                consumer.accept(bytes, offset, length, relativeStart);
+                offset += length + SEPARATOR_LENGTH;
+            }
+        }
+    }
+
+    @FunctionalInterface
+    public interface EncodedVariantConsumer {
+        void accept(byte[] bytes, int offset, int length, int relativeStart);
+    }
+
     public SampleIndexEntryIterator toVariantsIterator(SampleIndexEntry entry, String gt) {
         SampleIndexEntry.SampleIndexGtEntry gtEntry = entry.getGts().get(gt);
         SampleIndexConfiguration configuration = entry.getConfiguration();
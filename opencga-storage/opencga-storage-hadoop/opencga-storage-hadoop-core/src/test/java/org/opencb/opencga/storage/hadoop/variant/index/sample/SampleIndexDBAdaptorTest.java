@@ -71,4 +71,23 @@ public class SampleIndexDBAdaptorTest {
         Assert.assertFalse(SampleIndexDBAdaptor.endsAtBatch(split.get(1)));
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testSplitRegionsCount() {
+        Assert.assertEquals(Arrays.asList(
+                new Region("1", 1000, 9999999),
+                new Region("1", 10000000, 19999999),
+                new Region("1", 20000000, 25000000),
+                new Region("2", 1000, 2000)),
+                SampleIndexCounter.splitRegions(Arrays.asList(new Region("1", 1000, 25000000), new Region("2", 1000, 2000))));
+        Assert.assertEquals(Collections.singletonList(new Region("1", 1000, Integer.MAX_VALUE)),
+                SampleIndexCounter.splitRegions(Collections.singletonList(new Region("1", 1000, Integer.MAX_VALUE))));
+    }
+
+    @Test
+    public void testSplitChromosomesCount() {
+        // Sorted as in the row keys. The first boundary covers the rows before the first chromosome
+        Assert.assertEquals(Arrays.asList(null, "1", "10", "2", "X"),
+                SampleIndexCounter.splitChromosomes(Arrays.asList("chr2", "10", "X", "1", "2")));
+    }
+
+}
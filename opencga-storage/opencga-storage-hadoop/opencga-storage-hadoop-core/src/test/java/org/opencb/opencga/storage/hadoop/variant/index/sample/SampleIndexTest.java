@@ -466,6 +466,34 @@ public class SampleIndexTest extends VariantStorageBaseTest implements HadoopVar
         }
     }
 
+    @Test
+    public void testCountMultiSample() throws StorageEngineException {
+        List<String> genotypes = Arrays.asList(
+                "NA19600:1|0,0|1,1|1;NA19660:1|0,0|1,1|1",
+                "NA19600:1|0,0|1,1|1,NA19660:1|0,0|1,1|1",
+                "NA19600:1|0,0|1,1|1,NA19660:1|1,NA19661:0|1",
+                "NA19600:1|0,0|1,1|1;NA19660:1|1;NA19661:0|1,1|0");
+        List<Query> regions = Arrays.asList(
+                new Query(),
+                new Query(REGION.key(), Arrays.asList(new Region("22", 36591300, 46000000), new Region("1", 1000, 16400000))));
+
+        SampleIndexDBAdaptor sampleIndexDBAdaptor = ((HadoopVariantStorageEngine) variantStorageEngine).getSampleIndexDBAdaptor();
+        for (String genotype : genotypes) {
+            for (Query baseQuery : regions) {
+                Query query = new Query(baseQuery)
+                        .append(VariantQueryParam.STUDY.key(), STUDY_NAME)
+                        .append(GENOTYPE.key(), genotype);
+                SampleIndexQuery sampleIndexQuery = sampleIndexDBAdaptor.getSampleIndexQueryParser().parse(new Query(query));
+                assertTrue(SampleIndexCounter.isSupported(sampleIndexQuery));
+                long actualCount = sampleIndexDBAdaptor.count(sampleIndexQuery);
+                long expectedCount = sampleIndexDBAdaptor.iterator(sampleIndexDBAdaptor.getSampleIndexQueryParser().parse(new Query(query)))
+                        .toDataResult().getNumResults();
+                System.out.println("query = " + query.toJson() + " , count = " + actualCount);
+                assertEquals(expectedCount, actualCount);
+            }
+        }
+    }
+
     @Test
     public void testAggregation() throws Exception {
         SampleIndexVariantAggregationExecutor executor = new SampleIndexVariantAggregationExecutor(metadataManager, ((HadoopVariantStorageEngine) variantStorageEngine).getSampleIndexDBAdaptor());
@@ -113,6 +113,31 @@ public class SampleIndexVariantBiConverterTest {
         return sb.toString();
     }
 
+    @Test
+    public void testForEachEncodedVariant() {
+        List<Variant> variants = Arrays.asList(
+                new Variant("1:12000010:A:C"),
+                new Variant("1:12000020:A:CT"),
+                new Variant("1:12000030:-:G"),
+                new Variant("1:12000040:G:T"));
+        byte[] bytes = converter.toBytes(variants);
+        SampleIndexEntry.SampleIndexGtEntry gtEntry = new SampleIndexEntry(0, "1", 12000000, SampleIndexConfiguration.defaultConfiguration())
+                .getGtEntry("0/1");
+        gtEntry.setVariants(bytes);
+
+        List<Integer> starts = new ArrayList<>();
+        List<Variant> decoded = new ArrayList<>();
+        converter.forEachEncodedVariant(gtEntry, (b, offset, length, relativeStart) -> {
+            starts.add(relativeStart);
+            decoded.add(converter.toVariant("1", 12000000, Arrays.copyOfRange(b, offset, offset + length)));
+            // Same variant, same bytes
+            assertEquals(Bytes.toStringBinary(converter.toBytes(decoded.get(decoded.size() - 1))),
+                    Bytes.toStringBinary(b, offset, length));
+        });
+        assertEquals(Arrays.asList(10, 20, 30, 40), starts);
+        assertEquals(variants, decoded);
+    }
+
     @Test
     public void testVariantsStream() throws IOException {
         int batchStart = 12000000;
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2015-2020 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencb.opencga.storage.jmh;
+
+import org.opencb.opencga.storage.core.exceptions.StorageEngineException;
+import org.opencb.opencga.storage.core.metadata.VariantStorageMetadataManager;
+import org.opencb.opencga.storage.core.metadata.models.StudyMetadata;
+import org.opencb.opencga.storage.core.variant.dummy.DummyVariantStorageMetadataDBAdaptorFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds in-memory studies, backed by the dummy metadata adaptors, to be used as benchmark fixtures.
+ */
+public final class SyntheticStudies {
+
+    public static final String STUDY_NAME = "study";
+
+    private SyntheticStudies() {
+    }
+
+    /**
+     * Create a new metadata manager with one study with the given number of indexed files and samples.
+     *
+     * @param numFiles       Number of files
+     * @param samplesPerFile Number of samples in each file
+     * @return VariantStorageMetadataManager with the study. Samples are named S0..Sn
+     * @throws StorageEngineException if the metadata can not be created
+     */
+    public static VariantStorageMetadataManager newMetadataManager(int numFiles, int samplesPerFile) throws StorageEngineException {
+        DummyVariantStorageMetadataDBAdaptorFactory.clear();
+        VariantStorageMetadataManager metadataManager = new VariantStorageMetadataManager(new DummyVariantStorageMetadataDBAdaptorFactory());
+        StudyMetadata studyMetadata = metadataManager.createStudy(STUDY_NAME);
+
+        List<String> samples = SyntheticVariants.sampleNames(numFiles * samplesPerFile);
+        List<Integer> fileIds = new ArrayList<>(numFiles);
+        for (int i = 0; i < numFiles; i++) {
+            List<String> samplesInFile = samples.subList(i * samplesPerFile, (i + 1) * samplesPerFile);
+            fileIds.add(metadataManager.registerFile(studyMetadata.getId(), "file_" + i + ".vcf.gz", samplesInFile));
+        }
+        metadataManager.addIndexedFiles(studyMetadata.getId(), fileIds);
+        return metadataManager;
+    }
+
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2015-2020 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencb.opencga.storage.jmh;
+
+import org.opencb.biodata.models.variant.Variant;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic generator of synthetic variants and genotypes used as benchmark fixtures.
+ *
+ * All the methods receive the {@link Random} to use, so every benchmark can build the same fixture on every run.
+ */
+public final class SyntheticVariants {
+
+    public static final long SEED = 42;
+
+    private static final String[] BASES = {"A", "C", "G", "T"};
+    private static final String[] GENOTYPES = {"0/1", "1/1", "0|1", "1|0", "./."};
+
+    private SyntheticVariants() {
+    }
+
+    /**
+     * Generate a sorted list of variants with unique positions within [start, end).
+     *
+     * @param chromosome    Chromosome of the variants
+     * @param start         First possible position
+     * @param end           Last possible position (exclusive)
+     * @param count         Number of variants to generate
+     * @param indelFraction Fraction of the variants that will be indels. These can not be encoded in the SampleIndex alleles codec
+     * @param random        Random generator
+     * @return Sorted list of variants
+     */
+    public static List<Variant> variants(String chromosome, int start, int end, int count, double indelFraction, Random random) {
+        if (count > end - start) {
+            throw new IllegalArgumentException("Unable to generate " + count + " variants in a region of length " + (end - start));
+        }
+        List<Variant> variants = new ArrayList<>(count);
+        int step = (end - start) / count;
+        int position = start;
+        for (int i = 0; i < count; i++) {
+            position += 1 + random.nextInt(step);
+            String reference = base(random);
+            String alternate;
+            if (random.nextDouble() < indelFraction) {
+                alternate = reference + base(random) + base(random);
+            } else {
+                alternate = base(random);
+                while (alternate.equals(reference)) {
+                    alternate = base(random);
+                }
+            }
+            variants.add(new Variant(chromosome, position, reference, alternate));
+        }
+        return variants;
+    }
+
+    /**
+     * Generate a genotype. The reference genotype "0/0" is returned with the given probability.
+     *
+     * @param homRefFraction    Probability of returning "0/0"
+     * @param random            Random generator
+     * @return Genotype
+     */
+    public static String genotype(double homRefFraction, Random random) {
+        if (random.nextDouble() < homRefFraction) {
+            return "0/0";
+        } else {
+            return GENOTYPES[random.nextInt(GENOTYPES.length)];
+        }
+    }
+
+    public static List<String> sampleNames(int numSamples) {
+        List<String> samples = new ArrayList<>(numSamples);
+        for (int i = 0; i < numSamples; i++) {
+            samples.add("S" + i);
+        }
+        return samples;
+    }
+
+    private static String base(Random random) {
+        return BASES[random.nextInt(BASES.length)];
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2015-2020 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencb.opencga.storage.jmh.core;
+
+import org.opencb.commons.datastore.core.Query;
+import org.opencb.commons.datastore.core.QueryOptions;
+import org.opencb.opencga.storage.core.exceptions.StorageEngineException;
+import org.opencb.opencga.storage.core.metadata.VariantStorageMetadataManager;
+import org.opencb.opencga.storage.core.variant.query.VariantQueryParser;
+import org.opencb.opencga.storage.jmh.SyntheticStudies;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.opencb.opencga.storage.core.variant.adaptors.VariantQueryParam.*;
+
+/**
+ * Pre-process the most common variant queries. This is executed for every query, before selecting the query executor.
+ * CellBase is not available, so GO and expression filters are not expanded.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VariantQueryParserBenchmark {
+
+    private static final int NUM_FILES = 10;
+    private static final int SAMPLES_PER_FILE = 100;
+
+    public enum QueryType {
+        REGION,
+        GENOTYPE,
+        SAMPLE,
+        ANNOTATION,
+    }
+
+    // CSOFF: VisibilityModifier
+    @Param({"REGION", "GENOTYPE", "SAMPLE", "ANNOTATION"})
+    public QueryType queryType;
+    // CSON: VisibilityModifier
+
+    private VariantQueryParser parser;
+    private Query query;
+    private QueryOptions options;
+
+    @Setup
+    public void setup() throws StorageEngineException {
+        VariantStorageMetadataManager metadataManager = SyntheticStudies.newMetadataManager(NUM_FILES, SAMPLES_PER_FILE);
+        parser = new VariantQueryParser(null, metadataManager);
+        options = new QueryOptions(QueryOptions.LIMIT, 10);
+
+        query = new Query(STUDY.key(), SyntheticStudies.STUDY_NAME);
+        switch (queryType) {
+            case REGION:
+                query.append(REGION.key(), "1:1000-2000000,2:500000-800000")
+                        .append(TYPE.key(), "SNV,INDEL");
+                break;
+            case GENOTYPE:
+                query.append(GENOTYPE.key(), "S0:0/1,1/1;S1:0/1;S2:0/0,0/1");
+                break;
+            case SAMPLE:
+                query.append(SAMPLE.key(), "S0,S1,S2,S3,S4")
+                        .append(INCLUDE_SAMPLE.key(), "S0,S1,S2,S3,S4");
+                break;
+            case ANNOTATION:
+                query.append(ANNOT_CONSEQUENCE_TYPE.key(), "lof,missense_variant")
+                        .append(ANNOT_BIOTYPE.key(), "protein_coding")
+                        .append(ANNOT_POPULATION_ALTERNATE_FREQUENCY.key(), "1kG_phase3:ALL<0.01;GNOMAD_GENOMES:ALL<0.01")
+                        .append(GENE.key(), "BRCA2,TP53");
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown query type " + queryType);
+        }
+    }
+
+    @Benchmark
+    public Query preProcessQuery() {
+        return parser.preProcessQuery(query, options);
+    }
+
+}
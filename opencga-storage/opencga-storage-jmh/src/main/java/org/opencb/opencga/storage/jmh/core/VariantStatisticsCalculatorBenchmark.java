@@ -0,0 +1,93 @@
+/*
+ * Copyright 2015-2020 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencb.opencga.storage.jmh.core;
+
+import org.opencb.biodata.models.variant.StudyEntry;
+import org.opencb.biodata.models.variant.Variant;
+import org.opencb.biodata.models.variant.metadata.Aggregation;
+import org.opencb.opencga.storage.core.variant.stats.VariantStatisticsCalculator;
+import org.opencb.opencga.storage.core.variant.stats.VariantStatsWrapper;
+import org.opencb.opencga.storage.jmh.SyntheticStudies;
+import org.opencb.opencga.storage.jmh.SyntheticVariants;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Calculate the stats of a batch of variants for a set of cohorts, as done by the DefaultVariantStatisticsManager.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VariantStatisticsCalculatorBenchmark {
+
+    private static final int NUM_VARIANTS = 100;
+
+    // CSOFF: VisibilityModifier
+    @Param({"100", "2000"})
+    public int numSamples;
+
+    @Param({"1", "10"})
+    public int numCohorts;
+    // CSON: VisibilityModifier
+
+    private VariantStatisticsCalculator calculator;
+    private List<Variant> variants;
+    private Map<String, Set<String>> cohorts;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(SyntheticVariants.SEED);
+        List<String> samples = SyntheticVariants.sampleNames(numSamples);
+
+        variants = SyntheticVariants.variants("1", 1, 10_000_000, NUM_VARIANTS, 0.1, random);
+        for (Variant variant : variants) {
+            StudyEntry studyEntry = new StudyEntry(SyntheticStudies.STUDY_NAME, Collections.emptyList(),
+                    Collections.singletonList("GT"));
+            for (String sample : samples) {
+                studyEntry.addSampleData(sample, Collections.singletonList(SyntheticVariants.genotype(0.9, random)));
+            }
+            variant.addStudyEntry(studyEntry);
+        }
+
+        // Cohort "ALL" with all the samples, and random cohorts with half of the samples
+        cohorts = new LinkedHashMap<>();
+        cohorts.put(StudyEntry.DEFAULT_COHORT, new HashSet<>(samples));
+        for (int i = 1; i < numCohorts; i++) {
+            Set<String> cohort = new HashSet<>();
+            for (String sample : samples) {
+                if (random.nextBoolean()) {
+                    cohort.add(sample);
+                }
+            }
+            cohorts.put("COHORT_" + i, cohort);
+        }
+
+        calculator = new VariantStatisticsCalculator(true);
+        calculator.setAggregationType(Aggregation.NONE, null);
+    }
+
+    @Benchmark
+    public List<VariantStatsWrapper> calculateBatch() {
+        return calculator.calculateBatch(variants, SyntheticStudies.STUDY_NAME, cohorts);
+    }
+
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2015-2020 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencb.opencga.storage.jmh.hadoop;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.opencb.biodata.models.variant.Variant;
+import org.opencb.opencga.storage.core.exceptions.StorageEngineException;
+import org.opencb.opencga.storage.core.metadata.VariantStorageMetadataManager;
+import org.opencb.opencga.storage.core.variant.VariantStorageEngine;
+import org.opencb.opencga.storage.core.variant.VariantStorageOptions;
+import org.opencb.opencga.storage.hadoop.variant.converters.HBaseVariantConverterConfiguration;
+import org.opencb.opencga.storage.hadoop.variant.converters.study.HBaseToStudyEntryConverter;
+import org.opencb.opencga.storage.jmh.SyntheticStudies;
+import org.opencb.opencga.storage.jmh.SyntheticVariants;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Build the StudyEntry of a batch of variants from the sample columns read from the variants table.
+ * Only non reference genotypes are stored in HBase, so the converter has to fill the rest of samples.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HBaseToStudyEntryConverterBenchmark {
+
+    private static final int NUM_VARIANTS = 100;
+    private static final int NUM_FILES = 10;
+
+    // CSOFF: VisibilityModifier
+    @Param({"100", "2000"})
+    public int numSamples;
+    // CSON: VisibilityModifier
+
+    private HBaseToStudyEntryConverter converter;
+    private int studyId;
+    private List<Variant> variants;
+    private List<List<Pair<Integer, List<String>>>> samplesData;
+
+    @Setup
+    public void setup() throws StorageEngineException {
+        Random random = new Random(SyntheticVariants.SEED);
+        VariantStorageMetadataManager metadataManager = SyntheticStudies.newMetadataManager(NUM_FILES, numSamples / NUM_FILES);
+        studyId = metadataManager.getStudyId(SyntheticStudies.STUDY_NAME);
+        metadataManager.updateStudyMetadata(studyId, s -> {
+            s.getAttributes().put(VariantStorageOptions.MERGE_MODE.key(), VariantStorageEngine.MergeMode.BASIC);
+            return s;
+        });
+        List<Integer> sampleIds = new ArrayList<>(metadataManager.getIndexedSamples(studyId));
+
+        variants = SyntheticVariants.variants("1", 1, 10_000_000, NUM_VARIANTS, 0.1, random);
+        samplesData = new ArrayList<>(NUM_VARIANTS);
+        for (int i = 0; i < NUM_VARIANTS; i++) {
+            List<Pair<Integer, List<String>>> variantSamplesData = new ArrayList<>();
+            for (Integer sampleId : sampleIds) {
+                String gt = SyntheticVariants.genotype(0.9, random);
+                if (!gt.equals("0/0")) {
+                    variantSamplesData.add(Pair.of(sampleId, Arrays.asList(gt, "PASS")));
+                }
+            }
+            samplesData.add(variantSamplesData);
+        }
+
+        converter = new HBaseToStudyEntryConverter(metadataManager, null)
+                .configure(HBaseVariantConverterConfiguration.builder().build());
+    }
+
+    @Benchmark
+    public void convert(Blackhole blackhole) {
+        for (int i = 0; i < NUM_VARIANTS; i++) {
+            blackhole.consume(converter.convert(samplesData.get(i), Collections.emptyList(), variants.get(i), studyId));
+        }
+    }
+
+}
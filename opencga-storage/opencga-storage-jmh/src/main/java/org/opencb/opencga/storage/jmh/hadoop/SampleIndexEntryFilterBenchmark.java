@@ -0,0 +1,164 @@
+/*
+ * Copyright 2015-2020 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencb.opencga.storage.jmh.hadoop;
+
+import org.apache.hadoop.hbase.CellUtil;
+import org.apache.hadoop.hbase.client.Put;
+import org.opencb.biodata.models.variant.Variant;
+import org.opencb.opencga.storage.core.variant.query.VariantQueryUtils;
+import org.opencb.opencga.storage.hadoop.variant.index.annotation.AnnotationIndexEntry;
+import org.opencb.opencga.storage.hadoop.variant.index.annotation.AnnotationIndexPutBuilder;
+import org.opencb.opencga.storage.hadoop.variant.index.query.SampleAnnotationIndexQuery;
+import org.opencb.opencga.storage.hadoop.variant.index.query.SampleAnnotationIndexQuery.PopulationFrequencyQuery;
+import org.opencb.opencga.storage.hadoop.variant.index.query.SampleIndexQuery;
+import org.opencb.opencga.storage.hadoop.variant.index.query.SingleSampleIndexQuery;
+import org.opencb.opencga.storage.hadoop.variant.index.sample.*;
+import org.opencb.opencga.storage.jmh.SyntheticVariants;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import static org.opencb.opencga.storage.hadoop.variant.index.annotation.AnnotationIndexConverter.*;
+import static org.opencb.opencga.storage.hadoop.variant.index.sample.SampleIndexSchema.BATCH_SIZE;
+
+/**
+ * Filter a SampleIndex row with annotation and population frequency indexes, as read from HBase.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SampleIndexEntryFilterBenchmark {
+
+    private static final String CHROMOSOME = "1";
+    private static final String GT = "0/1";
+    private static final String SAMPLE = "S1";
+    private static final byte[] FAMILY = new byte[]{'0'};
+
+    public enum Filter {
+        ANNOTATION,
+        POP_FREQ,
+        ANNOTATION_AND_POP_FREQ,
+    }
+
+    // CSOFF: VisibilityModifier
+    @Param({"1000", "20000"})
+    public int numVariants;
+
+    @Param({"ANNOTATION", "POP_FREQ", "ANNOTATION_AND_POP_FREQ"})
+    public Filter filter;
+    // CSON: VisibilityModifier
+
+    private SampleIndexEntry entry;
+    private SampleIndexEntryFilter entryFilter;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(SyntheticVariants.SEED);
+        SampleIndexConfiguration configuration = SampleIndexConfiguration.defaultConfiguration();
+        int numPopulations = configuration.getPopulationRanges().size();
+
+        List<Variant> variants = SyntheticVariants.variants(CHROMOSOME, 0, BATCH_SIZE, numVariants, 0.1, random);
+        AnnotationIndexPutBuilder builder = new AnnotationIndexPutBuilder(numVariants);
+        for (int i = 0; i < numVariants; i++) {
+            builder.add(randomAnnotationIndexEntry(random, numPopulations));
+        }
+        Put put = builder.buildAndReset(new Put(new byte[]{0}), GT, FAMILY);
+
+        entry = new SampleIndexEntry(0, CHROMOSOME, 0, configuration);
+        entry.getGtEntry(GT)
+                .setVariants(new SampleIndexVariantBiConverter().toBytes(variants))
+                .setCount(numVariants)
+                .setAnnotationIndex(value(put, SampleIndexSchema.toAnnotationIndexColumn(GT)))
+                .setConsequenceTypeIndex(value(put, SampleIndexSchema.toAnnotationConsequenceTypeIndexColumn(GT)))
+                .setBiotypeIndex(value(put, SampleIndexSchema.toAnnotationBiotypeIndexColumn(GT)))
+                .setPopulationFrequencyIndex(value(put, SampleIndexSchema.toAnnotationPopFreqIndexColumn(GT)));
+
+        entryFilter = new SampleIndexEntryFilter(buildQuery(filter));
+    }
+
+    @Benchmark
+    public Collection<Variant> filter() {
+        return entryFilter.filter(entry);
+    }
+
+    @Benchmark
+    public int filterAndCount() {
+        return entryFilter.filterAndCount(entry);
+    }
+
+    private static AnnotationIndexEntry randomAnnotationIndexEntry(Random random, int numPopulations) {
+        boolean intergenic = random.nextInt(10) < 3;
+        byte summary = 0;
+        short ct = 0;
+        byte bt = 0;
+        if (intergenic) {
+            summary |= INTERGENIC_MASK;
+        } else {
+            if (random.nextBoolean()) {
+                summary |= PROTEIN_CODING_MASK;
+            }
+            if (random.nextInt(10) == 0) {
+                summary |= MISSENSE_VARIANT_MASK;
+                ct |= CT_MISSENSE_VARIANT_MASK;
+            }
+            if (random.nextInt(20) == 0) {
+                summary |= LOF_MASK;
+                ct |= CT_STOP_GAINED_MASK;
+            }
+            ct |= CT_UTR_MASK;
+            bt = (byte) (1 + random.nextInt(Byte.MAX_VALUE));
+        }
+        byte[] popFreq = new byte[numPopulations];
+        for (int i = 0; i < numPopulations; i++) {
+            // Most variants are rare
+            popFreq[i] = (byte) (random.nextInt(10) < 7 ? 0 : random.nextInt(1 << POP_FREQ_SIZE));
+        }
+        if (popFreq[0] == 0) {
+            summary |= POP_FREQ_ANY_001_MASK;
+        }
+        return new AnnotationIndexEntry(summary, intergenic, ct, bt, new byte[0], popFreq, false, (byte) 0);
+    }
+
+    private static SingleSampleIndexQuery buildQuery(Filter filter) {
+        byte[] annotationIndexMask = new byte[]{0, 0};
+        List<PopulationFrequencyQuery> popFreqQueries = Collections.emptyList();
+        if (filter == Filter.ANNOTATION || filter == Filter.ANNOTATION_AND_POP_FREQ) {
+            annotationIndexMask = new byte[]{(byte) (PROTEIN_CODING_MASK | INTERGENIC_MASK), PROTEIN_CODING_MASK};
+        }
+        if (filter == Filter.POP_FREQ || filter == Filter.ANNOTATION_AND_POP_FREQ) {
+            popFreqQueries = Arrays.asList(
+                    new PopulationFrequencyQuery(0, K_GENOMES, "ALL", -1, -1, (byte) 0, (byte) 1),
+                    new PopulationFrequencyQuery(1, GNOMAD_GENOMES, "ALL", -1, -1, (byte) 0, (byte) 2));
+        }
+        SampleAnnotationIndexQuery annotationIndexQuery = new SampleAnnotationIndexQuery(annotationIndexMask, (short) 0, (byte) 0,
+                (byte) 0, VariantQueryUtils.QueryOperation.AND, popFreqQueries, false);
+
+        return new SampleIndexQuery(Collections.emptyList(), null, "study", Collections.singletonMap(SAMPLE, Arrays.asList(GT)),
+                Collections.emptySet(), null, Collections.emptyMap(), Collections.emptyMap(), Collections.emptyMap(),
+                annotationIndexQuery, Collections.emptySet(), false, VariantQueryUtils.QueryOperation.AND)
+                .forSample(SAMPLE);
+    }
+
+    private static byte[] value(Put put, byte[] column) {
+        return CellUtil.cloneValue(put.get(FAMILY, column).get(0));
+    }
+
+}
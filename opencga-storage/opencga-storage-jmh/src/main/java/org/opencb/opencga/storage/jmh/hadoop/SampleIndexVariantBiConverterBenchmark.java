@@ -0,0 +1,100 @@
+/*
+ * Copyright 2015-2020 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencb.opencga.storage.jmh.hadoop;
+
+import org.opencb.biodata.models.variant.Variant;
+import org.opencb.opencga.storage.hadoop.variant.index.sample.SampleIndexConfiguration;
+import org.opencb.opencga.storage.hadoop.variant.index.sample.SampleIndexEntry;
+import org.opencb.opencga.storage.hadoop.variant.index.sample.SampleIndexEntryIterator;
+import org.opencb.opencga.storage.hadoop.variant.index.sample.SampleIndexVariantBiConverter;
+import org.opencb.opencga.storage.jmh.SyntheticVariants;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.opencb.opencga.storage.hadoop.variant.index.sample.SampleIndexSchema.BATCH_SIZE;
+
+/**
+ * Encode and decode the variants of one SampleIndex row.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SampleIndexVariantBiConverterBenchmark {
+
+    private static final String CHROMOSOME = "1";
+    private static final String GT = "0/1";
+
+    // CSOFF: VisibilityModifier
+    @Param({"1000", "20000"})
+    public int numVariants;
+
+    @Param({"0.0", "0.1"})
+    public double indelFraction;
+    // CSON: VisibilityModifier
+
+    private SampleIndexVariantBiConverter converter;
+    private List<Variant> variants;
+    private byte[] bytes;
+    private SampleIndexEntry entry;
+
+    @Setup
+    public void setup() {
+        converter = new SampleIndexVariantBiConverter();
+        variants = SyntheticVariants.variants(CHROMOSOME, 0, BATCH_SIZE, numVariants, indelFraction, new Random(SyntheticVariants.SEED));
+        bytes = converter.toBytes(variants);
+
+        entry = new SampleIndexEntry(0, CHROMOSOME, 0, SampleIndexConfiguration.defaultConfiguration());
+        entry.getGtEntry(GT).setVariants(bytes).setCount(numVariants);
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return converter.toBytes(variants);
+    }
+
+    @Benchmark
+    public List<Variant> decode() {
+        return converter.toVariants(CHROMOSOME, 0, bytes, 0, bytes.length);
+    }
+
+    @Benchmark
+    public void iterate(Blackhole blackhole) {
+        SampleIndexEntryIterator iterator = converter.toVariantsIterator(entry, GT);
+        while (iterator.hasNext()) {
+            blackhole.consume(iterator.next());
+        }
+    }
+
+    @Benchmark
+    public int count() {
+        SampleIndexEntryIterator iterator = converter.toVariantsCountIterator(entry, GT);
+        int count = 0;
+        while (iterator.hasNext()) {
+            iterator.skip();
+            count++;
+        }
+        return count;
+    }
+
+}
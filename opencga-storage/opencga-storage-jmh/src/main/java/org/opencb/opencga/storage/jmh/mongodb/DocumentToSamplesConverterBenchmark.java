@@ -0,0 +1,110 @@
+/*
+ * Copyright 2015-2020 OpenCB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opencb.opencga.storage.jmh.mongodb;
+
+import org.bson.Document;
+import org.opencb.biodata.models.variant.StudyEntry;
+import org.opencb.commons.datastore.core.Query;
+import org.opencb.commons.datastore.core.QueryOptions;
+import org.opencb.opencga.storage.core.exceptions.StorageEngineException;
+import org.opencb.opencga.storage.core.metadata.VariantStorageMetadataManager;
+import org.opencb.opencga.storage.core.variant.query.projection.VariantQueryProjection;
+import org.opencb.opencga.storage.core.variant.query.projection.VariantQueryProjectionParser;
+import org.opencb.opencga.storage.jmh.SyntheticStudies;
+import org.opencb.opencga.storage.jmh.SyntheticVariants;
+import org.opencb.opencga.storage.mongodb.variant.converters.DocumentToSamplesConverter;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import static org.opencb.opencga.storage.mongodb.variant.MongoDBVariantStorageOptions.DEFAULT_GENOTYPE;
+import static org.opencb.opencga.storage.mongodb.variant.converters.DocumentToStudyVariantEntryConverter.FILEID_FIELD;
+import static org.opencb.opencga.storage.mongodb.variant.converters.DocumentToStudyVariantEntryConverter.FILES_FIELD;
+
+/**
+ * Convert the genotypes of a batch of variants from and to the MongoDB study document,
+ * where samples are grouped by genotype and the default genotype is not stored.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DocumentToSamplesConverterBenchmark {
+
+    private static final int NUM_VARIANTS = 100;
+
+    // CSOFF: VisibilityModifier
+    @Param({"100", "2000"})
+    public int numSamples;
+    // CSON: VisibilityModifier
+
+    private DocumentToSamplesConverter converter;
+    private int studyId;
+    private LinkedHashSet<String> samplesInFile;
+    private List<StudyEntry> studyEntries;
+    private List<Document> documents;
+
+    @Setup
+    public void setup() throws StorageEngineException {
+        Random random = new Random(SyntheticVariants.SEED);
+        VariantStorageMetadataManager metadataManager = SyntheticStudies.newMetadataManager(1, numSamples);
+        studyId = metadataManager.getStudyId(SyntheticStudies.STUDY_NAME);
+        metadataManager.updateStudyMetadata(studyId, s -> {
+            s.getAttributes().put(DEFAULT_GENOTYPE.key(), "0/0");
+            return s;
+        });
+        int fileId = metadataManager.getIndexedFiles(studyId).iterator().next();
+
+        VariantQueryProjection projection = new VariantQueryProjectionParser(metadataManager)
+                .parseVariantQueryProjection(new Query(), new QueryOptions());
+        converter = new DocumentToSamplesConverter(metadataManager, projection);
+
+        samplesInFile = new LinkedHashSet<>(SyntheticVariants.sampleNames(numSamples));
+        studyEntries = new ArrayList<>(NUM_VARIANTS);
+        documents = new ArrayList<>(NUM_VARIANTS);
+        for (int i = 0; i < NUM_VARIANTS; i++) {
+            StudyEntry studyEntry = new StudyEntry(String.valueOf(studyId), Collections.emptyList(), Collections.singletonList("GT"));
+            for (String sample : samplesInFile) {
+                studyEntry.addSampleData(sample, Collections.singletonList(SyntheticVariants.genotype(0.9, random)));
+            }
+            studyEntries.add(studyEntry);
+
+            Document document = converter.convertToStorageType(studyEntry, studyId, new Document(), samplesInFile);
+            document.append(FILES_FIELD, Collections.singletonList(new Document(FILEID_FIELD, fileId)));
+            documents.add(document);
+        }
+    }
+
+    @Benchmark
+    public void convertToDataModelType(Blackhole blackhole) {
+        for (Document document : documents) {
+            blackhole.consume(converter.convertToDataModelType(document, studyId));
+        }
+    }
+
+    @Benchmark
+    public void convertToStorageType(Blackhole blackhole) {
+        for (StudyEntry studyEntry : studyEntries) {
+            blackhole.consume(converter.convertToStorageType(studyEntry, studyId, new Document(), samplesInFile));
+        }
+    }
+
+}
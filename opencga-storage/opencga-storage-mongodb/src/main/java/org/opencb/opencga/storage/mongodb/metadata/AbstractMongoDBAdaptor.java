@@ -46,7 +46,7 @@ public class AbstractMongoDBAdaptor<T> {
         this.collection = getCollection(this.collectionName);
         converter = new GenericDocumentComplexConverter<>(clazz);
         converter.getObjectMapper().configure(MapperFeature.REQUIRE_SETTERS_FOR_GETTERS, true);
-        mongoLock = new MongoLockManager(collection, "_lock");
+        mongoLock = new MongoLockManager(collection, "_lock", db.getDatabaseName() + "." + collectionName);
     }
 
     protected MongoDBCollection getCollection(String collectionName) {
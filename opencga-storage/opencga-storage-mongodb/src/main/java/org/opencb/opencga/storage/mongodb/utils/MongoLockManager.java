@@ -21,12 +21,12 @@ import com.mongodb.DuplicateKeyException;
 import com.mongodb.MongoWriteException;
 import com.mongodb.ReadPreference;
 import com.mongodb.WriteConcern;
-import org.apache.commons.lang3.time.StopWatch;
 import org.bson.Document;
 import org.bson.conversions.Bson;
 import org.opencb.commons.datastore.core.QueryOptions;
 import org.opencb.commons.datastore.mongodb.MongoDBCollection;
 import org.opencb.opencga.storage.core.metadata.models.Lock;
+import org.opencb.opencga.storage.core.utils.LockWaitQueue;
 
 import java.util.Calendar;
 import java.util.Date;
@@ -58,13 +58,25 @@ public class MongoLockManager {
     private final String lockWriteField;
 
     private final MongoDBCollection collection;
+    private final String namespace;
 
     public MongoLockManager(MongoDBCollection collection) {
         this(collection, LOCK_FIELD);
     }
 
     public MongoLockManager(MongoDBCollection collection, String lockField) {
+        this(collection, lockField, "collection@" + Integer.toHexString(System.identityHashCode(collection)));
+    }
+
+    /**
+     * @param collection Collection with the documents to lock
+     * @param lockField  Field to store the lock
+     * @param namespace  Unique name of the collection, e.g. "database.collection". Threads waiting for the same lock
+     *                   are coordinated within the JVM. See {@link LockWaitQueue}
+     */
+    public MongoLockManager(MongoDBCollection collection, String lockField, String namespace) {
         this.collection = collection;
+        this.namespace = namespace;
         this.collection.withReadPreference(ReadPreference.primary())
                 .withWriteConcern(WriteConcern.ACKNOWLEDGED);
         lockWriteField = lockField + '.' + WRITE_FIELD;
@@ -99,27 +111,16 @@ public class MongoLockManager {
             // See https://jira.mongodb.org/browse/SERVER-14322
         }
 
-        StopWatch watch = new StopWatch();
-        watch.start();
-        long modifiedCount;
-        Date date;
-        do {
-            date = new Date(Calendar.getInstance().getTimeInMillis() + lockDuration);
+        Date date = LockWaitQueue.acquire(getLockId(id), () -> {
+            Date expiration = new Date(Calendar.getInstance().getTimeInMillis() + lockDuration);
             Date now = Calendar.getInstance().getTime();
 
             Bson query = and(eq("_id", id), or(eq(lockWriteField, null), lt(lockWriteField, now)));
-            Bson update = combine(set(lockWriteField, date));
+            Bson update = combine(set(lockWriteField, expiration));
 
-            modifiedCount = collection.update(query, update, null).getNumUpdated();
-
-            if (modifiedCount != 1) {
-                Thread.sleep(100);
-                //Check if the lock is still valid
-                if (watch.getTime() > timeout) {
-                    throw new TimeoutException("Unable to get the lock");
-                }
-            }
-        } while (modifiedCount == 0);
+            long modifiedCount = collection.update(query, update, null).getNumUpdated();
+            return modifiedCount == 1 ? expiration : null;
+        }, timeout);
 
         long lockToken = date.getTime();
         return new Lock(THREAD_POOL, ((int) (lockDuration / 4)), lockToken) {
@@ -172,6 +173,10 @@ public class MongoLockManager {
         if (matchedCount == 0) {
             throw new IllegalStateException("Lock token " + lockToken + " not found!");
         }
+        LockWaitQueue.released(getLockId(id));
     }
 
+    private String getLockId(Object id) {
+        return namespace + '.' + lockWriteField + '/' + id;
+    }
 }